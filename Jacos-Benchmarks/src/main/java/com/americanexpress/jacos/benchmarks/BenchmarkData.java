@@ -0,0 +1,119 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.benchmarks;
+
+import com.americanexpress.jacos.utils.CommonUtils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Generates csv data shaped like Salesforce loads: an Id and a name column, then custom fields, a
+ * few of them with commas, quotes or line breaks. The data only depends on the seed.
+ */
+final class BenchmarkData {
+
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789 ";
+
+    private BenchmarkData() {
+    }
+
+    static String[] header(int columns) {
+        String[] header = new String[columns];
+        header[0] = "Id";
+        if (columns > 1) {
+            header[1] = "Name";
+        }
+        for (int i = 2; i < columns; i++) {
+            header[i] = "Field" + i + "__c";
+        }
+        return header;
+    }
+
+    static String[] row(Random random, int columns, int fieldWidth) {
+        String[] row = new String[columns];
+        row[0] = String.format("001%015d", Math.abs(random.nextLong() % 1_000_000_000_000_000L));
+        for (int i = 1; i < columns; i++) {
+            row[i] = field(random, fieldWidth);
+        }
+        return row;
+    }
+
+    private static String field(Random random, int fieldWidth) {
+        StringBuilder field = new StringBuilder(fieldWidth);
+        for (int i = 0; i < fieldWidth; i++) {
+            field.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        int special = random.nextInt(20);
+        if (special == 0) {
+            field.setCharAt(fieldWidth / 2, ',');
+        } else if (special == 1) {
+            field.setCharAt(fieldWidth / 2, '"');
+        } else if (special == 2) {
+            field.setCharAt(fieldWidth / 2, '\n');
+        }
+        return field.toString();
+    }
+
+    static String[][] rows(long seed, int rows, int columns, int fieldWidth) {
+        Random random = new Random(seed);
+        String[][] data = new String[rows][];
+        for (int i = 0; i < rows; i++) {
+            data[i] = row(random, columns, fieldWidth);
+        }
+        return data;
+    }
+
+    /**
+     * @return csv lines without line breaks in the values, for the line based readers
+     */
+    static byte[] singleLineCsv(long seed, int rows, int columns, int fieldWidth) {
+        StringBuilder csv = new StringBuilder(CommonUtils.csvEncode(header(columns))).append('\n');
+        for (String[] row : rows(seed, rows, columns, fieldWidth)) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = CommonUtils.removeNewLine(row[i]);
+            }
+            csv.append(CommonUtils.csvEncode(row)).append('\n');
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a csv file of about the given size.
+     */
+    static Path csvFile(long seed, long sizeInBytes, int columns, int fieldWidth) throws IOException {
+        Path file = Files.createTempFile("jacos-benchmark-", ".csv");
+        Random random = new Random(seed);
+        long written = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            String header = CommonUtils.csvEncode(header(columns));
+            writer.write(header);
+            writer.write('\n');
+            written += header.length() + 1;
+            while (written < sizeInBytes) {
+                String line = CommonUtils.csvEncode(row(random, columns, fieldWidth));
+                writer.write(line);
+                writer.write('\n');
+                written += line.length() + 1;
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.benchmarks;
+
+import com.americanexpress.jacos.model.CompositeAPIRequest;
+import com.americanexpress.jacos.part.CompositeUpdateReqFileSerializer;
+import com.americanexpress.jacos.utils.CommonUtils;
+import com.americanexpress.jacos.utils.CompositeAPIReqObjConverter;
+import com.americanexpress.jacos.utils.Json;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The sObject collection path of a part load, one batch of
+ * {@value CompositeUpdateReqFileSerializer#DEF_BUFFER_SIZE} records at a time: converting the records,
+ * encoding the batch to json, and the whole file serializer over <code>rows</code> records.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompositeSerializerBenchmark {
+
+    private static final String OBJECT_TYPE = "Account";
+
+    @Param({"10", "50", "200"})
+    private int columns;
+
+    @Param({"20"})
+    private int fieldWidth;
+
+    @Param({"10000"})
+    private int rows;
+
+    private String[][] batch;
+
+    private CompositeAPIReqObjConverter converter;
+
+    private CompositeAPIRequest request;
+
+    private byte[] file;
+
+    @Setup
+    public void setUp() {
+        batch = BenchmarkData.rows(42, CompositeUpdateReqFileSerializer.DEF_BUFFER_SIZE, columns, fieldWidth);
+        converter = new CompositeAPIReqObjConverter(BenchmarkData.header(columns), OBJECT_TYPE);
+        request = new CompositeAPIRequest();
+        request.setRecords(convert());
+        file = BenchmarkData.singleLineCsv(42, rows, columns, fieldWidth);
+    }
+
+    private CompositeAPIRequest.Record[] convert() {
+        CompositeAPIRequest.Record[] records = new CompositeAPIRequest.Record[batch.length];
+        for (int i = 0; i < batch.length; i++) {
+            records[i] = converter.apply(batch[i]);
+        }
+        return records;
+    }
+
+    @Benchmark
+    public CompositeAPIRequest.Record[] convertBatch() {
+        return convert();
+    }
+
+    @Benchmark
+    public String jsonEncodeBatch() {
+        return Json.encode(request);
+    }
+
+    @Benchmark
+    public void serializeFile(Blackhole blackhole) throws IOException {
+        try (CompositeUpdateReqFileSerializer serializer = new CompositeUpdateReqFileSerializer(new ByteArrayInputStream(file),
+                CompositeUpdateReqFileSerializer.DEF_BUFFER_SIZE, CommonUtils::csvDecode, OBJECT_TYPE)) {
+            while (serializer.hasNext()) {
+                blackhole.consume(serializer.next());
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.benchmarks;
+
+import com.americanexpress.jacos.bulkv2.csv.CsvChunker;
+import com.americanexpress.jacos.constants.ApplicationConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splitting a bulk file into upload chunks of <code>chunkSizeInMB</code>. The file is written once
+ * per trial and stays in the page cache, so this measures the chunker rather than the disk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CsvChunkerBenchmark {
+
+    @Param({"10", "100"})
+    private int fileSizeInMB;
+
+    @Param({"10", "50"})
+    private int columns;
+
+    @Param({"20"})
+    private int fieldWidth;
+
+    @Param({"10"})
+    private int chunkSizeInMB;
+
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = BenchmarkData.csvFile(42, (long) fileSizeInMB * ApplicationConstants.MB, columns, fieldWidth);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public void chunkFile(Blackhole blackhole) throws IOException {
+        try (CsvChunker chunker = new CsvChunker(file.toString(), chunkSizeInMB * ApplicationConstants.MB,
+                ApplicationConstants.DEF_MAX_RECORDS_PER_CHUNK)) {
+            while (chunker.hasNext()) {
+                blackhole.consume(chunker.next());
+            }
+        }
+    }
+}
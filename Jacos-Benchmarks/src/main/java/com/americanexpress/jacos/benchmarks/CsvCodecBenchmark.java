@@ -0,0 +1,70 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.benchmarks;
+
+import com.americanexpress.jacos.utils.CommonUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CommonUtils.csvDecode and csvEncode of one record, they run once per record of a part load.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvCodecBenchmark {
+
+    @Param({"10", "50", "200"})
+    private int columns;
+
+    @Param({"10", "100"})
+    private int fieldWidth;
+
+    private String[] fields;
+
+    private String line;
+
+    @Setup
+    public void setUp() {
+        fields = BenchmarkData.row(new Random(42), columns, fieldWidth);
+        line = CommonUtils.csvEncode(fields);
+    }
+
+    @Benchmark
+    public String[] csvDecode() {
+        return CommonUtils.csvDecode(line);
+    }
+
+    @Benchmark
+    public String csvEncode() {
+        return CommonUtils.csvEncode(fields);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.benchmarks;
+
+import com.americanexpress.jacos.bulkv2.Bulk2ClientBuilderJacos;
+import com.americanexpress.jacos.bulkv2.Bulk2ClientJacos;
+import com.americanexpress.jacos.bulkv2.type.OperationEnumJacos;
+import com.americanexpress.jacos.exception.PartApiException;
+import com.americanexpress.jacos.mockserver.MockSalesforceServer;
+import com.americanexpress.jacos.part.PartClient;
+import com.americanexpress.jacos.part.PartClientBuilder;
+import com.americanexpress.jacos.utils.Json;
+import endolabs.salesforce.bulkv2.response.CreateJobResponse;
+import endolabs.salesforce.bulkv2.response.GetJobInfoResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Both clients against the embedded {@link MockSalesforceServer}, each response delayed by
+ * <code>latencyMillis</code>: a whole bulk job (create, upload, close, poll, delete) of
+ * <code>records</code> records, and one sObject collection insert of
+ * {@value #COMPOSITE_BATCH_SIZE} records. The server stats are printed after each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class EndToEndBenchmark {
+
+    private static final int COMPOSITE_BATCH_SIZE = 200;
+
+    @Param({"0", "20"})
+    private long latencyMillis;
+
+    @Param({"10000"})
+    private int records;
+
+    @Param({"10"})
+    private int columns;
+
+    @Param({"20"})
+    private int fieldWidth;
+
+    private MockSalesforceServer server;
+
+    private Bulk2ClientJacos<?> bulk2Client;
+
+    private PartClient<?> partClient;
+
+    private byte[] csv;
+
+    private String compositeRequest;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = new MockSalesforceServer(42).useLatency(latencyMillis, 0).start();
+        bulk2Client = new Bulk2ClientBuilderJacos()
+                .withSessionId(server.issueToken(), server.getInstanceUrl())
+                .useAPIVersion("v47.0")
+                .build();
+        partClient = new PartClientBuilder<>()
+                .withSessionId(server.issueToken(), server.getInstanceUrl())
+                .useAPIVersion("v47.0")
+                .build();
+        csv = BenchmarkData.singleLineCsv(42, records, columns, fieldWidth);
+
+        String[] header = BenchmarkData.header(columns);
+        List<Map<String, Object>> batch = new ArrayList<>();
+        for (String[] row : BenchmarkData.rows(42, COMPOSITE_BATCH_SIZE, columns, fieldWidth)) {
+            Map<String, Object> record = new LinkedHashMap<>();
+            record.put("attributes", Collections.singletonMap("type", "Account"));
+            // Id left out, the records are inserted
+            for (int i = 1; i < row.length; i++) {
+                record.put(header[i], row[i]);
+            }
+            batch.add(record);
+        }
+        Map<String, Object> request = new HashMap<>();
+        request.put("allOrNone", false);
+        request.put("records", batch);
+        compositeRequest = Json.encode(request);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        System.out.println();
+        System.out.println(server.getStats());
+        server.close();
+    }
+
+    @Benchmark
+    public GetJobInfoResponse bulkJob() {
+        CreateJobResponse job = bulk2Client.createJob("Account", OperationEnumJacos.INSERT, null);
+        bulk2Client.uploadJobData(job.getId(), csv);
+        bulk2Client.closeJob(job.getId());
+        GetJobInfoResponse info = bulk2Client.getJobInfo(job.getId());
+        while (!info.getState().isFinished()) {
+            info = bulk2Client.getJobInfo(job.getId());
+        }
+        bulk2Client.deleteJob(job.getId());
+        return info;
+    }
+
+    @Benchmark
+    public String compositeInsert() throws PartApiException {
+        return partClient.modifyObject("Account", OperationEnumJacos.MULTIINSERT, compositeRequest);
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.benchmarks;
+
+import com.americanexpress.jacos.bulkv2.type.OperationEnumJacos;
+import com.americanexpress.jacos.exception.PartApiException;
+import com.americanexpress.jacos.part.PartClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.AbstractClientHttpRequest;
+import org.springframework.http.client.AbstractClientHttpResponse;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one part client call once <code>previousCalls</code> calls were made, against an in-memory
+ * request factory so that only the client itself is measured. The time per call should not depend
+ * on the number of previous calls; the number of message converters of the template is printed
+ * after each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PartClientBenchmark {
+
+    private static final String PAYLOAD = "{\"Name\":\"Acme\",\"Industry\":\"Banking\",\"NumberOfEmployees\":42}";
+
+    @Param({"0", "1000000"})
+    private int previousCalls;
+
+    private RestTemplate restTemplate;
+
+    private PartClient<Void> partClient;
+
+    @Setup
+    public void setUp() throws PartApiException {
+        restTemplate = new RestTemplate(new InMemoryRequestFactory());
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("Authorization", "Bearer token");
+        partClient = new PartClient<>("https://example.my.salesforce.com", restTemplate, headers, null, null, "v47.0");
+        for (int i = 0; i < previousCalls; i++) {
+            insert();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.println();
+        System.out.println("Message converters: " + restTemplate.getMessageConverters().size());
+    }
+
+    @Benchmark
+    public String insert() throws PartApiException {
+        return partClient.modifyObject("Account", OperationEnumJacos.INSERT, PAYLOAD);
+    }
+
+    /**
+     * Answers every request with 201 Created without any I/O
+     */
+    private static class InMemoryRequestFactory implements ClientHttpRequestFactory {
+
+        private static final byte[] CREATED = "{\"id\":\"001000000000001AAA\",\"success\":true,\"errors\":[]}".getBytes();
+
+        @Override
+        public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) {
+            return new AbstractClientHttpRequest() {
+
+                private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+                @Override
+                public String getMethodValue() {
+                    return httpMethod.name();
+                }
+
+                @Override
+                public URI getURI() {
+                    return uri;
+                }
+
+                @Override
+                protected OutputStream getBodyInternal(HttpHeaders headers) {
+                    return body;
+                }
+
+                @Override
+                protected ClientHttpResponse executeInternal(HttpHeaders headers) {
+                    return new AbstractClientHttpResponse() {
+
+                        @Override
+                        public int getRawStatusCode() {
+                            return HttpStatus.CREATED.value();
+                        }
+
+                        @Override
+                        public String getStatusText() {
+                            return HttpStatus.CREATED.getReasonPhrase();
+                        }
+
+                        @Override
+                        public void close() {
+                        }
+
+                        @Override
+                        public InputStream getBody() {
+                            return new ByteArrayInputStream(CREATED);
+                        }
+
+                        @Override
+                        public HttpHeaders getHeaders() {
+                            HttpHeaders responseHeaders = new HttpHeaders();
+                            responseHeaders.setContentLength(CREATED.length);
+                            return responseHeaders;
+                        }
+                    };
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2;
+
+import com.americanexpress.jacos.commons.AccessTokenProvider;
+import okhttp3.Authenticator;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.Route;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+/**
+ * <p>
+ * Reacts to a 401 (INVALID_SESSION_ID) of Salesforce: refreshes the token once through the
+ * {@link AccessTokenProvider} and replays the request with it, so callers never see the expiry.
+ * </p>
+ * <p>
+ * A request is not replayed when its body was streamed from a source which is already consumed,
+ * or when the replay was rejected too.
+ * </p>
+ */
+public class AccessTokenAuthenticator implements Authenticator {
+
+    private static final Logger log = LoggerFactory.getLogger(AccessTokenAuthenticator.class);
+
+    static final String AUTHORIZATION = "Authorization";
+
+    static final String BEARER = "Bearer ";
+
+    private final AccessTokenProvider tokenProvider;
+
+    private final BulkMetrics metrics;
+
+    public AccessTokenAuthenticator(AccessTokenProvider tokenProvider) {
+        this(tokenProvider, BulkMetrics.noop());
+    }
+
+    public AccessTokenAuthenticator(AccessTokenProvider tokenProvider, BulkMetrics metrics) {
+        this.tokenProvider = tokenProvider;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Request authenticate(Route route, Response response) throws IOException {
+        Request request = response.request();
+        if (!tokenProvider.canRefresh()) {
+            return null;
+        }
+        if (response.priorResponse() != null) {
+            log.warn("Request to {} rejected again after a token refresh", request.url());
+            return null;
+        }
+        if (!isReplayable(request.body())) {
+            log.warn("Request to {} rejected with an expired token, its streamed body can not be replayed", request.url());
+            return null;
+        }
+        String header = request.header(AUTHORIZATION);
+        String rejectedToken = header != null && header.startsWith(BEARER) ? header.substring(BEARER.length()) : null;
+        String token;
+        try {
+            token = tokenProvider.refresh(rejectedToken);
+            metrics.tokenRefreshed(true);
+        } catch (RuntimeException e) {
+            metrics.tokenRefreshed(false);
+            throw new IOException("Failed to refresh the access token", e);
+        }
+        return request.newBuilder()
+                .header(AUTHORIZATION, BEARER + token)
+                .build();
+    }
+
+    static boolean isReplayable(RequestBody body) {
+        if (body instanceof GzipRequestInterceptor.GzipRequestBody) {
+            return isReplayable(((GzipRequestInterceptor.GzipRequestBody) body).getBody());
+        }
+        if (body instanceof WireLoggingInterceptor.CapturingRequestBody) {
+            return isReplayable(((WireLoggingInterceptor.CapturingRequestBody) body).getBody());
+        }
+        return !(body instanceof StreamingRequestBody) || !((StreamingRequestBody) body).isConsumed();
+    }
+}
@@ -15,10 +15,13 @@
 
 package com.americanexpress.jacos.bulkv2;
 
+import com.americanexpress.jacos.commons.AccessTokenProvider;
 import com.americanexpress.jacos.commons.RefreshTokenCallback;
+import com.americanexpress.jacos.commons.WireLogPolicy;
 import com.americanexpress.jacos.utils.Json;
 import endolabs.salesforce.bulkv2.AccessToken;
 import endolabs.salesforce.bulkv2.BulkRequestException;
+import io.micrometer.core.instrument.MeterRegistry;
 import okhttp3.*;
 import okhttp3.logging.HttpLoggingInterceptor;
 import org.slf4j.Logger;
@@ -60,6 +63,20 @@
 
     private Integer timeout;
 
+    private boolean useGzipCompression;
+
+    private AccessTokenProvider accessTokenProvider;
+
+    private OkHttpClient baseClient;
+
+    private Integer maxRequests;
+
+    private WireLogPolicy wireLogPolicy = new WireLogPolicy();
+
+    private MeterRegistry meterRegistry;
+
+    private boolean refreshWithSupplier;
+
     private RefreshTokenCallback<T> refreshTokenCallBack;
     private T configBean;
 
@@ -87,6 +104,7 @@ public Bulk2ClientBuilderJacos setCallbackConfigBean(T configBean) {
      */
     public Bulk2ClientBuilderJacos withPassword(String consumerKey, String consumerSecret, String username, String password) {
         this.accessTokenSupplier = () -> this.getAccessTokenUsingPassword(consumerKey, consumerSecret, username, password);
+        this.refreshWithSupplier = true;
 
         return this;
     }
@@ -100,6 +118,7 @@ public Bulk2ClientBuilderJacos withPassword(String consumerKey, String consumerS
      * @return
      */
     public Bulk2ClientBuilderJacos withSessionId(String token, String instanceUrl) {
+        this.refreshWithSupplier = false;
         this.accessTokenSupplier = () -> {
             AccessToken accessToken = new AccessToken();
             accessToken.setAccessToken(token);
@@ -110,6 +129,34 @@ public Bulk2ClientBuilderJacos withSessionId(String token, String instanceUrl) {
         return this;
     }
 
+    /**
+     * +
+     * Reads the access token from the provider for every request, so the token can be rotated
+     * without building a new client. If the provider can refresh the token, requests rejected with
+     * 401 are replayed once with a refreshed token.
+     *
+     * @param accessTokenProvider
+     * @param instanceUrl
+     * @return
+     */
+    public Bulk2ClientBuilderJacos withAccessTokenProvider(AccessTokenProvider accessTokenProvider, String instanceUrl) {
+        this.accessTokenProvider = accessTokenProvider;
+        return withSessionId(accessTokenProvider.getAccessToken(), instanceUrl);
+    }
+
+    /**
+     * +
+     * Derives the http client from the given one with newBuilder(), so all the clients built from it
+     * share its connection pool and dispatcher threads.
+     *
+     * @param baseClient
+     * @return
+     */
+    public Bulk2ClientBuilderJacos useHttpClient(OkHttpClient baseClient) {
+        this.baseClient = baseClient;
+        return this;
+    }
+
     /**
      * +
      * Updates the refresh toke with latest refresh token
@@ -171,6 +218,60 @@ public Request authenticate(Route route, Response response) throws IOException {
     }
 
 
+    /**
+     * +
+     * Compresses the request bodies (job data uploads included) with gzip while they are sent.
+     * Responses are always requested and decompressed with gzip by OkHttp.
+     *
+     * @return
+     */
+    public Bulk2ClientBuilderJacos useGzipCompression() {
+        this.useGzipCompression = true;
+        return this;
+    }
+
+    /**
+     * +
+     * Caps the requests running at the same time, asynchronous calls beyond it wait in the dispatcher
+     * queue. All the bulk requests go to one host, so the cap also applies per host, where OkHttp
+     * otherwise runs only 5 requests at a time.
+     *
+     * @param maxRequests
+     * @return
+     */
+    public Bulk2ClientBuilderJacos useMaxRequests(int maxRequests) {
+        if (maxRequests < 1) {
+            throw new IllegalArgumentException("Max requests should not be less than 1:" + maxRequests);
+        }
+        this.maxRequests = maxRequests;
+        return this;
+    }
+
+    /**
+     * +
+     * Sets what is logged about each request, by default the request line, status and headers with
+     * the Authorization header redacted.
+     *
+     * @param wireLogPolicy
+     * @return
+     */
+    public Bulk2ClientBuilderJacos useWireLogPolicy(WireLogPolicy wireLogPolicy) {
+        this.wireLogPolicy = wireLogPolicy;
+        return this;
+    }
+
+    /**
+     * +
+     * Records the bulk metrics (see BulkMetrics) in the registry, nothing is recorded by default.
+     *
+     * @param meterRegistry
+     * @return
+     */
+    public Bulk2ClientBuilderJacos useMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        return this;
+    }
+
     public Bulk2ClientBuilderJacos useTimeout(Integer timeout) {
 
         this.timeout = timeout;
@@ -188,34 +289,41 @@ public Bulk2ClientJacos build()
             throws IOException {
         AccessToken token = accessTokenSupplier.get();
 
-        OkHttpClient client = useProxy ? (bypassProxyAuthentication ?
-                new OkHttpClient.Builder()
-                        .proxy(proxy)
-                        .addInterceptor(authorizationInterceptor(token.getAccessToken()))
-                        .addInterceptor(httpLoggingInterceptor(HttpLoggingInterceptor.Level.BODY))
-                        .connectTimeout(timeout, TimeUnit.MILLISECONDS)
-                        .readTimeout(timeout, TimeUnit.MILLISECONDS)
-                        .writeTimeout(timeout, TimeUnit.MILLISECONDS)
-                        .build() :
-                new OkHttpClient.Builder()
-                        .proxy(proxy)
-                        .proxyAuthenticator(proxyAuthenticator)
-                        .addInterceptor(authorizationInterceptor(token.getAccessToken()))
-                        .addInterceptor(httpLoggingInterceptor(HttpLoggingInterceptor.Level.BODY))
-                        .connectTimeout(timeout, TimeUnit.MILLISECONDS)
-                        .readTimeout(timeout, TimeUnit.MILLISECONDS)
-                        .writeTimeout(timeout, TimeUnit.MILLISECONDS)
-                        .build()) :
-                new OkHttpClient.Builder()
-                        .addInterceptor(authorizationInterceptor(token.getAccessToken()))
-                        .addInterceptor(httpLoggingInterceptor(HttpLoggingInterceptor.Level.BODY))
-                        .connectTimeout(timeout, TimeUnit.MILLISECONDS)
-                        .readTimeout(timeout, TimeUnit.MILLISECONDS)
-                        .writeTimeout(timeout, TimeUnit.MILLISECONDS)
-
-                        .build();
-
-        return new Bulk2ClientJacos(new RestRequesterJacos(client), token.getInstanceUrl(), apiVersion, configBean, refreshTokenCallBack);
+        AccessTokenProvider tokenProvider = accessTokenProvider != null ? accessTokenProvider
+                : new AccessTokenProvider(token.getAccessToken(), refreshWithSupplier ? () -> accessTokenSupplier.get().getAccessToken() : null);
+
+        BulkMetrics metrics = meterRegistry != null ? new BulkMetrics(meterRegistry) : BulkMetrics.noop();
+
+        OkHttpClient.Builder clientBuilder = baseClient != null ? baseClient.newBuilder() : new OkHttpClient.Builder();
+        if (maxRequests != null) {
+            Dispatcher dispatcher = new Dispatcher();
+            dispatcher.setMaxRequests(maxRequests);
+            dispatcher.setMaxRequestsPerHost(maxRequests);
+            clientBuilder.dispatcher(dispatcher);
+        }
+        if (useProxy) {
+            clientBuilder.proxy(proxy);
+            if (!bypassProxyAuthentication) {
+                clientBuilder.proxyAuthenticator(proxyAuthenticator);
+            }
+        }
+        clientBuilder.addInterceptor(authorizationInterceptor(tokenProvider))
+                .authenticator(new AccessTokenAuthenticator(tokenProvider, metrics));
+        if (wireLogPolicy.logsHeaders()) {
+            // ahead of the compression so the logged body is readable
+            clientBuilder.addInterceptor(new WireLoggingInterceptor(wireLogPolicy));
+        }
+        if (useGzipCompression) {
+            clientBuilder.addInterceptor(new GzipRequestInterceptor());
+        }
+        if (timeout != null) {
+            clientBuilder.connectTimeout(timeout, TimeUnit.MILLISECONDS)
+                    .readTimeout(timeout, TimeUnit.MILLISECONDS)
+                    .writeTimeout(timeout, TimeUnit.MILLISECONDS);
+        }
+        OkHttpClient client = clientBuilder.build();
+
+        return new Bulk2ClientJacos(new RestRequesterJacos(client), token.getInstanceUrl(), apiVersion, configBean, refreshTokenCallBack, metrics);
     }
 
     private AccessToken getAccessTokenUsingPassword(String consumerKey, String consumerSecret, String username, String password) {
@@ -254,10 +362,10 @@ private AccessToken getAccessTokenUsingPassword(String consumerKey, String consu
         }
     }
 
-    private Interceptor authorizationInterceptor(String token) {
+    private Interceptor authorizationInterceptor(AccessTokenProvider tokenProvider) {
         return chain -> {
             Request request = chain.request().newBuilder()
-                    .addHeader("Authorization", "Bearer " + token)
+                    .header(AccessTokenAuthenticator.AUTHORIZATION, AccessTokenAuthenticator.BEARER + tokenProvider.getAccessToken())
                     .build();
             return chain.proceed(request);
         };
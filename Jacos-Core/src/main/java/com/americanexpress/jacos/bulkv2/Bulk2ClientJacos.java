@@ -15,8 +15,15 @@
 
 package com.americanexpress.jacos.bulkv2;
 
+import com.americanexpress.jacos.bulkv2.query.QueryResultReader;
 import com.americanexpress.jacos.bulkv2.request.CreateJobRequestJacos;
+import com.americanexpress.jacos.bulkv2.request.CreateQueryJobRequest;
+import com.americanexpress.jacos.bulkv2.response.IngestJobInfo;
+import com.americanexpress.jacos.bulkv2.response.JobResultReader;
+import com.americanexpress.jacos.bulkv2.response.QueryJobInfo;
+import com.americanexpress.jacos.bulkv2.response.QueryResultPage;
 import com.americanexpress.jacos.bulkv2.type.OperationEnumJacos;
+import com.americanexpress.jacos.bulkv2.type.QueryOperationEnum;
 import com.americanexpress.jacos.commons.RefreshTokenCallback;
 
 import endolabs.salesforce.bulkv2.request.CloseOrAbortJobRequest;
@@ -25,12 +32,25 @@
 
 import endolabs.salesforce.bulkv2.response.*;
 import endolabs.salesforce.bulkv2.type.JobStateEnum;
+import io.micrometer.core.instrument.Tags;
+import okio.Buffer;
+import okio.ForwardingSource;
+import okio.Okio;
+import okio.Source;
+import okio.Utf8;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.function.Consumer;
+import java.util.function.LongSupplier;
 
 /**
  * +
@@ -55,14 +75,26 @@
     private RefreshTokenCallback<T> refreshTokenCallBack;
     private T configBean;
 
+    private final BulkMetrics metrics;
+
     public Bulk2ClientJacos(RestRequesterJacos requester, String instanceUrl, String apiVersion, T configBean,
                             RefreshTokenCallback<T> refreshTokenCallBack) {
+        this(requester, instanceUrl, apiVersion, configBean, refreshTokenCallBack, BulkMetrics.noop());
+    }
+
+    public Bulk2ClientJacos(RestRequesterJacos requester, String instanceUrl, String apiVersion, T configBean,
+                            RefreshTokenCallback<T> refreshTokenCallBack, BulkMetrics metrics) {
 
         this.instanceUrl = instanceUrl;
         this.requester = requester;
         this.API_VERSION = apiVersion;
         this.configBean = configBean;
         this.refreshTokenCallBack = refreshTokenCallBack;
+        this.metrics = metrics;
+    }
+
+    public BulkMetrics getMetrics() {
+        return metrics;
     }
 
     public CreateJobResponse createJob(String object, OperationEnumJacos operation, String externalIdFieldName) {
@@ -78,7 +110,21 @@ public CreateJobResponse createJob(String object, OperationEnumJacos operation,
             builder.withExternalIdFieldName(externalIdFieldName);
         }
         requestBuilder.accept(builder);
-        return requester.post(url, builder.build(), CreateJobResponse.class);
+        CreateJobRequestJacos request = builder.build();
+        Tags tags = BulkMetrics.tags(object, operation.toJsonValue());
+        CreateJobResponse response = metrics.record("createJob", tags, () -> requester.post(url, request, CreateJobResponse.class));
+        if (request.hasContent()) {
+            metrics.uploaded(tags, contentSize(request));
+        } else {
+            metrics.jobCreated(response == null ? null : response.getId(), tags);
+        }
+        return response;
+    }
+
+    static long contentSize(CreateJobRequestJacos request) {
+        return request.getContent() != null ? Utf8.size(request.getContent())
+                : request.getContentBytes() != null ? request.getContentBytes().length
+                : request.getContentFile().length();
     }
 
     public CloseOrAbortJobResponse closeOrAbortJob(String jobId, JobStateEnum state) {
@@ -86,19 +132,104 @@ public CloseOrAbortJobResponse closeOrAbortJob(String jobId, JobStateEnum state)
 
         CloseOrAbortJobRequest.Builder builder = new CloseOrAbortJobRequest.Builder(state);
 
-        return requester.patch(url, builder.build(), CloseOrAbortJobResponse.class);
+        try {
+            return metrics.record(state == JobStateEnum.ABORTED ? "abortJob" : "closeJob", metrics.callTags(jobId),
+                    () -> requester.patch(url, builder.build(), CloseOrAbortJobResponse.class));
+        } finally {
+            metrics.jobClosed(jobId);
+        }
     }
 
     public void uploadJobData(String jobId, String csvContent) {
-        String url = buildUrl("/services/data/vXX.X/jobs/ingest/" + jobId + "/batches");
+        upload(jobId, () -> Utf8.size(csvContent), () -> requester.putCsv(buildUploadUrl(jobId), csvContent, Void.class));
+    }
+
+    public void uploadJobData(String jobId, byte[] csvContent) {
+        upload(jobId, () -> csvContent.length, () -> requester.putCsv(buildUploadUrl(jobId), csvContent, Void.class));
+    }
+
+    /**
+     * Streams the job data from the file instead of loading it in memory.
+     */
+    public void uploadJobData(String jobId, File csvFile) {
+        upload(jobId, csvFile::length, () -> requester.putCsv(buildUploadUrl(jobId), csvFile, Void.class));
+    }
+
+    /**
+     * Streams the job data from the file instead of loading it in memory.
+     */
+    public void uploadJobData(String jobId, Path csvFile) {
+        uploadJobData(jobId, csvFile.toFile());
+    }
+
+    /**
+     * Streams the job data as it is read from the stream, which is closed once the upload is done.
+     * The upload can not be replayed.
+     */
+    public void uploadJobData(String jobId, InputStream csvContent) {
+        uploadJobData(jobId, Okio.source(csvContent));
+    }
 
-        requester.putCsv(url, csvContent, Void.class);
+    /**
+     * Streams the job data as it is read from the source, which is closed once the upload is done.
+     * The upload can not be replayed.
+     */
+    public void uploadJobData(String jobId, Source csvContent) {
+        CountingSource source = new CountingSource(csvContent);
+        upload(jobId, source::getCount, () -> requester.putCsv(buildUploadUrl(jobId), source, Void.class));
+    }
+
+    private void upload(String jobId, LongSupplier bytes, Runnable request) {
+        Tags tags = metrics.jobTags(jobId);
+        try {
+            metrics.record("upload", tags, () -> {
+                request.run();
+                return null;
+            });
+        } catch (RuntimeException e) {
+            metrics.jobClosed(jobId);
+            throw e;
+        }
+        metrics.uploaded(tags, bytes.getAsLong());
+    }
+
+    /**
+     * Counts the bytes read from a streamed upload.
+     */
+    static class CountingSource extends ForwardingSource {
+
+        private long count;
+
+        CountingSource(Source delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public long read(Buffer sink, long byteCount) throws IOException {
+            long read = super.read(sink, byteCount);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+
+    private String buildUploadUrl(String jobId) {
+        return buildUrl("/services/data/vXX.X/jobs/ingest/" + jobId + "/batches");
     }
 
     public void deleteJob(String jobId) {
         String url = buildUrl("/services/data/vXX.X/jobs/ingest/" + jobId);
 
-        requester.delete(url, null, Void.class);
+        try {
+            requester.delete(url, null, Void.class);
+        } finally {
+            metrics.jobClosed(jobId);
+        }
     }
 
     public GetAllJobsResponse getAllJobs() {
@@ -115,10 +246,23 @@ public GetAllJobsResponse getAllJobs(Consumer<GetAllJobsRequest.Builder> request
         return requester.get(url, builder.buildParameters(), GetAllJobsResponse.class);
     }
 
+    /**
+     * @return status of the job, an {@link IngestJobInfo}
+     */
     public GetJobInfoResponse getJobInfo(String jobId) {
+        return getIngestJobInfo(jobId);
+    }
+
+    /**
+     * @return status of the job, its operation read by {@link IngestJobInfo#getIngestOperation()} even for hardDelete
+     */
+    public IngestJobInfo getIngestJobInfo(String jobId) {
         String url = buildUrl("/services/data/vXX.X/jobs/ingest/" + jobId);
 
-        return requester.get(url, GetJobInfoResponse.class);
+        IngestJobInfo info = metrics.record("getJobInfo", metrics.callTags(jobId),
+                () -> requester.get(url, IngestJobInfo.class));
+        metrics.jobInfo(info);
+        return info;
     }
 
     public Reader getJobSuccessfulRecordResults(String jobId) {
@@ -139,6 +283,121 @@ public Reader getJobUnprocessedRecordResults(String jobId) {
         return requester.getCsv(url);
     }
 
+    /**
+     * Reads the successful records one by one from the response, the reader must be closed.
+     */
+    public JobResultReader readJobSuccessfulRecords(String jobId) {
+        return new JobResultReader(getJobSuccessfulRecordResults(jobId));
+    }
+
+    /**
+     * Reads the failed records one by one from the response, the reader must be closed.
+     */
+    public JobResultReader readJobFailedRecords(String jobId) {
+        return new JobResultReader(getJobFailedRecordResults(jobId));
+    }
+
+    /**
+     * Reads the unprocessed records one by one from the response, the reader must be closed.
+     */
+    public JobResultReader readJobUnprocessedRecords(String jobId) {
+        return new JobResultReader(getJobUnprocessedRecordResults(jobId));
+    }
+
+    /**
+     * Saves the successful records to a file without loading them in memory.
+     *
+     * @return number of bytes written
+     */
+    public long downloadJobSuccessfulRecordResults(String jobId, Path target) {
+        return requester.download(buildUrl("/services/data/vXX.X/jobs/ingest/" + jobId + "/successfulResults/"), target);
+    }
+
+    /**
+     * Saves the failed records to a file without loading them in memory.
+     *
+     * @return number of bytes written
+     */
+    public long downloadJobFailedRecordResults(String jobId, Path target) {
+        return requester.download(buildUrl("/services/data/vXX.X/jobs/ingest/" + jobId + "/failedResults/"), target);
+    }
+
+    /**
+     * Saves the unprocessed records to a file without loading them in memory.
+     *
+     * @return number of bytes written
+     */
+    public long downloadJobUnprocessedRecordResults(String jobId, Path target) {
+        return requester.download(buildUrl("/services/data/vXX.X/jobs/ingest/" + jobId + "/unprocessedrecords/"), target);
+    }
+
+    public QueryJobInfo createQueryJob(String query) {
+        return createQueryJob(query, QueryOperationEnum.QUERY, request -> {
+        });
+    }
+
+    public QueryJobInfo createQueryJob(String query, QueryOperationEnum operation, Consumer<CreateQueryJobRequest.Builder> requestBuilder) {
+        String url = buildUrl("/services/data/vXX.X/jobs/query");
+
+        CreateQueryJobRequest.Builder builder = new CreateQueryJobRequest.Builder(query, operation);
+        requestBuilder.accept(builder);
+        return requester.post(url, builder.build(), QueryJobInfo.class);
+    }
+
+    public QueryJobInfo getQueryJobInfo(String jobId) {
+        String url = buildUrl("/services/data/vXX.X/jobs/query/" + jobId);
+
+        return requester.get(url, QueryJobInfo.class);
+    }
+
+    public QueryJobInfo abortQueryJob(String jobId) {
+        String url = buildUrl("/services/data/vXX.X/jobs/query/" + jobId);
+
+        return requester.patch(url, new CloseOrAbortJobRequest.Builder(JobStateEnum.ABORTED).build(), QueryJobInfo.class);
+    }
+
+    public void deleteQueryJob(String jobId) {
+        String url = buildUrl("/services/data/vXX.X/jobs/query/" + jobId);
+
+        requester.delete(url, null, Void.class);
+    }
+
+    /**
+     * Opens one page of the results of a query job, the page must be closed.
+     *
+     * @param jobId      id of the query job
+     * @param locator    locator of the page, null for the first page
+     * @param maxRecords records per page, null for the Salesforce default
+     */
+    public QueryResultPage getQueryResultPage(String jobId, String locator, Integer maxRecords) {
+        String url = buildUrl("/services/data/vXX.X/jobs/query/" + jobId + "/results");
+
+        Map<String, String> params = new HashMap<>();
+        if (locator != null) {
+            params.put("locator", locator);
+        }
+        if (maxRecords != null) {
+            params.put("maxRecords", maxRecords.toString());
+        }
+        return requester.getCsvPage(url, params);
+    }
+
+    /**
+     * Reads the records of all the pages of a query job one by one, the reader must be closed.
+     *
+     * @param maxRecords records per page, null for the Salesforce default
+     */
+    public QueryResultReader readQueryResults(String jobId, Integer maxRecords) {
+        return new QueryResultReader(locator -> getQueryResultPage(jobId, locator, maxRecords));
+    }
+
+    /**
+     * Non-blocking view of this client, sharing its http client and access token.
+     */
+    public Bulk2ClientJacosAsync async() {
+        return new Bulk2ClientJacosAsync(requester, instanceUrl, API_VERSION, metrics);
+    }
+
     // alias
 
     public JobInfo closeJob(String jobId) {
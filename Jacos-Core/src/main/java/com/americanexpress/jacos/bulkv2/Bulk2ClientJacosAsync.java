@@ -0,0 +1,229 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2;
+
+import com.americanexpress.jacos.bulkv2.request.CreateJobRequestJacos;
+import com.americanexpress.jacos.bulkv2.response.IngestJobInfo;
+import com.americanexpress.jacos.bulkv2.type.OperationEnumJacos;
+import endolabs.salesforce.bulkv2.request.CloseOrAbortJobRequest;
+import endolabs.salesforce.bulkv2.response.CloseOrAbortJobResponse;
+import endolabs.salesforce.bulkv2.response.CreateJobResponse;
+import endolabs.salesforce.bulkv2.response.GetJobInfoResponse;
+import endolabs.salesforce.bulkv2.type.JobStateEnum;
+import io.micrometer.core.instrument.Tags;
+import okio.Source;
+import okio.Utf8;
+import org.apache.commons.lang3.StringUtils;
+
+import java.nio.file.Path;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * Non-blocking counterpart of {@link Bulk2ClientJacos}. Requests are queued on the OkHttp dispatcher
+ * instead of blocking the calling thread, so many jobs can be driven from a few threads.
+ * </p>
+ * <p>
+ * The futures complete on the OkHttp dispatcher threads: stages chained without an executor run
+ * there and should not block. How many requests run at the same time is set on the dispatcher,
+ * see {@link Bulk2ClientBuilderJacos#useMaxRequests(int)}. Failed requests complete the future with
+ * a {@link endolabs.salesforce.bulkv2.BulkRequestException}; cancelling a future cancels its request.
+ * </p>
+ * <p>
+ * Obtained with {@link Bulk2ClientJacos#async()}, it shares the connections and token of that client.
+ * </p>
+ */
+public class Bulk2ClientJacosAsync {
+
+    private final RestRequesterJacos requester;
+
+    private final String instanceUrl;
+
+    private final String apiVersion;
+
+    private final BulkMetrics metrics;
+
+    public Bulk2ClientJacosAsync(RestRequesterJacos requester, String instanceUrl, String apiVersion) {
+        this(requester, instanceUrl, apiVersion, BulkMetrics.noop());
+    }
+
+    public Bulk2ClientJacosAsync(RestRequesterJacos requester, String instanceUrl, String apiVersion, BulkMetrics metrics) {
+        this.requester = requester;
+        this.instanceUrl = instanceUrl;
+        this.apiVersion = apiVersion;
+        this.metrics = metrics;
+    }
+
+    public CompletableFuture<CreateJobResponse> createJob(String object, OperationEnumJacos operation, String externalIdFieldName) {
+        return createJob(object, operation, externalIdFieldName, (request) -> {
+        });
+    }
+
+    public CompletableFuture<CreateJobResponse> createJob(String object, OperationEnumJacos operation, String externalIdFieldName,
+                                                         Consumer<CreateJobRequestJacos.Builder> requestBuilder) {
+        String url = buildUrl("/services/data/vXX.X/jobs/ingest");
+
+        CreateJobRequestJacos.Builder builder = new CreateJobRequestJacos.Builder(object, operation);
+        if (StringUtils.isNotEmpty(externalIdFieldName)) {
+            builder.withExternalIdFieldName(externalIdFieldName);
+        }
+        requestBuilder.accept(builder);
+        CreateJobRequestJacos request = builder.build();
+        Tags tags = BulkMetrics.tags(object, operation.toJsonValue());
+        CompletableFuture<CreateJobResponse> call = metrics.recordAsync("createJob", tags,
+                () -> requester.postAsync(url, request, CreateJobResponse.class));
+        return cancelling(call, call.thenApply(response -> {
+            if (request.hasContent()) {
+                metrics.uploaded(tags, Bulk2ClientJacos.contentSize(request));
+            } else {
+                metrics.jobCreated(response == null ? null : response.getId(), tags);
+            }
+            return response;
+        }));
+    }
+
+    public CompletableFuture<CloseOrAbortJobResponse> closeOrAbortJob(String jobId, JobStateEnum state) {
+        String url = buildUrl("/services/data/vXX.X/jobs/ingest/" + jobId);
+
+        CompletableFuture<CloseOrAbortJobResponse> call = metrics.recordAsync(state == JobStateEnum.ABORTED ? "abortJob" : "closeJob", metrics.callTags(jobId),
+                () -> requester.patchAsync(url, new CloseOrAbortJobRequest.Builder(state).build(), CloseOrAbortJobResponse.class));
+        return cancelling(call, call.whenComplete((response, e) -> metrics.jobClosed(jobId)));
+    }
+
+    public CompletableFuture<CloseOrAbortJobResponse> closeJob(String jobId) {
+        return closeOrAbortJob(jobId, JobStateEnum.UPLOAD_COMPLETE);
+    }
+
+    public CompletableFuture<CloseOrAbortJobResponse> abortJob(String jobId) {
+        return closeOrAbortJob(jobId, JobStateEnum.ABORTED);
+    }
+
+    public CompletableFuture<Void> uploadJobData(String jobId, String csvContent) {
+        return upload(jobId, () -> Utf8.size(csvContent), () -> requester.putCsvAsync(buildUploadUrl(jobId), csvContent, Void.class));
+    }
+
+    public CompletableFuture<Void> uploadJobData(String jobId, byte[] csvContent) {
+        return upload(jobId, () -> csvContent.length, () -> requester.putCsvAsync(buildUploadUrl(jobId), csvContent, Void.class));
+    }
+
+    /**
+     * Streams the job data from the file instead of loading it in memory.
+     */
+    public CompletableFuture<Void> uploadJobData(String jobId, Path csvFile) {
+        return upload(jobId, () -> csvFile.toFile().length(), () -> requester.putCsvAsync(buildUploadUrl(jobId), csvFile, Void.class));
+    }
+
+    /**
+     * Streams the job data as it is read from the source, which is closed once the upload is done.
+     * The source is read on a dispatcher thread and the upload can not be replayed.
+     */
+    public CompletableFuture<Void> uploadJobData(String jobId, Source csvContent) {
+        Bulk2ClientJacos.CountingSource source = new Bulk2ClientJacos.CountingSource(csvContent);
+        return upload(jobId, source::getCount, () -> requester.putCsvAsync(buildUploadUrl(jobId), source, Void.class));
+    }
+
+    private CompletableFuture<Void> upload(String jobId, LongSupplier bytes, Supplier<CompletableFuture<Void>> request) {
+        Tags tags = metrics.jobTags(jobId);
+        CompletableFuture<Void> call = metrics.recordAsync("upload", tags, request);
+        return cancelling(call, call.whenComplete((response, e) -> {
+            if (e != null) {
+                metrics.jobClosed(jobId);
+            }
+        }).thenRun(() -> metrics.uploaded(tags, bytes.getAsLong())));
+    }
+
+    public CompletableFuture<Void> deleteJob(String jobId) {
+        CompletableFuture<Void> call = requester.deleteAsync(buildUrl("/services/data/vXX.X/jobs/ingest/" + jobId), null, Void.class);
+        return cancelling(call, call.whenComplete((response, e) -> metrics.jobClosed(jobId)));
+    }
+
+    /**
+     * @return status of the job, an {@link IngestJobInfo}
+     */
+    public CompletableFuture<GetJobInfoResponse> getJobInfo(String jobId) {
+        CompletableFuture<IngestJobInfo> info = getIngestJobInfo(jobId);
+        return cancelling(info, info.thenApply(GetJobInfoResponse.class::cast));
+    }
+
+    /**
+     * @return status of the job, its operation read by {@link IngestJobInfo#getIngestOperation()} even for hardDelete
+     */
+    public CompletableFuture<IngestJobInfo> getIngestJobInfo(String jobId) {
+        CompletableFuture<IngestJobInfo> call = metrics.recordAsync("getJobInfo", metrics.callTags(jobId),
+                () -> requester.getAsync(buildUrl("/services/data/vXX.X/jobs/ingest/" + jobId), IngestJobInfo.class));
+        return cancelling(call, call.thenApply(info -> {
+            metrics.jobInfo(info);
+            return info;
+        }));
+    }
+
+    /**
+     * Saves the successful records to a file without loading them in memory.
+     *
+     * @return future of the number of bytes written
+     */
+    public CompletableFuture<Long> downloadJobSuccessfulRecordResults(String jobId, Path target) {
+        return requester.downloadAsync(buildUrl("/services/data/vXX.X/jobs/ingest/" + jobId + "/successfulResults/"), target);
+    }
+
+    /**
+     * Saves the failed records to a file without loading them in memory.
+     *
+     * @return future of the number of bytes written
+     */
+    public CompletableFuture<Long> downloadJobFailedRecordResults(String jobId, Path target) {
+        return requester.downloadAsync(buildUrl("/services/data/vXX.X/jobs/ingest/" + jobId + "/failedResults/"), target);
+    }
+
+    /**
+     * Saves the unprocessed records to a file without loading them in memory.
+     *
+     * @return future of the number of bytes written
+     */
+    public CompletableFuture<Long> downloadJobUnprocessedRecordResults(String jobId, Path target) {
+        return requester.downloadAsync(buildUrl("/services/data/vXX.X/jobs/ingest/" + jobId + "/unprocessedrecords/"), target);
+    }
+
+    /**
+     * A stage chained on a call does not cancel the call when it is cancelled itself, this does.
+     *
+     * @param call  future of the request
+     * @param stage stage returned to the caller
+     * @return the stage
+     */
+    private static <T> CompletableFuture<T> cancelling(CompletableFuture<?> call, CompletableFuture<T> stage) {
+        stage.whenComplete((value, e) -> {
+            if (e instanceof CancellationException) {
+                call.cancel(false);
+            }
+        });
+        return stage;
+    }
+
+    private String buildUploadUrl(String jobId) {
+        return buildUrl("/services/data/vXX.X/jobs/ingest/" + jobId + "/batches");
+    }
+
+    private String buildUrl(String path) {
+        boolean hasTrailingSlash = instanceUrl.endsWith("/");
+
+        return instanceUrl + (hasTrailingSlash ? "/" : "") + path.replace("vXX.X", apiVersion);
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2;
+
+import com.americanexpress.jacos.bulkv2.response.IngestJobInfo;
+import endolabs.salesforce.bulkv2.response.GetJobInfoResponse;
+import endolabs.salesforce.bulkv2.response.JobInfo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * Micrometer meters of the bulk ingest lifecycle, tagged with the <code>object</code> and
+ * <code>operation</code> of the job:
+ * </p>
+ * <ul>
+ * <li>{@value #REQUESTS}: timer of the createJob, upload, close and getJobInfo calls, also tagged with
+ * the <code>call</code> and its <code>outcome</code></li>
+ * <li>{@value #UPLOADED_BYTES} and {@value #UPLOAD_SIZE}: counter and distribution of the uploaded
+ * csv bytes, before compression</li>
+ * <li>{@value #RECORDS_PROCESSED} and {@value #RECORDS_FAILED}: records of the finished jobs, as
+ * reported by getJobInfo, once per job</li>
+ * <li>{@value #RETRIES}: retried job submissions, tagged with the <code>reason</code></li>
+ * <li>{@value #TOKEN_REFRESHES}: access tokens refreshed after a 401, tagged with the
+ * <code>outcome</code></li>
+ * </ul>
+ * <p>
+ * The object and operation of a job are remembered only while data can be uploaded to it, from
+ * createJob until it is closed, aborted or deleted or an upload fails. Later calls take them from
+ * the job info they return, see {@link IngestJobInfo} for hard delete jobs. Without a registry, see
+ * {@link #noop()}, the meters record nothing.
+ * </p>
+ */
+public class BulkMetrics {
+
+    public static final String REQUESTS = "jacos.bulk.requests";
+
+    public static final String UPLOADED_BYTES = "jacos.bulk.uploaded.bytes";
+
+    public static final String UPLOAD_SIZE = "jacos.bulk.upload.size";
+
+    public static final String RECORDS_PROCESSED = "jacos.bulk.records.processed";
+
+    public static final String RECORDS_FAILED = "jacos.bulk.records.failed";
+
+    public static final String RETRIES = "jacos.bulk.retries";
+
+    public static final String TOKEN_REFRESHES = "jacos.bulk.token.refreshes";
+
+    static final String UNKNOWN = "unknown";
+
+    private static final Tags UNKNOWN_JOB = tags(UNKNOWN, UNKNOWN);
+
+    private final MeterRegistry registry;
+
+    private final Map<String, Tags> openJobs = new ConcurrentHashMap<>();
+
+    private final Set<String> finishedJobs = ConcurrentHashMap.newKeySet();
+
+    public BulkMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * @return metrics bound to an empty composite registry, whose meters do nothing
+     */
+    public static BulkMetrics noop() {
+        return new BulkMetrics(new CompositeMeterRegistry());
+    }
+
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+
+    public static Tags tags(String object, String operation) {
+        return Tags.of("object", object == null ? UNKNOWN : object, "operation", operation == null ? UNKNOWN : operation);
+    }
+
+    /**
+     * @return tags of the object and operation of the job, hardDelete included for an {@link IngestJobInfo}
+     */
+    public static Tags tags(JobInfo info) {
+        if (info instanceof IngestJobInfo && ((IngestJobInfo) info).getIngestOperation() != null) {
+            return tags(info.getObject(), ((IngestJobInfo) info).getIngestOperation().toJsonValue());
+        }
+        return tags(info.getObject(), info.getOperation() == null ? null : info.getOperation().toJsonValue());
+    }
+
+    /**
+     * @return tags of a job open for uploads on this client, or unknown ones
+     */
+    public Tags jobTags(String jobId) {
+        return jobId == null ? UNKNOWN_JOB : openJobs.getOrDefault(jobId, UNKNOWN_JOB);
+    }
+
+    /**
+     * Tags a call on a job with those of the request that created it, when the job is open as the call
+     * starts, else with those of the job info returned by the call.
+     *
+     * @return tags of the call from its job info, null when the call failed
+     */
+    Function<JobInfo, Tags> callTags(String jobId) {
+        Tags open = jobId == null ? null : openJobs.get(jobId);
+        return info -> {
+            if (open != null) {
+                return open;
+            }
+            return info != null && info.getObject() != null ? tags(info) : UNKNOWN_JOB;
+        };
+    }
+
+    void jobCreated(String jobId, Tags tags) {
+        if (jobId != null) {
+            openJobs.put(jobId, tags);
+        }
+    }
+
+    /**
+     * Forgets the tags of a job no more open for uploads.
+     */
+    void jobClosed(String jobId) {
+        if (jobId != null) {
+            openJobs.remove(jobId);
+        }
+    }
+
+    /**
+     * @return number of jobs open for uploads
+     */
+    int openJobs() {
+        return openJobs.size();
+    }
+
+    /**
+     * Counts the records of a finished job the first time its status is read finished, later reads
+     * of the same job count nothing.
+     */
+    void jobInfo(GetJobInfoResponse info) {
+        if (info == null || info.getState() == null || !info.getState().isFinished()
+                || (info.getId() != null && !finishedJobs.add(info.getId()))) {
+            return;
+        }
+        Tags stateTags = tags(info).and("state", info.getState().name());
+        increment(RECORDS_PROCESSED, stateTags, info.getNumberRecordsProcessed());
+        increment(RECORDS_FAILED, stateTags, info.getNumberRecordsFailed());
+    }
+
+    private void increment(String name, Tags tags, Integer amount) {
+        registry.counter(name, tags).increment(amount == null ? 0 : amount);
+    }
+
+    /**
+     * Times a blocking call.
+     *
+     * @param call    name of the call, tag <code>call</code>
+     * @param tags    object and operation of the job
+     * @param request the call
+     * @return result of the call
+     */
+    public <T> T record(String call, Tags tags, Supplier<T> request) {
+        return record(call, result -> tags, request);
+    }
+
+    /**
+     * Times a blocking call tagged after its result.
+     *
+     * @param tags object and operation of the job, from the result or from null when the call failed
+     */
+    public <T> T record(String call, Function<? super T, Tags> tags, Supplier<T> request) {
+        Timer.Sample sample = Timer.start(registry);
+        T result;
+        try {
+            result = request.get();
+        } catch (RuntimeException e) {
+            sample.stop(timer(call, tags.apply(null), false));
+            throw e;
+        }
+        sample.stop(timer(call, tags.apply(result), true));
+        return result;
+    }
+
+    /**
+     * Times a non-blocking call until its future completes.
+     */
+    public <T> CompletableFuture<T> recordAsync(String call, Tags tags, Supplier<CompletableFuture<T>> request) {
+        return recordAsync(call, result -> tags, request);
+    }
+
+    /**
+     * Times a non-blocking call until its future completes, tagged after its result.
+     */
+    public <T> CompletableFuture<T> recordAsync(String call, Function<? super T, Tags> tags, Supplier<CompletableFuture<T>> request) {
+        Timer.Sample sample = Timer.start(registry);
+        CompletableFuture<T> result;
+        try {
+            result = request.get();
+        } catch (RuntimeException e) {
+            sample.stop(timer(call, tags.apply(null), false));
+            throw e;
+        }
+        result.whenComplete((value, e) -> sample.stop(timer(call, tags.apply(e == null ? value : null), e == null)));
+        return result;
+    }
+
+    private Timer timer(String call, Tags tags, boolean success) {
+        return Timer.builder(REQUESTS)
+                .tags(tags)
+                .tag("call", call)
+                .tag("outcome", success ? "success" : "error")
+                .register(registry);
+    }
+
+    /**
+     * @param bytes csv bytes sent in one upload, before compression
+     */
+    public void uploaded(Tags tags, long bytes) {
+        Counter.builder(UPLOADED_BYTES).baseUnit("bytes").tags(tags).register(registry).increment(bytes);
+        DistributionSummary.builder(UPLOAD_SIZE).baseUnit("bytes").tags(tags).register(registry).record(bytes);
+    }
+
+    public void retried(Tags tags, String reason) {
+        registry.counter(RETRIES, tags.and("reason", reason)).increment();
+    }
+
+    public void tokenRefreshed(boolean success) {
+        registry.counter(TOKEN_REFRESHES, "outcome", success ? "success" : "error").increment();
+    }
+}
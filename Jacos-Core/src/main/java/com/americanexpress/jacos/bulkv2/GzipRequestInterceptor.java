@@ -0,0 +1,94 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
+
+import java.io.IOException;
+
+/**
+ * <p>
+ * Compresses request bodies with gzip and sends them with <code>Content-Encoding: gzip</code>.
+ * The body is compressed while it is written to the connection, nothing is buffered, so the length
+ * is unknown up front and the body is sent with chunked transfer encoding.
+ * </p>
+ * <p>
+ * Responses need nothing here: OkHttp already asks for <code>Accept-Encoding: gzip</code> and
+ * decompresses the response transparently, as long as the header is not set by hand.
+ * </p>
+ */
+public class GzipRequestInterceptor implements Interceptor {
+
+    static final String CONTENT_ENCODING = "Content-Encoding";
+
+    static final String GZIP = "gzip";
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        if (request.body() == null || request.header(CONTENT_ENCODING) != null) {
+            return chain.proceed(request);
+        }
+        Request compressed = request.newBuilder()
+                .header(CONTENT_ENCODING, GZIP)
+                .method(request.method(), new GzipRequestBody(request.body()))
+                .build();
+        return chain.proceed(compressed);
+    }
+
+    /**
+     * Gzip view of a request body, replayable whenever the wrapped body is.
+     */
+    public static class GzipRequestBody extends RequestBody {
+
+        private final RequestBody body;
+
+        GzipRequestBody(RequestBody body) {
+            this.body = body;
+        }
+
+        /**
+         * @return the uncompressed body
+         */
+        public RequestBody getBody() {
+            return body;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return body.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return -1;
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            try (BufferedSink gzipSink = Okio.buffer(new GzipSink(sink))) {
+                body.writeTo(gzipSink);
+            }
+        }
+    }
+}
@@ -15,24 +15,39 @@
 
 package com.americanexpress.jacos.bulkv2;
 
+import com.americanexpress.jacos.bulkv2.request.CreateJobRequestJacos;
+import com.americanexpress.jacos.bulkv2.response.QueryResultPage;
 import com.americanexpress.jacos.utils.Json;
 import com.fasterxml.jackson.core.type.TypeReference;
 import endolabs.salesforce.bulkv2.BulkRequestException;
 import endolabs.salesforce.bulkv2.request.CreateJobRequest;
 import endolabs.salesforce.bulkv2.response.ErrorResponse;
 import okhttp3.*;
-import okio.ByteString;
-
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
+import okio.Utf8;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
 import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 public class RestRequesterJacos {
 
+    private static final Logger log = LoggerFactory.getLogger(RestRequesterJacos.class);
+
     private static final MediaType JSON_MEDIA_TYPE = MediaType.parse("application/json; charset=utf-8");
 
     private static final MediaType CSV_MEDIA_TYPE = MediaType.parse("text/csv");
@@ -48,11 +63,57 @@ public RestRequesterJacos(OkHttpClient client) {
     }
 
     public <T> T putCsv(String url, String requestData, Class<T> responseClass) {
-        RequestBody requestBody = (requestData == null) ? null : RequestBody.create(CSV_MEDIA_TYPE, ByteString.encodeUtf8(requestData));
+        RequestBody requestBody = (requestData == null) ? null : utf8RequestBody(CSV_MEDIA_TYPE, requestData);
 
         return request(url, "PUT", new HashMap<>(), requestBody, responseClass);
     }
 
+    public <T> T putCsv(String url, byte[] requestData, Class<T> responseClass) {
+        return request(url, "PUT", new HashMap<>(), RequestBody.create(CSV_MEDIA_TYPE, requestData), responseClass);
+    }
+
+    /**
+     * Streams the file from disk, the body can be replayed since the file is read again.
+     */
+    public <T> T putCsv(String url, File requestData, Class<T> responseClass) {
+        return request(url, "PUT", new HashMap<>(), RequestBody.create(CSV_MEDIA_TYPE, requestData), responseClass);
+    }
+
+    public <T> T putCsv(String url, Path requestData, Class<T> responseClass) {
+        return putCsv(url, requestData.toFile(), responseClass);
+    }
+
+    /**
+     * Streams the content as it is produced, the stream is closed once the call is over, whether it
+     * succeeded or not.
+     */
+    public <T> T putCsv(String url, InputStream requestData, Class<T> responseClass) {
+        return putCsv(url, Okio.source(requestData), responseClass);
+    }
+
+    /**
+     * Streams the content as it is produced, the source is closed once the call is over, whether it
+     * succeeded or not.
+     */
+    public <T> T putCsv(String url, Source requestData, Class<T> responseClass) {
+        try {
+            return request(url, "PUT", new HashMap<>(), new StreamingRequestBody(CSV_MEDIA_TYPE, requestData), responseClass);
+        } finally {
+            closeQuietly(requestData);
+        }
+    }
+
+    /**
+     * Closes a source the call may have failed to write, closing it twice is harmless.
+     */
+    private static void closeQuietly(Source source) {
+        try {
+            source.close();
+        } catch (IOException e) {
+            log.warn("Failed to close the request data", e);
+        }
+    }
+
     public Reader getCsv(String url) {
         return request(url, "GET", new HashMap<>(), null, Reader.class);
     }
@@ -66,6 +127,10 @@ public <T> T get(String url, Map<String, String> queryParams, Class<T> responseC
     }
 
     public <T> T post(String url, Object requestData, Class<T> responseClass) {
+        return requestJson(url, "POST", new HashMap<>(), postBody(requestData), responseClass);
+    }
+
+    private static Object postBody(Object requestData) {
         Object transformedRequest = requestData;
 
         if (requestData instanceof CreateJobRequest) {
@@ -75,16 +140,29 @@ public <T> T post(String url, Object requestData, Class<T> responseClass) {
                     : createJob.getContentFile() != null ? RequestBody.create(CSV_MEDIA_TYPE, createJob.getContentFile())
                     : null;
             if (content != null) {
-                transformedRequest = new MultipartBody.Builder()
-                        .setType(MultipartBody.FORM)
-                        .addFormDataPart("job", null,
-                                RequestBody.create(JSON_MEDIA_TYPE, Json.encode(requestData)))
-                        .addFormDataPart("content", "content", content)
-                        .build();
+                transformedRequest = multipartJob(requestData, content);
             }
+        } else if (requestData instanceof CreateJobRequestJacos && ((CreateJobRequestJacos) requestData).hasContent()) {
+            CreateJobRequestJacos createJob = (CreateJobRequestJacos) requestData;
+
+            RequestBody content = createJob.getContent() != null ? utf8RequestBody(CSV_MEDIA_TYPE, createJob.getContent())
+                    : createJob.getContentBytes() != null ? RequestBody.create(CSV_MEDIA_TYPE, createJob.getContentBytes())
+                    : RequestBody.create(CSV_MEDIA_TYPE, createJob.getContentFile());
+            transformedRequest = multipartJob(requestData, content);
         }
+        return transformedRequest;
+    }
 
-        return requestJson(url, "POST", new HashMap<>(), transformedRequest, responseClass);
+    /**
+     * Creates the job and uploads its data in one request, Salesforce closes the job right away.
+     */
+    private static MultipartBody multipartJob(Object job, RequestBody content) {
+        return new MultipartBody.Builder()
+                .setType(MultipartBody.FORM)
+                .addFormDataPart("job", null,
+                        RequestBody.create(JSON_MEDIA_TYPE, Json.encode(job)))
+                .addFormDataPart("content", "content", content)
+                .build();
     }
 
     public <T> T put(String url, Object requestData, Class<T> responseClass) {
@@ -101,16 +179,39 @@ public <T> T patch(String url, Object requestData, Class<T> responseClass) {
     }
 
     private <T> T requestJson(String url, String httpMethod, Map<String, String> queryParams, Object requestData, Class<T> responseClass) {
-        RequestBody requestBody = (requestData == null) ? null
+        return request(url, httpMethod, queryParams, jsonBody(requestData), responseClass);
+    }
+
+    private static RequestBody jsonBody(Object requestData) {
+        return (requestData == null) ? null
                 : (requestData instanceof RequestBody) ? (RequestBody) requestData
                 : RequestBody.create(JSON_MEDIA_TYPE, Json.encode(requestData));
+    }
+
+    /**
+     * Writes the string as UTF-8 straight to the connection instead of copying it to a byte array first.
+     */
+    private static RequestBody utf8RequestBody(MediaType contentType, String content) {
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return contentType;
+            }
+
+            @Override
+            public long contentLength() {
+                return Utf8.size(content);
+            }
 
-        return request(url, httpMethod, queryParams, requestBody, responseClass);
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                sink.writeUtf8(content);
+            }
+        };
     }
 
     private Response doRequest(Request request) {
         try {
-            //client.newCall(request).e
             return client.newCall(request).execute();
         } catch (IOException e) {
             throw new BulkRequestException(e);
@@ -125,47 +226,197 @@ private ResponseBody unwrap(Response response) {
         return responseBody;
     }
 
-    private <T> T request(String url, String httpMethod, Map<String, String> queryParams, RequestBody requestBody, Class<T> responseClass) {
+    /**
+     * Copies the response body straight to a file, it is never held in memory.
+     *
+     * @param url    url of the resource
+     * @param target file to write, replaced if it exists
+     * @return number of bytes written
+     */
+    public long download(String url, Path target) {
+        try (Response response = doRequest(buildRequest(url, "GET", new HashMap<>(), null))) {
+            return writeBody(response, target);
+        }
+    }
+
+    private long writeBody(Response response, Path target) {
+        ResponseBody responseBody = unwrap(response);
+        if (!response.isSuccessful()) {
+            throw toException(readBody(responseBody));
+        }
+        try (BufferedSink sink = Okio.buffer(Okio.sink(target))) {
+            return sink.writeAll(responseBody.source());
+        } catch (IOException e) {
+            throw new BulkRequestException("Fail to download the response body", e);
+        }
+    }
+
+    /**
+     * Opens one page of csv results, the body is streamed and the page must be closed.
+     *
+     * @param url         url of the results
+     * @param queryParams locator and maxRecords of the page
+     * @return the page with its Sforce-Locator
+     */
+    public QueryResultPage getCsvPage(String url, Map<String, String> queryParams) {
+        Response response = doRequest(buildRequest(url, "GET", queryParams, null));
+        ResponseBody responseBody = unwrap(response);
+        if (!response.isSuccessful()) {
+            try {
+                throw toException(readBody(responseBody));
+            } finally {
+                response.close();
+            }
+        }
+        String numberOfRecords = response.header(QueryResultPage.NUMBER_OF_RECORDS_HEADER);
+        return new QueryResultPage(responseBody.source(), response.header(QueryResultPage.LOCATOR_HEADER),
+                numberOfRecords == null ? null : Integer.valueOf(numberOfRecords));
+    }
+
+    private Request buildRequest(String url, String httpMethod, Map<String, String> queryParams, RequestBody requestBody) {
         HttpUrl.Builder urlBuilder = Objects.requireNonNull(HttpUrl.parse(url)).newBuilder();
         queryParams.forEach(urlBuilder::addQueryParameter);
 
-        Request request = new Request.Builder()
+        return new Request.Builder()
                 .url(urlBuilder.build())
                 .method(httpMethod, requestBody)
                 .build();
+    }
+
+    private String readBody(ResponseBody responseBody) {
+        try {
+            return responseBody.string();
+        } catch (IOException e) {
+            throw new BulkRequestException("Fail to get the response body", e);
+        }
+    }
+
+    private BulkRequestException toException(String body) {
+        try {
+            List<ErrorResponse> errors = Json.decode(body, ERRORS_TYPE_REFERENCE);
+            return new BulkRequestException(errors);
+        } catch (UncheckedIOException e) {
+            return new BulkRequestException("Unknown error: " + body, e);
+        }
+    }
+
+    private <T> T request(String url, String httpMethod, Map<String, String> queryParams, RequestBody requestBody, Class<T> responseClass) {
+        Request request = buildRequest(url, httpMethod, queryParams, requestBody);
 
         if (responseClass.isAssignableFrom(Reader.class)) {
-            ResponseBody responseBody = unwrap(doRequest(request));
-            String body = null;
-            try {
-                body = responseBody.string();
-            } catch (IOException e) {
-                throw new BulkRequestException("Fail to get the response body", e);
+            Response response = doRequest(request);
+            ResponseBody responseBody = unwrap(response);
+            if (!response.isSuccessful()) {
+                try {
+                    throw toException(readBody(responseBody));
+                } finally {
+                    response.close();
+                }
             }
             return (T) responseBody.charStream(); // close Response/Stream in caller
         }
 
         try (Response response = doRequest(request)) {
-            ResponseBody responseBody = unwrap(response);
+            return decodeBody(response, responseClass);
+        }
+    }
 
-            String body = null;
-            try {
-                body = responseBody.string();
+    private <T> T decodeBody(Response response, Class<T> responseClass) {
+        String body = readBody(unwrap(response));
+
+        if (response.isSuccessful()) {
+            return (body == null || body.isEmpty()) ? null : Json.decode(body, responseClass);
+        } else {
+            throw toException(body);
+        }
+    }
+
+    // non-blocking variants, completed from the OkHttp dispatcher threads
 
-            } catch (IOException e) {
-                throw new BulkRequestException("Fail to get the response body", e);
+    public <T> CompletableFuture<T> getAsync(String url, Class<T> responseClass) {
+        return requestAsync(url, "GET", null, responseClass);
+    }
+
+    public <T> CompletableFuture<T> postAsync(String url, Object requestData, Class<T> responseClass) {
+        return requestAsync(url, "POST", jsonBody(postBody(requestData)), responseClass);
+    }
+
+    public <T> CompletableFuture<T> patchAsync(String url, Object requestData, Class<T> responseClass) {
+        return requestAsync(url, "PATCH", jsonBody(requestData), responseClass);
+    }
+
+    public <T> CompletableFuture<T> deleteAsync(String url, Object requestData, Class<T> responseClass) {
+        return requestAsync(url, "DELETE", jsonBody(requestData), responseClass);
+    }
+
+    public <T> CompletableFuture<T> putCsvAsync(String url, String requestData, Class<T> responseClass) {
+        return requestAsync(url, "PUT", utf8RequestBody(CSV_MEDIA_TYPE, requestData), responseClass);
+    }
+
+    public <T> CompletableFuture<T> putCsvAsync(String url, byte[] requestData, Class<T> responseClass) {
+        return requestAsync(url, "PUT", RequestBody.create(CSV_MEDIA_TYPE, requestData), responseClass);
+    }
+
+    /**
+     * Streams the file from disk on a dispatcher thread.
+     */
+    public <T> CompletableFuture<T> putCsvAsync(String url, Path requestData, Class<T> responseClass) {
+        return requestAsync(url, "PUT", RequestBody.create(CSV_MEDIA_TYPE, requestData.toFile()), responseClass);
+    }
+
+    /**
+     * Streams the content as it is produced on a dispatcher thread, the source is closed once the call
+     * is over, whether it succeeded or not.
+     */
+    public <T> CompletableFuture<T> putCsvAsync(String url, Source requestData, Class<T> responseClass) {
+        CompletableFuture<T> result = requestAsync(url, "PUT", new StreamingRequestBody(CSV_MEDIA_TYPE, requestData), responseClass);
+        result.whenComplete((value, e) -> closeQuietly(requestData));
+        return result;
+    }
+
+    /**
+     * Copies the response body straight to a file on a dispatcher thread.
+     *
+     * @param url    url of the resource
+     * @param target file to write, replaced if it exists
+     * @return future of the number of bytes written
+     */
+    public CompletableFuture<Long> downloadAsync(String url, Path target) {
+        return enqueue(buildRequest(url, "GET", new HashMap<>(), null), response -> writeBody(response, target));
+    }
+
+    private <T> CompletableFuture<T> requestAsync(String url, String httpMethod, RequestBody requestBody, Class<T> responseClass) {
+        return enqueue(buildRequest(url, httpMethod, new HashMap<>(), requestBody), response -> decodeBody(response, responseClass));
+    }
+
+    /**
+     * Sends the request without blocking the caller. The response is handled and closed on the
+     * dispatcher thread which received it, so stages chained without an executor run there too and
+     * should not block. Cancelling the future cancels the call.
+     */
+    private <T> CompletableFuture<T> enqueue(Request request, Function<Response, T> handler) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Call call = client.newCall(request);
+        result.whenComplete((value, e) -> {
+            if (e instanceof CancellationException) {
+                call.cancel();
+            }
+        });
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call failedCall, IOException e) {
+                result.completeExceptionally(new BulkRequestException(e));
             }
 
-            if (response.isSuccessful()) {
-                return (body == null || body.isEmpty()) ? null : Json.decode(body, responseClass);
-            } else {
-                try {
-                    List<ErrorResponse> errors = Json.decode(body, ERRORS_TYPE_REFERENCE);
-                    throw new BulkRequestException(errors);
-                } catch (UncheckedIOException e) {
-                    throw new BulkRequestException("Unknown error: " + body, e);
+            @Override
+            public void onResponse(Call answeredCall, Response response) {
+                try (Response closeable = response) {
+                    result.complete(handler.apply(closeable));
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
                 }
             }
-        }
+        });
+        return result;
     }
 }
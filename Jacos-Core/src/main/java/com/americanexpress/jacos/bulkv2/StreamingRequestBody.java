@@ -0,0 +1,74 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.Source;
+
+import java.io.IOException;
+
+/**
+ * <p>
+ * Request body copied straight from an okio Source to the connection, so the content is never held
+ * in memory. The length is unknown up front and the body is sent with chunked transfer encoding.
+ * </p>
+ * <p>
+ * The source can be read only once: the body can not be replayed on retry or redirect.
+ * </p>
+ */
+public class StreamingRequestBody extends RequestBody {
+
+    private final MediaType contentType;
+
+    private final Source source;
+
+    private volatile boolean consumed;
+
+    public StreamingRequestBody(MediaType contentType, Source source) {
+        this.contentType = contentType;
+        this.source = source;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return contentType;
+    }
+
+    @Override
+    public long contentLength() {
+        return -1;
+    }
+
+    /**
+     * @return true once the content has been written, after which the body can not be sent again
+     */
+    public boolean isConsumed() {
+        return consumed;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        if (consumed) {
+            throw new IOException("Streaming request body can be written only once");
+        }
+        consumed = true;
+        try (Source in = source) {
+            sink.writeAll(in);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2;
+
+import com.americanexpress.jacos.commons.WireLogPolicy;
+import okhttp3.Headers;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.ForwardingSink;
+import okio.Okio;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Logs each exchange of the bulk client in one message, as allowed by the {@link WireLogPolicy}.
+ * </p>
+ * <p>
+ * Unlike HttpLoggingInterceptor at Level.BODY, bodies are never buffered for the log: the request
+ * body is copied while it is sent and the response body is peeked, both up to the byte cap. Streamed
+ * uploads therefore stay streamed and a large upload costs no more than a small one.
+ * </p>
+ */
+public class WireLoggingInterceptor implements Interceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(WireLoggingInterceptor.class);
+
+    private final WireLogPolicy policy;
+
+    public WireLoggingInterceptor(WireLogPolicy policy) {
+        this.policy = policy;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        if (!policy.logsHeaders() || !log.isInfoEnabled()) {
+            return chain.proceed(request);
+        }
+        boolean logBody = policy.sampleBody();
+        CapturingRequestBody requestBody = null;
+        if (logBody && request.body() != null && isText(request.body().contentType())) {
+            requestBody = new CapturingRequestBody(request.body(), policy.getMaxBodyBytes());
+            request = request.newBuilder().method(request.method(), requestBody).build();
+        }
+
+        StringBuilder message = new StringBuilder("--> ").append(request.method()).append(' ').append(request.url());
+        appendHeaders(message, request.headers());
+        long start = System.nanoTime();
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException e) {
+            appendRequestBody(message, requestBody);
+            log.info("{}\n<-- HTTP FAILED: {}", message, e.toString());
+            throw e;
+        }
+        appendRequestBody(message, requestBody);
+
+        message.append("\n<-- ").append(response.code()).append(' ').append(response.message())
+                .append(" (").append(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).append(" ms)");
+        appendHeaders(message, response.headers());
+        ResponseBody responseBody = response.body();
+        if (logBody && responseBody != null && isText(responseBody.contentType())) {
+            appendResponseBody(message, responseBody);
+        }
+        log.info(message.toString());
+        return response;
+    }
+
+    private void appendHeaders(StringBuilder message, Headers headers) {
+        for (int i = 0; i < headers.size(); i++) {
+            message.append('\n').append(headers.name(i)).append(": ").append(policy.headerValue(headers.name(i), headers.value(i)));
+        }
+    }
+
+    private void appendRequestBody(StringBuilder message, CapturingRequestBody requestBody) {
+        if (requestBody != null) {
+            byte[] prefix = requestBody.getCaptured().readByteArray();
+            message.append('\n').append(policy.bodyText(prefix, prefix.length, requestBody.isTruncated()));
+        }
+    }
+
+    /**
+     * Reads ahead at most the byte cap of the body, the caller still reads the whole body.
+     */
+    private void appendResponseBody(StringBuilder message, ResponseBody responseBody) {
+        int maxBodyBytes = policy.getMaxBodyBytes();
+        try {
+            BufferedSource source = responseBody.source();
+            source.request(maxBodyBytes + 1L);
+            Buffer copy = new Buffer();
+            source.buffer().copyTo(copy, 0, Math.min(source.buffer().size(), maxBodyBytes));
+            byte[] prefix = copy.readByteArray();
+            message.append('\n').append(policy.bodyText(prefix, prefix.length, source.buffer().size() > maxBodyBytes));
+        } catch (IOException e) {
+            message.append("\n(body not readable: ").append(e).append(')');
+        }
+    }
+
+    private static boolean isText(MediaType contentType) {
+        return contentType != null && WireLogPolicy.isText(contentType.toString());
+    }
+
+    /**
+     * Request body copying the start of what it writes, replayable whenever the wrapped body is.
+     */
+    public static class CapturingRequestBody extends RequestBody {
+
+        private final RequestBody body;
+
+        private final int maxBytes;
+
+        private volatile Buffer captured = new Buffer();
+
+        private volatile boolean truncated;
+
+        CapturingRequestBody(RequestBody body, int maxBytes) {
+            this.body = body;
+            this.maxBytes = maxBytes;
+        }
+
+        /**
+         * @return the body being sent
+         */
+        public RequestBody getBody() {
+            return body;
+        }
+
+        /**
+         * @return copy of the start of the last write
+         */
+        Buffer getCaptured() {
+            return captured.clone();
+        }
+
+        boolean isTruncated() {
+            return truncated;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return body.contentType();
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            return body.contentLength();
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            Buffer capture = new Buffer();
+            captured = capture;
+            truncated = false;
+            BufferedSink capturingSink = Okio.buffer(new ForwardingSink(sink) {
+                @Override
+                public void write(Buffer source, long byteCount) throws IOException {
+                    long copied = Math.min(byteCount, maxBytes - capture.size());
+                    if (copied > 0) {
+                        source.copyTo(capture, 0, copied);
+                    }
+                    truncated |= copied < byteCount;
+                    super.write(source, byteCount);
+                }
+            });
+            body.writeTo(capturingSink);
+            // flush without closing, the connection sink belongs to OkHttp
+            capturingSink.emit();
+        }
+    }
+}
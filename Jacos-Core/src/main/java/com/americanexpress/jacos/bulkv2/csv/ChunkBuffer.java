@@ -0,0 +1,63 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.csv;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reusable byte buffer which, unlike its parent, can give back bytes that were already written.
+ */
+class ChunkBuffer extends ByteArrayOutputStream {
+
+    ChunkBuffer(int initialSize) {
+        super(initialSize);
+    }
+
+    /**
+     * Discards everything written after <code>size</code>.
+     */
+    void truncate(int size) {
+        count = size;
+    }
+
+    /**
+     * Copies the bytes from <code>offset</code> to the end of this buffer into <code>target</code>.
+     */
+    void copyTail(int offset, ChunkBuffer target) {
+        target.write(buf, offset, count - offset);
+    }
+
+    /**
+     * Decodes the bytes from <code>offset</code> to the end of this buffer as UTF-8.
+     */
+    String decode(int offset) {
+        return new String(buf, offset, count - offset, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes one field of the record starting at <code>offset</code> and ending with this buffer.
+     *
+     * @see CsvExternalSorter#keyOf(byte[], int, int, int)
+     */
+    String field(int offset, int index) {
+        return CsvExternalSorter.keyOf(buf, offset, count, index);
+    }
+
+    byte byteAt(int index) {
+        return buf[index];
+    }
+}
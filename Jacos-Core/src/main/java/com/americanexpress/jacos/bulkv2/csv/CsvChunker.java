@@ -0,0 +1,305 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.csv;
+
+import com.americanexpress.jacos.constants.ApplicationConstants;
+import com.americanexpress.jacos.utils.CommonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * An iterator to split a CSV stream into chunks which can be uploaded as Bulk API 2.0 job data.<br>
+ * Closeable allows to close the operation at any time.<br>
+ * </p>
+ * <p>
+ * The stream is read record by record with {@link CsvRecordReader}, so a chunk is only ever cut at a
+ * record boundary and never inside a quoted value. The header of the stream is repeated at the top of
+ * every chunk. A chunk is closed as soon as the next record would take it over
+ * <code>maxChunkBytes</code> or over <code>maxRecordsPerChunk</code> records.
+ * </p>
+ * <p>
+ * With a group key column, consecutive records sharing the value of that column form a group which is
+ * kept in one chunk: a chunk is cut before the group rather than inside it. Records sorted on the
+ * column, eg. by {@link CsvExternalSorter}, therefore keep the children of a parent in the same job.
+ * Only a group bigger than a chunk is split.
+ * </p>
+ * <p>
+ * Only the chunk being built is held in memory, never the whole stream. Blank lines are skipped.
+ * </p>
+ *
+ * @since 1.0
+ */
+public class CsvChunker implements Iterator<byte[]>, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CsvChunker.class);
+
+    private static final int INITIAL_BUFFER_SIZE = ApplicationConstants.MB;
+
+    private static final byte CR = '\r';
+
+    private final CsvRecordReader reader;
+
+    private final int maxChunkBytes;
+
+    private final int maxRecordsPerChunk;
+
+    private final byte[] header;
+
+    private final byte[] lineTerminator;
+
+    /**
+     * Buffer of the chunk being built, reused for every chunk
+     */
+    private final ChunkBuffer chunk = new ChunkBuffer(INITIAL_BUFFER_SIZE);
+
+    /**
+     * Holds the next record which did not fit in the previous chunk, empty at the end of the stream
+     */
+    private final ChunkBuffer lookahead = new ChunkBuffer(1024);
+
+    /**
+     * Index of the group key column, -1 when records are not grouped
+     */
+    private final int groupKeyIndex;
+
+    private int lookaheadRecords;
+
+    private String lookaheadKey;
+
+    private int chunkCount;
+
+    /**
+     * @param file               csv file with a header line
+     * @param maxChunkBytes      upper bound of the size of each chunk, header included
+     * @param maxRecordsPerChunk upper bound of the number of records in each chunk, header excluded
+     * @throws IOException if the file can not be read or has no header
+     */
+    public CsvChunker(String file, int maxChunkBytes, int maxRecordsPerChunk) throws IOException {
+        this(new FileInputStream(file), maxChunkBytes, maxRecordsPerChunk, null);
+    }
+
+    /**
+     * @param file               csv file with a header line
+     * @param maxChunkBytes      upper bound of the size of each chunk, header included
+     * @param maxRecordsPerChunk upper bound of the number of records in each chunk, header excluded
+     * @param groupKeyColumn     column whose consecutive equal values are kept in one chunk, null for none
+     * @throws IOException if the file can not be read or has no header
+     */
+    public CsvChunker(String file, int maxChunkBytes, int maxRecordsPerChunk, String groupKeyColumn) throws IOException {
+        this(new FileInputStream(file), maxChunkBytes, maxRecordsPerChunk, groupKeyColumn);
+    }
+
+    /**
+     * @param in                 csv stream with a header line
+     * @param maxChunkBytes      upper bound of the size of each chunk, header included
+     * @param maxRecordsPerChunk upper bound of the number of records in each chunk, header excluded
+     * @throws IOException if the stream can not be read or has no header
+     */
+    public CsvChunker(InputStream in, int maxChunkBytes, int maxRecordsPerChunk) throws IOException {
+        this(in, maxChunkBytes, maxRecordsPerChunk, null);
+    }
+
+    /**
+     * @param in                 csv stream with a header line
+     * @param maxChunkBytes      upper bound of the size of each chunk, header included
+     * @param maxRecordsPerChunk upper bound of the number of records in each chunk, header excluded
+     * @param groupKeyColumn     column whose consecutive equal values are kept in one chunk, null for none
+     * @throws IOException if the stream can not be read or has no header
+     */
+    public CsvChunker(InputStream in, int maxChunkBytes, int maxRecordsPerChunk, String groupKeyColumn) throws IOException {
+        if (maxChunkBytes <= 0 || maxChunkBytes > ApplicationConstants.MAX_UPLOAD_SIZE_IN_MB * ApplicationConstants.MB) {
+            in.close();
+            throw new IllegalArgumentException("Chunk size should be between 1 byte and " + ApplicationConstants.MAX_UPLOAD_SIZE_IN_MB + " MB: " + maxChunkBytes);
+        }
+        if (maxRecordsPerChunk <= 0) {
+            in.close();
+            throw new IllegalArgumentException("Records per chunk should be greater than 0: " + maxRecordsPerChunk);
+        }
+        this.reader = new CsvRecordReader(in);
+        this.maxChunkBytes = maxChunkBytes;
+        this.maxRecordsPerChunk = maxRecordsPerChunk;
+
+        ChunkBuffer headerBuffer = new ChunkBuffer(1024);
+        if (reader.readRecord(headerBuffer) < 0) {
+            reader.close();
+            throw new IOException("Invalid file. Empty stream");
+        }
+        int size = headerBuffer.size();
+        boolean crlf = size > 1 && headerBuffer.byteAt(size - 2) == CR && headerBuffer.byteAt(size - 1) == CsvRecordReader.LF;
+        this.lineTerminator = crlf ? new byte[]{CR, CsvRecordReader.LF} : new byte[]{CsvRecordReader.LF};
+        if (headerBuffer.byteAt(size - 1) != CsvRecordReader.LF) {
+            headerBuffer.write(lineTerminator, 0, lineTerminator.length);
+        }
+        this.header = headerBuffer.toByteArray();
+        if (header.length >= maxChunkBytes) {
+            reader.close();
+            throw new IllegalStateException("Header does not fit in a chunk of " + maxChunkBytes + " bytes");
+        }
+
+        try {
+            this.groupKeyIndex = groupKeyColumn == null ? -1
+                    : CsvExternalSorter.indexOf(CommonUtils.csvDecode(headerBuffer.decode(0).trim()), groupKeyColumn);
+        } catch (IllegalArgumentException e) {
+            reader.close();
+            throw e;
+        }
+
+        if (readRecord(lookahead) > 0) {
+            lookaheadRecords = 1;
+            lookaheadKey = keyOf(lookahead, 0);
+        }
+    }
+
+    /**
+     * @return the header line of the stream, with its line terminator
+     */
+    public byte[] getHeader() {
+        return Arrays.copyOf(header, header.length);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return lookahead.size() > 0;
+    }
+
+    /**
+     * @return the next chunk, header first, as UTF-8 bytes
+     * @throws IllegalStateException if a single record does not fit in a chunk
+     * @throws UncheckedIOException  if the stream can not be read
+     */
+    @Override
+    public byte[] next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            chunk.reset();
+            chunk.write(header);
+            lookahead.writeTo(chunk);
+            lookahead.reset();
+            if (chunk.size() > maxChunkBytes) {
+                throw new IllegalStateException("Record does not fit in a chunk of " + maxChunkBytes + " bytes");
+            }
+
+            int records = lookaheadRecords;
+            String groupKey = lookaheadKey;
+            int groupStart = header.length;
+            int recordsBeforeGroup = 0;
+            lookaheadRecords = 0;
+            while (true) {
+                int mark = chunk.size();
+                if (readRecord(chunk) < 0) {
+                    break;
+                }
+                String key = keyOf(chunk, mark);
+                if (chunk.size() <= maxChunkBytes && records < maxRecordsPerChunk) {
+                    if (key != null && !key.equals(groupKey)) {
+                        groupStart = mark;
+                        recordsBeforeGroup = records;
+                        groupKey = key;
+                    }
+                    records++;
+                    continue;
+                }
+
+                // chunk is full: move the record, or the whole group it belongs to, to the next chunk
+                int cut = mark;
+                int carried = 1;
+                boolean sameGroup = key != null && key.equals(groupKey);
+                if (sameGroup && groupStart > header.length
+                        && header.length + chunk.size() - groupStart <= maxChunkBytes
+                        && records - recordsBeforeGroup + 1 <= maxRecordsPerChunk) {
+                    cut = groupStart;
+                    carried = records - recordsBeforeGroup + 1;
+                } else if (sameGroup) {
+                    LOGGER.warn("Group:{} does not fit in one chunk, it is split", key);
+                }
+                chunk.copyTail(cut, lookahead);
+                chunk.truncate(cut);
+                lookaheadRecords = carried;
+                lookaheadKey = key;
+                records -= carried - 1;
+                break;
+            }
+
+            chunkCount++;
+            LOGGER.info("Prepared chunk:{} with records:{} and size (in bytes):{}", chunkCount, records, chunk.size());
+            return chunk.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the csv stream", e);
+        }
+    }
+
+    /**
+     * Appends the next non blank record to <code>buffer</code>, terminating it if it is the last line
+     * of the stream.
+     *
+     * @return number of bytes appended, -1 at the end of the stream
+     */
+    private int readRecord(ChunkBuffer buffer) throws IOException {
+        while (true) {
+            int mark = buffer.size();
+            int read = reader.readRecord(buffer);
+            if (read < 0) {
+                return read;
+            }
+            if (isBlank(buffer, mark)) {
+                buffer.truncate(mark);
+                continue;
+            }
+            if (buffer.byteAt(buffer.size() - 1) != CsvRecordReader.LF) {
+                buffer.write(lineTerminator, 0, lineTerminator.length);
+            }
+            return buffer.size() - mark;
+        }
+    }
+
+    /**
+     * @return group key of the record starting at <code>offset</code>, null when records are not grouped
+     */
+    private String keyOf(ChunkBuffer buffer, int offset) {
+        return groupKeyIndex < 0 ? null : buffer.field(offset, groupKeyIndex);
+    }
+
+    private static boolean isBlank(ChunkBuffer buffer, int from) {
+        for (int i = from; i < buffer.size(); i++) {
+            byte b = buffer.byteAt(i);
+            if (b != CR && b != CsvRecordReader.LF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            LOGGER.warn("Failed to close the csv stream", e);
+        }
+    }
+}
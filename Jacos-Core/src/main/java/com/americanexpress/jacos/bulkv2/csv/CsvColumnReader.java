@@ -0,0 +1,213 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.csv;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * Reads the values of one column of a CSV stream, eg. the Id column of an export to be deleted.<br>
+ * Only the bytes of that column are kept: the other fields of a record are scanned for quotes and
+ * separators but never decoded, so wide records cost no more than their length.
+ * </p>
+ * <p>
+ * Quoted values may span several lines and contain doubled quotes. Blank lines and records without
+ * a value in the column are skipped.
+ * </p>
+ *
+ * @since 1.0
+ */
+public class CsvColumnReader implements Iterator<String>, Closeable {
+
+    private static final int DEF_READ_BUFFER_SIZE = 64 * 1024;
+
+    private static final byte SEPARATOR = ',';
+
+    private static final byte CR = '\r';
+
+    private final InputStream in;
+
+    private final byte[] readBuffer = new byte[DEF_READ_BUFFER_SIZE];
+
+    private final ByteArrayOutputStream value = new ByteArrayOutputStream(32);
+
+    private final int columnIndex;
+
+    private int position;
+
+    private int limit;
+
+    private String next;
+
+    /**
+     * @param file   csv file with a header line
+     * @param column name of the column to read
+     * @throws IOException if the file can not be read or has no header
+     */
+    public CsvColumnReader(String file, String column) throws IOException {
+        this(new FileInputStream(file), column);
+    }
+
+    /**
+     * @param in     csv stream with a header line
+     * @param column name of the column to read
+     * @throws IOException              if the stream can not be read or has no header
+     * @throws IllegalArgumentException if the header has no such column
+     */
+    public CsvColumnReader(InputStream in, String column) throws IOException {
+        this.in = in;
+        try {
+            List<String> header = new ArrayList<>();
+            if (!readRecord(-1, header)) {
+                throw new IOException("Invalid file. Empty stream");
+            }
+            this.columnIndex = CsvExternalSorter.indexOf(header.toArray(new String[0]), column);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                List<String> fields = new ArrayList<>(1);
+                while (next == null && readRecord(columnIndex, fields)) {
+                    next = fields.isEmpty() || fields.get(0).isEmpty() ? null : fields.get(0);
+                    fields.clear();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read the csv stream", e);
+            }
+        }
+        return next != null;
+    }
+
+    /**
+     * @return the value of the column in the next record which has one
+     * @throws UncheckedIOException if the stream can not be read
+     */
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String result = next;
+        next = null;
+        return result;
+    }
+
+    /**
+     * Scans the next record.
+     *
+     * @param captureIndex index of the field to add to <code>fields</code>, -1 to add all of them
+     * @param fields       receives the captured fields, nothing for a blank line
+     * @return false at the end of the stream
+     */
+    private boolean readRecord(int captureIndex, List<String> fields) throws IOException {
+        int fieldIndex = 0;
+        boolean quoted = false;
+        boolean quotePending = false;
+        boolean crPending = false;
+        boolean empty = true;
+        value.reset();
+        while (true) {
+            if (position == limit && !fill()) {
+                if (empty) {
+                    return false;
+                }
+                endField(fieldIndex, captureIndex, fields);
+                return true;
+            }
+            byte b = readBuffer[position++];
+            boolean capture = captureIndex < 0 || fieldIndex == captureIndex;
+            if (quotePending) {
+                quotePending = false;
+                if (b == CsvRecordReader.QUOTE) {
+                    // doubled quote inside a quoted value
+                    if (capture) {
+                        value.write(b);
+                    }
+                    continue;
+                }
+                quoted = false;
+            }
+            if (quoted) {
+                if (b == CsvRecordReader.QUOTE) {
+                    quotePending = true;
+                } else if (capture) {
+                    value.write(b);
+                }
+                continue;
+            }
+            if (crPending && b != CsvRecordReader.LF && capture) {
+                value.write(CR);
+            }
+            crPending = false;
+            if (b == CsvRecordReader.LF) {
+                if (empty) {
+                    continue;
+                }
+                endField(fieldIndex, captureIndex, fields);
+                return true;
+            }
+            empty = false;
+            if (b == SEPARATOR) {
+                endField(fieldIndex, captureIndex, fields);
+                fieldIndex++;
+            } else if (b == CsvRecordReader.QUOTE) {
+                quoted = true;
+            } else if (b == CR) {
+                crPending = true;
+            } else if (capture) {
+                value.write(b);
+            }
+        }
+    }
+
+    private void endField(int fieldIndex, int captureIndex, List<String> fields) {
+        if (captureIndex < 0 || fieldIndex == captureIndex) {
+            fields.add(new String(value.toByteArray(), StandardCharsets.UTF_8));
+        }
+        value.reset();
+    }
+
+    private boolean fill() throws IOException {
+        int read;
+        do {
+            read = in.read(readBuffer);
+        } while (read == 0);
+        position = 0;
+        limit = Math.max(read, 0);
+        return read > 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
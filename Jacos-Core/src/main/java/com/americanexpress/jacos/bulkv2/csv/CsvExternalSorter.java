@@ -0,0 +1,342 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.csv;
+
+import com.americanexpress.jacos.utils.CommonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * <p>
+ * Sorts the records of a CSV file by the value of one column, keeping the header first. Records with
+ * the same value keep their order in the file.
+ * </p>
+ * <p>
+ * Files bigger than <code>maxBufferBytes</code> are sorted externally: the records are read in runs
+ * which fit in the buffer, each run is sorted and spilled to a temporary file, then the runs are
+ * merged. Memory use is bounded by the buffer whatever the size of the file.
+ * </p>
+ * <p>
+ * Records are kept as raw bytes, only the sort column is decoded: the fields before it are scanned
+ * for quotes and separators, the ones after it are not read. Blank lines are dropped.
+ * </p>
+ *
+ * @since 1.0
+ */
+public class CsvExternalSorter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CsvExternalSorter.class);
+
+    /**
+     * Rough memory taken by one buffered record on top of its bytes and key
+     */
+    private static final int RECORD_OVERHEAD = 64;
+
+    private static final byte SEPARATOR = ',';
+
+    private static final Comparator<Run> RUN_ORDER = Comparator.comparing((Run run) -> run.key).thenComparingInt(run -> run.index);
+
+    private final long maxBufferBytes;
+
+    private final Path workDir;
+
+    /**
+     * @param maxBufferBytes memory used for the records of a run
+     * @param workDir        directory of the run files and of the sorted file
+     */
+    public CsvExternalSorter(long maxBufferBytes, Path workDir) {
+        if (maxBufferBytes <= 0) {
+            throw new IllegalArgumentException("Sort buffer should be greater than 0: " + maxBufferBytes);
+        }
+        this.maxBufferBytes = maxBufferBytes;
+        this.workDir = workDir;
+    }
+
+    /**
+     * @param input     csv file with a header line
+     * @param keyColumn name of the column to sort on
+     * @return new temporary file with the sorted records, to be deleted by the caller
+     * @throws IOException              if a file can not be read or written
+     * @throws IllegalArgumentException if the header has no such column
+     */
+    public Path sort(Path input, String keyColumn) throws IOException {
+        List<Path> runs = new ArrayList<>();
+        Path sorted = Files.createTempFile(workDir, "sorted-", ".csv");
+        try (CsvRecordReader reader = new CsvRecordReader(Files.newInputStream(input))) {
+            ChunkBuffer record = new ChunkBuffer(1024);
+            if (reader.readRecord(record) < 0) {
+                throw new IOException("Invalid file. Empty stream");
+            }
+            byte[] header = record.toByteArray();
+            boolean crlf = header.length > 1 && header[header.length - 2] == '\r' && header[header.length - 1] == CsvRecordReader.LF;
+            byte[] lineTerminator = crlf ? new byte[]{'\r', CsvRecordReader.LF} : new byte[]{CsvRecordReader.LF};
+            header = terminate(header, lineTerminator);
+            int keyIndex = indexOf(CommonUtils.csvDecode(new String(header, StandardCharsets.UTF_8).trim()), keyColumn);
+
+            List<Entry> buffer = new ArrayList<>();
+            long bufferBytes = 0;
+            long seq = 0;
+            while (true) {
+                record.reset();
+                if (reader.readRecord(record) < 0) {
+                    break;
+                }
+                if (isBlank(record)) {
+                    continue;
+                }
+                byte[] bytes = terminate(record.toByteArray(), lineTerminator);
+                String key = keyOf(bytes, keyIndex);
+                buffer.add(new Entry(key, bytes, seq++));
+                bufferBytes += bytes.length + 2L * key.length() + RECORD_OVERHEAD;
+                if (bufferBytes >= maxBufferBytes) {
+                    runs.add(spill(buffer));
+                    buffer.clear();
+                    bufferBytes = 0;
+                }
+            }
+
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(sorted))) {
+                out.write(header);
+                if (runs.isEmpty()) {
+                    buffer.sort(Entry.ORDER);
+                    for (Entry entry : buffer) {
+                        out.write(entry.record);
+                    }
+                } else {
+                    if (!buffer.isEmpty()) {
+                        runs.add(spill(buffer));
+                    }
+                    merge(runs, out);
+                }
+            }
+            LOGGER.info("Sorted {} records of {} by {} using {} runs", seq, input, keyColumn, Math.max(runs.size(), 1));
+            return sorted;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(sorted);
+            throw e;
+        } finally {
+            for (Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+        }
+    }
+
+    private Path spill(List<Entry> buffer) throws IOException {
+        buffer.sort(Entry.ORDER);
+        Path run = Files.createTempFile(workDir, "sort-run-", ".bin");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run)))) {
+            for (Entry entry : buffer) {
+                byte[] key = entry.key.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(key.length);
+                out.write(key);
+                out.writeInt(entry.record.length);
+                out.write(entry.record);
+            }
+        }
+        LOGGER.debug("Spilled {} records to {}", buffer.size(), run);
+        return run;
+    }
+
+    /**
+     * k-way merge of the sorted runs. On equal keys the earlier run wins, which keeps the file order.
+     */
+    private void merge(List<Path> runFiles, OutputStream out) throws IOException {
+        PriorityQueue<Run> queue = new PriorityQueue<>(runFiles.size(), RUN_ORDER);
+        List<Run> runs = new ArrayList<>();
+        try {
+            for (int i = 0; i < runFiles.size(); i++) {
+                Run run = new Run(i, runFiles.get(i));
+                runs.add(run);
+                if (run.advance()) {
+                    queue.add(run);
+                }
+            }
+            while (!queue.isEmpty()) {
+                Run run = queue.poll();
+                out.write(run.record);
+                if (run.advance()) {
+                    queue.add(run);
+                }
+            }
+        } finally {
+            for (Run run : runs) {
+                run.close();
+            }
+        }
+    }
+
+    static int indexOf(String[] header, String column) {
+        for (int i = 0; i < header.length; i++) {
+            if (header[i].trim().equals(column)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Column " + column + " not found in the header");
+    }
+
+    private static String keyOf(byte[] record, int keyIndex) {
+        return keyOf(record, 0, record.length, keyIndex);
+    }
+
+    /**
+     * Decodes one field of a record. The fields before it are only scanned for quotes and separators,
+     * the fields after it are not read at all, like in {@link CsvColumnReader}.
+     *
+     * @param record   bytes holding the record
+     * @param from     start of the record
+     * @param to       end of the record, its line terminator included or not
+     * @param keyIndex index of the field
+     * @return value of the field, unquoted, empty if the record is shorter
+     */
+    static String keyOf(byte[] record, int from, int to, int keyIndex) {
+        int end = to;
+        while (end > from && (record[end - 1] == CsvRecordReader.LF || record[end - 1] == '\r')) {
+            end--;
+        }
+        int position = from;
+        for (int field = 0; field < keyIndex; field++) {
+            boolean quoted = false;
+            while (position < end && (quoted || record[position] != SEPARATOR)) {
+                if (record[position] == CsvRecordReader.QUOTE) {
+                    quoted = !quoted;
+                }
+                position++;
+            }
+            if (position == end) {
+                return "";
+            }
+            position++;
+        }
+        if (position < end && record[position] == CsvRecordReader.QUOTE) {
+            byte[] value = new byte[end - position];
+            int length = 0;
+            for (int i = position + 1; i < end; i++) {
+                if (record[i] == CsvRecordReader.QUOTE) {
+                    if (i + 1 < end && record[i + 1] == CsvRecordReader.QUOTE) {
+                        // doubled quote inside a quoted value
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                value[length++] = record[i];
+            }
+            return new String(value, 0, length, StandardCharsets.UTF_8);
+        }
+        int fieldEnd = position;
+        while (fieldEnd < end && record[fieldEnd] != SEPARATOR) {
+            fieldEnd++;
+        }
+        return new String(record, position, fieldEnd - position, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] terminate(byte[] record, byte[] lineTerminator) {
+        if (record.length > 0 && record[record.length - 1] == CsvRecordReader.LF) {
+            return record;
+        }
+        byte[] terminated = Arrays.copyOf(record, record.length + lineTerminator.length);
+        System.arraycopy(lineTerminator, 0, terminated, record.length, lineTerminator.length);
+        return terminated;
+    }
+
+    private static boolean isBlank(ChunkBuffer record) {
+        for (int i = 0; i < record.size(); i++) {
+            byte b = record.byteAt(i);
+            if (b != '\r' && b != CsvRecordReader.LF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class Entry {
+
+        static final Comparator<Entry> ORDER = Comparator.comparing((Entry entry) -> entry.key).thenComparingLong(entry -> entry.seq);
+
+        final String key;
+
+        final byte[] record;
+
+        final long seq;
+
+        Entry(String key, byte[] record, long seq) {
+            this.key = key;
+            this.record = record;
+            this.seq = seq;
+        }
+    }
+
+    /**
+     * Cursor on a spilled run
+     */
+    private static class Run implements Closeable {
+
+        final int index;
+
+        private final DataInputStream in;
+
+        String key;
+
+        byte[] record;
+
+        Run(int index, Path file) throws IOException {
+            this.index = index;
+            InputStream stream = Files.newInputStream(file);
+            this.in = new DataInputStream(new BufferedInputStream(stream));
+        }
+
+        /**
+         * @return false at the end of the run
+         */
+        boolean advance() throws IOException {
+            int keyLength;
+            try {
+                keyLength = in.readInt();
+            } catch (EOFException e) {
+                return false;
+            }
+            byte[] keyBytes = new byte[keyLength];
+            in.readFully(keyBytes);
+            key = new String(keyBytes, StandardCharsets.UTF_8);
+            record = new byte[in.readInt()];
+            in.readFully(record);
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,352 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.csv;
+
+import com.americanexpress.jacos.constants.ApplicationConstants;
+import com.americanexpress.jacos.utils.CommonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * <p>
+ * Splits a CSV file into chunk files on disk, ready to be uploaded as Bulk API 2.0 job data. Each chunk
+ * file starts with the header of the file and holds at most <code>maxChunkBytes</code> bytes and
+ * <code>maxRecordsPerChunk</code> records.
+ * </p>
+ * <p>
+ * The file is cut in regions of about one chunk, scanned by <code>parallelism</code> threads through
+ * memory-mapped windows. A first pass counts the quotes of each region: the parity of the quotes seen
+ * before a region tells whether it starts inside a quoted value, so a second pass can find the record
+ * boundaries of every region at the same time without ever cutting a quoted line break. Records are
+ * never decoded: chunk files are written with <code>FileChannel.transferTo</code>.
+ * </p>
+ * <p>
+ * The records from the first boundary of a region up to the first boundary of the next one go to the
+ * chunks of that region, split again when they do not fit in one chunk. Unlike {@link CsvChunker},
+ * blank lines are copied as they are.
+ * </p>
+ *
+ * @since 1.0
+ */
+public class CsvFileSplitter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CsvFileSplitter.class);
+
+    /**
+     * Size of the part of the file mapped at once by a thread
+     */
+    static final int WINDOW_BYTES = 64 * ApplicationConstants.MB;
+
+    private static final byte QUOTE = '"';
+
+    private static final byte CR = '\r';
+
+    private final int maxChunkBytes;
+
+    private final int maxRecordsPerChunk;
+
+    private final int parallelism;
+
+    private final Path workDir;
+
+    /**
+     * @param maxChunkBytes      upper bound of the size of each chunk file, header included
+     * @param maxRecordsPerChunk upper bound of the number of records in each chunk file, header excluded
+     * @param parallelism        number of threads scanning and writing the file
+     * @param workDir            directory of the chunk files
+     */
+    public CsvFileSplitter(int maxChunkBytes, int maxRecordsPerChunk, int parallelism, Path workDir) {
+        if (maxChunkBytes <= 0 || maxChunkBytes > ApplicationConstants.MAX_UPLOAD_SIZE_IN_MB * ApplicationConstants.MB) {
+            throw new IllegalArgumentException("Chunk size should be between 1 byte and " + ApplicationConstants.MAX_UPLOAD_SIZE_IN_MB + " MB: " + maxChunkBytes);
+        }
+        if (maxRecordsPerChunk <= 0 || parallelism <= 0) {
+            throw new IllegalArgumentException("Records per chunk and parallelism should be greater than 0: " + maxRecordsPerChunk + ", " + parallelism);
+        }
+        this.maxChunkBytes = maxChunkBytes;
+        this.maxRecordsPerChunk = maxRecordsPerChunk;
+        this.parallelism = parallelism;
+        this.workDir = workDir;
+    }
+
+    /**
+     * Splits the file. The caller owns the chunk files and deletes them once uploaded; on failure the
+     * chunk files written so far are deleted.
+     *
+     * @param file csv file with a header line
+     * @return chunk files, in the order of the records of the file
+     * @throws IOException if the file can not be read or a chunk file can not be written
+     */
+    public List<Path> split(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                throw new IOException("Invalid file. Empty stream");
+            }
+            MappedWindow window = new MappedWindow(channel, size);
+            long dataStart = 0;
+            boolean inside = false;
+            while (dataStart < size) {
+                byte b = window.get(dataStart++);
+                if (b == QUOTE) {
+                    inside = !inside;
+                } else if (b == CsvRecordReader.LF && !inside) {
+                    break;
+                }
+            }
+            if (dataStart >= maxChunkBytes) {
+                throw new IllegalStateException("Header does not fit in a chunk of " + maxChunkBytes + " bytes");
+            }
+            byte[] header = new byte[(int) dataStart];
+            channel.read(ByteBuffer.wrap(header), 0);
+            if (header[header.length - 1] != CsvRecordReader.LF) {
+                // header without records
+                return new ArrayList<>();
+            }
+
+            int bodyBytes = maxChunkBytes - header.length;
+            long regionBytes = Math.max(1, bodyBytes - bodyBytes / 16);
+            int regions = (int) Math.min(Integer.MAX_VALUE, (size - dataStart + regionBytes - 1) / regionBytes);
+            long[] starts = new long[regions + 1];
+            for (int i = 0; i < regions; i++) {
+                starts[i] = dataStart + i * regionBytes;
+            }
+            starts[regions] = size;
+
+            ExecutorService executor = Executors.newFixedThreadPool(parallelism, CommonUtils.daemonThreadFactory("jacos-csv-split-"));
+            try {
+                List<Callable<Boolean>> quoteCounts = new ArrayList<>();
+                for (int i = 0; i < regions; i++) {
+                    long start = starts[i];
+                    long end = starts[i + 1];
+                    quoteCounts.add(() -> hasOddQuotes(new MappedWindow(channel, size), start, end));
+                }
+                List<Boolean> oddQuotes = new ArrayList<>();
+                for (Future<Boolean> count : executor.invokeAll(quoteCounts)) {
+                    oddQuotes.add(count.get());
+                }
+
+                List<Callable<List<Path>>> splits = new ArrayList<>();
+                boolean startsInside = false;
+                for (int i = 0; i < regions; i++) {
+                    String prefix = file.getFileName() + "-" + i + "-";
+                    long start = starts[i];
+                    long end = starts[i + 1];
+                    boolean regionInside = startsInside;
+                    splits.add(() -> new RegionSplit(channel, size, header, prefix).split(start, end, regionInside));
+                    startsInside ^= oddQuotes.get(i);
+                }
+                List<Path> chunks = new ArrayList<>();
+                ExecutionException failure = null;
+                for (Future<List<Path>> split : executor.invokeAll(splits)) {
+                    try {
+                        chunks.addAll(split.get());
+                    } catch (ExecutionException e) {
+                        // keep collecting, the chunk files of the other regions are deleted below
+                        failure = failure == null ? e : failure;
+                    }
+                }
+                if (failure != null) {
+                    chunks.forEach(CsvFileSplitter::deleteQuietly);
+                    throw failure;
+                }
+                LOGGER.info("Split {} ({} bytes) in {} chunk files with {} threads", file, size, chunks.size(), parallelism);
+                return chunks;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while splitting " + file, e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new IOException("Failed to split " + file, cause);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private static boolean hasOddQuotes(MappedWindow window, long start, long end) throws IOException {
+        boolean odd = false;
+        for (long position = start; position < end; position++) {
+            if (window.get(position) == QUOTE) {
+                odd = !odd;
+            }
+        }
+        return odd;
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to delete {}", file, e);
+        }
+    }
+
+    /**
+     * Finds the records of one region and writes them to chunk files
+     */
+    private class RegionSplit {
+
+        private final FileChannel channel;
+
+        private final long size;
+
+        private final byte[] header;
+
+        private final String prefix;
+
+        private final MappedWindow window;
+
+        private final List<Path> chunks = new ArrayList<>();
+
+        RegionSplit(FileChannel channel, long size, byte[] header, String prefix) {
+            this.channel = channel;
+            this.size = size;
+            this.header = header;
+            this.prefix = prefix;
+            this.window = new MappedWindow(channel, size);
+        }
+
+        /**
+         * @param start  first byte of the region
+         * @param end    first byte of the next region
+         * @param inside true when the region starts inside a quoted value
+         * @return chunk files of the records starting in the region
+         */
+        List<Path> split(long start, long end, boolean inside) throws IOException {
+            try {
+                // the records of the region start at its first record boundary
+                long position = inside || window.get(start - 1) != CsvRecordReader.LF ? nextRecordEnd(start, inside) : start;
+                long chunkStart = position;
+                long recordStart = position;
+                int records = 0;
+                while (recordStart < end) {
+                    long recordEnd = nextRecordEnd(recordStart, false);
+                    if (recordEnd - chunkStart + header.length > maxChunkBytes) {
+                        if (records > 0) {
+                            write(chunkStart, recordStart);
+                            chunkStart = recordStart;
+                            records = 0;
+                        }
+                        if (recordEnd - chunkStart + header.length > maxChunkBytes) {
+                            throw new IllegalStateException("Record does not fit in a chunk of " + maxChunkBytes + " bytes");
+                        }
+                    }
+                    if (!isBlank(recordStart, recordEnd)) {
+                        records++;
+                    }
+                    recordStart = recordEnd;
+                    if (records == maxRecordsPerChunk) {
+                        write(chunkStart, recordStart);
+                        chunkStart = recordStart;
+                        records = 0;
+                    }
+                }
+                if (recordStart > chunkStart && records > 0) {
+                    write(chunkStart, recordStart);
+                }
+                return chunks;
+            } catch (IOException | RuntimeException e) {
+                chunks.forEach(CsvFileSplitter::deleteQuietly);
+                throw e;
+            }
+        }
+
+        /**
+         * @return position after the line break ending the record, or the end of the file
+         */
+        private long nextRecordEnd(long position, boolean inside) throws IOException {
+            while (position < size) {
+                byte b = window.get(position++);
+                if (b == QUOTE) {
+                    inside = !inside;
+                } else if (b == CsvRecordReader.LF && !inside) {
+                    return position;
+                }
+            }
+            return size;
+        }
+
+        private boolean isBlank(long recordStart, long recordEnd) throws IOException {
+            long length = recordEnd - recordStart;
+            return length == 0 || (length == 1 && window.get(recordStart) == CsvRecordReader.LF)
+                    || (length == 2 && window.get(recordStart) == CR && window.get(recordStart + 1) == CsvRecordReader.LF);
+        }
+
+        private void write(long from, long to) throws IOException {
+            Path chunk = Files.createTempFile(workDir, prefix, ".csv");
+            chunks.add(chunk);
+            try (FileChannel out = FileChannel.open(chunk, StandardOpenOption.WRITE)) {
+                out.write(ByteBuffer.wrap(header));
+                long position = from;
+                while (position < to) {
+                    position += channel.transferTo(position, to - position, out);
+                }
+            }
+            LOGGER.debug("Prepared chunk file:{} of {} bytes", chunk, to - from + header.length);
+        }
+    }
+
+    /**
+     * Reads a file through a memory-mapped window of at most {@link #WINDOW_BYTES}, moved as needed
+     */
+    private static class MappedWindow {
+
+        private final FileChannel channel;
+
+        private final long size;
+
+        private MappedByteBuffer buffer;
+
+        private long bufferStart;
+
+        private long bufferEnd;
+
+        MappedWindow(FileChannel channel, long size) {
+            this.channel = channel;
+            this.size = size;
+        }
+
+        byte get(long position) throws IOException {
+            if (position < bufferStart || position >= bufferEnd) {
+                bufferStart = position;
+                bufferEnd = Math.min(size, position + WINDOW_BYTES);
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, bufferStart, bufferEnd - bufferStart);
+            }
+            return buffer.get((int) (position - bufferStart));
+        }
+    }
+}
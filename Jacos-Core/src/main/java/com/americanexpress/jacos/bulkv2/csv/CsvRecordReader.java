@@ -0,0 +1,104 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.csv;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * <p>
+ * Reads raw CSV records from a byte stream without decoding them to Strings.<br>
+ * A record ends at a line feed that is not enclosed in double quotes, so quoted values spanning
+ * several lines are kept in one record. The line terminator is part of the returned record.
+ * </p>
+ * <p>
+ * Working on bytes is safe for UTF-8 input because the quote and line feed characters never occur
+ * inside a multi-byte sequence.
+ * </p>
+ *
+ * @since 1.0
+ */
+public class CsvRecordReader implements Closeable {
+
+    static final byte QUOTE = '"';
+
+    static final byte LF = '\n';
+
+    private static final int DEF_READ_BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream in;
+
+    private final byte[] readBuffer;
+
+    private int position;
+
+    private int limit;
+
+    public CsvRecordReader(InputStream in) {
+        this(in, DEF_READ_BUFFER_SIZE);
+    }
+
+    public CsvRecordReader(InputStream in, int readBufferSize) {
+        this.in = in;
+        this.readBuffer = new byte[readBufferSize];
+    }
+
+    /**
+     * Copies the next record, including its line terminator, to <code>out</code>.
+     *
+     * @param out destination of the record bytes
+     * @return number of bytes written, or -1 if the end of the stream was reached before any byte
+     * @throws IOException if the underlying stream fails
+     */
+    public int readRecord(OutputStream out) throws IOException {
+        boolean quoted = false;
+        int total = 0;
+        while (true) {
+            if (position == limit && !fill()) {
+                return total == 0 ? -1 : total;
+            }
+            int start = position;
+            while (position < limit) {
+                byte b = readBuffer[position++];
+                if (b == QUOTE) {
+                    quoted = !quoted;
+                } else if (b == LF && !quoted) {
+                    out.write(readBuffer, start, position - start);
+                    return total + position - start;
+                }
+            }
+            out.write(readBuffer, start, position - start);
+            total += position - start;
+        }
+    }
+
+    private boolean fill() throws IOException {
+        int read;
+        do {
+            read = in.read(readBuffer);
+        } while (read == 0);
+        position = 0;
+        limit = Math.max(read, 0);
+        return read > 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
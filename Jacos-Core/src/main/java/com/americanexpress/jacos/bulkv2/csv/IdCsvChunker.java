@@ -0,0 +1,136 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.csv;
+
+import com.americanexpress.jacos.constants.ApplicationConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * Builds the job data of an Id only operation (delete, hardDelete) straight from a stream of ids: an
+ * <code>Id</code> header followed by one id per line, split in chunks like {@link CsvChunker} does.
+ * </p>
+ * <p>
+ * The ids are pulled one at a time, eg. from a {@link CsvColumnReader} or a database cursor, so only
+ * the chunk being built is held in memory. Blank ids are skipped. If the ids are Closeable they are
+ * closed with this chunker.
+ * </p>
+ *
+ * @since 1.0
+ */
+public class IdCsvChunker implements Iterator<byte[]>, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IdCsvChunker.class);
+
+    static final byte[] HEADER = "Id\n".getBytes(StandardCharsets.UTF_8);
+
+    private static final int INITIAL_BUFFER_SIZE = ApplicationConstants.MB;
+
+    private final Iterator<String> ids;
+
+    private final int maxChunkBytes;
+
+    private final int maxRecordsPerChunk;
+
+    private final ChunkBuffer chunk = new ChunkBuffer(INITIAL_BUFFER_SIZE);
+
+    /**
+     * Next id line, read but not written to a chunk yet
+     */
+    private byte[] lookahead;
+
+    private int chunkCount;
+
+    /**
+     * @param ids                ids of the records, read lazily
+     * @param maxChunkBytes      upper bound of the size of each chunk, header included
+     * @param maxRecordsPerChunk upper bound of the number of ids in each chunk
+     */
+    public IdCsvChunker(Iterator<String> ids, int maxChunkBytes, int maxRecordsPerChunk) {
+        if (maxChunkBytes <= HEADER.length || maxChunkBytes > ApplicationConstants.MAX_UPLOAD_SIZE_IN_MB * ApplicationConstants.MB) {
+            throw new IllegalArgumentException("Chunk size should be between " + (HEADER.length + 1) + " bytes and " + ApplicationConstants.MAX_UPLOAD_SIZE_IN_MB + " MB: " + maxChunkBytes);
+        }
+        if (maxRecordsPerChunk <= 0) {
+            throw new IllegalArgumentException("Records per chunk should be greater than 0: " + maxRecordsPerChunk);
+        }
+        this.ids = ids;
+        this.maxChunkBytes = maxChunkBytes;
+        this.maxRecordsPerChunk = maxRecordsPerChunk;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (lookahead == null && ids.hasNext()) {
+            String id = ids.next();
+            if (id != null && !id.trim().isEmpty()) {
+                lookahead = line(id.trim());
+            }
+        }
+        return lookahead != null;
+    }
+
+    /**
+     * @return the next chunk, header first, as UTF-8 bytes
+     * @throws IllegalStateException if a single id does not fit in a chunk
+     */
+    @Override
+    public byte[] next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        chunk.reset();
+        chunk.write(HEADER, 0, HEADER.length);
+        if (HEADER.length + lookahead.length > maxChunkBytes) {
+            throw new IllegalStateException("Id does not fit in a chunk of " + maxChunkBytes + " bytes");
+        }
+        int records = 0;
+        while (hasNext() && records < maxRecordsPerChunk && chunk.size() + lookahead.length <= maxChunkBytes) {
+            chunk.write(lookahead, 0, lookahead.length);
+            lookahead = null;
+            records++;
+        }
+        chunkCount++;
+        LOGGER.info("Prepared id chunk:{} with records:{} and size (in bytes):{}", chunkCount, records, chunk.size());
+        return chunk.toByteArray();
+    }
+
+    /**
+     * @return the id as a csv line, quoted only if it has a separator, quote or line break
+     */
+    static byte[] line(String id) {
+        boolean quote = id.indexOf(',') >= 0 || id.indexOf('"') >= 0 || id.indexOf('\n') >= 0 || id.indexOf('\r') >= 0;
+        String line = quote ? "\"" + id.replace("\"", "\"\"") + "\"\n" : id + "\n";
+        return line.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() {
+        if (ids instanceof Closeable) {
+            try {
+                ((Closeable) ids).close();
+            } catch (IOException e) {
+                LOGGER.warn("Failed to close the ids", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.ingest;
+
+import com.americanexpress.jacos.utils.CommonUtils;
+import endolabs.salesforce.bulkv2.response.CreateJobResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * Runs several bulk jobs at once. Each chunk of a load is submitted as its own job (create, upload,
+ * close) on one of <code>parallelism</code> worker threads, while a reader thread prepares the next
+ * chunks.
+ * </p>
+ * <p>
+ * At most <code>parallelism + queueCapacity</code> chunks of a load are held at any time: the reader
+ * waits for a job to finish before it reads more, so memory stays bounded whatever the size of the
+ * input.
+ * </p>
+ *
+ * @see BulkIngestHandle
+ */
+public class BulkIngestEngine implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BulkIngestEngine.class);
+
+    private final int parallelism;
+
+    private final int queueCapacity;
+
+    private final ExecutorService workers;
+
+    private final ExecutorService readers;
+
+    /**
+     * @param parallelism   number of jobs submitted at the same time
+     * @param queueCapacity number of chunks read ahead while all workers are busy
+     */
+    public BulkIngestEngine(int parallelism, int queueCapacity) {
+        if (parallelism < 1 || queueCapacity < 0) {
+            throw new IllegalArgumentException("Invalid parallelism:" + parallelism + " or queue capacity:" + queueCapacity);
+        }
+        this.parallelism = parallelism;
+        this.queueCapacity = queueCapacity;
+        this.workers = Executors.newFixedThreadPool(parallelism, CommonUtils.daemonThreadFactory("jacos-bulk-worker-"));
+        this.readers = Executors.newCachedThreadPool(CommonUtils.daemonThreadFactory("jacos-bulk-reader-"));
+    }
+
+    /**
+     * Starts a load in the background. If <code>chunks</code> is Closeable it is closed once fully read.
+     *
+     * @param chunks    chunks of job data, read lazily
+     * @param submitter creates, uploads and closes the job of one chunk
+     * @param <T>       type of the chunks
+     * @return handle on the running load
+     */
+    public <T> BulkIngestHandle ingest(Iterator<T> chunks, Function<T, CreateJobResponse> submitter) {
+        BulkIngestHandle handle = new BulkIngestHandle();
+        readers.execute(() -> read(chunks, submitter, handle));
+        return handle;
+    }
+
+    private <T> void read(Iterator<T> chunks, Function<T, CreateJobResponse> submitter, BulkIngestHandle handle) {
+        Semaphore slots = new Semaphore(parallelism + queueCapacity);
+        Throwable failure = null;
+        try {
+            while (!handle.isStopped() && chunks.hasNext()) {
+                slots.acquire();
+                if (handle.isStopped()) {
+                    slots.release();
+                    break;
+                }
+                final T chunk;
+                try {
+                    chunk = chunks.next();
+                } catch (RuntimeException e) {
+                    slots.release();
+                    throw e;
+                }
+                int chunkNumber = handle.getSubmittedChunks() + 1;
+                CompletableFuture<CreateJobResponse> job = CompletableFuture.supplyAsync(() -> submitter.apply(chunk), workers);
+                job.whenComplete((response, e) -> {
+                    if (e != null) {
+                        LOGGER.error("Failed to submit chunk:{}, stopping the load", chunkNumber, e);
+                        handle.stop();
+                    } else {
+                        LOGGER.info("Submitted chunk:{} as job:{}", chunkNumber, response == null ? null : response.getId());
+                    }
+                    // released once stopped, so that the reader waiting for a slot sees the failure
+                    slots.release();
+                });
+                handle.addJob(job);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = e;
+        } catch (RuntimeException e) {
+            LOGGER.error("Failed to read the next chunk, stopping the load", e);
+            failure = e;
+        } finally {
+            if (chunks instanceof Closeable) {
+                try {
+                    ((Closeable) chunks).close();
+                } catch (IOException e) {
+                    LOGGER.warn("Failed to close the chunks", e);
+                }
+            }
+            handle.finish(failure);
+        }
+    }
+
+    @Override
+    public void close() {
+        readers.shutdownNow();
+        workers.shutdown();
+    }
+}
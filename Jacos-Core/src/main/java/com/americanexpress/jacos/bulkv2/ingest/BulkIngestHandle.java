@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.ingest;
+
+import endolabs.salesforce.bulkv2.BulkRequestException;
+import endolabs.salesforce.bulkv2.response.CreateJobResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <p>
+ * Handle on a bulk load which runs in the background. It collects the job created for every chunk,
+ * in the order the chunks were read.
+ * </p>
+ * <p>
+ * The load stops reading new chunks as soon as one chunk fails or {@link #cancel()} is called. Jobs
+ * already running are left to finish and stay available through {@link #getCreatedJobs()}.
+ * </p>
+ *
+ * @see BulkIngestEngine
+ */
+public class BulkIngestHandle {
+
+    private final List<CompletableFuture<CreateJobResponse>> jobs = new ArrayList<>();
+
+    private final CompletableFuture<List<CreateJobResponse>> completion = new CompletableFuture<>();
+
+    private final AtomicBoolean stopped = new AtomicBoolean();
+
+    synchronized void addJob(CompletableFuture<CreateJobResponse> job) {
+        jobs.add(job);
+    }
+
+    void stop() {
+        stopped.set(true);
+    }
+
+    boolean isStopped() {
+        return stopped.get();
+    }
+
+    /**
+     * Completes the load once every submitted chunk is done, with the first failure if there was one.
+     */
+    void finish(Throwable failure) {
+        CompletableFuture<?>[] submitted;
+        synchronized (this) {
+            submitted = jobs.toArray(new CompletableFuture<?>[0]);
+        }
+        CompletableFuture.allOf(submitted).whenComplete((ignored, jobFailure) -> {
+            Throwable cause = failure != null ? failure : jobFailure;
+            if (cause != null) {
+                completion.completeExceptionally(cause instanceof CompletionException && cause.getCause() != null ? cause.getCause() : cause);
+            } else {
+                completion.complete(getCreatedJobs());
+            }
+        });
+    }
+
+    /**
+     * Stops reading new chunks. Chunks already handed over keep going.
+     */
+    public void cancel() {
+        stop();
+    }
+
+    /**
+     * @return number of chunks handed over for submission so far
+     */
+    public synchronized int getSubmittedChunks() {
+        return jobs.size();
+    }
+
+    /**
+     * @return jobs created successfully so far, in chunk order
+     */
+    public synchronized List<CreateJobResponse> getCreatedJobs() {
+        List<CreateJobResponse> created = new ArrayList<>();
+        for (CompletableFuture<CreateJobResponse> job : jobs) {
+            if (job.isDone() && !job.isCompletedExceptionally()) {
+                created.add(job.join());
+            }
+        }
+        return created;
+    }
+
+    /**
+     * @return future of all created jobs in chunk order, completed exceptionally if any chunk failed
+     */
+    public CompletableFuture<List<CreateJobResponse>> getCompletion() {
+        return completion;
+    }
+
+    /**
+     * Waits for the end of the load.
+     *
+     * @return all created jobs in chunk order
+     * @throws BulkRequestException if a chunk could not be submitted
+     */
+    public List<CreateJobResponse> await() {
+        try {
+            return completion.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof BulkRequestException) {
+                throw (BulkRequestException) cause;
+            }
+            throw new BulkRequestException("Bulk load failed", cause);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.ingest;
+
+import com.americanexpress.jacos.utils.CommonUtils;
+import endolabs.salesforce.bulkv2.response.GetJobInfoResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * Waits for bulk jobs to reach JobComplete, Failed or Aborted. One scheduler thread times the status
+ * calls of all the watched jobs, each on its own delay, and hands them to <code>pollParallelism</code>
+ * poller threads: a slow status call holds up at most one poller, not the other jobs.
+ * </p>
+ * <p>
+ * The delay of a job adapts to its progress: it is divided by <code>backoffFactor</code> (down to
+ * <code>minDelayMillis</code>) while numberRecordsProcessed keeps growing, and multiplied by it (up to
+ * <code>maxDelayMillis</code>) while the job is queued or stalled. Jobs waiting in the Salesforce queue
+ * therefore cost few status calls, and running jobs are seen finishing quickly.
+ * </p>
+ * <p>
+ * A job whose status can not be read {@value #MAX_CONSECUTIVE_ERRORS} times in a row completes
+ * exceptionally. Cancelling the returned future stops polling the job.
+ * </p>
+ */
+public class BulkJobMonitor implements Closeable {
+
+    public static final long DEF_MIN_DELAY_MILLIS = 1000;
+
+    public static final long DEF_MAX_DELAY_MILLIS = 60_000;
+
+    public static final double DEF_BACKOFF_FACTOR = 2.0;
+
+    public static final int DEF_POLL_PARALLELISM = 4;
+
+    static final int MAX_CONSECUTIVE_ERRORS = 3;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BulkJobMonitor.class);
+
+    private final Function<String, GetJobInfoResponse> jobInfoFetcher;
+
+    private final long minDelayMillis;
+
+    private final long maxDelayMillis;
+
+    private final double backoffFactor;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(CommonUtils.daemonThreadFactory("jacos-bulk-monitor-"));
+
+    private final ExecutorService pollers;
+
+    private final Map<String, CompletableFuture<GetJobInfoResponse>> watchedJobs = new ConcurrentHashMap<>();
+
+    /**
+     * @param jobInfoFetcher reads the status of a job, typically <code>bulk2Client::getJobInfo</code>
+     */
+    public BulkJobMonitor(Function<String, GetJobInfoResponse> jobInfoFetcher) {
+        this(jobInfoFetcher, DEF_MIN_DELAY_MILLIS, DEF_MAX_DELAY_MILLIS, DEF_BACKOFF_FACTOR);
+    }
+
+    /**
+     * @param jobInfoFetcher reads the status of a job, typically <code>bulk2Client::getJobInfo</code>
+     * @param minDelayMillis shortest delay between two status calls of a job, also the first delay
+     * @param maxDelayMillis longest delay between two status calls of a job
+     * @param backoffFactor  factor applied to the delay of a job after each status call
+     */
+    public BulkJobMonitor(Function<String, GetJobInfoResponse> jobInfoFetcher, long minDelayMillis, long maxDelayMillis, double backoffFactor) {
+        this(jobInfoFetcher, minDelayMillis, maxDelayMillis, backoffFactor, DEF_POLL_PARALLELISM);
+    }
+
+    /**
+     * @param jobInfoFetcher  reads the status of a job, typically <code>bulk2Client::getJobInfo</code>
+     * @param minDelayMillis  shortest delay between two status calls of a job, also the first delay
+     * @param maxDelayMillis  longest delay between two status calls of a job
+     * @param backoffFactor   factor applied to the delay of a job after each status call
+     * @param pollParallelism number of status calls made at the same time
+     */
+    public BulkJobMonitor(Function<String, GetJobInfoResponse> jobInfoFetcher, long minDelayMillis, long maxDelayMillis, double backoffFactor,
+                          int pollParallelism) {
+        if (minDelayMillis <= 0 || maxDelayMillis < minDelayMillis || backoffFactor < 1) {
+            throw new IllegalArgumentException("Invalid delays:" + minDelayMillis + "-" + maxDelayMillis + " or backoff factor:" + backoffFactor);
+        }
+        if (pollParallelism < 1) {
+            throw new IllegalArgumentException("Invalid poll parallelism:" + pollParallelism);
+        }
+        this.pollers = Executors.newFixedThreadPool(pollParallelism, CommonUtils.daemonThreadFactory("jacos-bulk-poller-"));
+        this.jobInfoFetcher = jobInfoFetcher;
+        this.minDelayMillis = minDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.backoffFactor = backoffFactor;
+    }
+
+    /**
+     * Starts watching a job. Watching a job twice returns the same future.
+     *
+     * @param jobId id of the bulk job
+     * @return future completed with the final status of the job
+     */
+    public CompletableFuture<GetJobInfoResponse> watch(String jobId) {
+        CompletableFuture<GetJobInfoResponse> result = new CompletableFuture<>();
+        CompletableFuture<GetJobInfoResponse> watched = watchedJobs.putIfAbsent(jobId, result);
+        if (watched != null) {
+            return watched;
+        }
+        // scheduled once in the map, a rejected schedule then removes the job like any completion;
+        // cancelled by the caller; poll removes finished jobs itself before completing them
+        result.whenComplete((info, e) -> watchedJobs.remove(jobId, result));
+        schedule(new WatchedJob(jobId, result), minDelayMillis);
+        return result;
+    }
+
+    /**
+     * @return number of jobs not finished yet
+     */
+    public int getWatchedJobCount() {
+        return watchedJobs.size();
+    }
+
+    private void schedule(WatchedJob job, long delayMillis) {
+        try {
+            scheduler.schedule(() -> submitPoll(job), delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            job.result.completeExceptionally(new IllegalStateException("Job monitor is closed", e));
+        }
+    }
+
+    private void submitPoll(WatchedJob job) {
+        try {
+            pollers.execute(() -> poll(job));
+        } catch (RejectedExecutionException e) {
+            job.result.completeExceptionally(new IllegalStateException("Job monitor is closed", e));
+        }
+    }
+
+    private void poll(WatchedJob job) {
+        if (job.result.isDone()) {
+            return;
+        }
+        try {
+            GetJobInfoResponse info = jobInfoFetcher.apply(job.id);
+            job.errors = 0;
+            if (info.getState() != null && info.getState().isFinished()) {
+                LOGGER.info("Job:{} finished with state:{}, processed:{}, failed:{}", job.id, info.getState(),
+                        info.getNumberRecordsProcessed(), info.getNumberRecordsFailed());
+                watchedJobs.remove(job.id, job.result);
+                job.result.complete(info);
+                return;
+            }
+            long processed = info.getNumberRecordsProcessed() == null ? 0 : info.getNumberRecordsProcessed();
+            job.delayMillis = processed > job.processed ? shorter(job.delayMillis) : longer(job.delayMillis);
+            job.processed = processed;
+            LOGGER.debug("Job:{} in state:{}, processed:{}, next poll in {} ms", job.id, info.getState(), processed, job.delayMillis);
+        } catch (RuntimeException e) {
+            if (++job.errors >= MAX_CONSECUTIVE_ERRORS) {
+                LOGGER.error("Giving up on job:{} after {} failed status calls", job.id, job.errors, e);
+                watchedJobs.remove(job.id, job.result);
+                job.result.completeExceptionally(e);
+                return;
+            }
+            LOGGER.warn("Failed to get the status of job:{}", job.id, e);
+            job.delayMillis = longer(job.delayMillis);
+        }
+        schedule(job, job.delayMillis);
+    }
+
+    private long shorter(long delayMillis) {
+        return Math.max(minDelayMillis, (long) (delayMillis / backoffFactor));
+    }
+
+    private long longer(long delayMillis) {
+        return Math.min(maxDelayMillis, (long) (delayMillis * backoffFactor));
+    }
+
+    /**
+     * Stops polling, jobs still watched complete exceptionally.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        pollers.shutdownNow();
+        watchedJobs.values().forEach(result -> result.completeExceptionally(new IllegalStateException("Job monitor is closed")));
+    }
+
+    /**
+     * Polling state of one job, touched by one poller at a time: the next poll is scheduled by the previous one
+     */
+    private class WatchedJob {
+
+        private final String id;
+
+        private final CompletableFuture<GetJobInfoResponse> result;
+
+        private long delayMillis = minDelayMillis;
+
+        private long processed;
+
+        private int errors;
+
+        WatchedJob(String id, CompletableFuture<GetJobInfoResponse> result) {
+            this.id = id;
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.ingest;
+
+import com.americanexpress.jacos.utils.CommonUtils;
+import endolabs.salesforce.bulkv2.response.CreateJobResponse;
+import endolabs.salesforce.bulkv2.type.JobStateEnum;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>
+ * Runs the jobs of a load as a pipeline: read, create, upload and close are separate stages, each on
+ * its own <code>parallelism</code> threads. While chunk N uploads, the job of chunk N+1 is already being
+ * created, chunk N-1 is being closed and the next chunks are read and encoded by the reader thread. The
+ * network is kept busy even with a parallelism of 1, where {@link BulkIngestEngine} would leave it idle
+ * during the create and close calls of each job.
+ * </p>
+ * <p>
+ * Chunks are handed from stage to stage in read order. At most <code>3 * parallelism +
+ * queueCapacity</code> chunks of a load are held at any time: the reader waits for a job to be closed
+ * before it reads more.
+ * </p>
+ * <p>
+ * With a parallelism of 1 up to three jobs of a load are open at the same time, but only one of them
+ * uploads.
+ * </p>
+ *
+ * @see BulkIngestHandle
+ */
+public class BulkJobPipeline implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BulkJobPipeline.class);
+
+    private final int parallelism;
+
+    private final int queueCapacity;
+
+    private final ExecutorService readers;
+
+    private final ExecutorService creators;
+
+    private final ExecutorService uploaders;
+
+    private final ExecutorService closers;
+
+    /**
+     * @param parallelism   number of threads of each stage
+     * @param queueCapacity number of chunks read ahead while the create stage is busy
+     */
+    public BulkJobPipeline(int parallelism, int queueCapacity) {
+        if (parallelism < 1 || queueCapacity < 0) {
+            throw new IllegalArgumentException("Invalid parallelism:" + parallelism + " or queue capacity:" + queueCapacity);
+        }
+        this.parallelism = parallelism;
+        this.queueCapacity = queueCapacity;
+        this.readers = Executors.newCachedThreadPool(CommonUtils.daemonThreadFactory("jacos-bulk-reader-"));
+        this.creators = Executors.newFixedThreadPool(parallelism, CommonUtils.daemonThreadFactory("jacos-bulk-create-"));
+        this.uploaders = Executors.newFixedThreadPool(parallelism, CommonUtils.daemonThreadFactory("jacos-bulk-upload-"));
+        this.closers = Executors.newFixedThreadPool(parallelism, CommonUtils.daemonThreadFactory("jacos-bulk-close-"));
+    }
+
+    /**
+     * Starts a load in the background. If <code>chunks</code> is Closeable it is closed once fully read.
+     *
+     * @param chunks chunks of job data, read lazily
+     * @param stages steps of the job of one chunk
+     * @param <T>    type of the chunks
+     * @return handle on the running load
+     */
+    public <T> BulkIngestHandle ingest(Iterator<T> chunks, BulkJobStages<T> stages) {
+        BulkIngestHandle handle = new BulkIngestHandle();
+        readers.execute(() -> read(chunks, stages, handle));
+        return handle;
+    }
+
+    private <T> void read(Iterator<T> chunks, BulkJobStages<T> stages, BulkIngestHandle handle) {
+        Semaphore slots = new Semaphore(3 * parallelism + queueCapacity);
+        AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+        Throwable failure = null;
+        try {
+            while (!handle.isStopped() && chunks.hasNext()) {
+                slots.acquire();
+                if (handle.isStopped()) {
+                    slots.release();
+                    break;
+                }
+                final T chunk;
+                try {
+                    chunk = chunks.next();
+                } catch (RuntimeException e) {
+                    slots.release();
+                    throw e;
+                }
+                int chunkNumber = handle.getSubmittedChunks() + 1;
+                CompletableFuture<CreateJobResponse> job = submit(chunk, stages, handle, firstFailure);
+                job.whenComplete((response, e) -> {
+                    if (e != null) {
+                        firstFailure.compareAndSet(null, e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                        LOGGER.error("Failed to submit chunk:{}, stopping the load", chunkNumber, e);
+                        handle.stop();
+                    } else {
+                        LOGGER.info("Submitted chunk:{} as job:{}", chunkNumber, response.getId());
+                    }
+                    // released once stopped, so that the reader waiting for a slot sees the failure
+                    slots.release();
+                });
+                handle.addJob(job);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = e;
+        } catch (RuntimeException e) {
+            LOGGER.error("Failed to read the next chunk, stopping the load", e);
+            failure = e;
+        } finally {
+            if (chunks instanceof Closeable) {
+                try {
+                    ((Closeable) chunks).close();
+                } catch (IOException e) {
+                    LOGGER.warn("Failed to close the chunks", e);
+                }
+            }
+            handle.finish(failure);
+        }
+    }
+
+    private <T> CompletableFuture<CreateJobResponse> submit(T chunk, BulkJobStages<T> stages, BulkIngestHandle handle,
+                                                            AtomicReference<Throwable> firstFailure) {
+        CompletableFuture<CreateJobResponse> created = CompletableFuture.supplyAsync(() -> stages.create(chunk), creators);
+        CompletableFuture<CreateJobResponse> uploaded = created.thenApplyAsync(job -> {
+            if (isOpen(job)) {
+                checkRunning(handle, firstFailure);
+                stages.upload(job.getId(), chunk);
+            }
+            return job;
+        }, uploaders);
+        CompletableFuture<CreateJobResponse> closed = uploaded.thenApplyAsync(job -> {
+            if (isOpen(job)) {
+                checkRunning(handle, firstFailure);
+                stages.close(job.getId());
+            }
+            return job;
+        }, closers);
+        return closed.whenComplete((job, e) -> {
+            if (e != null && created.isDone() && !created.isCompletedExceptionally() && isOpen(created.join())) {
+                abortQuietly(stages, created.join().getId());
+            }
+        });
+    }
+
+    /**
+     * Jobs of a stopped load are not uploaded or closed any more; they fail with the failure which
+     * stopped the load.
+     */
+    private static void checkRunning(BulkIngestHandle handle, AtomicReference<Throwable> firstFailure) {
+        if (handle.isStopped()) {
+            Throwable failure = firstFailure.get();
+            throw new CompletionException(failure != null ? failure : new CancellationException("Load cancelled"));
+        }
+    }
+
+    private static boolean isOpen(CreateJobResponse job) {
+        return job.getState() == null || job.getState() == JobStateEnum.OPEN;
+    }
+
+    private static <T> void abortQuietly(BulkJobStages<T> stages, String jobId) {
+        try {
+            stages.abort(jobId);
+            LOGGER.info("Aborted job:{}", jobId);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to abort job:{}", jobId, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        readers.shutdownNow();
+        creators.shutdown();
+        uploaders.shutdown();
+        closers.shutdown();
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.ingest;
+
+import endolabs.salesforce.bulkv2.response.CreateJobResponse;
+
+/**
+ * The steps of a bulk job, run by {@link BulkJobPipeline} as separate stages.
+ *
+ * @param <T> type of the chunks
+ */
+public interface BulkJobStages<T> {
+
+    /**
+     * Creates the job of a chunk. A job created with its data (multipart request) is returned in the
+     * UploadComplete state and skips the upload and close stages.
+     *
+     * @param chunk job data, available for a multipart request
+     * @return the created job
+     */
+    CreateJobResponse create(T chunk);
+
+    /**
+     * Uploads the data of an open job.
+     */
+    void upload(String jobId, T chunk);
+
+    /**
+     * Closes an uploaded job, Salesforce then queues it for processing.
+     */
+    void close(String jobId);
+
+    /**
+     * Aborts a job whose upload or close failed, so it does not stay open.
+     */
+    void abort(String jobId);
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.query;
+
+import com.americanexpress.jacos.bulkv2.response.QueryResultPage;
+import com.americanexpress.jacos.utils.CommonUtils;
+import endolabs.salesforce.bulkv2.BulkRequestException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * Downloads all the pages of a query job into one csv file, several pages at a time.
+ * </p>
+ * <p>
+ * The locator of the next page comes with the headers of the current one, so pages are requested one
+ * after the other, but as soon as the headers of a page are in, its body is copied to a temporary file
+ * on a worker thread while the next page is requested. Up to <code>parallelism</code> bodies are copied
+ * at the same time. The temporary files are then appended to the target in page order, with the header
+ * line of the first page only.
+ * </p>
+ */
+public class QueryResultDownloader implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueryResultDownloader.class);
+
+    private final int parallelism;
+
+    private final ExecutorService workers;
+
+    /**
+     * @param parallelism number of pages downloaded at the same time
+     */
+    public QueryResultDownloader(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Invalid parallelism:" + parallelism);
+        }
+        this.parallelism = parallelism;
+        this.workers = Executors.newFixedThreadPool(parallelism, CommonUtils.daemonThreadFactory("jacos-query-download-"));
+    }
+
+    /**
+     * @param pageFetcher fetches the page of a locator, the first page for null
+     * @param target      csv file to write, replaced if it exists
+     * @return number of bytes written
+     */
+    public long download(Function<String, QueryResultPage> pageFetcher, Path target) {
+        Semaphore slots = new Semaphore(parallelism);
+        List<Future<Path>> pages = new ArrayList<>();
+        try {
+            String locator = null;
+            do {
+                slots.acquire();
+                QueryResultPage page;
+                try {
+                    page = pageFetcher.apply(locator);
+                } catch (RuntimeException e) {
+                    slots.release();
+                    throw e;
+                }
+                locator = page.getLocator();
+                boolean first = pages.isEmpty();
+                pages.add(workers.submit(() -> {
+                    try (QueryResultPage body = page) {
+                        Path pageFile = Files.createTempFile(target.toAbsolutePath().getParent(), "query-page-", ".csv");
+                        body.writeTo(pageFile, !first);
+                        return pageFile;
+                    } finally {
+                        slots.release();
+                    }
+                }));
+            } while (locator != null);
+
+            long written = 0;
+            try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (Future<Path> page : pages) {
+                    Path pageFile = page.get();
+                    try (FileChannel in = FileChannel.open(pageFile, StandardOpenOption.READ)) {
+                        long size = in.size();
+                        for (long position = 0; position < size; ) {
+                            position += in.transferTo(position, size - position, out);
+                        }
+                        written += size;
+                    } finally {
+                        Files.deleteIfExists(pageFile);
+                    }
+                }
+            }
+            LOGGER.info("Downloaded {} query result pages to {}, size (in bytes):{}", pages.size(), target, written);
+            return written;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BulkRequestException("Interrupted while downloading the query results", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof BulkRequestException ? (BulkRequestException) e.getCause()
+                    : new BulkRequestException("Failed to download the query results", e.getCause());
+        } catch (IOException e) {
+            throw new BulkRequestException("Failed to download the query results", e);
+        } finally {
+            cleanUp(pages);
+        }
+    }
+
+    /**
+     * Deletes the page files left behind by a failed download.
+     */
+    private static void cleanUp(List<Future<Path>> pages) {
+        for (Future<Path> page : pages) {
+            try {
+                Files.deleteIfExists(page.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException | IOException e) {
+                LOGGER.debug("Nothing to clean up for a page", e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+}
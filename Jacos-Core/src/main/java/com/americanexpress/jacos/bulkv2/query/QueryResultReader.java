@@ -0,0 +1,114 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.query;
+
+import com.americanexpress.jacos.bulkv2.response.JobResultReader;
+import com.americanexpress.jacos.bulkv2.response.JobResultRecord;
+import com.americanexpress.jacos.bulkv2.response.QueryResultPage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>
+ * Reads all the records of a query job one at a time, following the Sforce-Locator of each page to
+ * fetch the next one. Only the page being read is open, no page is held in memory.
+ * </p>
+ * <p>
+ * The reader must be closed to release the connection, also when it is not read to the end.
+ * </p>
+ */
+public class QueryResultReader implements Iterator<JobResultRecord>, Closeable {
+
+    private final Function<String, QueryResultPage> pageFetcher;
+
+    private JobResultReader page;
+
+    private String locator;
+
+    private int pages;
+
+    /**
+     * @param pageFetcher fetches the page of a locator, the first page for null
+     */
+    public QueryResultReader(Function<String, QueryResultPage> pageFetcher) {
+        this.pageFetcher = pageFetcher;
+        openPage(null);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!page.hasNext()) {
+            if (locator == null) {
+                return false;
+            }
+            closePage();
+            openPage(locator);
+        }
+        return true;
+    }
+
+    @Override
+    public JobResultRecord next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.next();
+    }
+
+    /**
+     * @return number of pages fetched so far
+     */
+    public int getPages() {
+        return pages;
+    }
+
+    /**
+     * @return the remaining records, closing the stream closes this reader
+     */
+    public Stream<JobResultRecord> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(this::closePage);
+    }
+
+    private void openPage(String pageLocator) {
+        QueryResultPage next = pageFetcher.apply(pageLocator);
+        locator = next.getLocator();
+        page = next.read();
+        pages++;
+    }
+
+    private void closePage() {
+        try {
+            page.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to close the query results", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        page.close();
+    }
+}
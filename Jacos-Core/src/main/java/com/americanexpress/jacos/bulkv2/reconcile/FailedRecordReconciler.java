@@ -0,0 +1,230 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.reconcile;
+
+import com.americanexpress.jacos.bulkv2.response.JobResultReader;
+import com.americanexpress.jacos.bulkv2.response.JobResultRecord;
+import com.opencsv.CSVWriter;
+import endolabs.salesforce.bulkv2.BulkRequestException;
+import endolabs.salesforce.bulkv2.response.CreateJobResponse;
+import endolabs.salesforce.bulkv2.response.GetJobInfoResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * Follows up on finished bulk jobs: streams the failed records of every job, sends the retryable ones
+ * again as new jobs and writes the others to a dead-letter csv, with the job id and the error in front
+ * of the original columns.
+ * </p>
+ * <p>
+ * The retry jobs are checked the same way, until nothing is left to retry or a record has been sent
+ * {@link RetryPolicy#getMaxRetries()} times, after which it goes to the dead-letter csv as well.
+ * Records are streamed from the response to temporary files, never held in memory.
+ * </p>
+ * <p>
+ * Unprocessed records of aborted or failed jobs are not part of the failed results and are left out.
+ * </p>
+ */
+public class FailedRecordReconciler {
+
+    public static final String JOB_ID = "sf__JobId";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FailedRecordReconciler.class);
+
+    private final Function<String, JobResultReader> failedRecordsReader;
+
+    private final Function<String, CompletableFuture<GetJobInfoResponse>> jobWatcher;
+
+    private final Function<Path, List<CreateJobResponse>> retrySubmitter;
+
+    private final RetryPolicy retryPolicy;
+
+    private final Path workDir;
+
+    /**
+     * @param failedRecordsReader reads the failed records of a job, typically <code>bulk2Client::readJobFailedRecords</code>
+     * @param jobWatcher          waits for a job to finish, typically <code>bulkJobMonitor::watch</code>
+     * @param retrySubmitter      submits a csv file of records to retry, returns the created jobs
+     * @param retryPolicy         decides which records are retried and how often
+     * @param workDir             directory of the retry and dead-letter files
+     */
+    public FailedRecordReconciler(Function<String, JobResultReader> failedRecordsReader,
+                                  Function<String, CompletableFuture<GetJobInfoResponse>> jobWatcher,
+                                  Function<Path, List<CreateJobResponse>> retrySubmitter,
+                                  RetryPolicy retryPolicy, Path workDir) {
+        this.failedRecordsReader = failedRecordsReader;
+        this.jobWatcher = jobWatcher;
+        this.retrySubmitter = retrySubmitter;
+        this.retryPolicy = retryPolicy;
+        this.workDir = workDir;
+    }
+
+    /**
+     * Waits for the jobs to finish, then retries their failed records as long as the policy allows.
+     *
+     * @param jobIds ids of the jobs of a load
+     * @return counts of retried and given up records, with the dead-letter files
+     */
+    public ReconciliationResult reconcile(List<String> jobIds) {
+        ReconciliationResult result = new ReconciliationResult();
+        try (DeadLetterWriter deadLetters = new DeadLetterWriter(result)) {
+            List<String> round = jobIds;
+            int rounds = 0;
+            while (!round.isEmpty()) {
+                rounds++;
+                boolean canRetry = rounds <= retryPolicy.getMaxRetries();
+                List<String> nextRound = new ArrayList<>();
+                for (String jobId : round) {
+                    for (CreateJobResponse retryJob : reconcileJob(jobId, canRetry, deadLetters, result)) {
+                        nextRound.add(retryJob.getId());
+                    }
+                }
+                round = nextRound;
+            }
+            result.setRounds(rounds);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write the dead-letter records", e);
+        }
+        LOGGER.info("Reconciliation done: {}", result);
+        return result;
+    }
+
+    private List<CreateJobResponse> reconcileJob(String jobId, boolean canRetry, DeadLetterWriter deadLetters,
+                                                 ReconciliationResult result) throws IOException {
+        GetJobInfoResponse info = await(jobId);
+        if (info.getNumberRecordsFailed() != null && info.getNumberRecordsFailed() == 0) {
+            return new ArrayList<>();
+        }
+
+        Path retryFile = null;
+        long retried = 0;
+        try (JobResultReader failedRecords = failedRecordsReader.apply(jobId)) {
+            String[] dataHeader = failedRecords.getDataHeader();
+            CSVWriter retryWriter = null;
+            try {
+                while (failedRecords.hasNext()) {
+                    JobResultRecord record = failedRecords.next();
+                    if (canRetry && retryPolicy.isRetryable(record)) {
+                        if (retryWriter == null) {
+                            retryFile = Files.createTempFile(workDir, "retry-" + jobId + "-", ".csv");
+                            retryWriter = new CSVWriter(Files.newBufferedWriter(retryFile, StandardCharsets.UTF_8));
+                            retryWriter.writeNext(dataHeader);
+                        }
+                        retryWriter.writeNext(values(record, dataHeader));
+                        retried++;
+                        result.incrementRetriedRecords();
+                    } else {
+                        deadLetters.write(jobId, record, dataHeader);
+                    }
+                }
+            } finally {
+                if (retryWriter != null) {
+                    retryWriter.close();
+                }
+            }
+        }
+        if (retryFile == null) {
+            return new ArrayList<>();
+        }
+
+        try {
+            LOGGER.info("Retrying {} failed records of job:{}", retried, jobId);
+            List<CreateJobResponse> retryJobs = retrySubmitter.apply(retryFile);
+            result.addRetryJobs(retryJobs);
+            return retryJobs;
+        } finally {
+            Files.deleteIfExists(retryFile);
+        }
+    }
+
+    private GetJobInfoResponse await(String jobId) {
+        try {
+            return jobWatcher.apply(jobId).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof BulkRequestException) {
+                throw (BulkRequestException) e.getCause();
+            }
+            throw new BulkRequestException("Failed to wait for job:" + jobId, e.getCause());
+        }
+    }
+
+    private static String[] values(JobResultRecord record, String[] columns) {
+        String[] values = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            values[i] = record.get(columns[i]);
+        }
+        return values;
+    }
+
+    /**
+     * One dead-letter file per distinct header, created on the first record given up on.
+     */
+    private class DeadLetterWriter implements Closeable {
+
+        private final Map<List<String>, CSVWriter> writers = new LinkedHashMap<>();
+
+        private final ReconciliationResult result;
+
+        DeadLetterWriter(ReconciliationResult result) {
+            this.result = result;
+        }
+
+        void write(String jobId, JobResultRecord record, String[] dataHeader) throws IOException {
+            CSVWriter writer = writers.get(Arrays.asList(dataHeader));
+            if (writer == null) {
+                Path file = Files.createTempFile(workDir, "dead-letter-", ".csv");
+                writer = new CSVWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8));
+                writer.writeNext(row(JOB_ID, JobResultRecord.ERROR, dataHeader));
+                writers.put(Arrays.asList(dataHeader), writer);
+                result.addDeadLetterFile(file);
+                LOGGER.info("Writing records given up on to {}", file);
+            }
+            writer.writeNext(row(jobId, record.getError(), values(record, dataHeader)));
+            result.incrementDeadLetterRecords();
+        }
+
+        private String[] row(String first, String second, String[] rest) {
+            String[] row = new String[rest.length + 2];
+            row[0] = first;
+            row[1] = second;
+            System.arraycopy(rest, 0, row, 2, rest.length);
+            return row;
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (CSVWriter writer : writers.values()) {
+                writer.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.reconcile;
+
+import endolabs.salesforce.bulkv2.response.CreateJobResponse;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of {@link FailedRecordReconciler#reconcile(List)}.
+ */
+public class ReconciliationResult {
+
+    private final List<CreateJobResponse> retryJobs = new ArrayList<>();
+
+    private final List<Path> deadLetterFiles = new ArrayList<>();
+
+    private long retriedRecords;
+
+    private long deadLetterRecords;
+
+    private int rounds;
+
+    void addRetryJobs(List<CreateJobResponse> jobs) {
+        retryJobs.addAll(jobs);
+    }
+
+    void addDeadLetterFile(Path file) {
+        deadLetterFiles.add(file);
+    }
+
+    void incrementRetriedRecords() {
+        retriedRecords++;
+    }
+
+    void incrementDeadLetterRecords() {
+        deadLetterRecords++;
+    }
+
+    void setRounds(int rounds) {
+        this.rounds = rounds;
+    }
+
+    /**
+     * @return jobs created to send the retryable records again, in submission order
+     */
+    public List<CreateJobResponse> getRetryJobs() {
+        return Collections.unmodifiableList(retryJobs);
+    }
+
+    /**
+     * @return csv files with the records given up on, one per distinct header; empty if there are none
+     */
+    public List<Path> getDeadLetterFiles() {
+        return Collections.unmodifiableList(deadLetterFiles);
+    }
+
+    /**
+     * @return number of records sent again, a record retried twice counts twice
+     */
+    public long getRetriedRecords() {
+        return retriedRecords;
+    }
+
+    /**
+     * @return number of records written to the dead-letter files
+     */
+    public long getDeadLetterRecords() {
+        return deadLetterRecords;
+    }
+
+    /**
+     * @return number of rounds of jobs checked, the original jobs being the first round
+     */
+    public int getRounds() {
+        return rounds;
+    }
+
+    /**
+     * @return true if every failed record eventually went through
+     */
+    public boolean isFullyReconciled() {
+        return deadLetterRecords == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "ReconciliationResult{" +
+                "retryJobs=" + retryJobs.size() +
+                ", retriedRecords=" + retriedRecords +
+                ", deadLetterRecords=" + deadLetterRecords +
+                ", deadLetterFiles=" + deadLetterFiles +
+                ", rounds=" + rounds +
+                '}';
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.reconcile;
+
+import com.americanexpress.jacos.bulkv2.response.JobResultRecord;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * Decides which failed records are worth sending again. A record is retryable when the error code of
+ * its sf__Error (the part before the first colon) is one of the retryable codes, or when the error
+ * reports a timeout.
+ * </p>
+ * <p>
+ * Anything else, eg. REQUIRED_FIELD_MISSING or DUPLICATE_VALUE, fails the same way on every retry.
+ * </p>
+ */
+public class RetryPolicy {
+
+    public static final int DEF_MAX_RETRIES = 3;
+
+    public static final List<String> DEF_RETRYABLE_ERROR_CODES = Collections.unmodifiableList(Arrays.asList(
+            "UNABLE_TO_LOCK_ROW", "REQUEST_RUNNING_TOO_LONG", "QUERY_TIMEOUT", "SERVER_UNAVAILABLE"));
+
+    private static final Pattern TIMEOUT_PATTERN = Pattern.compile("(?i)time[d]?[ _-]?out");
+
+    private final Set<String> retryableErrorCodes;
+
+    private final int maxRetries;
+
+    /**
+     * Retries the default error codes up to {@value #DEF_MAX_RETRIES} times.
+     */
+    public RetryPolicy() {
+        this(DEF_RETRYABLE_ERROR_CODES, DEF_MAX_RETRIES);
+    }
+
+    /**
+     * @param retryableErrorCodes error codes worth a retry, eg. UNABLE_TO_LOCK_ROW
+     * @param maxRetries          number of times a record is sent again at most, 0 to never retry
+     */
+    public RetryPolicy(Collection<String> retryableErrorCodes, int maxRetries) {
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("Invalid max retries:" + maxRetries);
+        }
+        this.retryableErrorCodes = Collections.unmodifiableSet(new LinkedHashSet<>(retryableErrorCodes));
+        this.maxRetries = maxRetries;
+    }
+
+    public Set<String> getRetryableErrorCodes() {
+        return retryableErrorCodes;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * @param record failed record
+     * @return true if the failure is transient
+     */
+    public boolean isRetryable(JobResultRecord record) {
+        String errorCode = record.getErrorCode();
+        if (errorCode == null) {
+            return false;
+        }
+        return retryableErrorCodes.contains(errorCode) || TIMEOUT_PATTERN.matcher(record.getError()).find();
+    }
+}
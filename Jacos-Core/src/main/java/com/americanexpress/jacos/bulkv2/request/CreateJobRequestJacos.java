@@ -43,6 +43,9 @@ public class CreateJobRequestJacos {
     @JsonIgnore
     private final File contentFile;
 
+    @JsonIgnore
+    private final byte[] contentBytes;
+
     private CreateJobRequestJacos(Builder builder) {
         this.columnDelimiter = builder.columnDelimiter;
         this.contentType = builder.contentType;
@@ -52,6 +55,7 @@ private CreateJobRequestJacos(Builder builder) {
         this.operation = builder.operation;
         this.content = builder.content;
         this.contentFile = builder.contentFile;
+        this.contentBytes = builder.contentBytes;
     }
 
     public ColumnDelimiterEnum getColumnDelimiter() {
@@ -86,6 +90,18 @@ public File getContentFile() {
         return contentFile;
     }
 
+    public byte[] getContentBytes() {
+        return contentBytes;
+    }
+
+    /**
+     * @return true if the job data is sent along with the job creation
+     */
+    @JsonIgnore
+    public boolean hasContent() {
+        return content != null || contentFile != null || contentBytes != null;
+    }
+
     public static class Builder {
 
         private String object;
@@ -104,6 +120,8 @@ public static class Builder {
 
         private File contentFile;
 
+        private byte[] contentBytes;
+
         public Builder(String object, OperationEnumJacos operation) {
             this.object = object;
             this.operation = operation;
@@ -136,7 +154,15 @@ public Builder withContent(String content) {
         }
 
         public Builder withContent(File file) {
-            this.contentFile = contentFile;
+            this.contentFile = file;
+            return this;
+        }
+
+        /**
+         * @param content csv job data as UTF-8 bytes
+         */
+        public Builder withContent(byte[] content) {
+            this.contentBytes = content;
             return this;
         }
 
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.request;
+
+import com.americanexpress.jacos.bulkv2.type.QueryOperationEnum;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import endolabs.salesforce.bulkv2.type.ColumnDelimiterEnum;
+import endolabs.salesforce.bulkv2.type.ContentTypeEnum;
+import endolabs.salesforce.bulkv2.type.LineEndingEnum;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CreateQueryJobRequest {
+
+    private final QueryOperationEnum operation;
+
+    private final String query;
+
+    private final ColumnDelimiterEnum columnDelimiter;
+
+    private final ContentTypeEnum contentType;
+
+    private final LineEndingEnum lineEnding;
+
+    private CreateQueryJobRequest(Builder builder) {
+        this.operation = builder.operation;
+        this.query = builder.query;
+        this.columnDelimiter = builder.columnDelimiter;
+        this.contentType = builder.contentType;
+        this.lineEnding = builder.lineEnding;
+    }
+
+    public QueryOperationEnum getOperation() {
+        return operation;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public ColumnDelimiterEnum getColumnDelimiter() {
+        return columnDelimiter;
+    }
+
+    public ContentTypeEnum getContentType() {
+        return contentType;
+    }
+
+    public LineEndingEnum getLineEnding() {
+        return lineEnding;
+    }
+
+    public static class Builder {
+
+        private final QueryOperationEnum operation;
+
+        private final String query;
+
+        private ColumnDelimiterEnum columnDelimiter;
+
+        private ContentTypeEnum contentType;
+
+        private LineEndingEnum lineEnding;
+
+        public Builder(String query, QueryOperationEnum operation) {
+            this.query = query;
+            this.operation = operation;
+            this.contentType = ContentTypeEnum.CSV;
+        }
+
+        public Builder withColumnDelimiter(ColumnDelimiterEnum columnDelimiter) {
+            this.columnDelimiter = columnDelimiter;
+            return this;
+        }
+
+        public Builder withLineEnding(LineEndingEnum lineEnding) {
+            this.lineEnding = lineEnding;
+            return this;
+        }
+
+        public CreateQueryJobRequest build() {
+            return new CreateQueryJobRequest(this);
+        }
+    }
+}
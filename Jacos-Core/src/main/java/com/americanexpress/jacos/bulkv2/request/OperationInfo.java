@@ -25,6 +25,7 @@ public class OperationInfo implements Serializable {
     private String objectType;
     private OperationEnumJacos operationType;
     private String externalIdField;
+    private String partitionKeyField;
 
     public OperationInfo(String objectType, OperationEnumJacos operationType, String externalIdField) {
         this.objectType = objectType;
@@ -55,4 +56,16 @@ public String getExternalIdField() {
     public void setExternalIdField(String externalIdField) {
         this.externalIdField = externalIdField;
     }
+
+    /**
+     * @return column whose records are kept together in one job when a file is split, eg. AccountId
+     * for Contacts; null if records are not partitioned
+     */
+    public String getPartitionKeyField() {
+        return partitionKeyField;
+    }
+
+    public void setPartitionKeyField(String partitionKeyField) {
+        this.partitionKeyField = partitionKeyField;
+    }
 }
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.response;
+
+import com.americanexpress.jacos.bulkv2.type.OperationEnumJacos;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import endolabs.salesforce.bulkv2.response.GetJobInfoResponse;
+import endolabs.salesforce.bulkv2.type.OperationEnum;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Status of an ingest job. {@link OperationEnum} has no hardDelete, so {@link #getOperation()} is null
+ * for hard delete jobs: {@link #getIngestOperation()} reads every operation a job can be created with.
+ * </p>
+ */
+public class IngestJobInfo extends GetJobInfoResponse {
+
+    private OperationEnumJacos ingestOperation;
+
+    /**
+     * @return operation of the job, hardDelete included; null if it is unknown to {@link OperationEnumJacos}
+     */
+    @JsonProperty("operation")
+    public OperationEnumJacos getIngestOperation() {
+        return ingestOperation;
+    }
+
+    public void setIngestOperation(OperationEnumJacos ingestOperation) {
+        this.ingestOperation = ingestOperation;
+        super.setOperation(ingestOperation == null ? null : Arrays.stream(OperationEnum.values())
+                .filter(operation -> operation.toJsonValue().equals(ingestOperation.toJsonValue()))
+                .findFirst()
+                .orElse(null));
+    }
+
+    /**
+     * Reads an unknown operation as null instead of failing the whole response.
+     */
+    @JsonProperty("operation")
+    void readOperation(String operation) {
+        setIngestOperation(Arrays.stream(OperationEnumJacos.values())
+                .filter(value -> value.toJsonValue().equals(operation))
+                .findFirst()
+                .orElse(null));
+    }
+
+    /**
+     * Null for a hard delete job, see {@link #getIngestOperation()}
+     */
+    @Override
+    @JsonIgnore
+    public OperationEnum getOperation() {
+        return super.getOperation();
+    }
+
+    @Override
+    @JsonIgnore
+    public void setOperation(OperationEnum operation) {
+        setIngestOperation(operation == null ? null : OperationEnumJacos.fromValue(operation.toJsonValue()));
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.response;
+
+import com.opencsv.CSVReader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>
+ * Reads the results of an ingest job one record at a time, straight from the response, so results of
+ * any size can be processed without holding them in memory.
+ * </p>
+ * <p>
+ * The reader must be closed to release the connection, also when it is not read to the end.
+ * </p>
+ */
+public class JobResultReader implements Iterator<JobResultRecord>, Closeable {
+
+    private final CSVReader csvReader;
+
+    private final String[] header;
+
+    private String[] nextRow;
+
+    /**
+     * @param reader csv results, closed with this reader
+     */
+    public JobResultReader(Reader reader) {
+        this.csvReader = new CSVReader(reader);
+        try {
+            String[] firstRow = csvReader.readNext();
+            this.header = firstRow == null ? new String[0] : firstRow;
+            this.nextRow = firstRow == null ? null : readRow();
+        } catch (UncheckedIOException e) {
+            closeUnchecked();
+            throw e;
+        } catch (IOException e) {
+            closeUnchecked();
+            throw new UncheckedIOException("Failed to read the job results", e);
+        }
+    }
+
+    /**
+     * @return all column names, including the sf__ result columns; empty if there are no results
+     */
+    public String[] getHeader() {
+        return header.clone();
+    }
+
+    /**
+     * @return the columns of the uploaded records, ie. the header without the sf__ result columns
+     */
+    public String[] getDataHeader() {
+        return Arrays.stream(header)
+                .filter(column -> !column.startsWith(JobResultRecord.RESULT_COLUMN_PREFIX))
+                .toArray(String[]::new);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return nextRow != null;
+    }
+
+    @Override
+    public JobResultRecord next() {
+        if (nextRow == null) {
+            throw new NoSuchElementException();
+        }
+        JobResultRecord record = new JobResultRecord(header, nextRow);
+        nextRow = readRow();
+        return record;
+    }
+
+    /**
+     * @return the remaining records, closing the stream closes this reader
+     */
+    public Stream<JobResultRecord> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(this::closeUnchecked);
+    }
+
+    private String[] readRow() {
+        try {
+            String[] row;
+            do {
+                row = csvReader.readNext();
+            } while (row != null && row.length == 1 && row[0].isEmpty());
+            return row;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the job results", e);
+        }
+    }
+
+    private void closeUnchecked() {
+        try {
+            close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to close the job results", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        csvReader.close();
+    }
+}
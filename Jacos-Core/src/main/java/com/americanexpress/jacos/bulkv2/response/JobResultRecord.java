@@ -0,0 +1,116 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.response;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * One row of the successful, failed or unprocessed results of an ingest job.
+ * </p>
+ * <p>
+ * Salesforce prefixes the result columns with <code>sf__</code>, the other columns echo the uploaded record.
+ * </p>
+ */
+public class JobResultRecord {
+
+    public static final String ID = "sf__Id";
+
+    public static final String CREATED = "sf__Created";
+
+    public static final String ERROR = "sf__Error";
+
+    static final String RESULT_COLUMN_PREFIX = "sf__";
+
+    private final Map<String, String> values;
+
+    JobResultRecord(String[] header, String[] row) {
+        Map<String, String> columns = new LinkedHashMap<>(header.length * 2);
+        for (int i = 0; i < header.length; i++) {
+            columns.put(header[i], i < row.length ? row[i] : null);
+        }
+        this.values = Collections.unmodifiableMap(columns);
+    }
+
+    /**
+     * @return id of the record, null for failed records without id and for unprocessed records
+     */
+    public String getId() {
+        String id = values.get(ID);
+        return id == null || id.isEmpty() ? null : id;
+    }
+
+    /**
+     * @return true if the record was inserted, false if it was updated or not processed
+     */
+    public boolean isCreated() {
+        return Boolean.parseBoolean(values.get(CREATED));
+    }
+
+    /**
+     * @return error message of a failed record, eg. "UNABLE_TO_LOCK_ROW:unable to obtain exclusive access to this record:--"
+     */
+    public String getError() {
+        return values.get(ERROR);
+    }
+
+    /**
+     * @return error code of a failed record, the part of the error message before the first colon
+     */
+    public String getErrorCode() {
+        String error = getError();
+        if (error == null || error.isEmpty()) {
+            return null;
+        }
+        int i = error.indexOf(':');
+        return i < 0 ? error : error.substring(0, i);
+    }
+
+    /**
+     * @param column name of the column
+     * @return value of the column, null if the job results don't have the column
+     */
+    public String get(String column) {
+        return values.get(column);
+    }
+
+    /**
+     * @return all columns in file order, including the sf__ result columns
+     */
+    public Map<String, String> getValues() {
+        return values;
+    }
+
+    /**
+     * @return the uploaded record, ie. every column but the sf__ result columns, in file order
+     */
+    public Map<String, String> getData() {
+        Map<String, String> data = new LinkedHashMap<>();
+        values.forEach((column, value) -> {
+            if (!column.startsWith(RESULT_COLUMN_PREFIX)) {
+                data.put(column, value);
+            }
+        });
+        return data;
+    }
+
+    @Override
+    public String toString() {
+        return "JobResultRecord" + values;
+    }
+}
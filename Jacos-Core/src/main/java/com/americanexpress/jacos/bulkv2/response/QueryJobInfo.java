@@ -0,0 +1,98 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.response;
+
+import com.americanexpress.jacos.bulkv2.type.QueryOperationEnum;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import endolabs.salesforce.bulkv2.response.GetJobInfoResponse;
+import endolabs.salesforce.bulkv2.type.JobTypeEnum;
+import endolabs.salesforce.bulkv2.type.OperationEnum;
+
+/**
+ * <p>
+ * Status of a query job. It is a {@link GetJobInfoResponse}, so query jobs can be watched like ingest
+ * jobs, but its operation (query, queryAll) and job type (V2Query) are not ingest values: they are
+ * read through {@link #getQueryOperation()} and {@link #getQueryJobType()} instead.
+ * </p>
+ */
+public class QueryJobInfo extends GetJobInfoResponse {
+
+    @JsonProperty("operation")
+    private QueryOperationEnum queryOperation;
+
+    @JsonProperty("jobType")
+    private String queryJobType;
+
+    private String errorMessage;
+
+    public QueryOperationEnum getQueryOperation() {
+        return queryOperation;
+    }
+
+    public void setQueryOperation(QueryOperationEnum queryOperation) {
+        this.queryOperation = queryOperation;
+    }
+
+    public String getQueryJobType() {
+        return queryJobType;
+    }
+
+    public void setQueryJobType(String queryJobType) {
+        this.queryJobType = queryJobType;
+    }
+
+    /**
+     * @return reason of the failure of the query, null unless the state is Failed
+     */
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    /**
+     * Always null, see {@link #getQueryOperation()}
+     */
+    @Override
+    @JsonIgnore
+    public OperationEnum getOperation() {
+        return super.getOperation();
+    }
+
+    @Override
+    @JsonIgnore
+    public void setOperation(OperationEnum operation) {
+        super.setOperation(operation);
+    }
+
+    /**
+     * Always null, see {@link #getQueryJobType()}
+     */
+    @Override
+    @JsonIgnore
+    public JobTypeEnum getJobType() {
+        return super.getJobType();
+    }
+
+    @Override
+    @JsonIgnore
+    public void setJobType(JobTypeEnum jobType) {
+        super.setJobType(jobType);
+    }
+}
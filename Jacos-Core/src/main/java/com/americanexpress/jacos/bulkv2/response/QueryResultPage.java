@@ -0,0 +1,120 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.response;
+
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.Okio;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * <p>
+ * One page of the results of a query job, as returned for a locator. The csv body is streamed from the
+ * response: it can be read once, either as records or copied to a file.
+ * </p>
+ * <p>
+ * The page must be closed to release the connection.
+ * </p>
+ */
+public class QueryResultPage implements Closeable {
+
+    public static final String LOCATOR_HEADER = "Sforce-Locator";
+
+    public static final String NUMBER_OF_RECORDS_HEADER = "Sforce-NumberOfRecords";
+
+    private static final byte LF = '\n';
+
+    private final BufferedSource body;
+
+    private final String locator;
+
+    private final Integer numberOfRecords;
+
+    /**
+     * @param body            csv content of the page, header first
+     * @param locator         value of the Sforce-Locator header
+     * @param numberOfRecords value of the Sforce-NumberOfRecords header, null if absent
+     */
+    public QueryResultPage(BufferedSource body, String locator, Integer numberOfRecords) {
+        this.body = body;
+        this.locator = locator == null || locator.isEmpty() || "null".equals(locator) ? null : locator;
+        this.numberOfRecords = numberOfRecords;
+    }
+
+    /**
+     * @return locator of the next page, null for the last page
+     */
+    public String getLocator() {
+        return locator;
+    }
+
+    public boolean hasNextPage() {
+        return locator != null;
+    }
+
+    /**
+     * @return number of records of this page, null if Salesforce did not tell
+     */
+    public Integer getNumberOfRecords() {
+        return numberOfRecords;
+    }
+
+    /**
+     * @return reader of the records of this page, closing it closes the page
+     */
+    public JobResultReader read() {
+        return new JobResultReader(new InputStreamReader(body.inputStream(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Copies the page to a sink.
+     *
+     * @param sink       destination, not closed
+     * @param skipHeader true to leave out the header line, eg. for every page but the first one
+     * @return number of bytes written
+     */
+    public long writeTo(BufferedSink sink, boolean skipHeader) throws IOException {
+        if (skipHeader) {
+            long headerEnd = body.indexOf(LF);
+            body.skip(headerEnd < 0 ? body.buffer().size() : headerEnd + 1);
+            if (headerEnd < 0) {
+                return 0;
+            }
+        }
+        return sink.writeAll(body);
+    }
+
+    /**
+     * Copies the page to a file, replaced if it exists.
+     *
+     * @return number of bytes written
+     */
+    public long writeTo(Path target, boolean skipHeader) throws IOException {
+        try (BufferedSink sink = Okio.buffer(Okio.sink(target))) {
+            return writeTo(sink, skipHeader);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        body.close();
+    }
+}
@@ -26,6 +26,9 @@ public enum OperationEnumJacos {
 
     DELETE("delete"),
 
+    // Bulk only: deleted records skip the Recycle Bin, needs the Bulk API Hard Delete permission
+    HARDDELETE("hardDelete"),
+
     UPDATE("update"),
 
     UPSERT("upsert"),
@@ -34,6 +37,9 @@ public enum OperationEnumJacos {
 
     MULTIUPDATE("multiupdate"),
 
+    // Up to 25 dependent subrequests in one call, see CompositeRequest
+    COMPOSITE("composite"),
+
     // This is Operation is to call custom salesforce API
     CUSTOMRESTAPI("customrestapi");
 
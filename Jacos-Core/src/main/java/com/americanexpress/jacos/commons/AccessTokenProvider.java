@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.commons;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * Holds the access token of a bulk or part client. The token is read for every request, so it can be
+ * rotated while the client, its connection pool and its threads stay in place.
+ * </p>
+ * <p>
+ * Refreshes are single-flight: when several requests find the same token expired, the first one
+ * fetches a new token while the others wait and then reuse it.
+ * </p>
+ */
+public class AccessTokenProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(AccessTokenProvider.class);
+
+    private final Supplier<String> tokenRefresher;
+
+    private volatile String accessToken;
+
+    /**
+     * Provider of a token which can not be refreshed.
+     */
+    public AccessTokenProvider(String accessToken) {
+        this(accessToken, null);
+    }
+
+    /**
+     * @param accessToken    current token, null if a token is only fetched once a request is refused
+     * @param tokenRefresher fetches a new token, null if the token can not be refreshed
+     */
+    public AccessTokenProvider(String accessToken, Supplier<String> tokenRefresher) {
+        this.accessToken = accessToken;
+        this.tokenRefresher = tokenRefresher;
+    }
+
+    /**
+     * @return the token sent with the next request
+     */
+    public String getAccessToken() {
+        return accessToken;
+    }
+
+    /**
+     * @return true if a new token can be fetched
+     */
+    public boolean canRefresh() {
+        return tokenRefresher != null;
+    }
+
+    /**
+     * Replaces the token for the next requests.
+     *
+     * @param accessToken new token
+     * @return true if the token changed
+     */
+    public synchronized boolean update(String accessToken) {
+        boolean changed = !Objects.equals(accessToken, this.accessToken);
+        this.accessToken = accessToken;
+        return changed;
+    }
+
+    /**
+     * Fetches a new token, unless the rejected token was already replaced by another caller.
+     *
+     * @param rejectedToken token the server refused
+     * @return the token to retry with
+     */
+    public synchronized String refresh(String rejectedToken) {
+        if (!Objects.equals(accessToken, rejectedToken)) {
+            return accessToken;
+        }
+        if (tokenRefresher == null) {
+            throw new IllegalStateException("Access token can not be refreshed");
+        }
+        log.info("Refreshing the expired access token");
+        String refreshed = tokenRefresher.get();
+        if (refreshed == null || refreshed.isEmpty()) {
+            throw new IllegalStateException("Access token refresh returned no token");
+        }
+        accessToken = refreshed;
+        return accessToken;
+    }
+}
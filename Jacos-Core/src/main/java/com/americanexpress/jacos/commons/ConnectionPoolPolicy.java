@@ -0,0 +1,157 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.commons;
+
+/**
+ * <p>
+ * Sizing and timeouts of the pooled connections of the part client.
+ * </p>
+ * <p>
+ * Connections are kept open between requests, so calls to the same host reuse them instead of
+ * paying for a new TCP and TLS handshake. A connection is kept for as long as the server asks in its
+ * Keep-Alive header, at most <code>keepAliveMillis</code>; connections idle for
+ * <code>idleEvictionMillis</code> are closed by a background thread before the server or a proxy drops
+ * them.
+ * </p>
+ * <p>
+ * Requests of a client all go to the same Salesforce instance, so by default one host may use every
+ * connection of the pool. A request finding them all leased waits for one for
+ * <code>connectionRequestTimeoutMillis</code>, then fails.
+ * </p>
+ */
+public class ConnectionPoolPolicy {
+
+    public static final int DEF_MAX_TOTAL = 64;
+
+    public static final long DEF_KEEP_ALIVE_MILLIS = 60_000;
+
+    public static final long DEF_IDLE_EVICTION_MILLIS = 30_000;
+
+    public static final int DEF_CONNECT_TIMEOUT_MILLIS = 10_000;
+
+    public static final int DEF_READ_TIMEOUT_MILLIS = 120_000;
+
+    public static final int DEF_CONNECTION_REQUEST_TIMEOUT_MILLIS = 120_000;
+
+    private int maxTotal = DEF_MAX_TOTAL;
+
+    /**
+     * 0 until set: a route may use all the connections
+     */
+    private int maxPerRoute;
+
+    private long keepAliveMillis = DEF_KEEP_ALIVE_MILLIS;
+
+    private long idleEvictionMillis = DEF_IDLE_EVICTION_MILLIS;
+
+    private int connectTimeoutMillis = DEF_CONNECT_TIMEOUT_MILLIS;
+
+    private int readTimeoutMillis = DEF_READ_TIMEOUT_MILLIS;
+
+    private int connectionRequestTimeoutMillis = DEF_CONNECTION_REQUEST_TIMEOUT_MILLIS;
+
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    /**
+     * @param maxTotal connections open at the same time, all hosts together
+     */
+    public void setMaxTotal(int maxTotal) {
+        if (maxTotal < 1) {
+            throw new IllegalArgumentException("Max connections should not be less than 1:" + maxTotal);
+        }
+        this.maxTotal = maxTotal;
+    }
+
+    /**
+     * @return connections allowed to one host, max total unless set
+     */
+    public int getMaxPerRoute() {
+        return maxPerRoute > 0 ? maxPerRoute : maxTotal;
+    }
+
+    /**
+     * @param maxPerRoute connections open at the same time to one host, through the proxy if any
+     */
+    public void setMaxPerRoute(int maxPerRoute) {
+        if (maxPerRoute < 1) {
+            throw new IllegalArgumentException("Max connections per route should not be less than 1:" + maxPerRoute);
+        }
+        this.maxPerRoute = maxPerRoute;
+    }
+
+    public long getKeepAliveMillis() {
+        return keepAliveMillis;
+    }
+
+    /**
+     * @param keepAliveMillis longest time an idle connection is kept for reuse
+     */
+    public void setKeepAliveMillis(long keepAliveMillis) {
+        if (keepAliveMillis < 1) {
+            throw new IllegalArgumentException("Keep alive should not be less than 1 ms:" + keepAliveMillis);
+        }
+        this.keepAliveMillis = keepAliveMillis;
+    }
+
+    public long getIdleEvictionMillis() {
+        return idleEvictionMillis;
+    }
+
+    /**
+     * @param idleEvictionMillis idle time after which a pooled connection is closed
+     */
+    public void setIdleEvictionMillis(long idleEvictionMillis) {
+        if (idleEvictionMillis < 1) {
+            throw new IllegalArgumentException("Idle eviction should not be less than 1 ms:" + idleEvictionMillis);
+        }
+        this.idleEvictionMillis = idleEvictionMillis;
+    }
+
+    public int getConnectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+
+    /**
+     * @param connectTimeoutMillis time to open a connection, 0 for no limit
+     */
+    public void setConnectTimeoutMillis(int connectTimeoutMillis) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+    }
+
+    public int getReadTimeoutMillis() {
+        return readTimeoutMillis;
+    }
+
+    /**
+     * @param readTimeoutMillis longest wait for data of a response, 0 for no limit
+     */
+    public void setReadTimeoutMillis(int readTimeoutMillis) {
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    public int getConnectionRequestTimeoutMillis() {
+        return connectionRequestTimeoutMillis;
+    }
+
+    /**
+     * @param connectionRequestTimeoutMillis longest wait for a free connection of the pool, 0 for no limit
+     */
+    public void setConnectionRequestTimeoutMillis(int connectionRequestTimeoutMillis) {
+        this.connectionRequestTimeoutMillis = connectionRequestTimeoutMillis;
+    }
+}
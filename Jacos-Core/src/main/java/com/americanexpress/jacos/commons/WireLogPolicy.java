@@ -0,0 +1,160 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.commons;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * <p>
+ * What the http clients write to the log about each request, shared by the bulk (OkHttp) and the
+ * part (RestTemplate) clients.
+ * </p>
+ * <p>
+ * <code>HEADERS</code> logs the request line, status and headers. <code>BODY</code> adds the start of
+ * text bodies for a sample of the requests: at most <code>maxBodyBytes</code> of each body are copied
+ * to the log, the rest is streamed untouched. Values of the redacted headers (Authorization, cookies)
+ * are never logged.
+ * </p>
+ */
+public class WireLogPolicy {
+
+    public enum Level {
+        NONE, HEADERS, BODY
+    }
+
+    public static final int DEF_MAX_BODY_BYTES = 4096;
+
+    public static final List<String> DEF_REDACTED_HEADERS = Collections.unmodifiableList(
+            Arrays.asList("Authorization", "Proxy-Authorization", "Cookie", "Set-Cookie"));
+
+    static final String REDACTED = "<redacted>";
+
+    private Level level = Level.HEADERS;
+
+    private int maxBodyBytes = DEF_MAX_BODY_BYTES;
+
+    private double bodySampleRate = 1.0;
+
+    private Set<String> redactedHeaders = headerSet(DEF_REDACTED_HEADERS);
+
+    public WireLogPolicy() {
+    }
+
+    public WireLogPolicy(Level level) {
+        this.level = level;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public void setLevel(Level level) {
+        this.level = level;
+    }
+
+    public int getMaxBodyBytes() {
+        return maxBodyBytes;
+    }
+
+    public void setMaxBodyBytes(int maxBodyBytes) {
+        if (maxBodyBytes < 0) {
+            throw new IllegalArgumentException("Max body bytes should not be less than 0:" + maxBodyBytes);
+        }
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    public double getBodySampleRate() {
+        return bodySampleRate;
+    }
+
+    /**
+     * @param bodySampleRate share of the requests whose bodies are logged, from 0 to 1
+     */
+    public void setBodySampleRate(double bodySampleRate) {
+        if (bodySampleRate < 0 || bodySampleRate > 1) {
+            throw new IllegalArgumentException("Body sample rate should be between 0 and 1:" + bodySampleRate);
+        }
+        this.bodySampleRate = bodySampleRate;
+    }
+
+    public List<String> getRedactedHeaders() {
+        return new ArrayList<>(redactedHeaders);
+    }
+
+    public void setRedactedHeaders(List<String> redactedHeaders) {
+        this.redactedHeaders = headerSet(redactedHeaders);
+    }
+
+    private static Set<String> headerSet(Collection<String> names) {
+        Set<String> set = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        set.addAll(names);
+        return set;
+    }
+
+    public boolean logsHeaders() {
+        return level != Level.NONE;
+    }
+
+    /**
+     * Draws whether the bodies of one exchange are logged.
+     *
+     * @return true if the level is BODY and the exchange is part of the sample
+     */
+    public boolean sampleBody() {
+        return level == Level.BODY && maxBodyBytes > 0
+                && (bodySampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < bodySampleRate);
+    }
+
+    /**
+     * @return the value to log for the header
+     */
+    public String headerValue(String name, String value) {
+        return redactedHeaders.contains(name) ? REDACTED : value;
+    }
+
+    /**
+     * Bodies of other types (binary, forms holding credentials) are never logged.
+     *
+     * @param contentType content type of the body, may be null
+     * @return true for text, csv, json and xml bodies
+     */
+    public static boolean isText(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.toLowerCase();
+        return type.startsWith("text/") || type.contains("json") || type.contains("xml");
+    }
+
+    /**
+     * @param prefix    start of the body
+     * @param length    number of bytes of the prefix to log
+     * @param truncated true if the body is longer than what is logged
+     * @return the body as it is logged
+     */
+    public String bodyText(byte[] prefix, int length, boolean truncated) {
+        String text = new String(prefix, 0, Math.min(length, maxBodyBytes), StandardCharsets.UTF_8);
+        return truncated || length > maxBodyBytes ? text + "...(truncated at " + Math.min(length, maxBodyBytes) + " bytes)" : text;
+    }
+}
@@ -20,4 +20,19 @@ public class ApplicationConstants {
     public static final String header_key = "message_type";
 
     public static final int MB = 1024 * 1024;
+
+    /**
+     * Largest job data Salesforce Bulk API 2.0 accepts in one upload
+     */
+    public static final int MAX_UPLOAD_SIZE_IN_MB = 150;
+
+    /**
+     * Largest job data Salesforce accepts inline in a multipart job creation request, in characters
+     */
+    public static final int MAX_MULTIPART_CONTENT_CHARS = 20_000;
+
+    /**
+     * Bulk API 2.0 allows 150,000,000 records per rolling 24 hours, so a chunk can never usefully hold more
+     */
+    public static final int DEF_MAX_RECORDS_PER_CHUNK = 150_000_000;
 }
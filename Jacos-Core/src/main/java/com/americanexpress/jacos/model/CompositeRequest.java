@@ -0,0 +1,241 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.model;
+
+import com.americanexpress.jacos.utils.Json;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * The Salesforce composite request schema: up to 25 subrequests run in order in one call, a
+ * subrequest using the result of an earlier one through a <code>@{referenceId.field}</code>
+ * reference in its url or body, see {@link #reference(String, String)}.
+ * </p>
+ * <p>
+ * The urls may use <code>vXX.X</code> in place of the API version, it is replaced by the version of
+ * the part client, see {@link #sobjectUrl(String)}.
+ * </p>
+ *
+ * @see <a href="https://developer.salesforce.com/docs/atlas.en-us.api_rest.meta/api_rest/resources_composite_composite.htm">composite</a>
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({"allOrNone", "collateSubrequests", "compositeRequest"})
+public class CompositeRequest {
+
+    public static final int MAX_SUBREQUESTS = 25;
+
+    private static final Pattern REFERENCE_ID = Pattern.compile("[A-Za-z][A-Za-z0-9_]*");
+
+    private static final Pattern REFERENCE = Pattern.compile("@\\{([A-Za-z][A-Za-z0-9_]*)[.}\\[]");
+
+    private boolean allOrNone;
+
+    private Boolean collateSubrequests;
+
+    private List<Subrequest> compositeRequest = new ArrayList<>();
+
+    /**
+     * @return url of the records of an sObject, to create them
+     */
+    public static String sobjectUrl(String objectName) {
+        return "/services/data/vXX.X/sobjects/" + objectName;
+    }
+
+    /**
+     * @return url of one record, to read, update or delete it
+     */
+    public static String sobjectUrl(String objectName, String id) {
+        return sobjectUrl(objectName) + "/" + id;
+    }
+
+    /**
+     * @param referenceId reference id of an earlier subrequest
+     * @param field       field of its result, such as <code>id</code>
+     * @return <code>@{referenceId.field}</code>, replaced by Salesforce with the value of the field
+     */
+    public static String reference(String referenceId, String field) {
+        return "@{" + referenceId + "." + field + "}";
+    }
+
+    /**
+     * Appends a subrequest.
+     *
+     * @param method      http method: GET, POST, PATCH, PUT or DELETE
+     * @param url         url of the resource, may hold references to earlier subrequests
+     * @param referenceId id of the subrequest, used by later ones to reference its result
+     * @param body        body of the subrequest, null for none
+     * @return this request
+     */
+    public CompositeRequest addSubrequest(String method, String url, String referenceId, Object body) {
+        Subrequest subrequest = new Subrequest();
+        subrequest.setMethod(method);
+        subrequest.setUrl(url);
+        subrequest.setReferenceId(referenceId);
+        subrequest.setBody(body);
+        compositeRequest.add(subrequest);
+        return this;
+    }
+
+    /**
+     * Checks what Salesforce would otherwise reject after a round trip: the number of subrequests, the
+     * reference ids, unique and alphanumeric, and the references, which may only point to earlier
+     * subrequests.
+     *
+     * @throws IllegalArgumentException if the request is invalid
+     */
+    public void validate() {
+        if (compositeRequest == null || compositeRequest.isEmpty() || compositeRequest.size() > MAX_SUBREQUESTS) {
+            throw new IllegalArgumentException("A composite request needs 1 to " + MAX_SUBREQUESTS + " subrequests:"
+                    + (compositeRequest == null ? 0 : compositeRequest.size()));
+        }
+        Set<String> referenceIds = new HashSet<>();
+        for (Subrequest subrequest : compositeRequest) {
+            String referenceId = subrequest.getReferenceId();
+            if (subrequest.getMethod() == null || subrequest.getUrl() == null) {
+                throw new IllegalArgumentException("Subrequest without method or url:" + referenceId);
+            }
+            checkReferences(subrequest.getUrl(), referenceIds, referenceId);
+            if (subrequest.getBody() != null) {
+                checkReferences(Json.encode(subrequest.getBody()), referenceIds, referenceId);
+            }
+            if (referenceId == null || !REFERENCE_ID.matcher(referenceId).matches()) {
+                throw new IllegalArgumentException("Invalid reference id:" + referenceId);
+            }
+            if (!referenceIds.add(referenceId)) {
+                throw new IllegalArgumentException("Duplicate reference id:" + referenceId);
+            }
+        }
+    }
+
+    private static void checkReferences(String text, Set<String> earlierReferenceIds, String referenceId) {
+        Matcher matcher = REFERENCE.matcher(text);
+        while (matcher.find()) {
+            if (!earlierReferenceIds.contains(matcher.group(1))) {
+                throw new IllegalArgumentException("Subrequest:" + referenceId + " references an unknown or later subrequest:" + matcher.group(1));
+            }
+        }
+    }
+
+    public boolean isAllOrNone() {
+        return allOrNone;
+    }
+
+    /**
+     * @param allOrNone roll back all the subrequests when one fails
+     */
+    public void setAllOrNone(boolean allOrNone) {
+        this.allOrNone = allOrNone;
+    }
+
+    public Boolean getCollateSubrequests() {
+        return collateSubrequests;
+    }
+
+    /**
+     * @param collateSubrequests let Salesforce group the independent subrequests, null for its default
+     */
+    public void setCollateSubrequests(Boolean collateSubrequests) {
+        this.collateSubrequests = collateSubrequests;
+    }
+
+    public List<Subrequest> getCompositeRequest() {
+        return compositeRequest;
+    }
+
+    public void setCompositeRequest(List<Subrequest> compositeRequest) {
+        this.compositeRequest = compositeRequest;
+    }
+
+    @Override
+    public String toString() {
+        return "CompositeRequest{" +
+                "allOrNone=" + allOrNone +
+                ", collateSubrequests=" + collateSubrequests +
+                ", compositeRequest=" + compositeRequest +
+                '}';
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonPropertyOrder({"method", "url", "referenceId", "httpHeaders", "body"})
+    public static class Subrequest {
+        private String method;
+        private String url;
+        private String referenceId;
+        private Map<String, String> httpHeaders;
+        private Object body;
+
+        public String getMethod() {
+            return method;
+        }
+
+        public void setMethod(String method) {
+            this.method = method;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getReferenceId() {
+            return referenceId;
+        }
+
+        public void setReferenceId(String referenceId) {
+            this.referenceId = referenceId;
+        }
+
+        public Map<String, String> getHttpHeaders() {
+            return httpHeaders;
+        }
+
+        public void setHttpHeaders(Map<String, String> httpHeaders) {
+            this.httpHeaders = httpHeaders;
+        }
+
+        public Object getBody() {
+            return body;
+        }
+
+        /**
+         * @param body body of the subrequest: a map, a JsonNode or any object Jackson can write
+         */
+        public void setBody(Object body) {
+            this.body = body;
+        }
+
+        @Override
+        public String toString() {
+            return "Subrequest{" +
+                    "method='" + method + '\'' +
+                    ", url='" + url + '\'' +
+                    ", referenceId='" + referenceId + '\'' +
+                    '}';
+        }
+    }
+}
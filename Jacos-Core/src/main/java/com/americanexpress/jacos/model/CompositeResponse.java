@@ -0,0 +1,127 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The Salesforce composite response schema, one result per subrequest in the order of the request.
+ *
+ * @see CompositeRequest
+ * @see <a href="https://developer.salesforce.com/docs/atlas.en-us.api_rest.meta/api_rest/resources_composite_composite.htm">composite</a>
+ */
+public class CompositeResponse {
+    private List<Subresponse> compositeResponse = new ArrayList<>();
+
+    public List<Subresponse> getCompositeResponse() {
+        return compositeResponse;
+    }
+
+    public void setCompositeResponse(List<Subresponse> compositeResponse) {
+        this.compositeResponse = compositeResponse;
+    }
+
+    /**
+     * @return the result of a subrequest, null if there is none with this reference id
+     */
+    public Subresponse get(String referenceId) {
+        return compositeResponse.stream()
+                .filter(subresponse -> referenceId.equals(subresponse.getReferenceId()))
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * @return true if every subrequest succeeded
+     */
+    public boolean isSuccess() {
+        return compositeResponse.stream().allMatch(Subresponse::isSuccess);
+    }
+
+    @Override
+    public String toString() {
+        return "CompositeResponse{" +
+                "compositeResponse=" + compositeResponse +
+                '}';
+    }
+
+    public static class Subresponse {
+        private JsonNode body;
+        private Map<String, String> httpHeaders;
+        private int httpStatusCode;
+        private String referenceId;
+
+        /**
+         * @return the body returned by the resource: the id of a created record, the fields of a read
+         * one, or the errors of a failed subrequest; null for an empty body
+         */
+        public JsonNode getBody() {
+            return body;
+        }
+
+        public void setBody(JsonNode body) {
+            this.body = body;
+        }
+
+        public Map<String, String> getHttpHeaders() {
+            return httpHeaders;
+        }
+
+        public void setHttpHeaders(Map<String, String> httpHeaders) {
+            this.httpHeaders = httpHeaders;
+        }
+
+        public int getHttpStatusCode() {
+            return httpStatusCode;
+        }
+
+        public void setHttpStatusCode(int httpStatusCode) {
+            this.httpStatusCode = httpStatusCode;
+        }
+
+        public String getReferenceId() {
+            return referenceId;
+        }
+
+        public void setReferenceId(String referenceId) {
+            this.referenceId = referenceId;
+        }
+
+        public boolean isSuccess() {
+            return httpStatusCode >= 200 && httpStatusCode < 300;
+        }
+
+        /**
+         * @return the id of the record created by the subrequest, null if it created none
+         */
+        public String getId() {
+            return body == null || !body.hasNonNull("id") ? null : body.get("id").asText();
+        }
+
+        @Override
+        public String toString() {
+            return "Subresponse{" +
+                    "referenceId='" + referenceId + '\'' +
+                    ", httpStatusCode=" + httpStatusCode +
+                    ", body=" + body +
+                    '}';
+        }
+    }
+}
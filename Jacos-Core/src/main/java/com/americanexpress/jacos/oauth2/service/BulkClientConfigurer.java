@@ -18,6 +18,12 @@
 
 import com.americanexpress.jacos.bulkv2.Bulk2ClientJacos;
 import com.americanexpress.jacos.bulkv2.Bulk2ClientBuilderJacos;
+import com.americanexpress.jacos.bulkv2.ingest.BulkJobMonitor;
+import com.americanexpress.jacos.bulkv2.reconcile.RetryPolicy;
+import com.americanexpress.jacos.commons.AccessTokenProvider;
+import com.americanexpress.jacos.commons.WireLogPolicy;
+import com.americanexpress.jacos.constants.ApplicationConstants;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -29,6 +35,8 @@
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 @Service
 @ConfigurationProperties("jacos.sfdc")
@@ -36,8 +44,12 @@ public class BulkClientConfigurer {
     private static final Logger logger = LogManager.getLogger(BulkClientConfigurer.class);
 
     private Bulk2ClientJacos bulk2Client;
+
+    private AccessTokenProvider accessTokenProvider;
     @Autowired
     private AccessTknForRefreshTkn accessTknForRefreshTkn;
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
     @Value("instance_url")
     private String instanceURL;
 
@@ -46,7 +58,61 @@ public class BulkClientConfigurer {
 
     @Min(value = 1, message = "Chunk size should not be less than 1 MB")
     @Max(value = 100, message = "Chunk size should not be greater than 100 MB")
-    private int chunkSizeInMB;
+    private int chunkSizeInMB = 100;
+
+    @Min(value = 1, message = "Records per chunk should not be less than 1")
+    private int maxRecordsPerChunk = ApplicationConstants.DEF_MAX_RECORDS_PER_CHUNK;
+
+    @Min(value = 1, message = "Concurrent jobs should not be less than 1")
+    private int concurrentJobs = 1;
+
+    @Min(value = 0, message = "Chunk queue capacity should not be less than 0")
+    private int chunkQueueCapacity = 1;
+
+    private boolean pipelineJobs;
+
+    @Min(value = 1, message = "Job poll delay should not be less than 1 ms")
+    private long jobPollMinDelayMillis = BulkJobMonitor.DEF_MIN_DELAY_MILLIS;
+
+    @Min(value = 1, message = "Job poll delay should not be less than 1 ms")
+    private long jobPollMaxDelayMillis = BulkJobMonitor.DEF_MAX_DELAY_MILLIS;
+
+    private boolean gzipCompression;
+
+    @Min(value = 0, message = "Multipart content size should not be less than 0")
+    @Max(value = ApplicationConstants.MAX_MULTIPART_CONTENT_CHARS, message = "Multipart content size should not be greater than 20000 characters")
+    private int multipartMaxChars = ApplicationConstants.MAX_MULTIPART_CONTENT_CHARS;
+
+    @Min(value = 0, message = "Retry attempts should not be less than 0")
+    private int retryMaxAttempts = RetryPolicy.DEF_MAX_RETRIES;
+
+    private List<String> retryableErrorCodes = new ArrayList<>(RetryPolicy.DEF_RETRYABLE_ERROR_CODES);
+
+    private String reconcileWorkDir = System.getProperty("java.io.tmpdir");
+
+    @Min(value = 1, message = "Sort buffer should not be less than 1 MB")
+    private int sortBufferInMB = 64;
+
+    private String sortWorkDir = System.getProperty("java.io.tmpdir");
+
+    @Min(value = 1, message = "Spool threshold should not be less than 1 MB")
+    private Integer spoolThresholdInMB;
+
+    @Min(value = 1, message = "Spool parallelism should not be less than 1")
+    private int spoolParallelism = 4;
+
+    private String spoolWorkDir = System.getProperty("java.io.tmpdir");
+
+    @Min(value = 1, message = "Query page size should not be less than 1")
+    private Integer queryPageSize;
+
+    @Min(value = 1, message = "Query download parallelism should not be less than 1")
+    private int queryDownloadParallelism = 4;
+
+    @Min(value = 1, message = "Max concurrent requests should not be less than 1")
+    private Integer maxConcurrentRequests;
+
+    private WireLogPolicy wireLog = new WireLogPolicy();
 
     public String getInstanceURL() {
         return instanceURL;
@@ -72,22 +138,189 @@ public void setChunkSizeInMB(int chunkSizeInMB) {
         this.chunkSizeInMB = chunkSizeInMB;
     }
 
+    public int getMaxRecordsPerChunk() {
+        return maxRecordsPerChunk;
+    }
+
+    public void setMaxRecordsPerChunk(int maxRecordsPerChunk) {
+        this.maxRecordsPerChunk = maxRecordsPerChunk;
+    }
+
+    public int getConcurrentJobs() {
+        return concurrentJobs;
+    }
+
+    public void setConcurrentJobs(int concurrentJobs) {
+        this.concurrentJobs = concurrentJobs;
+    }
+
+    public int getChunkQueueCapacity() {
+        return chunkQueueCapacity;
+    }
+
+    public void setChunkQueueCapacity(int chunkQueueCapacity) {
+        this.chunkQueueCapacity = chunkQueueCapacity;
+    }
+
+    public boolean isPipelineJobs() {
+        return pipelineJobs;
+    }
+
+    public void setPipelineJobs(boolean pipelineJobs) {
+        this.pipelineJobs = pipelineJobs;
+    }
+
+    public long getJobPollMinDelayMillis() {
+        return jobPollMinDelayMillis;
+    }
+
+    public void setJobPollMinDelayMillis(long jobPollMinDelayMillis) {
+        this.jobPollMinDelayMillis = jobPollMinDelayMillis;
+    }
+
+    public long getJobPollMaxDelayMillis() {
+        return jobPollMaxDelayMillis;
+    }
+
+    public void setJobPollMaxDelayMillis(long jobPollMaxDelayMillis) {
+        this.jobPollMaxDelayMillis = jobPollMaxDelayMillis;
+    }
+
+    public boolean isGzipCompression() {
+        return gzipCompression;
+    }
+
+    public void setGzipCompression(boolean gzipCompression) {
+        this.gzipCompression = gzipCompression;
+    }
+
+    public int getMultipartMaxChars() {
+        return multipartMaxChars;
+    }
+
+    public void setMultipartMaxChars(int multipartMaxChars) {
+        this.multipartMaxChars = multipartMaxChars;
+    }
+
+    public int getRetryMaxAttempts() {
+        return retryMaxAttempts;
+    }
+
+    public void setRetryMaxAttempts(int retryMaxAttempts) {
+        this.retryMaxAttempts = retryMaxAttempts;
+    }
+
+    public List<String> getRetryableErrorCodes() {
+        return retryableErrorCodes;
+    }
+
+    public void setRetryableErrorCodes(List<String> retryableErrorCodes) {
+        this.retryableErrorCodes = retryableErrorCodes;
+    }
+
+    public String getReconcileWorkDir() {
+        return reconcileWorkDir;
+    }
+
+    public void setReconcileWorkDir(String reconcileWorkDir) {
+        this.reconcileWorkDir = reconcileWorkDir;
+    }
+
+    public int getSortBufferInMB() {
+        return sortBufferInMB;
+    }
+
+    public void setSortBufferInMB(int sortBufferInMB) {
+        this.sortBufferInMB = sortBufferInMB;
+    }
+
+    public String getSortWorkDir() {
+        return sortWorkDir;
+    }
+
+    public void setSortWorkDir(String sortWorkDir) {
+        this.sortWorkDir = sortWorkDir;
+    }
+
+    public Integer getSpoolThresholdInMB() {
+        return spoolThresholdInMB;
+    }
+
+    public void setSpoolThresholdInMB(Integer spoolThresholdInMB) {
+        this.spoolThresholdInMB = spoolThresholdInMB;
+    }
+
+    public int getSpoolParallelism() {
+        return spoolParallelism;
+    }
+
+    public void setSpoolParallelism(int spoolParallelism) {
+        this.spoolParallelism = spoolParallelism;
+    }
+
+    public String getSpoolWorkDir() {
+        return spoolWorkDir;
+    }
+
+    public void setSpoolWorkDir(String spoolWorkDir) {
+        this.spoolWorkDir = spoolWorkDir;
+    }
+
+    public Integer getQueryPageSize() {
+        return queryPageSize;
+    }
+
+    public void setQueryPageSize(Integer queryPageSize) {
+        this.queryPageSize = queryPageSize;
+    }
+
+    public int getQueryDownloadParallelism() {
+        return queryDownloadParallelism;
+    }
+
+    public void setQueryDownloadParallelism(int queryDownloadParallelism) {
+        this.queryDownloadParallelism = queryDownloadParallelism;
+    }
+
+    public Integer getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    public void setMaxConcurrentRequests(Integer maxConcurrentRequests) {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    public WireLogPolicy getWireLog() {
+        return wireLog;
+    }
+
+    public void setWireLog(WireLogPolicy wireLog) {
+        this.wireLog = wireLog;
+    }
+
     @PostConstruct
     public void init() {
         try {
+            accessTokenProvider = new AccessTokenProvider(accessTknForRefreshTkn.getAccessToken(), accessTknForRefreshTkn::getRefreshAccessToken);
+            Bulk2ClientBuilderJacos builder = new Bulk2ClientBuilderJacos()
+                    .withAccessTokenProvider(accessTokenProvider, instanceURL)
+                    .useWireLogPolicy(wireLog);
             if (accessTknForRefreshTkn.isProxyEnabled()) {
-                bulk2Client = new Bulk2ClientBuilderJacos()
-                        .withSessionId(accessTknForRefreshTkn.getAccessToken(), instanceURL)
-                        .useProxy(accessTknForRefreshTkn.getHost(), accessTknForRefreshTkn.getPort(),
-                                accessTknForRefreshTkn.getUserName(),
-                                accessTknForRefreshTkn.getPassword())
-                        .useTimeout(accessTknForRefreshTkn.getTimeout())
-                        .build();
-            } else {
-                bulk2Client = new Bulk2ClientBuilderJacos()
-                        .withSessionId(accessTknForRefreshTkn.getAccessToken(), instanceURL)
-                        .build();
+                builder.useProxy(accessTknForRefreshTkn.getHost(), accessTknForRefreshTkn.getPort(),
+                        accessTknForRefreshTkn.getUserName(),
+                        accessTknForRefreshTkn.getPassword())
+                        .useTimeout(accessTknForRefreshTkn.getTimeout());
+            }
+            if (gzipCompression) {
+                builder.useGzipCompression();
             }
+            if (meterRegistry != null) {
+                builder.useMeterRegistry(meterRegistry);
+            }
+            if (maxConcurrentRequests != null) {
+                builder.useMaxRequests(maxConcurrentRequests);
+            }
+            bulk2Client = builder.build();
         } catch (IOException e) {
             throw new RuntimeException("Error in Initializing the Bulk2 Client...", e);
         }
@@ -102,11 +335,17 @@ public void setBulk2Client(Bulk2ClientJacos bulk2Client) {
         this.bulk2Client = bulk2Client;
     }
 
+    /**
+     * Fetches a new access token and hands it to the bulk client. The client, its connection pool and
+     * threads are kept: the token is read for every request.
+     * <p>
+     * Expired tokens are refreshed by the client itself when Salesforce rejects a request, so this is
+     * only needed to rotate the token ahead of time.
+     *
+     * @return the bulk client
+     */
     public Bulk2ClientJacos refreshBulkClient() {
-        synchronized (this) {
-            accessTknForRefreshTkn.getRefreshAccessToken();
-            init();
-        }
+        accessTokenProvider.refresh(accessTokenProvider.getAccessToken());
         return this.bulk2Client;
     }
 }
@@ -16,10 +16,14 @@
 package com.americanexpress.jacos.oauth2.service;
 
 
+import com.americanexpress.jacos.commons.AccessTokenProvider;
+import com.americanexpress.jacos.commons.ConnectionPoolPolicy;
+import com.americanexpress.jacos.commons.WireLogPolicy;
 import com.americanexpress.jacos.oauth2.configuration.OAuthGetAccessTokenConfig;
 import com.americanexpress.jacos.part.PartClient;
 import com.americanexpress.jacos.part.PartClientBuilder;
 import com.americanexpress.jacos.utils.RestUtils;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -29,6 +33,8 @@
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.validation.constraints.Min;
 import java.io.IOException;
 import java.util.Map;
 
@@ -49,6 +55,8 @@ public class PartClientConfigurer {
 
     @Autowired
     private OAuthGetAccessTokenConfig accessTknConfig;
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
 
     @Value("instance_url")
     private String instanceURL;
@@ -58,6 +66,19 @@ public class PartClientConfigurer {
 
     private Map<String, String> requestHeaders;
 
+    private WireLogPolicy wireLog = new WireLogPolicy();
+
+    /**
+     * Null unless a connectionPool property is set, the part client then connects without a pool
+     */
+    private ConnectionPoolPolicy connectionPool;
+
+    @Min(value = 1, message = "Composite concurrent requests should not be less than 1")
+    private int compositeConcurrentRequests = 1;
+
+    @Min(value = 0, message = "Composite queue capacity should not be less than 0")
+    private int compositeQueueCapacity = 4;
+
     public Map<String, String> getRequestHeaders() {
         return requestHeaders;
     }
@@ -66,6 +87,38 @@ public void setRequestHeaders(Map<String, String> requestHeaders) {
         this.requestHeaders = requestHeaders;
     }
 
+    public WireLogPolicy getWireLog() {
+        return wireLog;
+    }
+
+    public void setWireLog(WireLogPolicy wireLog) {
+        this.wireLog = wireLog;
+    }
+
+    public ConnectionPoolPolicy getConnectionPool() {
+        return connectionPool;
+    }
+
+    public void setConnectionPool(ConnectionPoolPolicy connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
+    public int getCompositeConcurrentRequests() {
+        return compositeConcurrentRequests;
+    }
+
+    public void setCompositeConcurrentRequests(int compositeConcurrentRequests) {
+        this.compositeConcurrentRequests = compositeConcurrentRequests;
+    }
+
+    public int getCompositeQueueCapacity() {
+        return compositeQueueCapacity;
+    }
+
+    public void setCompositeQueueCapacity(int compositeQueueCapacity) {
+        this.compositeQueueCapacity = compositeQueueCapacity;
+    }
+
     public String getInstanceURL() {
         return instanceURL;
     }
@@ -87,26 +140,22 @@ public void setApiVersion(String apiVersion) {
     public void init() {
         try {
             RestUtils.ConfigBean configBean = new RestUtils.ConfigBean(accessTknConfig.getGrantType(), accessTknConfig.getRefreshToken(), accessTknConfig.getClientId(), accessTknConfig.getClientSecret(), accessTknConfig.getContentType(), accessTknConfig.getAccesstokenURI());
+            PartClientBuilder<RestUtils.ConfigBean> builder = new PartClientBuilder<RestUtils.ConfigBean>()
+                    .setCallbackConfigBean(configBean)
+                    .setRefreshTokenCallback((restTemplate, configBean1) -> {
+                        return RestUtils.getFreshAccessToken(restTemplate, configBean);
+                    })
+                    .useAPIVersion(apiVersion)
+                    .useWireLogPolicy(wireLog)
+                    .useConnectionPool(connectionPool)
+                    .withSessionId(accessTknForRefreshTkn.getAccessToken(), instanceURL);
             if (accessTknForRefreshTkn.isProxyEnabled()) {
-                partClient = new PartClientBuilder<RestUtils.ConfigBean>()
-                        .setCallbackConfigBean(configBean)
-                        .setRefreshTokenCallback((restTemplate, configBean1) -> {
-                            return RestUtils.getFreshAccessToken(restTemplate, configBean);
-                        })
-                        .useAPIVersion(apiVersion)
-                        .withSessionId(accessTknForRefreshTkn.getAccessToken(), instanceURL)
-                        .useProxy(accessTknForRefreshTkn.getHost(), accessTknForRefreshTkn.getPort(), accessTknForRefreshTkn.getUserName(), accessTknForRefreshTkn.getPassword())
-                        .build();
-            } else {
-                partClient = new PartClientBuilder<RestUtils.ConfigBean>()
-                        .setCallbackConfigBean(configBean)
-                        .setRefreshTokenCallback((restTemplate, configBean1) -> {
-                            return RestUtils.getFreshAccessToken(restTemplate, configBean);
-                        })
-                        .useAPIVersion(apiVersion)
-                        .withSessionId(accessTknForRefreshTkn.getAccessToken(), instanceURL)
-                        .build();
+                builder.useProxy(accessTknForRefreshTkn.getHost(), accessTknForRefreshTkn.getPort(), accessTknForRefreshTkn.getUserName(), accessTknForRefreshTkn.getPassword());
+            }
+            if (meterRegistry != null) {
+                builder.useMeterRegistry(meterRegistry);
             }
+            partClient = builder.build();
         } catch (
                 IOException e) {
             throw new RuntimeException("Error in Initializing the Part Client...");
@@ -128,6 +177,13 @@ public void init() {
     }
 
 
+    @PreDestroy
+    public void close() throws IOException {
+        if (partClient != null) {
+            partClient.close();
+        }
+    }
+
     public PartClient getPartClient() {
         return partClient;
     }
@@ -136,22 +192,18 @@ public void setPartClient(PartClient partClient) {
         this.partClient = partClient;
     }
 
+    /**
+     * Fetches a new access token and hands it to the part client. The client and its connections are
+     * kept: the token is read for every request.
+     * <p>
+     * Expired tokens are refreshed by the client itself when Salesforce rejects a request, so this is
+     * only needed to rotate the token ahead of time.
+     *
+     * @return the part client
+     */
     public PartClient refreshPartClient() {
-        try {
-            RestUtils.ConfigBean configBean = new RestUtils.ConfigBean(accessTknConfig.getGrantType(), accessTknConfig.getRefreshToken(), accessTknConfig.getClientId(), accessTknConfig.getClientSecret(), accessTknConfig.getContentType(), accessTknConfig.getAccesstokenURI());
-
-            this.partClient = new PartClientBuilder<RestUtils.ConfigBean>()
-                    .setCallbackConfigBean(configBean)
-                    .setRefreshTokenCallback((restTemplate, configBean1) -> {
-                        return RestUtils.getFreshAccessToken(restTemplate, configBean);
-                    })
-                    .useAPIVersion(apiVersion)
-                    .withSessionId(accessTknForRefreshTkn.getAccessToken(), instanceURL)
-                    .useProxy(accessTknForRefreshTkn.getHost(), accessTknForRefreshTkn.getPort(), accessTknForRefreshTkn.getUserName(), accessTknForRefreshTkn.getPassword())
-                    .build();
-        } catch (IOException e) {
-            throw new RuntimeException("Error in Refreshing the Part Client ...");
-        }
+        AccessTokenProvider accessTokenProvider = partClient.getAccessTokenProvider();
+        accessTokenProvider.refresh(accessTokenProvider.getAccessToken());
         return this.partClient;
     }
 
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.operations;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Posts a composite request, whose subrequests name their own objects: the object name and id are
+ * not used.
+ *
+ * @see com.americanexpress.jacos.model.CompositeRequest
+ */
+public class CompositeRequestOperation extends AbstractOperation {
+
+    @Override
+    protected String baseServicePath() {
+        return "/services/data/vXX.X/composite";
+    }
+
+    @Override
+    protected String formUrlfromBaseUrl(String objectName, String objectId) {
+        return baseServicePath();
+    }
+
+    @Override
+    public HttpMethod getRequestType() {
+        return HttpMethod.POST;
+    }
+
+    @Override
+    public String getResponse(ResponseEntity<String> responseStr) {
+        return responseStr.getBody();
+    }
+}
@@ -47,12 +47,21 @@ public static AbstractOperation operationType(OperationEnumJacos operationEnum)
             case DELETE:
                 operationType = new DeleteOperation();
                 break;
+            /*
+             * Hard delete only exists in the Bulk API.
+             */
+            case HARDDELETE:
+                operationType = new NullableOperation(operationEnum.toJsonValue());
+                break;
             case MULTIINSERT:
                 operationType = new MultiRecordInsertOperation();
                 break;
             case MULTIUPDATE:
                 operationType = new MultiRecordUpdateOperation();
                 break;
+            case COMPOSITE:
+                operationType = new CompositeRequestOperation();
+                break;
             /*
              * CustomRestAPI is the Operation type for Salesforce Custom Rest API call.
              */
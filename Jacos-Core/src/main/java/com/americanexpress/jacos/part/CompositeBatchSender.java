@@ -0,0 +1,205 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.part;
+
+import com.americanexpress.jacos.exception.PartApiException;
+import com.americanexpress.jacos.utils.CommonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <p>
+ * Sends the batches of a file load, such as the sObject Collection requests of
+ * {@link CompositeUpdateReqFileSerializer}, on <code>parallelism</code> sender threads, and hands the
+ * responses back in the order of the batches.
+ * </p>
+ * <p>
+ * The batches are read on the calling thread, which also writes the responses. At most
+ * <code>parallelism + queueCapacity</code> batches are in flight, queued or waiting in the reorder
+ * window for an earlier one: when the window is full, reading stops until the oldest batch is answered,
+ * so memory stays bounded whatever the size of the input.
+ * </p>
+ */
+public class CompositeBatchSender implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompositeBatchSender.class);
+
+    private final int parallelism;
+
+    private final int queueCapacity;
+
+    private final ExecutorService senders;
+
+    /**
+     * @param parallelism   number of requests sent at the same time
+     * @param queueCapacity number of batches read ahead while all senders are busy
+     */
+    public CompositeBatchSender(int parallelism, int queueCapacity) {
+        if (parallelism < 1 || queueCapacity < 0) {
+            throw new IllegalArgumentException("Invalid parallelism:" + parallelism + " or queue capacity:" + queueCapacity);
+        }
+        this.parallelism = parallelism;
+        this.queueCapacity = queueCapacity;
+        this.senders = Executors.newFixedThreadPool(parallelism, CommonUtils.daemonThreadFactory("jacos-part-sender-"));
+    }
+
+    /**
+     * Sends all the batches and gives each response to the consumer, in the order of the batches. The
+     * first failure stops the load: the batches not sent yet are dropped, while the responses of the
+     * ones already sent, which Salesforce may have committed, are still given to the consumer before
+     * the failure is thrown.
+     *
+     * @param batches  request bodies, read lazily
+     * @param request  sends one batch and returns the response
+     * @param consumer receives the responses on the calling thread
+     * @param <T>      type of the batches
+     * @param <R>      type of the responses
+     * @throws PartApiException if a batch could not be sent
+     */
+    public <T, R> void send(Iterator<T> batches, BatchRequest<T, R> request, ResponseConsumer<R> consumer) throws PartApiException {
+        Deque<PendingBatch<R>> window = new ArrayDeque<>();
+        int sent = 0;
+        try {
+            while (batches.hasNext()) {
+                if (window.size() >= parallelism + queueCapacity) {
+                    consumer.accept(await(window.poll()));
+                }
+                T batch = batches.next();
+                PendingBatch<R> pending = new PendingBatch<>();
+                pending.response = senders.submit(() -> pending.start() ? request.send(batch) : null);
+                window.add(pending);
+                sent++;
+                while (!window.isEmpty() && window.peek().response.isDone()) {
+                    consumer.accept(await(window.poll()));
+                }
+            }
+            while (!window.isEmpty()) {
+                consumer.accept(await(window.poll()));
+            }
+            LOGGER.info("Sent {} batches", sent);
+        } catch (PartApiException | RuntimeException e) {
+            drain(window, consumer, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Drops the batches still queued, then waits for the ones being sent and gives their responses
+     * to the consumer. Their failures are added to the one which stopped the load.
+     */
+    private static <R> void drain(Deque<PendingBatch<R>> window, ResponseConsumer<R> consumer, Exception failure) {
+        int dropped = 0;
+        for (PendingBatch<R> pending : window) {
+            if (pending.drop()) {
+                dropped++;
+            }
+        }
+        int written = 0;
+        for (PendingBatch<R> pending : window) {
+            if (pending.dropped) {
+                continue;
+            }
+            try {
+                consumer.accept(await(pending));
+                written++;
+            } catch (PartApiException | RuntimeException e) {
+                failure.addSuppressed(e);
+            }
+        }
+        window.clear();
+        LOGGER.warn("Load stopped, wrote the responses of {} batches already sent and dropped {} queued ones", written, dropped);
+    }
+
+    private static <R> R await(PendingBatch<R> pending) throws PartApiException {
+        try {
+            return pending.response.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PartApiException("Interrupted while waiting for a response", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof PartApiException) {
+                throw (PartApiException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new PartApiException("SDFC call failed", cause);
+        }
+    }
+
+    @Override
+    public void close() {
+        senders.shutdownNow();
+    }
+
+    /**
+     * Batch of the window. Either its sender starts it or the load drops it, never both: a future
+     * can be cancelled while it runs, which would lose the response of a batch already sent.
+     */
+    private static final class PendingBatch<R> {
+
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        private Future<R> response;
+
+        private boolean dropped;
+
+        /**
+         * @return true if the batch is to be sent, false if it was dropped
+         */
+        boolean start() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        /**
+         * @return true if the batch was not started and never will be
+         */
+        boolean drop() {
+            dropped = claimed.compareAndSet(false, true);
+            if (dropped) {
+                response.cancel(false);
+            }
+            return dropped;
+        }
+    }
+
+    /**
+     * Sends one batch.
+     */
+    @FunctionalInterface
+    public interface BatchRequest<T, R> {
+        R send(T batch) throws PartApiException;
+    }
+
+    /**
+     * Receives the response of one batch.
+     */
+    @FunctionalInterface
+    public interface ResponseConsumer<R> {
+        void accept(R response) throws PartApiException;
+    }
+}
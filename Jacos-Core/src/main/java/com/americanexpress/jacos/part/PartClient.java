@@ -16,28 +16,35 @@
 package com.americanexpress.jacos.part;
 
 import com.americanexpress.jacos.bulkv2.type.OperationEnumJacos;
+import com.americanexpress.jacos.commons.AccessTokenProvider;
 import com.americanexpress.jacos.commons.RefreshTokenCallback;
 import com.americanexpress.jacos.exception.PartApiException;
+import com.americanexpress.jacos.model.CompositeRequest;
+import com.americanexpress.jacos.model.CompositeResponse;
 import com.americanexpress.jacos.operations.AbstractOperation;
 import com.americanexpress.jacos.operations.OperationTypeFactory;
+import com.americanexpress.jacos.utils.Json;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.http.pool.PoolStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.*;
 import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.web.client.DefaultResponseErrorHandler;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
-import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.HttpRetryException;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayDeque;
-import java.util.Queue;
+import java.util.List;
 
 /**
  * <p>
@@ -46,19 +53,45 @@
  * T is required for refresh token callback, refresh token callback requires a helper object so that the implementor
  * of refresh token callback can
  * write appropriate lambda logic
+ * <p>
+ * A part client is thread-safe and can be shared by all the threads of an application: the error
+ * handling, the headers and the retry after a token refresh belong to each request, and the access
+ * token is held by an {@link AccessTokenProvider}. When concurrent requests find the token expired,
+ * only one of them refreshes it.
+ * <p>
+ * A client built with a connection pool keeps its connections open until it is closed.
  */
-public class PartClient<T> {
+public class PartClient<T> implements Closeable {
 
     private static final Logger log = LoggerFactory.getLogger(PartClient.class);
 
+    private static final String AUTHORIZATION = "Authorization";
+
+    private static final String BEARER = "Bearer ";
+
+    private static final String INVALID_SESSION_ID = "INVALID_SESSION_ID";
+
+    /**
+     * Writes the request payloads with the shared mapper of {@link Json}, stateless and thread-safe
+     */
+    private static final MappingJackson2HttpMessageConverter JSON_CONVERTER = new MappingJackson2HttpMessageConverter(Json.objectMapper());
+
     private final String API_VERSION;
     private final String instanceUrl;
 
 
-    private RestTemplate restTemplate;
-    private HttpHeaders restHeaders;
-    private RefreshTokenCallback<T> refreshTokenCallBack;
-    private T configBean;
+    private final RestTemplate restTemplate;
+    private final AccessTokenProvider accessTokenProvider;
+
+    /**
+     * Headers sent with every request, Authorization excluded; replaced as a whole, never modified
+     */
+    private volatile HttpHeaders restHeaders;
+
+    /**
+     * Connections of the client when it was built with a pool, null otherwise
+     */
+    private volatile PartConnectionPool connectionPool;
 
 
     public PartClient(String instanceUrl, RestTemplate restTemplate, HttpHeaders restHeaders, T configBean, RefreshTokenCallback<T> refreshTokenCallBack) {
@@ -66,183 +99,234 @@ public PartClient(String instanceUrl, RestTemplate restTemplate, HttpHeaders res
     }
 
     public PartClient(String instanceUrl, RestTemplate restTemplate, HttpHeaders restHeaders, T configBean, RefreshTokenCallback<T> refreshTokenCallBack, String apiVersion) {
+        this(instanceUrl, restTemplate, restHeaders, new AccessTokenProvider(bearerToken(restHeaders),
+                refreshTokenCallBack == null ? null : () -> refreshTokenCallBack.refershToken(restTemplate, configBean)), apiVersion);
+    }
+
+    /**
+     * @param restHeaders         headers sent with every request, an Authorization header is ignored
+     * @param accessTokenProvider holds the access token sent with every request
+     */
+    public PartClient(String instanceUrl, RestTemplate restTemplate, HttpHeaders restHeaders, AccessTokenProvider accessTokenProvider, String apiVersion) {
         this.instanceUrl = instanceUrl;
         this.restTemplate = restTemplate;
-        this.restHeaders = restHeaders;
         this.API_VERSION = apiVersion;
-        this.configBean = configBean;
-        this.refreshTokenCallBack = refreshTokenCallBack;
+        this.accessTokenProvider = accessTokenProvider;
+        this.restHeaders = withoutAuthorization(restHeaders);
+        configure(restTemplate);
     }
 
-    public HttpHeaders getRestHeaders() {
-        return restHeaders;
+    /**
+     * Sets the message converters and the error handler of the client on a template, see
+     * {@link #configureMessageConverters(RestTemplate)}. A 401 is then returned rather than raised.
+     *
+     * @param restTemplate template of the client or of its token refreshes
+     */
+    static void configure(RestTemplate restTemplate) {
+        configureMessageConverters(restTemplate);
+        restTemplate.setErrorHandler(new SessionAwareErrorHandler());
     }
 
-    public void setRestHeaders(HttpHeaders restHeaders) {
-        this.restHeaders = restHeaders;
+    /**
+     * Leaves exactly one Jackson converter in the template, the shared {@link #JSON_CONVERTER}, in place
+     * of the first one. Requests then never walk a growing converter list nor create mappers, and a
+     * template reused by several clients is configured only once.
+     *
+     * @param restTemplate template of the client
+     */
+    static void configureMessageConverters(RestTemplate restTemplate) {
+        List<HttpMessageConverter<?>> converters = restTemplate.getMessageConverters();
+        synchronized (converters) {
+            int first = -1;
+            for (int i = converters.size() - 1; i >= 0; i--) {
+                if (converters.get(i) instanceof MappingJackson2HttpMessageConverter) {
+                    converters.remove(i);
+                    first = i;
+                }
+            }
+            converters.add(first < 0 ? converters.size() : first, JSON_CONVERTER);
+        }
     }
 
-    public String modifyObject(String objectName, OperationEnumJacos operationEnum, String payload) throws PartApiException {
-        return modifyObject(objectName, operationEnum, payload, null);
+    private static String bearerToken(HttpHeaders headers) {
+        String authorization = headers == null ? null : headers.getFirst(AUTHORIZATION);
+        return authorization != null && authorization.startsWith(BEARER) ? authorization.substring(BEARER.length()) : authorization;
     }
 
-
-    public String modifyObject(String objectName, OperationEnumJacos operationEnum, String payload, String objectId) throws PartApiException {
-        return fireSalesforceModificationAPI(objectName, OperationTypeFactory.operationType(operationEnum), payload, objectId);
+    private static HttpHeaders withoutAuthorization(HttpHeaders headers) {
+        HttpHeaders copy = new HttpHeaders();
+        if (headers != null) {
+            headers.forEach((name, values) -> {
+                if (!AUTHORIZATION.equalsIgnoreCase(name)) {
+                    copy.put(name, values);
+                }
+            });
+        }
+        return copy;
     }
 
-    public String fireSalesforceModificationAPI(String objectName, AbstractOperation operationType, String payload, String objectId) throws PartApiException {
-
-        log.info("inside fireSalesforceModificationAPI");
+    /**
+     * @return a copy of the headers sent with the next request, Authorization included
+     */
+    public HttpHeaders getRestHeaders() {
+        return requestHeaders(accessTokenProvider.getAccessToken());
+    }
 
-        String restUrl = buildUrl(operationType.createRelativeUrl(objectName, objectId));
-        // Create Http headers and add the oauth token to them
+    /**
+     * Replaces the headers sent with the next requests. A bearer Authorization header replaces the
+     * access token.
+     */
+    public void setRestHeaders(HttpHeaders restHeaders) {
+        String token = bearerToken(restHeaders);
+        if (token != null) {
+            accessTokenProvider.update(token);
+        }
+        this.restHeaders = withoutAuthorization(restHeaders);
+    }
 
-        //Queue Based Architecture to refresh salesforce access token expiration. Check link: https://success.salesforce.com/answers?id=9063A0000019iTMQAY
+    /**
+     * @return holder of the access token sent with every request
+     */
+    public AccessTokenProvider getAccessTokenProvider() {
+        return accessTokenProvider;
+    }
 
-        /* To invalidate and replicate token expiration
-        List<String> dummyTest = new ArrayList<String>();
-        dummyTest.add("Bearer abc");
-        this.restHeaders.replace("Authorization",dummyTest);
-        */
+    void setConnectionPool(PartConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+    }
 
+    /**
+     * Runs the subrequests of a composite request in one round trip. The <code>vXX.X</code> in their
+     * urls is replaced by the API version of the client.
+     * <p>
+     * A failed subrequest does not fail the call: check {@link CompositeResponse#isSuccess()} or the
+     * status of each subresponse.
+     *
+     * @param compositeRequest up to 25 subrequests
+     * @return the result of each subrequest
+     * @throws PartApiException if the request is invalid or the call failed
+     */
+    public CompositeResponse executeComposite(CompositeRequest compositeRequest) throws PartApiException {
+        try {
+            compositeRequest.validate();
+        } catch (IllegalArgumentException e) {
+            throw new PartApiException("Invalid composite request: " + e.getMessage(), e);
+        }
+        ObjectNode payload = Json.objectMapper().valueToTree(compositeRequest);
+        for (JsonNode subrequest : payload.get("compositeRequest")) {
+            ((ObjectNode) subrequest).put("url", subrequest.get("url").asText().replace("vXX.X", API_VERSION));
+        }
+        String response = fireSalesforceModificationAPI(null, OperationTypeFactory.operationType(OperationEnumJacos.COMPOSITE), payload.toString(), null);
         try {
-            restTemplate.getMessageConverters().add(new MappingJackson2HttpMessageConverter());
+            return Json.decode(response, CompositeResponse.class);
+        } catch (UncheckedIOException e) {
+            throw new PartApiException("Invalid composite response", e.getCause());
+        }
+    }
 
-            ObjectMapper mapper = new ObjectMapper();
-            final JsonNode actualObj = mapper.readTree(payload);
+    /**
+     * Statistics to size the pool: connections leased by running requests, kept alive for the next
+     * ones, waited for by blocked requests, and the maximum.
+     *
+     * @return statistics of the connection pool, null if the client was built without a pool
+     */
+    public PoolStats getConnectionPoolStats() {
+        PartConnectionPool pool = connectionPool;
+        return pool == null ? null : pool.getStats();
+    }
 
+    /**
+     * Closes the pooled connections, if any. The client can not be used afterwards.
+     */
+    @Override
+    public void close() throws IOException {
+        PartConnectionPool pool = connectionPool;
+        if (pool != null) {
+            pool.close();
+        }
+    }
 
-            HttpEntity<?> restRequest = new HttpEntity<>(actualObj, restHeaders);
+    private HttpHeaders requestHeaders(String accessToken) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(restHeaders);
+        headers.set(AUTHORIZATION, BEARER + accessToken);
+        return headers;
+    }
 
-            log.info(String.format("Rest URL is : %s", restUrl));
+    public String modifyObject(String objectName, OperationEnumJacos operationEnum, String payload) throws PartApiException {
+        return modifyObject(objectName, operationEnum, payload, null);
+    }
 
-            // Make a request and read the response string
-            final Queue<OperationInfo> operations = new ArrayDeque<>();
 
-            OperationInfo info = new OperationInfo(restUrl, operationType.getRequestType(), restRequest);
-            String responseBody = null;
+    public String modifyObject(String objectName, OperationEnumJacos operationEnum, String payload, String objectId) throws PartApiException {
+        return fireSalesforceModificationAPI(objectName, OperationTypeFactory.operationType(operationEnum), payload, objectId);
+    }
 
-            //final RestUtils.ConfigBean configBean = new RestUtils.ConfigBean(accessTokenConfig.getGrantType(),accessTokenConfig.getRefreshToken(),accessTokenConfig.getClientId(),accessTokenConfig.getClientSecret(),accessTokenConfig.getContentType(),accessTokenConfig.getAccesstokenURI());
+    /**
+     * Sends the request with the current access token. A request refused for an expired session
+     * (INVALID_SESSION_ID) is sent once more with a refreshed token.
+     */
+    public String fireSalesforceModificationAPI(String objectName, AbstractOperation operationType, String payload, String objectId) throws PartApiException {
 
-            restTemplate.setErrorHandler(new CustomRestErrorHandler() {
+        log.info("inside fireSalesforceModificationAPI");
 
-                @Override
-                public Queue<OperationInfo> getOperations() {
-                    return operations;
-                }
+        String restUrl = buildUrl(operationType.createRelativeUrl(objectName, objectId));
 
-                @Override
-                public boolean hasError(ClientHttpResponse response)
-                        throws IOException {
-                    try {
-                        return super.hasError(response);
-                    } catch (Exception e) {
-                        log.error("HasError: Exception [" + e.getMessage() + "] occurred while trying to send the request", e);
-                        return true;
-                    }
-                }
+        try {
+            final JsonNode actualObj = Json.readTree(payload);
 
-                @Override
-                public void handleError(ClientHttpResponse response)
-                        throws IOException {
-                    try {
-                        super.handleError(response);
-                        log.info(getResponseBodyAsString(response).toString());
-                    } catch (HttpClientErrorException e) {
-
-                        if (e.getResponseBodyAsString().contains("INVALID_SESSION_ID")) {
-                            OperationInfo operationInfo = refreshTokenHandler(operationType, restUrl, actualObj);
-                            getOperations().add(operationInfo);
-                            //this.setSuccesResult(callSFDCAPI(operationType,getOperations()));
-                            return;
-                        }
-
-                        log.error("HttpClientErrorException: Exception [" + e.getResponseBodyAsString() + "] occurred while trying to send the request", e);
-                        throw e;
-                    } catch (Exception e) {
-                        log.error("handleError: Exception [" + e.getMessage() + "] occurred while trying to send the request", e);
-                        throw e;
-                    }
-                }
+            log.info(String.format("Rest URL is : %s", restUrl));
 
-                private StringBuilder getResponseBodyAsString(ClientHttpResponse response) throws IOException {
-                    StringBuilder inputStringBuilder = new StringBuilder();
-                    BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(response.getBody(), StandardCharsets.UTF_8));
-                    String line = bufferedReader.readLine();
-                    while (line != null) {
-                        inputStringBuilder.append(line);
-                        inputStringBuilder.append('\n');
-                        line = bufferedReader.readLine();
-                    }
-                    return inputStringBuilder;
+            String accessToken = accessTokenProvider.getAccessToken();
+            ResponseEntity<String> response = exchange(restUrl, operationType, actualObj, accessToken);
+            if (response == null) {
+                if (!accessTokenProvider.canRefresh()) {
+                    throw new PartApiException("SDFC call failed, the session expired and the access token can not be refreshed");
                 }
-            });
-
-
-            operations.add(info);
-            while (!operations.isEmpty()) {
-                try {
-                    responseBody = callSFDCAPI(operationType, operations);
-                } catch (RestClientException ex) {
-                    String succesResult = ((CustomRestErrorHandler) restTemplate.getErrorHandler()).getSuccesResult();
-                    if (succesResult != null && !("".equalsIgnoreCase(succesResult))) {
-                        responseBody = succesResult;
-                    } else {
-                        throw new PartApiException("SDFC call failed", ex);
-                    }
+                log.info("Session expired, retrying with a refreshed access token");
+                response = exchange(restUrl, operationType, actualObj, accessTokenProvider.refresh(accessToken));
+                if (response == null) {
+                    throw new PartApiException("SDFC call failed, the refreshed access token was refused");
                 }
             }
 
-
-            //log.info("REST API response header:" + responseStatus);
-
+            // Return just the body of the response. You can examine the headers, etc if you wish
+            log.info("REST API response header:" + response.getHeaders());
+            log.info("REST API response statuscode:" + response.getStatusCode());
+            String responseBody = operationType.getResponse(response);
+            log.info("REST API response:" + responseBody);
             return responseBody;
-        } catch (IOException ex) {
-            //throw  new
-            throw new PartApiException("Exception occured while firing SalesForce REST API", ex);
+        } catch (UncheckedIOException ex) {
+            throw new PartApiException("Exception occured while firing SalesForce REST API", ex.getCause());
+        } catch (RestClientException | IllegalStateException ex) {
+            throw new PartApiException("SDFC call failed", ex);
         }
     }
 
-    private String callSFDCAPI(AbstractOperation operationType, Queue<OperationInfo> operations) throws IOException {
-
-        String responseBody;
-
-        OperationInfo info = operations.remove();
-        ResponseEntity<String> responseStr = restTemplate.exchange(info.getRestUrl(), info.getRequestMethod(), info.getRestRequest(),
-                String.class);
-
-        // Return just the body of the response. You can examine the headers, etc if you wish
-        log.info("REST API response header:" + responseStr.getHeaders());
-        log.info("REST API response statuscode:" + responseStr.getStatusCode());
-
-
-        HttpStatus responseStatus = responseStr.getStatusCode();
-        HttpHeaders responseHeaders = responseStr.getHeaders();
-        responseBody = operationType.getResponse(responseStr);
-
-        log.info("REST API response:" + responseBody);
-
-        return responseBody;
-    }
-
-    private OperationInfo refreshTokenHandler(AbstractOperation operationType, String restUrl, JsonNode actualObj) {
-        log.info("inside refresh token handler");
-        HttpHeaders newrestHeaders = new HttpHeaders();
-        restHeaders.entrySet().forEach(
-                stringListEntry -> {
-                    if (stringListEntry.getKey().equalsIgnoreCase("Authorization")) {
-                        String newAccestoken = refreshTokenCallBack.refershToken(restTemplate, configBean);
-                        newrestHeaders.add("Authorization", "Bearer " + newAccestoken);
-                    } else {
-                        newrestHeaders.add(stringListEntry.getKey(), stringListEntry.getValue().get(0));
-                    }
-
+    /**
+     * @return the response, null if the session of the access token expired
+     */
+    private ResponseEntity<String> exchange(String restUrl, AbstractOperation operationType, JsonNode payload, String accessToken) {
+        HttpEntity<?> restRequest = new HttpEntity<>(payload, requestHeaders(accessToken));
+        try {
+            ResponseEntity<String> response = restTemplate.exchange(restUrl, operationType.getRequestType(), restRequest, String.class);
+            if (response.getStatusCode() == HttpStatus.UNAUTHORIZED) {
+                if (response.getBody() != null && response.getBody().contains(INVALID_SESSION_ID)) {
+                    return null;
                 }
-        );
-        restHeaders = newrestHeaders;
-        HttpEntity<?> newrestRequest = new HttpEntity<>(actualObj, restHeaders);
-        return new OperationInfo(restUrl, operationType.getRequestType(), newrestRequest);
+                log.error("HttpClientErrorException: Exception [" + response.getBody() + "] occurred while trying to send the request");
+                String body = response.getBody() == null ? "" : response.getBody();
+                throw new HttpClientErrorException(HttpStatus.UNAUTHORIZED, HttpStatus.UNAUTHORIZED.getReasonPhrase(), response.getHeaders(),
+                        body.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+            }
+            return response;
+        } catch (ResourceAccessException e) {
+            // HttpURLConnection gives up on a 401 carrying WWW-Authenticate before its body can be read
+            if (e.getCause() instanceof HttpRetryException && ((HttpRetryException) e.getCause()).responseCode() == HttpStatus.UNAUTHORIZED.value()) {
+                return null;
+            }
+            throw e;
+        }
     }
 
     private String buildUrl(String path) {
@@ -251,59 +335,21 @@ private String buildUrl(String path) {
         return instanceUrl + (hasTrailingSlash ? "/" : "") + path.replace("vXX.X", API_VERSION);
     }
 
-    private class CustomRestErrorHandler extends DefaultResponseErrorHandler {
-
-        private String succesResult;
-
-        public String getSuccesResult() {
-            return succesResult;
-        }
-
-        public void setSuccesResult(String succesResult) {
-            this.succesResult = succesResult;
-        }
-
-        public Queue<OperationInfo> getOperations() {
-            return null;
+    /**
+     * Stateless, so one instance serves all the requests. A 401 is returned to the request so that
+     * its body can be checked for an expired session; any other error status is raised as usual.
+     */
+    private static class SessionAwareErrorHandler extends DefaultResponseErrorHandler {
+
+        @Override
+        public boolean hasError(ClientHttpResponse response) throws IOException {
+            try {
+                return response.getRawStatusCode() != HttpStatus.UNAUTHORIZED.value() && super.hasError(response);
+            } catch (IOException | RuntimeException e) {
+                log.error("HasError: Exception [" + e.getMessage() + "] occurred while trying to send the request", e);
+                return true;
+            }
         }
-
-
     }
 
-    class OperationInfo {
-        String restUrl;
-        HttpMethod requestMethod;
-        HttpEntity<?> restRequest;
-
-
-        public OperationInfo(String restUrl, HttpMethod requestMethod, HttpEntity<?> restRequest) {
-            this.restUrl = restUrl;
-            this.requestMethod = requestMethod;
-            this.restRequest = restRequest;
-        }
-
-        public String getRestUrl() {
-            return restUrl;
-        }
-
-        public void setRestUrl(String restUrl) {
-            this.restUrl = restUrl;
-        }
-
-        public HttpMethod getRequestMethod() {
-            return requestMethod;
-        }
-
-        public void setRequestMethod(HttpMethod requestMethod) {
-            this.requestMethod = requestMethod;
-        }
-
-        public HttpEntity<?> getRestRequest() {
-            return restRequest;
-        }
-
-        public void setRestRequest(HttpEntity<?> restRequest) {
-            this.restRequest = restRequest;
-        }
-    }
 }
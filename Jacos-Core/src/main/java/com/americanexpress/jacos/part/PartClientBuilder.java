@@ -15,9 +15,12 @@
 
 package com.americanexpress.jacos.part;
 
+import com.americanexpress.jacos.commons.AccessTokenProvider;
+import com.americanexpress.jacos.commons.ConnectionPoolPolicy;
 import com.americanexpress.jacos.commons.RefreshTokenCallback;
-import com.americanexpress.jacos.exception.RestTemplateErrorHandler;
+import com.americanexpress.jacos.commons.WireLogPolicy;
 import endolabs.salesforce.bulkv2.AccessToken;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.http.HttpHost;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
@@ -48,6 +51,14 @@
 
     private boolean useProxy;
 
+    private HttpHost proxy;
+
+    private CredentialsProvider proxyCredentials;
+
+    private ConnectionPoolPolicy connectionPoolPolicy;
+
+    private MeterRegistry meterRegistry;
+
     private Supplier<AccessToken> accessTokenSupplier;
 
 
@@ -57,13 +68,15 @@
     private RefreshTokenCallback<T> refreshTokenCallBack;
     private T configBean;
 
+    private WireLogPolicy wireLogPolicy;
 
-    public PartClientBuilder setCallbackConfigBean(T configBean) {
+
+    public PartClientBuilder<T> setCallbackConfigBean(T configBean) {
         this.configBean = configBean;
         return this;
     }
 
-    public PartClientBuilder withSessionId(String token, String instanceUrl) {
+    public PartClientBuilder<T> withSessionId(String token, String instanceUrl) {
         this.accessTokenSupplier = () -> {
             AccessToken accessToken = new AccessToken();
             accessToken.setAccessToken(token);
@@ -74,56 +87,99 @@ public PartClientBuilder withSessionId(String token, String instanceUrl) {
         return this;
     }
 
-    public PartClientBuilder setRefreshTokenCallback(RefreshTokenCallback<T> refreshTokenCallBack) {
+    public PartClientBuilder<T> setRefreshTokenCallback(RefreshTokenCallback<T> refreshTokenCallBack) {
         this.refreshTokenCallBack = refreshTokenCallBack;
         return this;
     }
 
 
-    public PartClientBuilder useSandbox() {
+    public PartClientBuilder<T> useSandbox() {
         this.useSandbox = true;
         return this;
     }
 
-    public PartClientBuilder useAPIVersion(String apiVersion) {
+    public PartClientBuilder<T> useAPIVersion(String apiVersion) {
         this.apiVersion = apiVersion;
         return this;
     }
 
-    public PartClientBuilder useProxy(String host, int port, String username, String password) {
+    public PartClientBuilder<T> useProxy(String host, int port, String username, String password) {
         this.useProxy = true;
+        this.proxy = new HttpHost(host, port);
+        this.proxyCredentials = null;
 
-        CredentialsProvider credsProvider = new BasicCredentialsProvider();
         boolean isProxyAuthRequired = username != null && password != null;
         if (isProxyAuthRequired) {
+            CredentialsProvider credsProvider = new BasicCredentialsProvider();
             credsProvider.setCredentials(
                     new AuthScope(host, port),
                     new UsernamePasswordCredentials(username, password));
+            this.proxyCredentials = credsProvider;
         }
+        return this;
+    }
 
-        HttpHost myProxy = new HttpHost(host, port);
-        HttpClient client = isProxyAuthRequired ? HttpClientBuilder.create().
-                setProxy(myProxy). //build();
-                setDefaultCredentialsProvider(credsProvider).disableCookieManagement().build()
-                : HttpClientBuilder.create().
-                setProxy(myProxy).build();
-        HttpComponentsClientHttpRequestFactory clientHttpRequestFactory = new HttpComponentsClientHttpRequestFactory(client);
-        this.restTemplate = new RestTemplate(clientHttpRequestFactory);
-        this.restTemplate.setErrorHandler(new RestTemplateErrorHandler());
+    /**
+     * Sends the requests through a pool of kept-alive connections, sized and timed by the policy. The
+     * pool statistics are then available from {@link PartClient#getConnectionPoolStats()}.
+     */
+    public PartClientBuilder<T> useConnectionPool(ConnectionPoolPolicy connectionPoolPolicy) {
+        this.connectionPoolPolicy = connectionPoolPolicy;
         return this;
     }
 
+    /**
+     * Publishes the statistics of the connection pool as gauges, see {@link #useConnectionPool(ConnectionPoolPolicy)}.
+     */
+    public PartClientBuilder<T> useMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        return this;
+    }
 
-    public PartClient build()
+    /**
+     * Logs each request as allowed by the policy, nothing is logged by default.
+     */
+    public PartClientBuilder<T> useWireLogPolicy(WireLogPolicy wireLogPolicy) {
+        this.wireLogPolicy = wireLogPolicy;
+        return this;
+    }
+
+    public PartClient<T> build()
             throws IOException {
         AccessToken token = accessTokenSupplier.get();
         HttpHeaders restHeaders = new HttpHeaders();
         restHeaders.setContentType(MediaType.APPLICATION_JSON);
         restHeaders.add("X-PrettyPrint", "1");
         restHeaders.add("Authorization", "Bearer " + token.getAccessToken());
+        RestTemplate restTemplate = this.restTemplate;
+        PartConnectionPool connectionPool = null;
+        if (connectionPoolPolicy != null) {
+            connectionPool = new PartConnectionPool(connectionPoolPolicy, proxy, proxyCredentials);
+            if (meterRegistry != null) {
+                connectionPool.bindTo(meterRegistry);
+            }
+            restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(connectionPool.getHttpClient()));
+        } else if (useProxy) {
+            HttpClientBuilder clientBuilder = HttpClientBuilder.create().setProxy(proxy);
+            HttpClient client = proxyCredentials != null
+                    ? clientBuilder.setDefaultCredentialsProvider(proxyCredentials).disableCookieManagement().build()
+                    : clientBuilder.build();
+            restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(client));
+        }
+        // tokens are fetched without wire logging, their responses carry the access token
+        RestTemplate tokenTemplate = restTemplate;
+        PartClient.configure(tokenTemplate);
+        if (wireLogPolicy != null && wireLogPolicy.logsHeaders()) {
+            restTemplate = new RestTemplate(tokenTemplate.getRequestFactory());
+            restTemplate.getInterceptors().add(new WireLoggingRequestInterceptor(wireLogPolicy));
+        }
+        AccessTokenProvider accessTokenProvider = new AccessTokenProvider(token.getAccessToken(),
+                refreshTokenCallBack == null ? null : () -> refreshTokenCallBack.refershToken(tokenTemplate, configBean));
 
         //restHeaders.entrySet().stream().map()
-        return new PartClient<T>(token.getInstanceUrl(), restTemplate, restHeaders, configBean, refreshTokenCallBack, apiVersion);
+        PartClient<T> partClient = new PartClient<T>(token.getInstanceUrl(), restTemplate, restHeaders, accessTokenProvider, apiVersion);
+        partClient.setConnectionPool(connectionPool);
+        return partClient;
     }
 
 }
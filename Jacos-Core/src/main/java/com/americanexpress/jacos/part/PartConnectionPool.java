@@ -0,0 +1,129 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.part;
+
+import com.americanexpress.jacos.commons.ConnectionPoolPolicy;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.http.HttpHost;
+import org.apache.http.client.CredentialsProvider;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Pooled Apache http client of a part client, sized and timed by a {@link ConnectionPoolPolicy}.
+ * Closing it stops the idle connection evictor and closes every pooled connection.
+ */
+final class PartConnectionPool implements Closeable {
+
+    static final String CONNECTIONS = "jacos.part.pool.connections";
+
+    static final String MAX_CONNECTIONS = "jacos.part.pool.max";
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    private final CloseableHttpClient httpClient;
+
+    /**
+     * @param proxy       proxy of every request, null for direct connections
+     * @param credentials credentials of the proxy, null if it needs none
+     */
+    PartConnectionPool(ConnectionPoolPolicy policy, HttpHost proxy, CredentialsProvider credentials) {
+        connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(policy.getMaxTotal());
+        connectionManager.setDefaultMaxPerRoute(policy.getMaxPerRoute());
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(policy.getConnectTimeoutMillis())
+                .setSocketTimeout(policy.getReadTimeoutMillis())
+                .setConnectionRequestTimeout(policy.getConnectionRequestTimeoutMillis())
+                .build();
+        HttpClientBuilder builder = HttpClientBuilder.create()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(keepAliveStrategy(policy.getKeepAliveMillis()))
+                .evictExpiredConnections()
+                .evictIdleConnections(policy.getIdleEvictionMillis(), TimeUnit.MILLISECONDS)
+                .disableCookieManagement();
+        if (proxy != null) {
+            builder.setProxy(proxy);
+        }
+        if (credentials != null) {
+            builder.setDefaultCredentialsProvider(credentials);
+        }
+        httpClient = builder.build();
+    }
+
+    /**
+     * Keeps a connection as long as the server allows in its Keep-Alive header, never longer than
+     * the cap; the cap applies alone when the server says nothing.
+     */
+    static ConnectionKeepAliveStrategy keepAliveStrategy(long maxKeepAliveMillis) {
+        return (response, context) -> {
+            long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return keepAlive < 0 ? maxKeepAliveMillis : Math.min(keepAlive, maxKeepAliveMillis);
+        };
+    }
+
+    CloseableHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    int getDefaultMaxPerRoute() {
+        return connectionManager.getDefaultMaxPerRoute();
+    }
+
+    /**
+     * @return connections leased, available and waited for, over all the hosts
+     */
+    PoolStats getStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    /**
+     * Publishes the pool statistics as gauges, tagged with the state of the connections.
+     */
+    void bindTo(MeterRegistry meterRegistry) {
+        gauge(meterRegistry, "leased", PoolStats::getLeased);
+        gauge(meterRegistry, "available", PoolStats::getAvailable);
+        gauge(meterRegistry, "pending", PoolStats::getPending);
+        Gauge.builder(MAX_CONNECTIONS, this, pool -> pool.getStats().getMax())
+                .description("Connections the part client may open")
+                .register(meterRegistry);
+    }
+
+    private void gauge(MeterRegistry meterRegistry, String state, ToDoubleFunction<PoolStats> value) {
+        Gauge.builder(CONNECTIONS, this, pool -> value.applyAsDouble(pool.getStats()))
+                .tag("state", state)
+                .description("Pooled connections of the part client")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.part;
+
+import com.americanexpress.jacos.commons.WireLogPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Logs each exchange of the part client in one message, as allowed by the {@link WireLogPolicy}.
+ * </p>
+ * <p>
+ * Only the first bytes of the response body, up to the byte cap, are read ahead for the log. They
+ * are handed back in front of the rest of the body, which is still streamed.
+ * </p>
+ */
+public class WireLoggingRequestInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(WireLoggingRequestInterceptor.class);
+
+    private final WireLogPolicy policy;
+
+    public WireLoggingRequestInterceptor(WireLogPolicy policy) {
+        this.policy = policy;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        if (!policy.logsHeaders() || !log.isInfoEnabled()) {
+            return execution.execute(request, body);
+        }
+        boolean logBody = policy.sampleBody();
+
+        StringBuilder message = new StringBuilder("--> ").append(request.getMethod()).append(' ').append(request.getURI());
+        appendHeaders(message, request.getHeaders());
+        if (logBody && body.length > 0 && isText(request.getHeaders().getContentType())) {
+            message.append('\n').append(policy.bodyText(body, body.length, false));
+        }
+        long start = System.nanoTime();
+        ClientHttpResponse response;
+        try {
+            response = execution.execute(request, body);
+        } catch (IOException e) {
+            log.info("{}\n<-- HTTP FAILED: {}", message, e.toString());
+            throw e;
+        }
+
+        message.append("\n<-- ").append(response.getRawStatusCode()).append(' ').append(response.getStatusText())
+                .append(" (").append(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).append(" ms)");
+        appendHeaders(message, response.getHeaders());
+        if (logBody && isText(response.getHeaders().getContentType())) {
+            PeekedResponse peeked = new PeekedResponse(response, policy.getMaxBodyBytes() + 1);
+            int length = Math.min(peeked.prefix.length, policy.getMaxBodyBytes());
+            message.append('\n').append(policy.bodyText(peeked.prefix, length, peeked.prefix.length > length));
+            response = peeked;
+        }
+        log.info(message.toString());
+        return response;
+    }
+
+    private void appendHeaders(StringBuilder message, HttpHeaders headers) {
+        headers.forEach((name, values) -> values.forEach(value ->
+                message.append('\n').append(name).append(": ").append(policy.headerValue(name, value))));
+    }
+
+    private static boolean isText(MediaType contentType) {
+        return contentType != null && WireLogPolicy.isText(contentType.toString());
+    }
+
+    /**
+     * Response whose body starts with the bytes read ahead for the log.
+     */
+    private static class PeekedResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse response;
+
+        private final byte[] prefix;
+
+        private InputStream body;
+
+        PeekedResponse(ClientHttpResponse response, int maxBytes) throws IOException {
+            this.response = response;
+            byte[] bytes = new byte[maxBytes];
+            int length = 0;
+            InputStream body = response.getBody();
+            for (int read; length < maxBytes && (read = body.read(bytes, length, maxBytes - length)) != -1; ) {
+                length += read;
+            }
+            this.prefix = Arrays.copyOf(bytes, length);
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (body == null) {
+                body = new SequenceInputStream(new ByteArrayInputStream(prefix), response.getBody());
+            }
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return response.getHeaders();
+        }
+
+        @Override
+        public HttpStatus getStatusCode() throws IOException {
+            return response.getStatusCode();
+        }
+
+        @Override
+        public int getRawStatusCode() throws IOException {
+            return response.getRawStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return response.getStatusText();
+        }
+
+        @Override
+        public void close() {
+            response.close();
+        }
+    }
+}
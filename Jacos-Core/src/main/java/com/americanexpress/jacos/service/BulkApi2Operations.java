@@ -16,36 +16,98 @@
 package com.americanexpress.jacos.service;
 
 import com.americanexpress.jacos.bulkv2.Bulk2ClientJacos;
+import com.americanexpress.jacos.bulkv2.BulkMetrics;
+import com.americanexpress.jacos.bulkv2.csv.CsvChunker;
+import com.americanexpress.jacos.bulkv2.csv.CsvColumnReader;
+import com.americanexpress.jacos.bulkv2.csv.CsvExternalSorter;
+import com.americanexpress.jacos.bulkv2.csv.CsvFileSplitter;
+import com.americanexpress.jacos.bulkv2.csv.IdCsvChunker;
+import com.americanexpress.jacos.bulkv2.ingest.BulkIngestEngine;
+import com.americanexpress.jacos.bulkv2.ingest.BulkIngestHandle;
+import com.americanexpress.jacos.bulkv2.ingest.BulkJobMonitor;
+import com.americanexpress.jacos.bulkv2.ingest.BulkJobPipeline;
+import com.americanexpress.jacos.bulkv2.ingest.BulkJobStages;
+import com.americanexpress.jacos.bulkv2.query.QueryResultDownloader;
+import com.americanexpress.jacos.bulkv2.query.QueryResultReader;
+import com.americanexpress.jacos.bulkv2.reconcile.FailedRecordReconciler;
+import com.americanexpress.jacos.bulkv2.reconcile.ReconciliationResult;
+import com.americanexpress.jacos.bulkv2.reconcile.RetryPolicy;
+import com.americanexpress.jacos.bulkv2.request.CreateJobRequestJacos;
 import com.americanexpress.jacos.bulkv2.request.OperationInfo;
+import com.americanexpress.jacos.bulkv2.response.QueryJobInfo;
+import com.americanexpress.jacos.bulkv2.type.OperationEnumJacos;
 import com.americanexpress.jacos.constants.ApplicationConstants;
 import com.americanexpress.jacos.oauth2.service.BulkClientConfigurer;
 import endolabs.salesforce.bulkv2.BulkRequestException;
 import endolabs.salesforce.bulkv2.response.CreateJobResponse;
+import endolabs.salesforce.bulkv2.response.GetJobInfoResponse;
+import endolabs.salesforce.bulkv2.type.JobStateEnum;
+import io.micrometer.core.instrument.Tags;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 @Service
 public class BulkApi2Operations {
 
     private static final Logger logger = LogManager.getLogger(BulkApi2Operations.class);
 
-    private static final Pattern ERROR_PATTERN = Pattern.compile("(?i)INVALID_SESSION_ID|(connect timed out)");
+    private static final Pattern CONNECT_TIMEOUT_PATTERN = Pattern.compile("(?i)connect timed out");
 
     @Autowired
     private BulkClientConfigurer bulkClientConf;
 
+    private BulkIngestEngine ingestEngine;
+
+    private BulkJobPipeline jobPipeline;
+
+    private BulkJobMonitor jobMonitor;
+
+    private BulkJobMonitor queryJobMonitor;
+
+    private QueryResultDownloader queryDownloader;
+
+    @PostConstruct
+    public void init() {
+        ingestEngine = new BulkIngestEngine(bulkClientConf.getConcurrentJobs(), bulkClientConf.getChunkQueueCapacity());
+        if (bulkClientConf.isPipelineJobs()) {
+            jobPipeline = new BulkJobPipeline(bulkClientConf.getConcurrentJobs(), bulkClientConf.getChunkQueueCapacity());
+        }
+        jobMonitor = new BulkJobMonitor(jobId -> bulkClientConf.getBulk2Client().getJobInfo(jobId),
+                bulkClientConf.getJobPollMinDelayMillis(), bulkClientConf.getJobPollMaxDelayMillis(), BulkJobMonitor.DEF_BACKOFF_FACTOR);
+        queryJobMonitor = new BulkJobMonitor(jobId -> bulkClientConf.getBulk2Client().getQueryJobInfo(jobId),
+                bulkClientConf.getJobPollMinDelayMillis(), bulkClientConf.getJobPollMaxDelayMillis(), BulkJobMonitor.DEF_BACKOFF_FACTOR);
+        queryDownloader = new QueryResultDownloader(bulkClientConf.getQueryDownloadParallelism());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        ingestEngine.close();
+        if (jobPipeline != null) {
+            jobPipeline.close();
+        }
+        jobMonitor.close();
+        queryJobMonitor.close();
+        queryDownloader.close();
+    }
 
     /**
      * @param bulk2Client
@@ -55,60 +117,400 @@ public class BulkApi2Operations {
      * @return
      */
     public CreateJobResponse createAndSubmitJob(Bulk2ClientJacos bulk2Client, OperationInfo operationInfo, String csvContent, int count) {
-        CreateJobResponse createJobResponse = null;
-        try {
-            createJobResponse = bulk2Client.createJob(operationInfo.getObjectType(), operationInfo.getOperationType(), operationInfo.getExternalIdField());
-        } catch (BulkRequestException e) {
-            logger.error("Failed to submit job", e);
-            if (ERROR_PATTERN.matcher(e.getMessage()).find() && count > 0) {
-                //Get the refreshed access token
-                return createAndSubmitJob(bulkClientConf.refreshBulkClient(), operationInfo, csvContent, --count);
-            } else {
-                throw e;
-            }
-        }
+        return createAndSubmitJob(bulk2Client, operationInfo, (client, jobId) -> client.uploadJobData(jobId, csvContent), count);
+    }
+
+    /**
+     * @param bulk2Client
+     * @param operationInfo
+     * @param jobDataUploader uploads the job data of the given job id with the given client
+     * @param count
+     * @return
+     */
+    private CreateJobResponse createAndSubmitJob(Bulk2ClientJacos bulk2Client, OperationInfo operationInfo,
+                                                 BiConsumer<Bulk2ClientJacos, String> jobDataUploader, int count) {
+        CreateJobResponse createJobResponse = createJob(bulk2Client, operationInfo, count);
         if (createJobResponse == null) {
             return createJobResponse;
         }
         String jobId = createJobResponse.getId();
-        bulk2Client.uploadJobData(jobId, csvContent);
+        jobDataUploader.accept(bulk2Client, jobId);
         bulk2Client.closeJob(jobId);
         return createJobResponse;
     }
 
+    private CreateJobResponse createJob(Bulk2ClientJacos bulk2Client, OperationInfo operationInfo, int count) {
+        try {
+            return bulk2Client.createJob(operationInfo.getObjectType(), operationInfo.getOperationType(), operationInfo.getExternalIdField());
+        } catch (BulkRequestException e) {
+            logger.error("Failed to submit job", e);
+            // an expired session is refreshed and replayed by the client itself
+            if (e.getMessage() != null && CONNECT_TIMEOUT_PATTERN.matcher(e.getMessage()).find() && count > 0) {
+                bulk2Client.getMetrics().retried(tags(operationInfo), "connectTimeout");
+                return createJob(bulk2Client, operationInfo, --count);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Creates the job and uploads its data in one multipart request; Salesforce closes the job itself.
+     * Only for content within <code>multipartMaxChars</code>.
+     */
+    private CreateJobResponse createJobWithContent(OperationInfo operationInfo, Consumer<CreateJobRequestJacos.Builder> content, int count) {
+        Bulk2ClientJacos<?> bulk2Client = bulkClientConf.getBulk2Client();
+        try {
+            return bulk2Client.createJob(operationInfo.getObjectType(), operationInfo.getOperationType(), operationInfo.getExternalIdField(), content);
+        } catch (BulkRequestException e) {
+            logger.error("Failed to submit job", e);
+            if (e.getMessage() != null && CONNECT_TIMEOUT_PATTERN.matcher(e.getMessage()).find() && count > 0) {
+                bulk2Client.getMetrics().retried(tags(operationInfo), "connectTimeout");
+                return createJobWithContent(operationInfo, content, --count);
+            }
+            throw e;
+        }
+    }
+
+    private static Tags tags(OperationInfo operationInfo) {
+        return BulkMetrics.tags(operationInfo.getObjectType(), operationInfo.getOperationType().toJsonValue());
+    }
+
+    private boolean fitsInMultipart(long size) {
+        return size <= bulkClientConf.getMultipartMaxChars();
+    }
+
+    /**
+     * Content within <code>multipartMaxChars</code> is sent with the job creation, in one request
+     * instead of three (create, upload, close).
+     */
     public CreateJobResponse performSFOperation(OperationInfo operationInfo, String csvContent) {
-        return createAndSubmitJob(bulkClientConf.refreshBulkClient(), operationInfo, csvContent, 3);
+        if (fitsInMultipart(csvContent.length())) {
+            return createJobWithContent(operationInfo, request -> request.withContent(csvContent), 3);
+        }
+        return createAndSubmitJob(bulkClientConf.getBulk2Client(), operationInfo, csvContent, 3);
     }
 
+    /**
+     * Content within <code>multipartMaxChars</code> bytes is sent with the job creation, in one request
+     * instead of three (create, upload, close).
+     */
+    public CreateJobResponse performSFOperation(OperationInfo operationInfo, byte[] csvContent) {
+        if (fitsInMultipart(csvContent.length)) {
+            return createJobWithContent(operationInfo, request -> request.withContent(csvContent), 3);
+        }
+        return createAndSubmitJob(bulkClientConf.getBulk2Client(), operationInfo, (client, jobId) -> client.uploadJobData(jobId, csvContent), 3);
+    }
+
+    /**
+     * Submits the whole file as the data of one job. The file is streamed from disk, so it has to fit
+     * in one upload. A file within <code>multipartMaxChars</code> bytes is sent with the job creation.
+     */
+    public CreateJobResponse performSFOperation(OperationInfo operationInfo, Path csvFile) {
+        File file = csvFile.toFile();
+        if (fitsInMultipart(file.length())) {
+            return createJobWithContent(operationInfo, request -> request.withContent(file), 3);
+        }
+        return createAndSubmitJob(bulkClientConf.getBulk2Client(), operationInfo, (client, jobId) -> client.uploadJobData(jobId, csvFile), 3);
+    }
+
+    /**
+     * Splits the csv file in chunks of at most the configured chunk size and record count, then submits
+     * one bulk job per chunk. Chunks are cut at record boundaries and each one starts with the header
+     * of the file. A file which fits in one chunk is streamed from disk as is.
+     * <p>
+     * When the operation has a partition key field, the file is sorted on it first and the records of
+     * one key are kept in one chunk. Otherwise a file of at least <code>spoolThresholdInMB</code> is
+     * split into chunk files on disk before the first upload.
+     *
+     * @param operationInfo contains the operation details
+     * @param filePath      csv file with a header line
+     * @return responses of the created jobs, in the order of the chunks
+     */
     public List<CreateJobResponse> performSFOperationFromFile(OperationInfo operationInfo, String filePath) {
+        List<CreateJobResponse> jobResponseList = performSFOperationFromFileAsync(operationInfo, filePath).await();
+        logger.info("Bulk API Op end: response:{}", jobResponseList);
+        return jobResponseList;
+    }
+
+    /**
+     * Same as {@link #performSFOperationFromFile(OperationInfo, String)}, but returns as soon as the load
+     * is started, after the sort for a partitioned operation. Up to <code>concurrentJobs</code> chunks are
+     * submitted at the same time, and at most <code>chunkQueueCapacity</code> more chunks are read ahead.
+     *
+     * @param operationInfo contains the operation details
+     * @param filePath      csv file with a header line
+     * @return handle collecting the responses of the created jobs
+     */
+    public BulkIngestHandle performSFOperationFromFileAsync(OperationInfo operationInfo, String filePath) {
 
         logger.info("Bulk API Op Begin: operation Info:{} , FilePath:{}", operationInfo, filePath);
-        List<CreateJobResponse> jobResponseList = new ArrayList<>();
         File file = new File(filePath);
+        logger.info("Total file size to read (in bytes) : " + file.length());
+
+        // A record takes at least 2 bytes, so a file within the chunk size can only break the record cap above that
+        if (file.length() <= getMaxChunkBytes() && file.length() / 2 < bulkClientConf.getMaxRecordsPerChunk()) {
+            return ingestEngine.ingest(Collections.singletonList(file.toPath()).iterator(),
+                    csvFile -> performSFOperation(operationInfo, csvFile));
+        }
+
+        String partitionKey = operationInfo.getPartitionKeyField();
+        if (partitionKey != null) {
+            return performPartitionedOperation(operationInfo, file.toPath(), partitionKey);
+        }
+        Integer spoolThreshold = bulkClientConf.getSpoolThresholdInMB();
+        if (spoolThreshold != null && file.length() >= (long) spoolThreshold * ApplicationConstants.MB) {
+            return performSpooledOperation(operationInfo, file.toPath());
+        }
+        try {
+            CsvChunker chunker = new CsvChunker(filePath, getMaxChunkBytes(), bulkClientConf.getMaxRecordsPerChunk());
+            return ingestChunks(operationInfo, chunker);
+        } catch (IOException e) {
+            throw new BulkRequestException("Exception occured while calling bulk v2 rest API: ", e);
+        }
+    }
+
+    /**
+     * Sorts the file by the partition key before chunking, so the records of one parent end up in the
+     * same job and parallel jobs do not fight for the lock of the parent (UNABLE_TO_LOCK_ROW). The sort
+     * uses at most <code>sortBufferInMB</code> of memory and spills to <code>sortWorkDir</code>.
+     */
+    private BulkIngestHandle performPartitionedOperation(OperationInfo operationInfo, Path file, String partitionKey) {
+        CsvExternalSorter sorter = new CsvExternalSorter((long) bulkClientConf.getSortBufferInMB() * ApplicationConstants.MB,
+                Paths.get(bulkClientConf.getSortWorkDir()));
+        Path sorted = null;
+        try {
+            sorted = sorter.sort(file, partitionKey);
+            CsvChunker chunker = new CsvChunker(sorted.toString(), getMaxChunkBytes(), bulkClientConf.getMaxRecordsPerChunk(), partitionKey);
+            BulkIngestHandle handle = ingestChunks(operationInfo, chunker);
+            Path sortedFile = sorted;
+            handle.getCompletion().whenComplete((jobs, e) -> deleteQuietly(sortedFile));
+            return handle;
+        } catch (IOException e) {
+            deleteQuietly(sorted);
+            throw new BulkRequestException("Exception occured while calling bulk v2 rest API: ", e);
+        }
+    }
 
-        try (FileInputStream fis = new FileInputStream(file)) {
+    /**
+     * Splits the whole file into chunk files in <code>spoolWorkDir</code> first, with
+     * <code>spoolParallelism</code> threads, then uploads each chunk file as it is, streamed from disk.
+     * The file of a chunk is deleted once its job is submitted; files of failed or unsubmitted chunks
+     * are kept and can be uploaded again with {@link #performSFOperation(OperationInfo, Path)}.
+     */
+    private BulkIngestHandle performSpooledOperation(OperationInfo operationInfo, Path file) {
+        CsvFileSplitter splitter = new CsvFileSplitter(getMaxChunkBytes(), bulkClientConf.getMaxRecordsPerChunk(),
+                bulkClientConf.getSpoolParallelism(), Paths.get(bulkClientConf.getSpoolWorkDir()));
+        List<Path> chunkFiles;
+        try {
+            chunkFiles = splitter.split(file);
+        } catch (IOException e) {
+            throw new BulkRequestException("Exception occured while calling bulk v2 rest API: ", e);
+        }
+        BulkIngestHandle handle = ingestEngine.ingest(chunkFiles.iterator(), chunkFile -> {
+            CreateJobResponse response = performSFOperation(operationInfo, chunkFile);
+            deleteQuietly(chunkFile);
+            return response;
+        });
+        handle.getCompletion().whenComplete((jobs, e) -> {
+            if (e != null) {
+                logger.warn("Chunk files not submitted are kept in {}", bulkClientConf.getSpoolWorkDir());
+            }
+        });
+        return handle;
+    }
+
+    /**
+     * Deletes or hard deletes the records of the given ids. The Id only job data is built straight from
+     * the ids, without reading any other column, and split in chunks of at most the configured chunk
+     * size and record count.
+     *
+     * @param operationInfo a delete or hardDelete operation
+     * @param ids           ids of the records, read lazily and closed at the end if Closeable
+     * @return responses of the created jobs, in the order of the chunks
+     */
+    public List<CreateJobResponse> performIdOperation(OperationInfo operationInfo, Iterator<String> ids) {
+        List<CreateJobResponse> jobResponseList = performIdOperationAsync(operationInfo, ids).await();
+        logger.info("Bulk API Id Op end: response:{}", jobResponseList);
+        return jobResponseList;
+    }
 
-            logger.info("Total file size to read (in bytes) : " + fis.available());
+    /**
+     * Same as {@link #performIdOperation(OperationInfo, Iterator)}, but returns as soon as the load is
+     * started.
+     */
+    public BulkIngestHandle performIdOperationAsync(OperationInfo operationInfo, Iterator<String> ids) {
+        checkIdOperation(operationInfo);
+        IdCsvChunker chunker = new IdCsvChunker(ids, getMaxChunkBytes(), bulkClientConf.getMaxRecordsPerChunk());
+        return ingestChunks(operationInfo, chunker);
+    }
 
-            if (fis.available() <= (bulkClientConf.getChunkSizeInMB() * ApplicationConstants.MB)) {
+    /**
+     * Deletes or hard deletes the records whose ids are in one column of a csv file, eg. an export.
+     * Only that column is read, the other ones are skipped without being decoded.
+     *
+     * @param operationInfo a delete or hardDelete operation
+     * @param filePath      csv file with a header line
+     * @param idColumn      name of the column holding the ids
+     * @return responses of the created jobs, in the order of the chunks
+     */
+    public List<CreateJobResponse> performIdOperationFromFile(OperationInfo operationInfo, String filePath, String idColumn) {
+        logger.info("Bulk API Id Op Begin: operation Info:{} , FilePath:{}, column:{}", operationInfo, filePath, idColumn);
+        checkIdOperation(operationInfo);
+        try {
+            return performIdOperation(operationInfo, new CsvColumnReader(filePath, idColumn));
+        } catch (IOException e) {
+            throw new BulkRequestException("Exception occured while calling bulk v2 rest API: ", e);
+        }
+    }
 
-                jobResponseList.add(performSFOperation(operationInfo, readContentFromFile(filePath)));
-            } else {
-                byte[] buf = new byte[bulkClientConf.getChunkSizeInMB() * ApplicationConstants.MB];
-                int byteRead = 0;
-                while ((byteRead = fis.read(buf)) > 0) {
-                    jobResponseList.add(performSFOperation(operationInfo, new String(buf, StandardCharsets.UTF_8)));
+    /**
+     * Submits one job per chunk, through the job pipeline when <code>pipelineJobs</code> is set.
+     */
+    private BulkIngestHandle ingestChunks(OperationInfo operationInfo, Iterator<byte[]> chunks) {
+        if (jobPipeline == null) {
+            return ingestEngine.ingest(chunks, chunk -> performSFOperation(operationInfo, chunk));
+        }
+        Bulk2ClientJacos<?> bulk2Client = bulkClientConf.getBulk2Client();
+        return jobPipeline.ingest(chunks, new BulkJobStages<byte[]>() {
+            @Override
+            public CreateJobResponse create(byte[] chunk) {
+                if (fitsInMultipart(chunk.length)) {
+                    return createJobWithContent(operationInfo, request -> request.withContent(chunk), 3);
                 }
+                return createJob(bulk2Client, operationInfo, 3);
             }
 
+            @Override
+            public void upload(String jobId, byte[] chunk) {
+                bulk2Client.uploadJobData(jobId, chunk);
+            }
+
+            @Override
+            public void close(String jobId) {
+                bulk2Client.closeJob(jobId);
+            }
+
+            @Override
+            public void abort(String jobId) {
+                bulk2Client.abortJob(jobId);
+            }
+        });
+    }
+
+    private static void checkIdOperation(OperationInfo operationInfo) {
+        OperationEnumJacos operation = operationInfo.getOperationType();
+        if (operation != OperationEnumJacos.DELETE && operation != OperationEnumJacos.HARDDELETE) {
+            throw new IllegalArgumentException("Id only job data is for delete and hardDelete, not:" + operation);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
         } catch (IOException e) {
-            throw new BulkRequestException("Exception occured while calling bulk v2 rest API: ", e);
+            logger.warn("Failed to delete {}", file, e);
         }
-        logger.info("Bulk API Op end: response:{}", jobResponseList);
-        return jobResponseList;
     }
 
-    private String readContentFromFile(String filePath) throws IOException {
-        return new String(Files.readAllBytes(Paths.get(filePath)));
+    /**
+     * Waits in the background for a job to be processed. All jobs are polled from one thread, less
+     * often while a job is queued and more often while it makes progress.
+     *
+     * @param jobId id of the bulk job
+     * @return future completed with the final status of the job (JobComplete, Failed or Aborted)
+     */
+    public CompletableFuture<GetJobInfoResponse> awaitJobCompletion(String jobId) {
+        return jobMonitor.watch(jobId);
+    }
+
+    /**
+     * @param jobs jobs returned by one of the perform methods
+     * @return future completed with the final status of every job, in the same order
+     */
+    public CompletableFuture<List<GetJobInfoResponse>> awaitJobsCompletion(List<CreateJobResponse> jobs) {
+        List<CompletableFuture<GetJobInfoResponse>> results = jobs.stream()
+                .map(job -> awaitJobCompletion(job.getId()))
+                .collect(Collectors.toList());
+        return CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> results.stream().map(CompletableFuture::join).collect(Collectors.toList()));
+    }
+
+    /**
+     * Waits for the jobs of a load to finish, then sends their failed records again while the errors
+     * are transient (see <code>retryableErrorCodes</code>), at most <code>retryMaxAttempts</code> times.
+     * Records which can not go through are written to dead-letter csv files in <code>reconcileWorkDir</code>.
+     *
+     * @param operationInfo operation of the jobs, used for the retry jobs
+     * @param jobs          jobs returned by one of the perform methods
+     * @return counts of retried and given up records, with the dead-letter files
+     */
+    public ReconciliationResult reconcileFailedRecords(OperationInfo operationInfo, List<CreateJobResponse> jobs) {
+        RetryPolicy retryPolicy = new RetryPolicy(bulkClientConf.getRetryableErrorCodes(), bulkClientConf.getRetryMaxAttempts());
+        FailedRecordReconciler reconciler = new FailedRecordReconciler(
+                jobId -> bulkClientConf.getBulk2Client().readJobFailedRecords(jobId),
+                this::awaitJobCompletion,
+                retryFile -> {
+                    bulkClientConf.getBulk2Client().getMetrics().retried(tags(operationInfo), "failedRecords");
+                    return performSFOperationFromFile(operationInfo, retryFile.toString());
+                },
+                retryPolicy, Paths.get(bulkClientConf.getReconcileWorkDir()));
+        return reconciler.reconcile(jobs.stream().map(CreateJobResponse::getId).collect(Collectors.toList()));
+    }
+
+    /**
+     * Runs a query job and downloads all its results into one csv file. Pages of
+     * <code>queryPageSize</code> records are downloaded <code>queryDownloadParallelism</code> at a time.
+     *
+     * @param query  SOQL query
+     * @param target csv file to write, replaced if it exists
+     * @return final status of the query job
+     * @throws BulkRequestException if the query job fails or is aborted
+     */
+    public QueryJobInfo performQuery(String query, Path target) {
+        String jobId = runQuery(query);
+        Bulk2ClientJacos bulk2Client = bulkClientConf.getBulk2Client();
+        queryDownloader.download(locator -> bulk2Client.getQueryResultPage(jobId, locator, bulkClientConf.getQueryPageSize()), target);
+        return bulk2Client.getQueryJobInfo(jobId);
+    }
+
+    /**
+     * Runs a query job, then streams its records page by page. The reader must be closed.
+     *
+     * @param query SOQL query
+     * @return reader of all the records of the query
+     * @throws BulkRequestException if the query job fails or is aborted
+     */
+    public QueryResultReader readQuery(String query) {
+        String jobId = runQuery(query);
+        return bulkClientConf.getBulk2Client().readQueryResults(jobId, bulkClientConf.getQueryPageSize());
+    }
+
+    /**
+     * Creates a query job and waits for it to complete.
+     *
+     * @return id of the completed job
+     */
+    private String runQuery(String query) {
+        QueryJobInfo job = bulkClientConf.getBulk2Client().createQueryJob(query);
+        logger.info("Created query job:{}", job.getId());
+        GetJobInfoResponse info;
+        try {
+            info = queryJobMonitor.watch(job.getId()).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof BulkRequestException ? (BulkRequestException) e.getCause()
+                    : new BulkRequestException("Failed to wait for query job:" + job.getId(), e.getCause());
+        }
+        if (info.getState() != JobStateEnum.JOB_COMPLETE) {
+            String reason = info instanceof QueryJobInfo ? ((QueryJobInfo) info).getErrorMessage() : null;
+            throw new BulkRequestException("Query job:" + job.getId() + " ended with state:" + info.getState() + ", " + reason);
+        }
+        return job.getId();
+    }
+
+    private int getMaxChunkBytes() {
+        return Math.min(bulkClientConf.getChunkSizeInMB(), ApplicationConstants.MAX_UPLOAD_SIZE_IN_MB) * ApplicationConstants.MB;
     }
 }
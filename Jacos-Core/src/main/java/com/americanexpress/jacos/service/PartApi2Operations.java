@@ -18,7 +18,10 @@
 import com.americanexpress.jacos.bulkv2.request.OperationInfo;
 import com.americanexpress.jacos.exception.PartApiException;
 import com.americanexpress.jacos.model.CompositeAPIResponse;
+import com.americanexpress.jacos.model.CompositeRequest;
+import com.americanexpress.jacos.model.CompositeResponse;
 import com.americanexpress.jacos.oauth2.service.PartClientConfigurer;
+import com.americanexpress.jacos.part.CompositeBatchSender;
 import com.americanexpress.jacos.part.CompositeUpdateReqFileSerializer;
 import com.americanexpress.jacos.part.PartClient;
 import com.americanexpress.jacos.utils.CommonUtils;
@@ -30,6 +33,8 @@
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.*;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -40,9 +45,29 @@
 public class PartApi2Operations {
     private static final Logger LOGGER = LogManager.getLogger(PartApi2Operations.class);
 
+    private static final TypeReference<CompositeAPIResponse[]> RESPONSE_TYPE = new TypeReference<CompositeAPIResponse[]>() {
+    };
+
     @Autowired
     private PartClientConfigurer partClientConfigurer;
 
+    private CompositeBatchSender batchSender;
+
+    @PostConstruct
+    public void init() {
+        if (partClientConfigurer.getCompositeConcurrentRequests() > 1) {
+            batchSender = new CompositeBatchSender(partClientConfigurer.getCompositeConcurrentRequests(),
+                    partClientConfigurer.getCompositeQueueCapacity());
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (batchSender != null) {
+            batchSender.close();
+        }
+    }
+
     public String createAndSubmitJob(OperationInfo operationInfo, String jsonContent) throws PartApiException {
         LOGGER.info("PartApi Op begin, OperationInfo:{}", operationInfo);
         PartClient partClient = partClientConfigurer.getPartClient();
@@ -55,12 +80,31 @@ public String performSFOperation(OperationInfo operationInfo, String jsonContent
         return createAndSubmitJob(operationInfo, jsonContent);
     }
 
+    /**
+     * Runs up to 25 dependent subrequests in one call, using the composite API. A subrequest can use the
+     * result of an earlier one, such as the id of a created parent, through
+     * {@link CompositeRequest#reference(String, String)}.
+     *
+     * @param compositeRequest subrequests run in order
+     * @return the result of each subrequest, successful or not
+     * @throws PartApiException if the request is invalid or the call failed
+     * @see <a href="https://developer.salesforce.com/docs/atlas.en-us.api_rest.meta/api_rest/resources_composite_composite.htm">SF composite API</a>
+     */
+    public CompositeResponse performCompositeOperation(CompositeRequest compositeRequest) throws PartApiException {
+        LOGGER.info("Composite Op begin, subrequests:{}", compositeRequest.getCompositeRequest());
+        CompositeResponse response = partClientConfigurer.getPartClient().executeComposite(compositeRequest);
+        LOGGER.info("Composite Op end, SF response:{}", response);
+        return response;
+    }
+
     /**
      * <p>It read data from <code>inputFile</code> and perform the part operation using salesforce composite API.
      * <br>
      * This method splits input file into multiple chunks then each send it to SF using the composite API.
      * The number of records per chunk is decided based on the SF API limit (200) and can be changed using the CompositeUpdateReqFileSerializer while init.
      * Each record SF operation status is written in outputFilePath.
+     * With <code>jacos.sfdc.compositeConcurrentRequests</code> above 1 the chunks are sent in parallel,
+     * and the statuses are still written in the order of the input file.
      * </p>
      *
      *
@@ -106,50 +150,67 @@ public void performSFOperation(OperationInfo operationInfo,
 
             Iterator<String> serializer = new CompositeUpdateReqFileSerializer(inputFile, operationInfo.getObjectType());
             BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(fos));
-            TypeReference<CompositeAPIResponse[]> typeReference = new TypeReference<CompositeAPIResponse[]>() {
-            };
-            while (serializer.hasNext()) {
-                String objs = serializer.next();
-                LOGGER.debug("Performing multiupdate:{}", objs);
-                String response = createAndSubmitJob(operationInfo, objs);
-                if (null != response) {
-                    /**
-                     * Convert Json string to CompositeAPIResponse, extract id,status and error fields then write to file
-                     */
-                    CompositeAPIResponse[] responsesObj = Json.decode(response, typeReference);
-                    Arrays.stream(responsesObj)
-                            //Extract fields from response object
-                            .map(responseObj ->
-                                    new String[]{
-                                            responseObj.getId()
-                                            , Boolean.toString(responseObj.getSuccess())
-                                            //If no errors then place null
-                                            , responseObj.getErrors() == null || responseObj.getErrors().length == 0 ? null : Arrays.toString(responseObj.getErrors())})
-                            //Avoid dup ids in file
-                            .filter(sArr -> StringUtils.isBlank(sArr[0]) || fileUniqueIds.add(sArr[0]))
-                            //Convert string to csv string line
-                            .map(s -> CommonUtils.csvEncode(s))
-                            //Write to file
-                            .forEach(s -> {
-                                try {
-                                    bw.write(s);
-                                    bw.newLine();
-                                } catch (IOException e) {
-                                    throw new UncheckedIOException(e);
-                                }
-                            });
+            if (batchSender != null) {
+                batchSender.send(serializer, objs -> {
+                    LOGGER.debug("Performing multiupdate:{}", objs);
+                    return createAndSubmitJob(operationInfo, objs);
+                }, response -> writeResponse(response, bw, fileUniqueIds));
+            } else {
+                while (serializer.hasNext()) {
+                    String objs = serializer.next();
+                    LOGGER.debug("Performing multiupdate:{}", objs);
+                    writeResponse(createAndSubmitJob(operationInfo, objs), bw, fileUniqueIds);
                 }
-
-                bw.flush();
-
             }
 
         } catch (IOException e) {
             LOGGER.error(e);
             throw new PartApiException("Failed to process file:" + outputFilePath, e);
+        } catch (UncheckedIOException e) {
+            LOGGER.error(e);
+            throw new PartApiException("Failed to process file:" + outputFilePath, e.getCause());
         }
         LOGGER.info("PerformSFOperation End: OperationInfo:{} input file:{}, output file:{}", operationInfo, inputFile, outputFilePath);
     }
 
+    /**
+     * Writes the id, status and errors of each record of a composite response to the output file, once per id.
+     */
+    private static void writeResponse(String response, BufferedWriter bw, Set<String> fileUniqueIds) {
+        try {
+            if (null != response) {
+                /**
+                 * Convert Json string to CompositeAPIResponse, extract id,status and error fields then write to file
+                 */
+                CompositeAPIResponse[] responsesObj = Json.decode(response, RESPONSE_TYPE);
+                Arrays.stream(responsesObj)
+                        //Extract fields from response object
+                        .map(responseObj ->
+                                new String[]{
+                                        responseObj.getId()
+                                        , Boolean.toString(responseObj.getSuccess())
+                                        //If no errors then place null
+                                        , responseObj.getErrors() == null || responseObj.getErrors().length == 0 ? null : Arrays.toString(responseObj.getErrors())})
+                        //Avoid dup ids in file
+                        .filter(sArr -> StringUtils.isBlank(sArr[0]) || fileUniqueIds.add(sArr[0]))
+                        //Convert string to csv string line
+                        .map(s -> CommonUtils.csvEncode(s))
+                        //Write to file
+                        .forEach(s -> {
+                            try {
+                                bw.write(s);
+                                bw.newLine();
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        });
+            }
+
+            bw.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
 
 }
@@ -23,6 +23,8 @@
 import java.io.StringWriter;
 import java.io.UncheckedIOException;
 import java.util.Objects;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
@@ -83,4 +85,20 @@ public static String removeNewLine(String content) {
         return Objects.isNull(content) ? content : content.replaceAll("(\n)|(\r)", " ");
     }
 
+    /**
+     * Thread factory for the background workers of the connector. Threads are daemons so they never
+     * keep the application alive, and are named <code>namePrefix</code> followed by a sequence number.
+     *
+     * @param namePrefix prefix of the thread names
+     * @return thread factory
+     */
+    public static ThreadFactory daemonThreadFactory(String namePrefix) {
+        AtomicInteger sequence = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
 }
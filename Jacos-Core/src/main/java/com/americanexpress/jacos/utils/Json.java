@@ -15,23 +15,46 @@
 
 package com.americanexpress.jacos.utils;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import endolabs.salesforce.bulkv2.type.OperationEnum;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.util.Arrays;
 
 public final class Json {
 
     private static final ObjectMapper objectMapper = new ObjectMapper()
             .setPropertyNamingStrategy(PropertyNamingStrategy.LOWER_CAMEL_CASE)
-            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .registerModule(new SimpleModule().addDeserializer(OperationEnum.class, new OperationEnumDeserializer()));
 
     private Json() {
     }
 
+    /**
+     * @return the mapper behind this class, shared and thread-safe; it must not be reconfigured
+     */
+    public static ObjectMapper objectMapper() {
+        return objectMapper;
+    }
+
+    public static JsonNode readTree(String json) {
+        try {
+            return objectMapper.readTree(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     public static String encode(Object object) {
         try {
             return objectMapper.writeValueAsString(object);
@@ -56,5 +79,19 @@ public static <T> T decode(String json, TypeReference<T> typeReference) {
         }
     }
 
+    /**
+     * Reads the operation of a job as null when it is not one of OperationEnum, eg. hardDelete, instead
+     * of failing the whole response. IngestJobInfo reads hardDelete too.
+     */
+    private static class OperationEnumDeserializer extends JsonDeserializer<OperationEnum> {
 
+        @Override
+        public OperationEnum deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            String value = parser.getValueAsString();
+            return Arrays.stream(OperationEnum.values())
+                    .filter(operation -> operation.toJsonValue().equals(value))
+                    .findFirst()
+                    .orElse(null);
+        }
+    }
 }
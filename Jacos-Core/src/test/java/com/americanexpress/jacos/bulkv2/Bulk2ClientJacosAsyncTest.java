@@ -0,0 +1,199 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2;
+
+import com.americanexpress.jacos.bulkv2.type.OperationEnumJacos;
+import endolabs.salesforce.bulkv2.BulkRequestException;
+import endolabs.salesforce.bulkv2.response.CloseOrAbortJobResponse;
+import endolabs.salesforce.bulkv2.response.CreateJobResponse;
+import endolabs.salesforce.bulkv2.response.GetJobInfoResponse;
+import endolabs.salesforce.bulkv2.type.JobStateEnum;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class Bulk2ClientJacosAsyncTest {
+
+    private static final String JOB = "{\"id\":\"7504x\",\"object\":\"Account\",\"operation\":\"insert\",\"state\":\"%s\"}";
+
+    private MockWebServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    private Bulk2ClientJacosAsync client(OkHttpClient baseClient, Integer maxRequests) throws IOException {
+        Bulk2ClientBuilderJacos builder = new Bulk2ClientBuilderJacos()
+                .withSessionId("token1", "http://" + server.getHostName() + ":" + server.getPort())
+                .useAPIVersion("v47.0")
+                .useHttpClient(baseClient);
+        if (maxRequests != null) {
+            builder.useMaxRequests(maxRequests);
+        }
+        return builder.build().async();
+    }
+
+    private static <T> T get(CompletableFuture<T> future) throws Exception {
+        return future.get(5, TimeUnit.SECONDS);
+    }
+
+    private static BulkRequestException failure(CompletableFuture<?> future) throws InterruptedException, TimeoutException {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            throw new AssertionError("Failure not reported");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof BulkRequestException);
+            return (BulkRequestException) e.getCause();
+        }
+    }
+
+    @Test
+    public void completesEachCallOfAJob() throws Exception {
+        server.enqueue(new MockResponse().setBody(String.format(JOB, "Open")));
+        server.enqueue(new MockResponse().setResponseCode(201));
+        server.enqueue(new MockResponse().setBody(String.format(JOB, "UploadComplete")));
+        server.enqueue(new MockResponse().setBody(String.format(JOB, "JobComplete")));
+        Bulk2ClientJacosAsync client = client(new OkHttpClient(), null);
+
+        CreateJobResponse created = get(client.createJob("Account", OperationEnumJacos.INSERT, null));
+        get(client.uploadJobData(created.getId(), "Name\nAcme\n"));
+        CloseOrAbortJobResponse closed = get(client.closeJob(created.getId()));
+        GetJobInfoResponse info = get(client.getJobInfo(created.getId()));
+
+        Assert.assertEquals("7504x", created.getId());
+        Assert.assertEquals(JobStateEnum.UPLOAD_COMPLETE, closed.getState());
+        Assert.assertEquals(JobStateEnum.JOB_COMPLETE, info.getState());
+        RecordedRequest create = server.takeRequest();
+        Assert.assertEquals("POST /services/data/v47.0/jobs/ingest HTTP/1.1", create.getRequestLine());
+        Assert.assertEquals("Bearer token1", create.getHeader("Authorization"));
+        Assert.assertTrue(create.getBody().readUtf8().contains("\"object\":\"Account\""));
+        RecordedRequest upload = server.takeRequest();
+        Assert.assertEquals("PUT /services/data/v47.0/jobs/ingest/7504x/batches HTTP/1.1", upload.getRequestLine());
+        Assert.assertEquals("Name\nAcme\n", upload.getBody().readUtf8());
+        RecordedRequest close = server.takeRequest();
+        Assert.assertEquals("PATCH /services/data/v47.0/jobs/ingest/7504x HTTP/1.1", close.getRequestLine());
+        Assert.assertTrue(close.getBody().readUtf8().contains("UploadComplete"));
+        Assert.assertEquals("GET /services/data/v47.0/jobs/ingest/7504x HTTP/1.1", server.takeRequest().getRequestLine());
+    }
+
+    @Test
+    public void failsOnErrorStatus() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(400)
+                .setBody("[{\"errorCode\":\"INVALIDJOBSTATE\",\"message\":\"Job is not open\"}]"));
+        server.enqueue(new MockResponse().setResponseCode(500).setBody("Service unavailable"));
+        Bulk2ClientJacosAsync client = client(new OkHttpClient(), null);
+
+        BulkRequestException rejected = failure(client.uploadJobData("7504x", "Name\nAcme\n"));
+        BulkRequestException unavailable = failure(client.getJobInfo("7504x"));
+
+        Assert.assertTrue(rejected.getMessage(), rejected.getMessage().contains("INVALIDJOBSTATE"));
+        Assert.assertTrue(unavailable.getMessage(), unavailable.getMessage().contains("Service unavailable"));
+    }
+
+    @Test
+    public void failsOnBrokenConnection() throws Exception {
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+        OkHttpClient noRetry = new OkHttpClient.Builder().retryOnConnectionFailure(false).build();
+
+        BulkRequestException failure = failure(client(noRetry, null).closeJob("7504x"));
+
+        Assert.assertTrue(String.valueOf(failure.getCause()), failure.getCause() instanceof IOException);
+    }
+
+    @Test
+    public void cancelCancelsTheCall() throws Exception {
+        CountDownLatch received = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                received.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return new MockResponse().setBody(String.format(JOB, "InProgress"));
+            }
+        });
+        OkHttpClient baseClient = new OkHttpClient();
+        CompletableFuture<GetJobInfoResponse> info = client(baseClient, null).getJobInfo("7504x");
+        Assert.assertTrue(received.await(5, TimeUnit.SECONDS));
+
+        Assert.assertTrue(info.cancel(true));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (baseClient.dispatcher().runningCallsCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+        Assert.assertEquals(0, baseClient.dispatcher().runningCallsCount());
+        Assert.assertTrue(info.isCancelled());
+    }
+
+    @Test
+    public void capsRequestsRunningAtTheSameTime() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch firstTwo = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                firstTwo.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                running.decrementAndGet();
+                return new MockResponse().setBody(String.format(JOB, "InProgress"));
+            }
+        });
+        Bulk2ClientJacosAsync client = client(new OkHttpClient(), 2);
+
+        List<CompletableFuture<GetJobInfoResponse>> infos = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            infos.add(client.getJobInfo("7504x"));
+        }
+        Assert.assertTrue(firstTwo.await(5, TimeUnit.SECONDS));
+        Thread.sleep(200);
+        Assert.assertEquals(2, server.getRequestCount());
+        release.countDown();
+
+        for (CompletableFuture<GetJobInfoResponse> info : infos) {
+            Assert.assertEquals(JobStateEnum.IN_PROGRESS, get(info).getState());
+        }
+        Assert.assertEquals(2, maxRunning.get());
+    }
+}
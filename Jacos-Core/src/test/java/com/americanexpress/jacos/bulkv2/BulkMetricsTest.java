@@ -0,0 +1,171 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2;
+
+import com.americanexpress.jacos.bulkv2.type.OperationEnumJacos;
+import endolabs.salesforce.bulkv2.BulkRequestException;
+import endolabs.salesforce.bulkv2.response.GetJobInfoResponse;
+import endolabs.salesforce.bulkv2.type.JobStateEnum;
+import endolabs.salesforce.bulkv2.type.OperationEnum;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+public class BulkMetricsTest {
+
+    private static GetJobInfoResponse info(String id, JobStateEnum state, int processed, int failed) {
+        GetJobInfoResponse info = new GetJobInfoResponse();
+        info.setId(id);
+        info.setObject("Contact");
+        info.setOperation(OperationEnum.UPSERT);
+        info.setState(state);
+        info.setNumberRecordsProcessed(processed);
+        info.setNumberRecordsFailed(failed);
+        return info;
+    }
+
+    @Test
+    public void timesCallsByOutcome() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        BulkMetrics metrics = new BulkMetrics(registry);
+        Tags tags = BulkMetrics.tags("Account", "insert");
+
+        Assert.assertEquals("ok", metrics.record("createJob", tags, () -> "ok"));
+        try {
+            metrics.record("createJob", tags, () -> {
+                throw new BulkRequestException("unavailable");
+            });
+            Assert.fail("Failure not rethrown");
+        } catch (BulkRequestException e) {
+            // expected
+        }
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        metrics.recordAsync("getJobInfo", tags, () -> pending);
+        Assert.assertNull(registry.find(BulkMetrics.REQUESTS).tag("call", "getJobInfo").timer());
+        pending.complete("done");
+
+        Assert.assertEquals(1, registry.get(BulkMetrics.REQUESTS).tags(tags).tag("call", "createJob").tag("outcome", "success").timer().count());
+        Assert.assertEquals(1, registry.get(BulkMetrics.REQUESTS).tags(tags).tag("call", "createJob").tag("outcome", "error").timer().count());
+        Assert.assertEquals(1, registry.get(BulkMetrics.REQUESTS).tags(tags).tag("call", "getJobInfo").timer().count());
+    }
+
+    @Test
+    public void countsRecordsOfFinishedJobs() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        BulkMetrics metrics = new BulkMetrics(registry);
+        Tags tags = BulkMetrics.tags("Contact", "upsert");
+
+        metrics.jobInfo(info("750", JobStateEnum.IN_PROGRESS, 10, 1));
+        Assert.assertNull(registry.find(BulkMetrics.RECORDS_PROCESSED).counter());
+
+        metrics.jobInfo(info("750", JobStateEnum.JOB_COMPLETE, 100, 5));
+
+        Assert.assertEquals(100, registry.get(BulkMetrics.RECORDS_PROCESSED).tags(tags).counter().count(), 0);
+        Assert.assertEquals(5, registry.get(BulkMetrics.RECORDS_FAILED).tags(tags).counter().count(), 0);
+    }
+
+    @Test
+    public void countsRecordsOfAFinishedJobOnce() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        BulkMetrics metrics = new BulkMetrics(registry);
+        Tags tags = BulkMetrics.tags("Contact", "upsert");
+
+        metrics.jobInfo(info("750", JobStateEnum.JOB_COMPLETE, 100, 5));
+        metrics.jobInfo(info("750", JobStateEnum.JOB_COMPLETE, 100, 5));
+        metrics.jobInfo(info("751", JobStateEnum.FAILED, 20, 20));
+
+        Assert.assertEquals(100, registry.get(BulkMetrics.RECORDS_PROCESSED).tags(tags).tag("state", "JOB_COMPLETE").counter().count(), 0);
+        Assert.assertEquals(5, registry.get(BulkMetrics.RECORDS_FAILED).tags(tags).tag("state", "JOB_COMPLETE").counter().count(), 0);
+        Assert.assertEquals(20, registry.get(BulkMetrics.RECORDS_FAILED).tags(tags).tag("state", "FAILED").counter().count(), 0);
+    }
+
+    @Test
+    public void forgetsJobsOnceClosed() throws IOException {
+        try (MockWebServer server = new MockWebServer()) {
+            String job = "{\"id\":\"750\",\"object\":\"Contact\",\"operation\":\"upsert\",\"state\":\"%s\"}";
+            server.enqueue(new MockResponse().setBody(String.format(job, "Open")));
+            server.enqueue(new MockResponse().setResponseCode(201));
+            server.enqueue(new MockResponse().setBody(String.format(job, "UploadComplete")));
+            server.enqueue(new MockResponse().setBody(String.format(job, "Open")));
+            server.enqueue(new MockResponse().setResponseCode(500));
+            server.start();
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            BulkMetrics metrics = new BulkMetrics(registry);
+            Bulk2ClientJacos<Void> client = new Bulk2ClientJacos<>(new RestRequesterJacos(new OkHttpClient()),
+                    "http://" + server.getHostName() + ":" + server.getPort(), "v47.0", null, null, metrics);
+            Tags tags = BulkMetrics.tags("Contact", "upsert");
+
+            String jobId = client.createJob("Contact", OperationEnumJacos.UPSERT, "Email__c").getId();
+            Assert.assertEquals(tags, metrics.jobTags(jobId));
+            client.uploadJobData(jobId, "Email__c\na@b.c\n");
+            client.closeJob(jobId);
+            Assert.assertEquals(0, metrics.openJobs());
+            Assert.assertEquals(1, registry.get(BulkMetrics.REQUESTS).tags(tags).tag("call", "closeJob").timer().count());
+
+            client.createJob("Contact", OperationEnumJacos.UPSERT, "Email__c");
+            try {
+                client.uploadJobData(jobId, "Email__c\na@b.c\n");
+                Assert.fail("Failed upload not reported");
+            } catch (BulkRequestException e) {
+                Assert.assertEquals(0, metrics.openJobs());
+            }
+        }
+    }
+
+    @Test
+    public void tagsHardDeleteJobs() throws IOException {
+        try (MockWebServer server = new MockWebServer()) {
+            String job = "{\"id\":\"750\",\"object\":\"Account\",\"operation\":\"hardDelete\",\"state\":\"%s\"}";
+            server.enqueue(new MockResponse().setBody(String.format(job, "Open")));
+            server.enqueue(new MockResponse().setBody(String.format(job, "UploadComplete")));
+            server.enqueue(new MockResponse().setBody(String.format(job, "JobComplete").replace("}", ",\"numberRecordsProcessed\":2}")));
+            server.start();
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            Bulk2ClientJacos<Void> client = new Bulk2ClientJacos<>(new RestRequesterJacos(new OkHttpClient()),
+                    "http://" + server.getHostName() + ":" + server.getPort(), "v47.0", null, null, new BulkMetrics(registry));
+            Tags tags = BulkMetrics.tags("Account", "hardDelete");
+
+            String jobId = client.createJob("Account", OperationEnumJacos.HARDDELETE, null).getId();
+            client.closeJob(jobId);
+            Assert.assertEquals(OperationEnumJacos.HARDDELETE, client.getIngestJobInfo(jobId).getIngestOperation());
+
+            Assert.assertEquals(1, registry.get(BulkMetrics.REQUESTS).tags(tags).tag("call", "closeJob").timer().count());
+            Assert.assertEquals(1, registry.get(BulkMetrics.REQUESTS).tags(tags).tag("call", "getJobInfo").timer().count());
+            Assert.assertEquals(2, registry.get(BulkMetrics.RECORDS_PROCESSED).tags(tags).counter().count(), 0);
+        }
+    }
+
+    @Test
+    public void recordsUploadedBytes() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        BulkMetrics metrics = new BulkMetrics(registry);
+        Tags tags = BulkMetrics.tags("Account", "insert");
+
+        metrics.uploaded(tags, 100);
+        metrics.uploaded(tags, 300);
+
+        Assert.assertEquals(400, registry.get(BulkMetrics.UPLOADED_BYTES).counter().count(), 0);
+        Assert.assertEquals(2, registry.get(BulkMetrics.UPLOAD_SIZE).summary().count());
+        Assert.assertEquals(300, registry.get(BulkMetrics.UPLOAD_SIZE).summary().max(), 0);
+    }
+}
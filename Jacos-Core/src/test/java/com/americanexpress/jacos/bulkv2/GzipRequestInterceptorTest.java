@@ -0,0 +1,42 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.GzipSource;
+import okio.Okio;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+
+public class GzipRequestInterceptorTest {
+
+    @Test
+    public void compressesWhileWriting() throws IOException {
+        String csv = "Name,Description\nAcme,\"multi\nline\"\n";
+        RequestBody body = new GzipRequestInterceptor.GzipRequestBody(RequestBody.create(MediaType.parse("text/csv"), csv));
+
+        Buffer compressed = new Buffer();
+        body.writeTo(compressed);
+
+        Assert.assertEquals(-1, body.contentLength());
+        Assert.assertEquals("csv", body.contentType().subtype());
+        Assert.assertEquals(csv, Okio.buffer(new GzipSource(compressed)).readUtf8());
+    }
+}
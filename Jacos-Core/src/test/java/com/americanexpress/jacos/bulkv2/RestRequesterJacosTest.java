@@ -0,0 +1,155 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2;
+
+import com.americanexpress.jacos.commons.AccessTokenProvider;
+import endolabs.salesforce.bulkv2.BulkRequestException;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RestRequesterJacosTest {
+
+    private static final String CSV = "Name\nAcme\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MockWebServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void closesStreamAfterUpload() throws InterruptedException {
+        server.enqueue(new MockResponse().setResponseCode(201));
+        TrackingInputStream csv = new TrackingInputStream(CSV);
+
+        new RestRequesterJacos(new OkHttpClient()).putCsv(server.url("/batches").toString(), csv, Void.class);
+
+        Assert.assertEquals(CSV, server.takeRequest().getBody().readUtf8());
+        Assert.assertTrue(csv.closed);
+    }
+
+    @Test
+    public void closesStreamAfterFailedUpload() throws IOException {
+        String url = server.url("/batches").toString();
+        server.shutdown();
+        TrackingInputStream csv = new TrackingInputStream(CSV);
+
+        try {
+            new RestRequesterJacos(new OkHttpClient()).putCsv(url, csv, Void.class);
+            Assert.fail("Connect failure not reported");
+        } catch (BulkRequestException e) {
+            Assert.assertTrue(csv.closed);
+        }
+    }
+
+    @Test
+    public void doesNotResendConsumedStream() {
+        server.enqueue(new MockResponse().setResponseCode(401)
+                .setBody("[{\"message\":\"Session expired or invalid\",\"errorCode\":\"INVALID_SESSION_ID\"}]"));
+        server.enqueue(new MockResponse().setResponseCode(201));
+        AtomicInteger refreshes = new AtomicInteger();
+        AccessTokenProvider tokenProvider = new AccessTokenProvider("token1", () -> "token" + (refreshes.incrementAndGet() + 1));
+        OkHttpClient client = new OkHttpClient.Builder()
+                .authenticator(new AccessTokenAuthenticator(tokenProvider))
+                .build();
+        TrackingInputStream csv = new TrackingInputStream(CSV);
+
+        try {
+            new RestRequesterJacos(client).putCsv(server.url("/batches").toString(), csv, Void.class);
+            Assert.fail("Rejected upload not reported");
+        } catch (BulkRequestException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("INVALID_SESSION_ID"));
+        }
+        Assert.assertEquals(1, server.getRequestCount());
+        Assert.assertEquals(0, refreshes.get());
+        Assert.assertTrue(csv.closed);
+    }
+
+    @Test
+    public void downloadsAsyncToFile() throws Exception {
+        StringBuilder csv = new StringBuilder("\"Id\",\"Name\"\n");
+        for (int i = 0; i < 20_000; i++) {
+            csv.append("\"001").append(i).append("\",\"Acme ").append(i).append("\"\n");
+        }
+        server.enqueue(new MockResponse().setBody(csv.toString()));
+        Path target = folder.getRoot().toPath().resolve("results.csv");
+
+        long written = new RestRequesterJacos(new OkHttpClient())
+                .downloadAsync(server.url("/successfulResults/").toString(), target).get(5, TimeUnit.SECONDS);
+
+        byte[] expected = csv.toString().getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals(expected.length, written);
+        Assert.assertArrayEquals(expected, Files.readAllBytes(target));
+    }
+
+    @Test
+    public void failsAsyncDownloadOnErrorStatus() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(404)
+                .setBody("[{\"errorCode\":\"NOT_FOUND\",\"message\":\"The requested resource does not exist\"}]"));
+        Path target = folder.getRoot().toPath().resolve("results.csv");
+
+        try {
+            new RestRequesterJacos(new OkHttpClient())
+                    .downloadAsync(server.url("/successfulResults/").toString(), target).get(5, TimeUnit.SECONDS);
+            Assert.fail("Error status not reported");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof BulkRequestException);
+            Assert.assertTrue(e.getCause().getMessage(), e.getCause().getMessage().contains("NOT_FOUND"));
+        }
+        Assert.assertFalse(Files.exists(target));
+    }
+
+    private static class TrackingInputStream extends ByteArrayInputStream {
+
+        private volatile boolean closed;
+
+        TrackingInputStream(String content) {
+            super(content.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            super.close();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.Okio;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+public class WireLoggingInterceptorTest {
+
+    private static final MediaType CSV = MediaType.parse("text/csv");
+
+    @Test
+    public void capturesTheStartOfTheBodyWhileSending() throws IOException {
+        String csv = "Id,Name\n1,A\n2,B\n";
+        WireLoggingInterceptor.CapturingRequestBody body = new WireLoggingInterceptor.CapturingRequestBody(RequestBody.create(CSV, csv), 8);
+
+        Buffer sent = new Buffer();
+        body.writeTo(sent);
+        // replayed bodies are captured again
+        Buffer replayed = new Buffer();
+        body.writeTo(replayed);
+
+        Assert.assertEquals(csv, sent.readUtf8());
+        Assert.assertEquals(csv, replayed.readUtf8());
+        Assert.assertEquals("Id,Name\n", body.getCaptured().readUtf8());
+        Assert.assertTrue(body.isTruncated());
+    }
+
+    @Test
+    public void keepsStreamedBodiesNotReplayable() throws IOException {
+        StreamingRequestBody streamed = new StreamingRequestBody(CSV,
+                Okio.source(new ByteArrayInputStream("Id\n1\n".getBytes(StandardCharsets.UTF_8))));
+        WireLoggingInterceptor.CapturingRequestBody body = new WireLoggingInterceptor.CapturingRequestBody(streamed, 64);
+
+        Assert.assertTrue(AccessTokenAuthenticator.isReplayable(body));
+        body.writeTo(new Buffer());
+        Assert.assertFalse(AccessTokenAuthenticator.isReplayable(body));
+        Assert.assertFalse(body.isTruncated());
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.csv;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CsvChunkerTest {
+
+    private static final String HEADER = "Id,Name,Description\n";
+
+    private static List<String> chunks(String csv, int maxChunkBytes, int maxRecords) throws IOException {
+        List<String> chunks = new ArrayList<>();
+        try (CsvChunker chunker = new CsvChunker(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), maxChunkBytes, maxRecords)) {
+            while (chunker.hasNext()) {
+                chunks.add(new String(chunker.next(), StandardCharsets.UTF_8));
+            }
+        }
+        return chunks;
+    }
+
+    @Test
+    public void singleChunk() throws IOException {
+        String csv = HEADER + "1,a,x\n2,b,y\n";
+        List<String> chunks = chunks(csv, 1024, 100);
+        Assert.assertEquals(1, chunks.size());
+        Assert.assertEquals(csv, chunks.get(0));
+    }
+
+    @Test
+    public void headerRepeatedInEveryChunk() throws IOException {
+        List<String> chunks = chunks(HEADER + "1,a,x\n2,b,y\n3,c,z\n", HEADER.length() + 12, 100);
+        Assert.assertEquals(2, chunks.size());
+        Assert.assertEquals(HEADER + "1,a,x\n2,b,y\n", chunks.get(0));
+        Assert.assertEquals(HEADER + "3,c,z\n", chunks.get(1));
+    }
+
+    @Test
+    public void quotedNewLineIsNotABoundary() throws IOException {
+        String record = "1,a,\"line one\nline \"\"two\"\"\"\n";
+        List<String> chunks = chunks(HEADER + record + "2,b,y\n", HEADER.length() + record.length(), 100);
+        Assert.assertEquals(2, chunks.size());
+        Assert.assertEquals(HEADER + record, chunks.get(0));
+        Assert.assertEquals(HEADER + "2,b,y\n", chunks.get(1));
+    }
+
+    @Test
+    public void recordCountCap() throws IOException {
+        List<String> chunks = chunks(HEADER + "1,a,x\n2,b,y\n3,c,z\n", 1024, 2);
+        Assert.assertEquals(2, chunks.size());
+        Assert.assertEquals(HEADER + "3,c,z\n", chunks.get(1));
+    }
+
+    @Test
+    public void lastRecordWithoutLineFeedAndBlankLines() throws IOException {
+        List<String> chunks = chunks("Id,Name\r\n1,a\r\n\r\n2,b", 1024, 100);
+        Assert.assertEquals(1, chunks.size());
+        Assert.assertEquals("Id,Name\r\n1,a\r\n2,b\r\n", chunks.get(0));
+    }
+
+    @Test
+    public void multiByteCharactersCountedInBytes() throws IOException {
+        String record = "1,éé,x\n";
+        List<String> chunks = chunks(HEADER + record + record, HEADER.length() + record.length() + 2, 100);
+        Assert.assertEquals(2, chunks.size());
+        Assert.assertEquals(HEADER + record, chunks.get(1));
+    }
+
+    @Test
+    public void headerOnly() throws IOException {
+        Assert.assertTrue(chunks(HEADER, 1024, 100).isEmpty());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void recordLargerThanChunk() throws IOException {
+        chunks(HEADER + "1,a,a very long description\n", HEADER.length() + 5, 100);
+    }
+
+    @Test(expected = IOException.class)
+    public void emptyStream() throws IOException {
+        chunks("", 1024, 100);
+    }
+
+    @Test
+    public void groupsAreNotSplit() throws IOException {
+        String csv = "Id,AccountId\n1,A\n2,A\n3,B\n4,B\n5,B\n6,C\n";
+        List<String> chunks = new ArrayList<>();
+        try (CsvChunker chunker = new CsvChunker(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), 1024, 4, "AccountId")) {
+            while (chunker.hasNext()) {
+                chunks.add(new String(chunker.next(), StandardCharsets.UTF_8));
+            }
+        }
+        Assert.assertEquals(2, chunks.size());
+        Assert.assertEquals("Id,AccountId\n1,A\n2,A\n", chunks.get(0));
+        Assert.assertEquals("Id,AccountId\n3,B\n4,B\n5,B\n6,C\n", chunks.get(1));
+    }
+
+    @Test
+    public void groupBiggerThanAChunkIsSplit() throws IOException {
+        String csv = "Id,AccountId\n1,A\n2,A\n3,A\n4,B\n";
+        List<String> chunks = new ArrayList<>();
+        try (CsvChunker chunker = new CsvChunker(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), 1024, 2, "AccountId")) {
+            while (chunker.hasNext()) {
+                chunks.add(new String(chunker.next(), StandardCharsets.UTF_8));
+            }
+        }
+        Assert.assertEquals(2, chunks.size());
+        Assert.assertEquals("Id,AccountId\n1,A\n2,A\n", chunks.get(0));
+        Assert.assertEquals("Id,AccountId\n3,A\n4,B\n", chunks.get(1));
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.csv;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class CsvColumnReaderTest {
+
+    private static List<String> values(String csv, String column) throws IOException {
+        List<String> values = new ArrayList<>();
+        try (CsvColumnReader reader = new CsvColumnReader(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), column)) {
+            reader.forEachRemaining(values::add);
+        }
+        return values;
+    }
+
+    @Test
+    public void readsOneColumn() throws IOException {
+        String csv = "Name,Id,Description\n"
+                + "a,001A,x\n"
+                + "\"b, \"\"quoted\"\"\",001B,\"multi\nline\"\n"
+                + "\n"
+                + "c,,z\n"
+                + "d,\"001D\"";
+
+        Assert.assertEquals(Arrays.asList("001A", "001B", "001D"), values(csv, "Id"));
+        Assert.assertEquals(Arrays.asList("a", "b, \"quoted\"", "c", "d"), values(csv, "Name"));
+        Assert.assertEquals(Arrays.asList("x", "multi\nline", "z"), values(csv, "Description"));
+    }
+
+    @Test
+    public void stripsCarriageReturns() throws IOException {
+        Assert.assertEquals(Arrays.asList("001A", "001B"), values("Name,Id\r\na,001A\r\nb,001B\r\n", "Id"));
+        Assert.assertEquals(Arrays.asList("a\rb"), values("Id\r\n\"a\rb\"\r\n", "Id"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMissingColumn() throws IOException {
+        values("Name\na\n", "Id");
+    }
+}
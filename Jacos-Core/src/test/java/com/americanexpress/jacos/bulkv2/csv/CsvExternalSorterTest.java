@@ -0,0 +1,106 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.csv;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+public class CsvExternalSorterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path write(String csv) throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, csv.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Test
+    public void sortsInMemoryAndKeepsFileOrderOfEqualKeys() throws IOException {
+        Path input = write("Id,AccountId,Note\n1,B,x\n2,A,\"multi\nline\"\n3,B,y\n4,A,z");
+
+        Path sorted = new CsvExternalSorter(1024 * 1024, folder.getRoot().toPath()).sort(input, "AccountId");
+
+        Assert.assertEquals("Id,AccountId,Note\n2,A,\"multi\nline\"\n4,A,z\n1,B,x\n3,B,y\n",
+                new String(Files.readAllBytes(sorted), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void mergesSpilledRuns() throws IOException {
+        Random random = new Random(42);
+        StringBuilder csv = new StringBuilder("Id,AccountId\n");
+        for (int i = 0; i < 2000; i++) {
+            csv.append(i).append(",ACC").append(random.nextInt(50)).append('\n');
+        }
+        Path input = write(csv.toString());
+
+        Path sorted = new CsvExternalSorter(4096, folder.getRoot().toPath()).sort(input, "AccountId");
+
+        List<String> lines = Files.readAllLines(sorted);
+        Assert.assertEquals(2001, lines.size());
+        List<String[]> records = new ArrayList<>();
+        for (String line : lines.subList(1, lines.size())) {
+            records.add(line.split(","));
+        }
+        for (int i = 1; i < records.size(); i++) {
+            int byKey = records.get(i - 1)[1].compareTo(records.get(i)[1]);
+            Assert.assertTrue(byKey <= 0);
+            if (byKey == 0) {
+                Assert.assertTrue(Integer.parseInt(records.get(i - 1)[0]) < Integer.parseInt(records.get(i)[0]));
+            }
+        }
+        try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+            Assert.assertEquals(0, files.filter(file -> file.getFileName().toString().startsWith("sort-run-")).count());
+        }
+    }
+
+    @Test
+    public void decodesOnlyTheKeyField() {
+        byte[] record = "\"a,\"\"b\"\"\",\"multi\nline, \"\"quoted\"\"\",plain,\"last\"\r\n".getBytes(StandardCharsets.UTF_8);
+
+        Assert.assertEquals("a,\"b\"", CsvExternalSorter.keyOf(record, 0, record.length, 0));
+        Assert.assertEquals("multi\nline, \"quoted\"", CsvExternalSorter.keyOf(record, 0, record.length, 1));
+        Assert.assertEquals("plain", CsvExternalSorter.keyOf(record, 0, record.length, 2));
+        Assert.assertEquals("last", CsvExternalSorter.keyOf(record, 0, record.length, 3));
+        Assert.assertEquals("", CsvExternalSorter.keyOf(record, 0, record.length, 4));
+    }
+
+    @Test
+    public void decodesKeyFieldInsideALargerBuffer() {
+        byte[] buffer = "1,A\n2,\u00e9t\u00e9,x\n".getBytes(StandardCharsets.UTF_8);
+        int from = "1,A\n".length();
+
+        Assert.assertEquals("\u00e9t\u00e9", CsvExternalSorter.keyOf(buffer, from, buffer.length, 1));
+        Assert.assertEquals("", CsvExternalSorter.keyOf(buffer, from, buffer.length - 1, 3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownColumn() throws IOException {
+        new CsvExternalSorter(1024, folder.getRoot().toPath()).sort(write("Id,Name\n1,a\n"), "AccountId");
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.csv;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+public class CsvFileSplitterTest {
+
+    private static final String HEADER = "Id,Name,Description\r\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path write(String csv) throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, csv.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Records end with CRLF, the values only hold LF line breaks
+     */
+    private static int countRecords(String chunk) {
+        return chunk.split("\r\n", -1).length - 2;
+    }
+
+    @Test
+    public void splitsAtRecordBoundariesInParallel() throws IOException {
+        Random random = new Random(42);
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int i = 0; i < 500; i++) {
+            csv.append(i).append(",\"Name ").append(i).append(", \"\"quoted\"\"\",\"");
+            for (int j = random.nextInt(40); j > 0; j--) {
+                csv.append(random.nextInt(5) == 0 ? '\n' : 'x');
+            }
+            csv.append("\"\r\n");
+        }
+        Path input = write(csv.toString());
+
+        List<Path> chunks = new CsvFileSplitter(400, 7, 4, folder.getRoot().toPath()).split(input);
+
+        StringBuilder joined = new StringBuilder(HEADER);
+        int records = 0;
+        for (Path chunk : chunks) {
+            String content = read(chunk);
+            Assert.assertTrue(content.startsWith(HEADER));
+            Assert.assertTrue(content.length() <= 400);
+            Assert.assertTrue(content.endsWith("\"\r\n"));
+            int chunkRecords = countRecords(content);
+            Assert.assertTrue(chunkRecords > 0 && chunkRecords <= 7);
+            records += chunkRecords;
+            joined.append(content.substring(HEADER.length()));
+        }
+        Assert.assertEquals(500, records);
+        Assert.assertEquals(csv.toString(), joined.toString());
+    }
+
+    @Test
+    public void keepsLastRecordWithoutLineBreak() throws IOException {
+        Path input = write("Id\n1\n\n2\n3");
+
+        List<Path> chunks = new CsvFileSplitter(8, 2, 2, folder.getRoot().toPath()).split(input);
+
+        Assert.assertEquals(2, chunks.size());
+        Assert.assertEquals("Id\n1\n\n2\n", read(chunks.get(0)));
+        Assert.assertEquals("Id\n3", read(chunks.get(1)));
+        Assert.assertTrue(new CsvFileSplitter(8, 2, 2, folder.getRoot().toPath()).split(write("Id")).isEmpty());
+    }
+
+    @Test
+    public void rejectsRecordLargerThanChunk() throws IOException {
+        Path input = write("Id\n1\n0123456789\n2\n");
+        Path workDir = folder.newFolder().toPath();
+
+        try {
+            new CsvFileSplitter(8, 10, 2, workDir).split(input);
+            Assert.fail("Oversized record not reported");
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage().startsWith("Record does not fit"));
+        }
+        try (Stream<Path> files = Files.list(workDir)) {
+            Assert.assertEquals(0, files.count());
+        }
+    }
+}
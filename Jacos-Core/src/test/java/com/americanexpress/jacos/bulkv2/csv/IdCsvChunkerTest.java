@@ -0,0 +1,56 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.csv;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+public class IdCsvChunkerTest {
+
+    private static List<String> chunks(Iterator<String> ids, int maxChunkBytes, int maxRecords) {
+        List<String> chunks = new ArrayList<>();
+        try (IdCsvChunker chunker = new IdCsvChunker(ids, maxChunkBytes, maxRecords)) {
+            chunker.forEachRemaining(chunk -> chunks.add(new String(chunk, StandardCharsets.UTF_8)));
+        }
+        return chunks;
+    }
+
+    @Test
+    public void splitsByRecordsAndBytes() {
+        List<String> ids = Arrays.asList("001A", " ", "001B", null, "001C", "001D");
+
+        Assert.assertEquals(Arrays.asList("Id\n001A\n001B\n", "Id\n001C\n001D\n"), chunks(ids.iterator(), 1024, 2));
+        Assert.assertEquals(Arrays.asList("Id\n001A\n", "Id\n001B\n", "Id\n001C\n", "Id\n001D\n"), chunks(ids.iterator(), 12, 100));
+        Assert.assertTrue(chunks(Arrays.asList("", " ").iterator(), 1024, 2).isEmpty());
+    }
+
+    @Test
+    public void quotesSpecialCharacters() {
+        Assert.assertEquals("\"a,\"\"b\"\"\"\n", new String(IdCsvChunker.line("a,\"b\""), StandardCharsets.UTF_8));
+        Assert.assertEquals("001A\n", new String(IdCsvChunker.line("001A"), StandardCharsets.UTF_8));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsIdLargerThanChunk() {
+        chunks(Arrays.asList("0123456789").iterator(), 8, 10);
+    }
+}
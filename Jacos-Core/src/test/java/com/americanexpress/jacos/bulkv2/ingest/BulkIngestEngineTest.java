@@ -0,0 +1,113 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.ingest;
+
+import endolabs.salesforce.bulkv2.BulkRequestException;
+import endolabs.salesforce.bulkv2.response.CreateJobResponse;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class BulkIngestEngineTest {
+
+    private final BulkIngestEngine engine = new BulkIngestEngine(4, 2);
+
+    @After
+    public void close() {
+        engine.close();
+    }
+
+    private static CreateJobResponse job(String id) {
+        CreateJobResponse response = new CreateJobResponse();
+        response.setId(id);
+        return response;
+    }
+
+    @Test
+    public void jobsInChunkOrderWithBoundedConcurrency() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Integer> chunks = IntStream.range(0, 20).boxed().collect(Collectors.toList());
+
+        BulkIngestHandle handle = engine.ingest(chunks.iterator(), chunk -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(10 + (chunk % 3) * 5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            return job("job" + chunk);
+        });
+
+        List<String> ids = handle.await().stream().map(CreateJobResponse::getId).collect(Collectors.toList());
+        Assert.assertEquals(chunks.stream().map(i -> "job" + i).collect(Collectors.toList()), ids);
+        Assert.assertTrue(maxRunning.get() <= 4);
+        Assert.assertEquals(20, handle.getSubmittedChunks());
+    }
+
+    @Test
+    public void failureStopsReadingChunks() {
+        List<Integer> chunks = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            chunks.add(i);
+        }
+
+        BulkIngestHandle handle = engine.ingest(chunks.iterator(), chunk -> {
+            if (chunk == 3) {
+                throw new BulkRequestException("failed");
+            }
+            return job("job" + chunk);
+        });
+
+        try {
+            handle.await();
+            Assert.fail("Failure not reported");
+        } catch (BulkRequestException e) {
+            Assert.assertEquals("failed", e.getMessage());
+        }
+        Assert.assertTrue(handle.getSubmittedChunks() < 1000);
+        Assert.assertFalse(handle.getCreatedJobs().isEmpty());
+    }
+
+    @Test
+    public void failedChunkFreesItsSlotOnlyOnceStopped() {
+        try (BulkIngestEngine single = new BulkIngestEngine(1, 0)) {
+            for (int run = 0; run < 50; run++) {
+                AtomicInteger submissions = new AtomicInteger();
+                BulkIngestHandle handle = single.ingest(IntStream.range(0, 10).iterator(), chunk -> {
+                    submissions.incrementAndGet();
+                    throw new BulkRequestException("failed");
+                });
+
+                try {
+                    handle.await();
+                    Assert.fail("Failure not reported");
+                } catch (BulkRequestException e) {
+                    Assert.assertEquals("failed", e.getMessage());
+                }
+                Assert.assertEquals(1, submissions.get());
+                Assert.assertEquals(1, handle.getSubmittedChunks());
+            }
+        }
+    }
+}
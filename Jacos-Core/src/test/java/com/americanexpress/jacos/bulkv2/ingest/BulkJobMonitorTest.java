@@ -0,0 +1,118 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.ingest;
+
+import endolabs.salesforce.bulkv2.BulkRequestException;
+import endolabs.salesforce.bulkv2.response.GetJobInfoResponse;
+import endolabs.salesforce.bulkv2.type.JobStateEnum;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BulkJobMonitorTest {
+
+    private static GetJobInfoResponse info(JobStateEnum state, int processed) {
+        GetJobInfoResponse info = new GetJobInfoResponse();
+        info.setState(state);
+        info.setNumberRecordsProcessed(processed);
+        return info;
+    }
+
+    @Test
+    public void completesWhenJobFinishes() throws InterruptedException, ExecutionException, TimeoutException {
+        Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+        try (BulkJobMonitor monitor = new BulkJobMonitor(jobId -> {
+            int call = calls.computeIfAbsent(jobId, id -> new AtomicInteger()).incrementAndGet();
+            if (call < 3) {
+                return info(JobStateEnum.IN_PROGRESS, call * 10);
+            }
+            return info("job2".equals(jobId) ? JobStateEnum.FAILED : JobStateEnum.JOB_COMPLETE, 30);
+        }, 1, 20, 2.0)) {
+            CompletableFuture<GetJobInfoResponse> job1 = monitor.watch("job1");
+            CompletableFuture<GetJobInfoResponse> job2 = monitor.watch("job2");
+
+            Assert.assertSame(job1, monitor.watch("job1"));
+            Assert.assertEquals(JobStateEnum.JOB_COMPLETE, job1.get(5, TimeUnit.SECONDS).getState());
+            Assert.assertEquals(JobStateEnum.FAILED, job2.get(5, TimeUnit.SECONDS).getState());
+            Assert.assertEquals(3, calls.get("job1").get());
+        }
+    }
+
+    @Test
+    public void givesUpAfterConsecutiveErrors() throws InterruptedException, TimeoutException {
+        AtomicInteger calls = new AtomicInteger();
+        try (BulkJobMonitor monitor = new BulkJobMonitor(jobId -> {
+            calls.incrementAndGet();
+            throw new BulkRequestException("unavailable");
+        }, 1, 5, 2.0)) {
+            try {
+                monitor.watch("job1").get(5, TimeUnit.SECONDS);
+                Assert.fail("Failure not reported");
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof BulkRequestException);
+            }
+            Assert.assertEquals(BulkJobMonitor.MAX_CONSECUTIVE_ERRORS, calls.get());
+            Assert.assertEquals(0, monitor.getWatchedJobCount());
+        }
+    }
+
+    @Test
+    public void failsJobsWatchedAfterClose() throws InterruptedException, TimeoutException {
+        BulkJobMonitor monitor = new BulkJobMonitor(jobId -> info(JobStateEnum.JOB_COMPLETE, 0), 1, 5, 2.0);
+        monitor.close();
+
+        CompletableFuture<GetJobInfoResponse> job = monitor.watch("job1");
+        try {
+            job.get(5, TimeUnit.SECONDS);
+            Assert.fail("Closed monitor not reported");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        Assert.assertEquals(0, monitor.getWatchedJobCount());
+        Assert.assertNotSame(job, monitor.watch("job1"));
+    }
+
+    @Test
+    public void pollsOtherJobsDuringSlowStatusCall() throws InterruptedException, ExecutionException, TimeoutException {
+        CountDownLatch release = new CountDownLatch(1);
+        try (BulkJobMonitor monitor = new BulkJobMonitor(jobId -> {
+            if ("slow".equals(jobId)) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return info(JobStateEnum.JOB_COMPLETE, 10);
+        }, 1, 5, 2.0, 2)) {
+            CompletableFuture<GetJobInfoResponse> slow = monitor.watch("slow");
+            Thread.sleep(20);
+
+            Assert.assertEquals(JobStateEnum.JOB_COMPLETE, monitor.watch("fast").get(5, TimeUnit.SECONDS).getState());
+            Assert.assertFalse(slow.isDone());
+            release.countDown();
+            Assert.assertEquals(JobStateEnum.JOB_COMPLETE, slow.get(5, TimeUnit.SECONDS).getState());
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.ingest;
+
+import endolabs.salesforce.bulkv2.BulkRequestException;
+import endolabs.salesforce.bulkv2.response.CreateJobResponse;
+import endolabs.salesforce.bulkv2.type.JobStateEnum;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class BulkJobPipelineTest {
+
+    private final BulkJobPipeline pipeline = new BulkJobPipeline(1, 1);
+
+    @After
+    public void close() {
+        pipeline.close();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Records the calls of each stage; chunks below 0 are created with their data, chunk 3 fails to upload.
+     */
+    private static class RecordingStages implements BulkJobStages<Integer> {
+
+        private final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+
+        private final Set<String> uploading = ConcurrentHashMap.newKeySet();
+
+        private final AtomicBoolean createdWhileUploading = new AtomicBoolean();
+
+        private final boolean failChunk3;
+
+        RecordingStages(boolean failChunk3) {
+            this.failChunk3 = failChunk3;
+        }
+
+        @Override
+        public CreateJobResponse create(Integer chunk) {
+            sleep(5);
+            if (!uploading.isEmpty()) {
+                createdWhileUploading.set(true);
+            }
+            calls.add("create" + chunk);
+            CreateJobResponse job = new CreateJobResponse();
+            job.setId("job" + chunk);
+            job.setState(chunk < 0 ? JobStateEnum.UPLOAD_COMPLETE : JobStateEnum.OPEN);
+            return job;
+        }
+
+        @Override
+        public void upload(String jobId, Integer chunk) {
+            uploading.add(jobId);
+            calls.add("upload" + chunk);
+            sleep(20);
+            uploading.remove(jobId);
+            if (failChunk3 && chunk == 3) {
+                throw new BulkRequestException("upload failed");
+            }
+        }
+
+        @Override
+        public void close(String jobId) {
+            calls.add("close " + jobId);
+        }
+
+        @Override
+        public void abort(String jobId) {
+            calls.add("abort " + jobId);
+        }
+    }
+
+    @Test
+    public void overlapsStagesInChunkOrder() {
+        RecordingStages stages = new RecordingStages(false);
+        List<Integer> chunks = IntStream.range(-1, 5).boxed().collect(Collectors.toList());
+
+        BulkIngestHandle handle = pipeline.ingest(chunks.iterator(), stages);
+
+        List<String> ids = handle.await().stream().map(CreateJobResponse::getId).collect(Collectors.toList());
+        Assert.assertEquals(chunks.stream().map(i -> "job" + i).collect(Collectors.toList()), ids);
+        Assert.assertTrue(stages.createdWhileUploading.get());
+        Assert.assertEquals(IntStream.range(0, 5).mapToObj(i -> "upload" + i).collect(Collectors.toList()),
+                stages.calls.stream().filter(call -> call.startsWith("upload")).collect(Collectors.toList()));
+        Assert.assertEquals(IntStream.range(0, 5).mapToObj(i -> "close job" + i).collect(Collectors.toList()),
+                stages.calls.stream().filter(call -> call.startsWith("close")).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void failureAbortsOpenJobs() {
+        RecordingStages stages = new RecordingStages(true);
+        List<Integer> chunks = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+
+        BulkIngestHandle handle = pipeline.ingest(chunks.iterator(), stages);
+
+        try {
+            handle.await();
+            Assert.fail("Failure not reported");
+        } catch (BulkRequestException e) {
+            Assert.assertEquals("upload failed", e.getMessage());
+        }
+        Assert.assertTrue(stages.calls.contains("abort job3"));
+        Assert.assertFalse(stages.calls.contains("close job3"));
+        Assert.assertTrue(handle.getSubmittedChunks() < 100);
+        Assert.assertTrue(handle.getCreatedJobs().size() <= 3);
+        // every job created but not closed is aborted
+        long created = stages.calls.stream().filter(call -> call.startsWith("create")).count();
+        long ended = stages.calls.stream().filter(call -> call.startsWith("close") || call.startsWith("abort")).count();
+        Assert.assertEquals(created, ended);
+    }
+
+    @Test
+    public void failedChunkFreesItsSlotOnlyOnceStopped() {
+        try (BulkJobPipeline unbuffered = new BulkJobPipeline(1, 0)) {
+            for (int run = 0; run < 20; run++) {
+                // the first create fails once the reader took a chunk for each of the 3 slots
+                CountDownLatch slotsTaken = new CountDownLatch(3);
+                Iterator<Integer> range = IntStream.range(0, 10).iterator();
+                Iterator<Integer> chunks = new Iterator<Integer>() {
+                    @Override
+                    public boolean hasNext() {
+                        return range.hasNext();
+                    }
+
+                    @Override
+                    public Integer next() {
+                        slotsTaken.countDown();
+                        return range.next();
+                    }
+                };
+                BulkJobStages<Integer> stages = new RecordingStages(false) {
+                    @Override
+                    public CreateJobResponse create(Integer chunk) {
+                        try {
+                            slotsTaken.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        throw new BulkRequestException("create failed");
+                    }
+                };
+
+                BulkIngestHandle handle = unbuffered.ingest(chunks, stages);
+
+                try {
+                    handle.await();
+                    Assert.fail("Failure not reported");
+                } catch (BulkRequestException e) {
+                    Assert.assertEquals("create failed", e.getMessage());
+                }
+                Assert.assertEquals(3, handle.getSubmittedChunks());
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.query;
+
+import com.americanexpress.jacos.bulkv2.response.QueryResultPage;
+import okio.Buffer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Serves canned pages chained by locator, like the results endpoint of a query job.
+ */
+class FakeQueryResults implements Function<String, QueryResultPage> {
+
+    private final Map<String, String> pages = new HashMap<>();
+
+    private final Map<String, String> nextLocators = new HashMap<>();
+
+    FakeQueryResults page(String locator, String csv, String nextLocator) {
+        pages.put(locator, csv);
+        nextLocators.put(locator, nextLocator);
+        return this;
+    }
+
+    @Override
+    public QueryResultPage apply(String locator) {
+        String key = locator == null ? "" : locator;
+        return new QueryResultPage(new Buffer().writeUtf8(pages.get(key)), nextLocators.get(key), null);
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.query;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+public class QueryResultDownloaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final QueryResultDownloader downloader = new QueryResultDownloader(3);
+
+    @After
+    public void close() {
+        downloader.close();
+    }
+
+    @Test
+    public void writesPagesInOrderWithOneHeader() throws IOException {
+        FakeQueryResults results = new FakeQueryResults();
+        StringBuilder expected = new StringBuilder("\"Id\"\n");
+        for (int page = 0; page < 10; page++) {
+            StringBuilder csv = new StringBuilder("\"Id\"\n");
+            for (int i = 0; i < 100; i++) {
+                String record = "\"" + (page * 100 + i) + "\"\n";
+                csv.append(record);
+                expected.append(record);
+            }
+            results.page(page == 0 ? "" : "L" + page, csv.toString(), page == 9 ? null : "L" + (page + 1));
+        }
+        Path target = folder.getRoot().toPath().resolve("out.csv");
+
+        long written = downloader.download(results, target);
+
+        Assert.assertEquals(expected.toString(), new String(Files.readAllBytes(target), StandardCharsets.UTF_8));
+        Assert.assertEquals(Files.size(target), written);
+        try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+            Assert.assertEquals(1, files.count());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.query;
+
+import com.americanexpress.jacos.bulkv2.response.JobResultRecord;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class QueryResultReaderTest {
+
+    @Test
+    public void followsLocatorsAcrossPages() throws Exception {
+        FakeQueryResults results = new FakeQueryResults()
+                .page("", "\"Id\",\"Name\"\n\"001A\",\"Acme\"\n\"001B\",\"Globex\"\n", "MjAwMDAw")
+                .page("MjAwMDAw", "\"Id\",\"Name\"\n", "NDAwMDAw")
+                .page("NDAwMDAw", "\"Id\",\"Name\"\n\"001C\",\"Initech\"\n", "null");
+
+        try (QueryResultReader reader = new QueryResultReader(results);
+             Stream<JobResultRecord> records = reader.stream()) {
+            List<String> names = records.map(record -> record.get("Name")).collect(Collectors.toList());
+            Assert.assertEquals(Arrays.asList("Acme", "Globex", "Initech"), names);
+            Assert.assertEquals(3, reader.getPages());
+        }
+    }
+}
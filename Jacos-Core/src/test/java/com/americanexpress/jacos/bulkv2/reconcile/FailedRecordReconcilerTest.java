@@ -0,0 +1,113 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.reconcile;
+
+import com.americanexpress.jacos.bulkv2.response.JobResultReader;
+import endolabs.salesforce.bulkv2.response.CreateJobResponse;
+import endolabs.salesforce.bulkv2.response.GetJobInfoResponse;
+import endolabs.salesforce.bulkv2.type.JobStateEnum;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+public class FailedRecordReconcilerTest {
+
+    private static final String HEADER = "\"sf__Id\",\"sf__Error\",\"Name\"\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Map<String, String> failedResults = new HashMap<>();
+
+    private final List<String> retryFiles = new ArrayList<>();
+
+    private static CompletableFuture<GetJobInfoResponse> finished(String jobId) {
+        GetJobInfoResponse info = new GetJobInfoResponse();
+        info.setId(jobId);
+        info.setState(JobStateEnum.JOB_COMPLETE);
+        return CompletableFuture.completedFuture(info);
+    }
+
+    private FailedRecordReconciler reconciler(int maxRetries) {
+        return new FailedRecordReconciler(
+                jobId -> new JobResultReader(new StringReader(failedResults.getOrDefault(jobId, HEADER))),
+                FailedRecordReconcilerTest::finished,
+                retryFile -> {
+                    try {
+                        retryFiles.add(new String(Files.readAllBytes(retryFile), StandardCharsets.UTF_8));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    CreateJobResponse job = new CreateJobResponse();
+                    job.setId("retry" + retryFiles.size());
+                    return Collections.singletonList(job);
+                },
+                new RetryPolicy(RetryPolicy.DEF_RETRYABLE_ERROR_CODES, maxRetries),
+                folder.getRoot().toPath());
+    }
+
+    @Test
+    public void retriesTransientFailuresAndDeadLettersTheRest() throws IOException {
+        failedResults.put("job1", HEADER
+                + "\"\",\"UNABLE_TO_LOCK_ROW:unable to obtain exclusive access to this record:--\",\"Acme\"\n"
+                + "\"\",\"REQUIRED_FIELD_MISSING:Required fields are missing: [Name]:Name --\",\"\"\n"
+                + "\"\",\"Timeout while processing the record\",\"Globex\"\n");
+        failedResults.put("retry1", HEADER
+                + "\"\",\"UNABLE_TO_LOCK_ROW:unable to obtain exclusive access to this record:--\",\"Acme\"\n");
+
+        ReconciliationResult result = reconciler(3).reconcile(Arrays.asList("job1", "job2"));
+
+        Assert.assertEquals("\"Name\"\n\"Acme\"\n\"Globex\"\n", retryFiles.get(0));
+        Assert.assertEquals("\"Name\"\n\"Acme\"\n", retryFiles.get(1));
+        Assert.assertEquals(3, result.getRetriedRecords());
+        Assert.assertEquals(1, result.getDeadLetterRecords());
+        Assert.assertEquals(3, result.getRounds());
+        Assert.assertFalse(result.isFullyReconciled());
+
+        List<String> deadLetters = Files.readAllLines(result.getDeadLetterFiles().get(0));
+        Assert.assertEquals("\"sf__JobId\",\"sf__Error\",\"Name\"", deadLetters.get(0));
+        Assert.assertEquals("\"job1\",\"REQUIRED_FIELD_MISSING:Required fields are missing: [Name]:Name --\",\"\"", deadLetters.get(1));
+    }
+
+    @Test
+    public void givesUpAfterMaxRetries() throws IOException {
+        String lockFailure = HEADER + "\"\",\"UNABLE_TO_LOCK_ROW:unable to obtain exclusive access to this record:--\",\"Acme\"\n";
+        failedResults.put("job1", lockFailure);
+        failedResults.put("retry1", lockFailure);
+
+        ReconciliationResult result = reconciler(1).reconcile(Collections.singletonList("job1"));
+
+        Assert.assertEquals(1, retryFiles.size());
+        Assert.assertEquals(1, result.getRetriedRecords());
+        Assert.assertEquals(1, result.getDeadLetterRecords());
+        Assert.assertEquals(2, Files.readAllLines(result.getDeadLetterFiles().get(0)).size());
+    }
+}
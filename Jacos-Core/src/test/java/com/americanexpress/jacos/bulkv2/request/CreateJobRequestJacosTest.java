@@ -0,0 +1,48 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.request;
+
+import com.americanexpress.jacos.bulkv2.type.OperationEnumJacos;
+import com.americanexpress.jacos.utils.Json;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+public class CreateJobRequestJacosTest {
+
+    @Test
+    public void contentIsKeptOutOfTheJobJson() {
+        File file = new File("accounts.csv");
+        CreateJobRequestJacos fromFile = new CreateJobRequestJacos.Builder("Account", OperationEnumJacos.INSERT)
+                .withContent(file)
+                .build();
+        CreateJobRequestJacos fromBytes = new CreateJobRequestJacos.Builder("Account", OperationEnumJacos.INSERT)
+                .withContent("Name\nAcme\n".getBytes(StandardCharsets.UTF_8))
+                .build();
+
+        Assert.assertSame(file, fromFile.getContentFile());
+        Assert.assertTrue(fromFile.hasContent());
+        Assert.assertTrue(fromBytes.hasContent());
+        Assert.assertFalse(new CreateJobRequestJacos.Builder("Account", OperationEnumJacos.INSERT).build().hasContent());
+
+        String json = Json.encode(fromBytes);
+        Assert.assertTrue(json.contains("\"operation\":\"insert\""));
+        Assert.assertFalse(json.contains("content\""));
+        Assert.assertFalse(json.contains("Acme"));
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.response;
+
+import com.americanexpress.jacos.bulkv2.type.OperationEnumJacos;
+import com.americanexpress.jacos.utils.Json;
+import endolabs.salesforce.bulkv2.type.JobStateEnum;
+import endolabs.salesforce.bulkv2.type.OperationEnum;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IngestJobInfoTest {
+
+    private static IngestJobInfo decode(String operation) {
+        return Json.decode("{\"id\":\"750R0000000zlh9IAA\",\"operation\":\"" + operation + "\",\"object\":\"Account\","
+                + "\"state\":\"JobComplete\",\"numberRecordsProcessed\":42}", IngestJobInfo.class);
+    }
+
+    @Test
+    public void decodesHardDeleteOperation() {
+        IngestJobInfo info = decode("hardDelete");
+
+        Assert.assertEquals(OperationEnumJacos.HARDDELETE, info.getIngestOperation());
+        Assert.assertNull(info.getOperation());
+        Assert.assertEquals(JobStateEnum.JOB_COMPLETE, info.getState());
+        Assert.assertEquals(Integer.valueOf(42), info.getNumberRecordsProcessed());
+    }
+
+    @Test
+    public void decodesOtherOperationsBothWays() {
+        IngestJobInfo info = decode("upsert");
+
+        Assert.assertEquals(OperationEnumJacos.UPSERT, info.getIngestOperation());
+        Assert.assertEquals(OperationEnum.UPSERT, info.getOperation());
+        Assert.assertNull(decode("unknownOperation").getIngestOperation());
+    }
+
+    @Test
+    public void encodesIngestOperation() {
+        IngestJobInfo info = new IngestJobInfo();
+        info.setIngestOperation(OperationEnumJacos.HARDDELETE);
+
+        Assert.assertTrue(Json.encode(info), Json.encode(info).contains("\"operation\":\"hardDelete\""));
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.response;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class JobResultReaderTest {
+
+    private static final String FAILED_RESULTS = "\"sf__Id\",\"sf__Error\",Name,Description\n"
+            + "\"\",\"UNABLE_TO_LOCK_ROW:unable to obtain exclusive access to this record:--\",\"Acme\",\"multi\nline\"\n"
+            + "\"001xx000003DGb2AAG\",\"REQUIRED_FIELD_MISSING:Required fields are missing: [Name]:Name --\",\"\",\"none\"\n";
+
+    @Test
+    public void readsRecordsOneByOne() throws Exception {
+        try (JobResultReader reader = new JobResultReader(new StringReader(FAILED_RESULTS))) {
+            Assert.assertArrayEquals(new String[]{"Name", "Description"}, reader.getDataHeader());
+
+            JobResultRecord first = reader.next();
+            Assert.assertNull(first.getId());
+            Assert.assertEquals("UNABLE_TO_LOCK_ROW", first.getErrorCode());
+            Assert.assertEquals("multi\nline", first.get("Description"));
+            Assert.assertEquals(Arrays.asList("Name", "Description"), Arrays.asList(first.getData().keySet().toArray()));
+
+            JobResultRecord second = reader.next();
+            Assert.assertEquals("001xx000003DGb2AAG", second.getId());
+            Assert.assertEquals("REQUIRED_FIELD_MISSING", second.getErrorCode());
+            Assert.assertFalse(reader.hasNext());
+        }
+    }
+
+    @Test
+    public void streamsSuccessfulRecords() {
+        String results = "sf__Id,sf__Created,Name\n001A,true,Acme\n001B,false,Globex\n";
+        try (Stream<JobResultRecord> records = new JobResultReader(new StringReader(results)).stream()) {
+            List<String> created = records.filter(JobResultRecord::isCreated).map(JobResultRecord::getId).collect(Collectors.toList());
+            Assert.assertEquals(Arrays.asList("001A"), created);
+        }
+    }
+
+    @Test
+    public void emptyResults() throws Exception {
+        try (JobResultReader reader = new JobResultReader(new StringReader(""))) {
+            Assert.assertFalse(reader.hasNext());
+            Assert.assertEquals(0, reader.getHeader().length);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.bulkv2.response;
+
+import com.americanexpress.jacos.bulkv2.type.QueryOperationEnum;
+import com.americanexpress.jacos.utils.Json;
+import endolabs.salesforce.bulkv2.type.JobStateEnum;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QueryJobInfoTest {
+
+    @Test
+    public void decodesQueryOperationAndJobType() {
+        QueryJobInfo info = Json.decode("{\"id\":\"750R0000000zlh9IAA\",\"operation\":\"queryAll\",\"object\":\"Account\","
+                + "\"state\":\"JobComplete\",\"jobType\":\"V2Query\",\"numberRecordsProcessed\":42}", QueryJobInfo.class);
+
+        Assert.assertEquals(QueryOperationEnum.QUERY_ALL, info.getQueryOperation());
+        Assert.assertEquals("V2Query", info.getQueryJobType());
+        Assert.assertEquals(JobStateEnum.JOB_COMPLETE, info.getState());
+        Assert.assertEquals(Integer.valueOf(42), info.getNumberRecordsProcessed());
+        Assert.assertNull(info.getOperation());
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.commons;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AccessTokenProviderTest {
+
+    @Test
+    public void concurrentRefreshesFetchOneToken() throws Exception {
+        AtomicInteger refreshes = new AtomicInteger();
+        AccessTokenProvider provider = new AccessTokenProvider("expired", () -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "token" + refreshes.incrementAndGet();
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<String>> tokens = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                tokens.add(executor.submit(() -> {
+                    start.await();
+                    return provider.refresh("expired");
+                }));
+            }
+            start.countDown();
+            for (Future<String> token : tokens) {
+                Assert.assertEquals("token1", token.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(1, refreshes.get());
+        Assert.assertEquals("token2", provider.refresh("token1"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void fixedTokenCanNotBeRefreshed() {
+        new AccessTokenProvider("token").refresh("token");
+    }
+
+    @Test
+    public void missingTokenIsRefreshed() {
+        AccessTokenProvider provider = new AccessTokenProvider(null, () -> "token1");
+
+        Assert.assertFalse(provider.update(null));
+        Assert.assertEquals("token1", provider.refresh(null));
+        Assert.assertTrue(provider.update("token2"));
+        Assert.assertFalse(provider.update("token2"));
+        Assert.assertEquals("token2", provider.refresh("token1"));
+    }
+}
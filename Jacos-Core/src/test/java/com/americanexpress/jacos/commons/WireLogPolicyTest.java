@@ -0,0 +1,70 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.commons;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+public class WireLogPolicyTest {
+
+    @Test
+    public void redactsHeadersIgnoringCase() {
+        WireLogPolicy policy = new WireLogPolicy();
+        Assert.assertEquals(WireLogPolicy.REDACTED, policy.headerValue("authorization", "Bearer 00D"));
+        Assert.assertEquals("text/csv", policy.headerValue("Content-Type", "text/csv"));
+
+        policy.setRedactedHeaders(Collections.singletonList("X-SFDC-Session"));
+        Assert.assertEquals(WireLogPolicy.REDACTED, policy.headerValue("x-sfdc-session", "00D"));
+        Assert.assertEquals("Bearer 00D", policy.headerValue("Authorization", "Bearer 00D"));
+    }
+
+    @Test
+    public void samplesBodiesOnlyAtBodyLevel() {
+        WireLogPolicy policy = new WireLogPolicy();
+        Assert.assertTrue(policy.logsHeaders());
+        Assert.assertFalse(policy.sampleBody());
+
+        policy.setLevel(WireLogPolicy.Level.BODY);
+        Assert.assertTrue(policy.sampleBody());
+
+        policy.setBodySampleRate(0);
+        Assert.assertFalse(policy.sampleBody());
+
+        Assert.assertFalse(new WireLogPolicy(WireLogPolicy.Level.NONE).logsHeaders());
+    }
+
+    @Test
+    public void capsBodies() {
+        WireLogPolicy policy = new WireLogPolicy(WireLogPolicy.Level.BODY);
+        policy.setMaxBodyBytes(4);
+        byte[] body = "Id,Name".getBytes(StandardCharsets.UTF_8);
+
+        Assert.assertEquals("Id,N...(truncated at 4 bytes)", policy.bodyText(body, body.length, false));
+        Assert.assertEquals("Id,...(truncated at 3 bytes)", policy.bodyText(body, 3, true));
+        Assert.assertEquals("Id,", policy.bodyText(body, 3, false));
+    }
+
+    @Test
+    public void logsTextBodiesOnly() {
+        Assert.assertTrue(WireLogPolicy.isText("text/csv; charset=utf-8"));
+        Assert.assertTrue(WireLogPolicy.isText("application/json"));
+        Assert.assertFalse(WireLogPolicy.isText("application/x-www-form-urlencoded"));
+        Assert.assertFalse(WireLogPolicy.isText(null));
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.model;
+
+import com.americanexpress.jacos.utils.Json;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @see <a href="https://developer.salesforce.com/docs/atlas.en-us.api_rest.meta/api_rest/resources_composite_composite.htm">salesforce</a>
+ */
+public class CompositeRequestTest {
+
+    private static CompositeRequest parentAndChild() {
+        Map<String, Object> contact = new LinkedHashMap<>();
+        contact.put("LastName", "Smith");
+        contact.put("AccountId", CompositeRequest.reference("newAccount", "id"));
+        return new CompositeRequest()
+                .addSubrequest("POST", CompositeRequest.sobjectUrl("Account"), "newAccount", Collections.singletonMap("Name", "Acme"))
+                .addSubrequest("POST", CompositeRequest.sobjectUrl("Contact"), "newContact", contact)
+                .addSubrequest("PATCH", CompositeRequest.sobjectUrl("Account", CompositeRequest.reference("newAccount", "id")), "renameAccount",
+                        Collections.singletonMap("Description", "Has contact " + CompositeRequest.reference("newContact", "id")));
+    }
+
+    @Test
+    public void writesCompositeRequest() {
+        CompositeRequest request = parentAndChild();
+        request.setAllOrNone(true);
+        request.validate();
+
+        Assert.assertEquals("{\"allOrNone\":true,\"compositeRequest\":["
+                + "{\"method\":\"POST\",\"url\":\"/services/data/vXX.X/sobjects/Account\",\"referenceId\":\"newAccount\",\"body\":{\"Name\":\"Acme\"}},"
+                + "{\"method\":\"POST\",\"url\":\"/services/data/vXX.X/sobjects/Contact\",\"referenceId\":\"newContact\",\"body\":{\"LastName\":\"Smith\",\"AccountId\":\"@{newAccount.id}\"}},"
+                + "{\"method\":\"PATCH\",\"url\":\"/services/data/vXX.X/sobjects/Account/@{newAccount.id}\",\"referenceId\":\"renameAccount\",\"body\":{\"Description\":\"Has contact @{newContact.id}\"}}]}",
+                Json.encode(request));
+    }
+
+    @Test
+    public void rejectsInvalidRequests() {
+        assertInvalid(new CompositeRequest());
+        assertInvalid(parentAndChild().addSubrequest("GET", CompositeRequest.sobjectUrl("Account", "001"), "newAccount", null));
+        assertInvalid(parentAndChild().addSubrequest("GET", CompositeRequest.sobjectUrl("Account", "001"), "new-account", null));
+        assertInvalid(new CompositeRequest()
+                .addSubrequest("GET", CompositeRequest.sobjectUrl("Account", CompositeRequest.reference("later", "id")), "first", null)
+                .addSubrequest("GET", CompositeRequest.sobjectUrl("Account", "001"), "later", null));
+
+        CompositeRequest full = new CompositeRequest();
+        for (int i = 0; i < CompositeRequest.MAX_SUBREQUESTS; i++) {
+            full.addSubrequest("GET", CompositeRequest.sobjectUrl("Account", "001"), "get" + i, null);
+        }
+        full.validate();
+        assertInvalid(full.addSubrequest("GET", CompositeRequest.sobjectUrl("Account", "001"), "oneTooMany", null));
+    }
+
+    @Test
+    public void readsCompositeResponse() {
+        CompositeResponse response = Json.decode("{\"compositeResponse\":["
+                + "{\"body\":{\"id\":\"001A\",\"success\":true,\"errors\":[]},\"httpHeaders\":{\"Location\":\"/services/data/v47.0/sobjects/Account/001A\"},\"httpStatusCode\":201,\"referenceId\":\"newAccount\"},"
+                + "{\"body\":[{\"errorCode\":\"PROCESSING_HALTED\",\"message\":\"Invalid reference specified.\"}],\"httpHeaders\":{},\"httpStatusCode\":400,\"referenceId\":\"newContact\"},"
+                + "{\"body\":null,\"httpHeaders\":{},\"httpStatusCode\":204,\"referenceId\":\"renameAccount\"}]}", CompositeResponse.class);
+
+        Assert.assertEquals(3, response.getCompositeResponse().size());
+        Assert.assertFalse(response.isSuccess());
+        Assert.assertEquals("001A", response.get("newAccount").getId());
+        Assert.assertFalse(response.get("newContact").isSuccess());
+        Assert.assertEquals("PROCESSING_HALTED", response.get("newContact").getBody().get(0).get("errorCode").asText());
+        Assert.assertTrue(response.get("renameAccount").isSuccess());
+        Assert.assertNull(response.get("renameAccount").getId());
+        Assert.assertNull(response.get("unknown"));
+    }
+
+    private static void assertInvalid(CompositeRequest request) {
+        try {
+            request.validate();
+            Assert.fail("Invalid request accepted:" + request);
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.oauth2.service;
+
+import com.americanexpress.jacos.bulkv2.Bulk2ClientJacos;
+import com.americanexpress.jacos.bulkv2.request.OperationInfo;
+import com.americanexpress.jacos.bulkv2.type.OperationEnumJacos;
+import com.americanexpress.jacos.service.BulkApi2Operations;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BulkClientConfigurerTest {
+
+    private static final String JOB = "{\"id\":\"750\",\"object\":\"Account\",\"operation\":\"insert\",\"state\":\"UploadComplete\"}";
+
+    private final AtomicInteger refreshes = new AtomicInteger();
+
+    private MockWebServer server;
+
+    private BulkClientConfigurer configurer;
+
+    private BulkApi2Operations operations;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        AccessTknForRefreshTkn tokens = new AccessTknForRefreshTkn() {
+            @Override
+            public String getAccessToken() {
+                return "token" + (refreshes.get() + 1);
+            }
+
+            @Override
+            public String getRefreshAccessToken() {
+                return "token" + (refreshes.incrementAndGet() + 1);
+            }
+        };
+        configurer = new BulkClientConfigurer();
+        ReflectionTestUtils.setField(configurer, "accessTknForRefreshTkn", tokens);
+        configurer.setInstanceURL("http://" + server.getHostName() + ":" + server.getPort());
+        configurer.init();
+        operations = new BulkApi2Operations();
+        ReflectionTestUtils.setField(operations, "bulkClientConf", configurer);
+        operations.init();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        operations.destroy();
+        server.shutdown();
+    }
+
+    private RecordedRequest submit() throws InterruptedException {
+        server.enqueue(new MockResponse().setBody(JOB));
+        operations.performSFOperation(new OperationInfo("Account", OperationEnumJacos.INSERT, null), "Name\nAcme\n");
+        return server.takeRequest();
+    }
+
+    @Test
+    public void submitsWithoutRefreshingTheToken() throws InterruptedException {
+        Assert.assertEquals("Bearer token1", submit().getHeader("Authorization"));
+        Assert.assertEquals("Bearer token1", submit().getHeader("Authorization"));
+
+        Assert.assertEquals(0, refreshes.get());
+    }
+
+    @Test
+    public void refreshKeepsTheClientAndItsConnections() throws InterruptedException {
+        Bulk2ClientJacos client = configurer.getBulk2Client();
+        Assert.assertEquals(0, submit().getSequenceNumber());
+
+        Assert.assertSame(client, configurer.refreshBulkClient());
+        Assert.assertSame(client, configurer.getBulk2Client());
+
+        RecordedRequest next = submit();
+        Assert.assertEquals(1, refreshes.get());
+        Assert.assertEquals("Bearer token2", next.getHeader("Authorization"));
+        // sent on the connection of the first request, so by the same OkHttpClient
+        Assert.assertEquals(1, next.getSequenceNumber());
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.part;
+
+import com.americanexpress.jacos.exception.PartApiException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class CompositeBatchSenderTest {
+
+    @Test
+    public void keepsOrderOfBatches() throws Exception {
+        List<Integer> batches = IntStream.range(0, 50).boxed().collect(Collectors.toList());
+        AtomicInteger read = new AtomicInteger();
+        AtomicInteger maxAhead = new AtomicInteger();
+        List<String> responses = new ArrayList<>();
+        Iterator<Integer> source = batches.iterator();
+        Iterator<Integer> counting = new Iterator<Integer>() {
+            @Override
+            public boolean hasNext() {
+                return source.hasNext();
+            }
+
+            @Override
+            public Integer next() {
+                maxAhead.accumulateAndGet(read.incrementAndGet() - responses.size(), Math::max);
+                return source.next();
+            }
+        };
+
+        try (CompositeBatchSender sender = new CompositeBatchSender(4, 2)) {
+            sender.send(counting, batch -> {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos((batch * 7) % 5));
+                return "r" + batch;
+            }, responses::add);
+        }
+
+        Assert.assertEquals(batches.stream().map(batch -> "r" + batch).collect(Collectors.toList()), responses);
+        Assert.assertTrue("Read ahead:" + maxAhead.get(), maxAhead.get() <= 6);
+    }
+
+    @Test
+    public void stopsOnFirstFailure() {
+        List<String> responses = new ArrayList<>();
+        try (CompositeBatchSender sender = new CompositeBatchSender(2, 0)) {
+            sender.send(IntStream.range(0, 20).iterator(), batch -> {
+                if (batch == 3) {
+                    throw new PartApiException("Rejected batch " + batch);
+                }
+                return "r" + batch;
+            }, responses::add);
+            Assert.fail("Failure not reported");
+        } catch (PartApiException e) {
+            Assert.assertEquals("Rejected batch 3", e.getMessage());
+        }
+        Assert.assertEquals(Arrays.asList("r0", "r1", "r2"), responses.subList(0, 3));
+        Assert.assertFalse(responses.contains("r3"));
+    }
+
+    @Test
+    public void writesResponsesOfBatchesSentBeforeFailure() {
+        List<Integer> sent = Collections.synchronizedList(new ArrayList<>());
+        List<String> responses = new ArrayList<>();
+        CountDownLatch nextAnswered = new CountDownLatch(1);
+        try (CompositeBatchSender sender = new CompositeBatchSender(3, 2)) {
+            sender.send(IntStream.range(0, 20).iterator(), batch -> {
+                sent.add(batch);
+                if (batch == 1) {
+                    try {
+                        Assert.assertTrue(nextAnswered.await(5, TimeUnit.SECONDS));
+                    } catch (InterruptedException e) {
+                        throw new PartApiException("Interrupted", e);
+                    }
+                    throw new PartApiException("Rejected batch " + batch);
+                }
+                if (batch == 2) {
+                    nextAnswered.countDown();
+                }
+                return "r" + batch;
+            }, responses::add);
+            Assert.fail("Failure not reported");
+        } catch (PartApiException e) {
+            Assert.assertEquals("Rejected batch 1", e.getMessage());
+        }
+
+        Assert.assertTrue(responses.contains("r2"));
+        List<Integer> answered = new ArrayList<>(sent);
+        answered.remove(Integer.valueOf(1));
+        Assert.assertEquals(answered.stream().sorted().map(batch -> "r" + batch).collect(Collectors.toList()), responses);
+    }
+}
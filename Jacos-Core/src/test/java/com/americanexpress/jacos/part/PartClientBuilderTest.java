@@ -0,0 +1,104 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.part;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.americanexpress.jacos.bulkv2.type.OperationEnumJacos;
+import com.americanexpress.jacos.commons.WireLogPolicy;
+import com.americanexpress.jacos.utils.RestUtils;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+public class PartClientBuilderTest {
+
+    private static final String FRESH_TOKEN = "00Dfresh!token";
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(WireLoggingRequestInterceptor.class);
+
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    private MockWebServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        appender.start();
+        logger.addAppender(appender);
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        logger.detachAppender(appender);
+        server.shutdown();
+    }
+
+    private PartClientBuilder<RestUtils.ConfigBean> builder() {
+        RestUtils.ConfigBean configBean = new RestUtils.ConfigBean("refresh_token", "refresh", "client", "secret", null,
+                server.url("/services/oauth2/token").toString());
+        return new PartClientBuilder<RestUtils.ConfigBean>()
+                .setCallbackConfigBean(configBean)
+                .setRefreshTokenCallback(RestUtils::getFreshAccessToken)
+                .useAPIVersion("v47.0")
+                .useWireLogPolicy(new WireLogPolicy(WireLogPolicy.Level.BODY))
+                .withSessionId("00Dexpired", "http://" + server.getHostName() + ":" + server.getPort() + "/");
+    }
+
+    @Test
+    public void doesNotLogTheRefreshedToken() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(401).setHeader("Content-Type", "application/json")
+                .setBody("[{\"message\":\"Session expired or invalid\",\"errorCode\":\"INVALID_SESSION_ID\"}]"));
+        server.enqueue(new MockResponse().setHeader("Content-Type", "application/json")
+                .setBody("{\"access_token\":\"" + FRESH_TOKEN + "\",\"token_type\":\"Bearer\"}"));
+        server.enqueue(new MockResponse().setResponseCode(201).setHeader("Content-Type", "application/json")
+                .setBody("{\"id\":\"001\",\"success\":true}"));
+
+        try (PartClient<RestUtils.ConfigBean> client = builder().build()) {
+            Assert.assertEquals("201", client.modifyObject("Account", OperationEnumJacos.INSERT, "{\"Name\":\"Acme\"}"));
+        }
+
+        server.takeRequest();
+        Assert.assertEquals("/services/oauth2/token", server.takeRequest().getPath());
+        Assert.assertEquals("Bearer " + FRESH_TOKEN, server.takeRequest().getHeader("Authorization"));
+        Assert.assertFalse(appender.list.isEmpty());
+        for (ILoggingEvent event : appender.list) {
+            Assert.assertFalse(event.getFormattedMessage(), event.getFormattedMessage().contains("oauth2/token"));
+            Assert.assertFalse(event.getFormattedMessage(), event.getFormattedMessage().contains(FRESH_TOKEN));
+        }
+    }
+
+    @Test
+    public void doesNotStackLoggingOnRepeatedBuilds() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(201).setBody("{\"id\":\"001\",\"success\":true}"));
+        PartClientBuilder<RestUtils.ConfigBean> builder = builder();
+        builder.build().close();
+
+        try (PartClient<RestUtils.ConfigBean> client = builder.build()) {
+            client.modifyObject("Account", OperationEnumJacos.INSERT, "{\"Name\":\"Acme\"}");
+        }
+
+        Assert.assertEquals(1, appender.list.size());
+    }
+}
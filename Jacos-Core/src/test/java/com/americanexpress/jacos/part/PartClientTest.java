@@ -0,0 +1,132 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.part;
+
+import com.americanexpress.jacos.bulkv2.type.OperationEnumJacos;
+import com.americanexpress.jacos.exception.PartApiException;
+import com.americanexpress.jacos.model.CompositeRequest;
+import com.americanexpress.jacos.model.CompositeResponse;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.jsonPath;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+public class PartClientTest {
+
+    private static List<HttpMessageConverter<?>> jacksonConverters(RestTemplate restTemplate) {
+        return restTemplate.getMessageConverters().stream()
+                .filter(converter -> converter instanceof MappingJackson2HttpMessageConverter)
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void configuresConvertersOnce() throws PartApiException {
+        RestTemplate restTemplate = new RestTemplate();
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("Authorization", "Bearer token1");
+        PartClient<Void> partClient = new PartClient<>("https://example.my.salesforce.com", restTemplate, headers, null, null, "v47.0");
+        int converterCount = restTemplate.getMessageConverters().size();
+        Assert.assertEquals(1, jacksonConverters(restTemplate).size());
+
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        server.expect(ExpectedCount.times(100), requestTo("https://example.my.salesforce.com/services/data/v47.0/sobjects/Account"))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(header("Authorization", "Bearer token1"))
+                .andExpect(content().json("{\"Name\":\"Acme\"}"))
+                .andRespond(withStatus(HttpStatus.CREATED));
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals("201", partClient.modifyObject("Account", OperationEnumJacos.INSERT, "{\"Name\":\"Acme\"}"));
+        }
+        server.verify();
+        Assert.assertEquals(converterCount, restTemplate.getMessageConverters().size());
+
+        // a second client on the same template does not add a converter either
+        new PartClient<>("https://example.my.salesforce.com", restTemplate, headers, null, null, "v47.0");
+        Assert.assertEquals(converterCount, restTemplate.getMessageConverters().size());
+        RestTemplate other = new RestTemplate();
+        new PartClient<>("https://example.my.salesforce.com", other, headers, null, null, "v47.0");
+        Assert.assertSame(jacksonConverters(restTemplate).get(0), jacksonConverters(other).get(0));
+    }
+
+    @Test
+    public void reportsInvalidPayload() {
+        PartClient<Void> partClient = new PartClient<>("https://example.my.salesforce.com", new RestTemplate(), new HttpHeaders(), null, null, "v47.0");
+        try {
+            partClient.modifyObject("Account", OperationEnumJacos.INSERT, "{\"Name\":");
+            Assert.fail("Invalid payload not reported");
+        } catch (PartApiException e) {
+            Assert.assertNotNull(e.getCause());
+        }
+    }
+
+    @Test
+    public void executesCompositeRequest() throws PartApiException {
+        RestTemplate restTemplate = new RestTemplate();
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("Authorization", "Bearer token1");
+        PartClient<Void> partClient = new PartClient<>("https://example.my.salesforce.com", restTemplate, headers, null, null, "v47.0");
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        server.expect(requestTo("https://example.my.salesforce.com/services/data/v47.0/composite"))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(jsonPath("$.compositeRequest[0].url").value("/services/data/v47.0/sobjects/Account"))
+                .andExpect(jsonPath("$.compositeRequest[1].url").value("/services/data/v47.0/sobjects/Account/@{newAccount.id}"))
+                .andRespond(withSuccess("{\"compositeResponse\":["
+                        + "{\"body\":{\"id\":\"001A\",\"success\":true,\"errors\":[]},\"httpHeaders\":{},\"httpStatusCode\":201,\"referenceId\":\"newAccount\"},"
+                        + "{\"body\":null,\"httpHeaders\":{},\"httpStatusCode\":204,\"referenceId\":\"renameAccount\"}]}", MediaType.APPLICATION_JSON));
+
+        CompositeResponse response = partClient.executeComposite(new CompositeRequest()
+                .addSubrequest("POST", CompositeRequest.sobjectUrl("Account"), "newAccount", Collections.singletonMap("Name", "Acme"))
+                .addSubrequest("PATCH", CompositeRequest.sobjectUrl("Account", CompositeRequest.reference("newAccount", "id")), "renameAccount",
+                        Collections.singletonMap("Name", "Acme Corp")));
+
+        server.verify();
+        Assert.assertTrue(response.isSuccess());
+        Assert.assertEquals("001A", response.get("newAccount").getId());
+    }
+
+    @Test
+    public void rejectsInvalidCompositeRequest() {
+        RestTemplate restTemplate = new RestTemplate();
+        PartClient<Void> partClient = new PartClient<>("https://example.my.salesforce.com", restTemplate, new HttpHeaders(), null, null, "v47.0");
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        try {
+            partClient.executeComposite(new CompositeRequest());
+            Assert.fail("Empty composite request accepted");
+        } catch (PartApiException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+        server.verify();
+    }
+}
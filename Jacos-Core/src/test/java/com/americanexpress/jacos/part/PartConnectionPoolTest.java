@@ -0,0 +1,83 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.part;
+
+import com.americanexpress.jacos.commons.ConnectionPoolPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.BasicHttpContext;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+
+public class PartConnectionPoolTest {
+
+    @Test
+    public void capsKeepAliveOfServer() {
+        ConnectionKeepAliveStrategy strategy = PartConnectionPool.keepAliveStrategy(60_000);
+
+        Assert.assertEquals(5_000, strategy.getKeepAliveDuration(response("timeout=5"), new BasicHttpContext()));
+        Assert.assertEquals(60_000, strategy.getKeepAliveDuration(response("timeout=600"), new BasicHttpContext()));
+        Assert.assertEquals(60_000, strategy.getKeepAliveDuration(response(null), new BasicHttpContext()));
+    }
+
+    @Test
+    public void publishesPoolStatistics() throws IOException {
+        ConnectionPoolPolicy policy = new ConnectionPoolPolicy();
+        policy.setMaxTotal(8);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        try (PartConnectionPool pool = new PartConnectionPool(policy, null, null)) {
+            pool.bindTo(meterRegistry);
+
+            Assert.assertEquals(8, pool.getStats().getMax());
+            Assert.assertEquals(8, meterRegistry.get(PartConnectionPool.MAX_CONNECTIONS).gauge().value(), 0);
+            Assert.assertEquals(0, meterRegistry.get(PartConnectionPool.CONNECTIONS).tag("state", "leased").gauge().value(), 0);
+        }
+    }
+
+    @Test
+    public void letsOneHostUseAllConnectionsByDefault() throws IOException {
+        ConnectionPoolPolicy policy = new ConnectionPoolPolicy();
+        policy.setMaxTotal(40);
+        Assert.assertEquals(40, policy.getMaxPerRoute());
+        Assert.assertEquals(ConnectionPoolPolicy.DEF_CONNECTION_REQUEST_TIMEOUT_MILLIS, policy.getConnectionRequestTimeoutMillis());
+
+        try (PartConnectionPool pool = new PartConnectionPool(policy, null, null)) {
+            Assert.assertEquals(40, pool.getDefaultMaxPerRoute());
+        }
+
+        policy.setMaxPerRoute(10);
+        Assert.assertEquals(10, policy.getMaxPerRoute());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyRoutes() {
+        new ConnectionPoolPolicy().setMaxPerRoute(0);
+    }
+
+    private static HttpResponse response(String keepAlive) {
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        if (keepAlive != null) {
+            response.addHeader("Keep-Alive", keepAlive);
+        }
+        return response;
+    }
+}
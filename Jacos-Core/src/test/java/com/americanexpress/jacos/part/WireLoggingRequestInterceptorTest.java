@@ -0,0 +1,142 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.part;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.americanexpress.jacos.commons.WireLogPolicy;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class WireLoggingRequestInterceptorTest {
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(WireLoggingRequestInterceptor.class);
+
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @Before
+    public void setUp() {
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @After
+    public void tearDown() {
+        logger.detachAppender(appender);
+    }
+
+    private String logged() {
+        Assert.assertEquals(1, appender.list.size());
+        return appender.list.get(0).getFormattedMessage();
+    }
+
+    private static MockClientHttpRequest request() {
+        MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.POST, URI.create("https://example.my.salesforce.com/services/data/v47.0/composite"));
+        request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return request;
+    }
+
+    private ClientHttpResponse exchange(WireLogPolicy policy, MockClientHttpRequest request, byte[] responseBody,
+                                        HttpHeaders responseHeaders) throws IOException {
+        MockClientHttpResponse response = new MockClientHttpResponse(new ByteArrayInputStream(responseBody), HttpStatus.OK);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().putAll(responseHeaders);
+        return new WireLoggingRequestInterceptor(policy)
+                .intercept(request, "{}".getBytes(StandardCharsets.UTF_8), (sent, body) -> response);
+    }
+
+    @Test
+    public void handsBackTheWholeBodyLongerThanTheCap() throws IOException {
+        WireLogPolicy policy = new WireLogPolicy(WireLogPolicy.Level.BODY);
+        policy.setMaxBodyBytes(16);
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 200; i++) {
+            json.append("{\"Name\":\"Société ").append(i).append("\"},");
+        }
+        byte[] body = json.append("{}]").toString().getBytes(StandardCharsets.UTF_8);
+
+        ClientHttpResponse response = exchange(policy, request(), body, new HttpHeaders());
+
+        Assert.assertArrayEquals(body, StreamUtils.copyToByteArray(response.getBody()));
+        Assert.assertTrue(logged(), logged().endsWith("\n" + new String(Arrays.copyOf(body, 16), StandardCharsets.UTF_8)
+                + "...(truncated at 16 bytes)"));
+    }
+
+    @Test
+    public void handsBackTheWholeBodyShorterThanTheCap() throws IOException {
+        WireLogPolicy policy = new WireLogPolicy(WireLogPolicy.Level.BODY);
+        byte[] body = "[{\"id\":\"001\",\"success\":true}]".getBytes(StandardCharsets.UTF_8);
+
+        ClientHttpResponse response = exchange(policy, request(), body, new HttpHeaders());
+
+        Assert.assertArrayEquals(body, StreamUtils.copyToByteArray(response.getBody()));
+        Assert.assertTrue(logged(), logged().endsWith("\n[{\"id\":\"001\",\"success\":true}]"));
+    }
+
+    @Test
+    public void redactsSensitiveHeaders() throws IOException {
+        WireLogPolicy policy = new WireLogPolicy(WireLogPolicy.Level.HEADERS);
+        MockClientHttpRequest request = request();
+        request.getHeaders().set(HttpHeaders.AUTHORIZATION, "Bearer 00Dsecret-token");
+        request.getHeaders().set(HttpHeaders.COOKIE, "sid=cookie-secret");
+        request.getHeaders().set("Sforce-Call-Options", "client=jacos");
+        HttpHeaders responseHeaders = new HttpHeaders();
+        responseHeaders.set(HttpHeaders.SET_COOKIE, "BrowserId=set-cookie-secret");
+
+        exchange(policy, request, "[]".getBytes(StandardCharsets.UTF_8), responseHeaders);
+
+        String logged = logged();
+        Assert.assertFalse(logged, logged.contains("secret"));
+        Assert.assertTrue(logged, logged.contains("Authorization: <redacted>"));
+        Assert.assertTrue(logged, logged.contains("Cookie: <redacted>"));
+        Assert.assertTrue(logged, logged.contains("Set-Cookie: <redacted>"));
+        Assert.assertTrue(logged, logged.contains("Sforce-Call-Options: client=jacos"));
+        Assert.assertFalse(logged, logged.contains("[]"));
+    }
+
+    @Test
+    public void redactsConfiguredHeaders() throws IOException {
+        WireLogPolicy policy = new WireLogPolicy(WireLogPolicy.Level.HEADERS);
+        policy.setRedactedHeaders(Arrays.asList("authorization", "X-Api-Key"));
+        MockClientHttpRequest request = request();
+        request.getHeaders().set(HttpHeaders.AUTHORIZATION, "Bearer 00Dsecret-token");
+        request.getHeaders().set("x-api-key", "key-secret");
+
+        exchange(policy, request, "[]".getBytes(StandardCharsets.UTF_8), new HttpHeaders());
+
+        String logged = logged();
+        Assert.assertFalse(logged, logged.contains("secret"));
+        Assert.assertTrue(logged, logged.contains("x-api-key: <redacted>"));
+    }
+}
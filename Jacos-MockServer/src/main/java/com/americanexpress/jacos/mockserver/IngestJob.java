@@ -0,0 +1,299 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.mockserver;
+
+import com.opencsv.CSVParser;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * State of one ingest job of the mock server: the uploaded CSV data, the records picked to fail
+ * when the job was closed, and the clock of its processing.
+ */
+class IngestJob {
+
+    static final String OPEN = "Open";
+
+    static final String UPLOAD_COMPLETE = "UploadComplete";
+
+    static final String IN_PROGRESS = "InProgress";
+
+    static final String JOB_COMPLETE = "JobComplete";
+
+    static final String ABORTED = "Aborted";
+
+    static final String LOCK_ROW_ERROR = MockError.UNABLE_TO_LOCK_ROW.name() + ":" + MockError.UNABLE_TO_LOCK_ROW.getMessage() + ":--";
+
+    private final String id;
+
+    private final long number;
+
+    private final Map<String, Object> request;
+
+    private final String createdDate;
+
+    private final List<byte[]> uploads = new ArrayList<>();
+
+    private String state = OPEN;
+
+    private long records;
+
+    private BitSet failed = new BitSet();
+
+    private long closedNanos;
+
+    private long processingNanos;
+
+    IngestJob(long number, Map<String, Object> request, String createdDate) {
+        this.number = number;
+        this.id = String.format("750%012d", number);
+        this.request = request;
+        this.createdDate = createdDate;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    synchronized long getRecords() {
+        return records;
+    }
+
+    synchronized boolean isOpen() {
+        return OPEN.equals(state);
+    }
+
+    /**
+     * @return the records of the upload, its header line excluded
+     */
+    synchronized long upload(byte[] csv) {
+        if (!isOpen()) {
+            throw new IllegalStateException("Job:" + id + " is not open, state:" + state);
+        }
+        uploads.add(csv);
+        long uploaded = Math.max(0, countRows(csv) - 1);
+        records += uploaded;
+        return uploaded;
+    }
+
+    /**
+     * Closes the job, it completes once the processing time has passed.
+     *
+     * @param processingMillis time the job stays in progress
+     * @param recordFails      asked once per record whether it fails
+     * @return the records which failed
+     */
+    synchronized long close(long processingMillis, BooleanSupplier recordFails) {
+        if (!isOpen()) {
+            throw new IllegalStateException("Job:" + id + " is not open, state:" + state);
+        }
+        for (int i = 0; i < records; i++) {
+            if (recordFails.getAsBoolean()) {
+                failed.set(i);
+            }
+        }
+        state = UPLOAD_COMPLETE;
+        closedNanos = System.nanoTime();
+        processingNanos = TimeUnit.MILLISECONDS.toNanos(processingMillis);
+        return failed.cardinality();
+    }
+
+    synchronized void abort() {
+        if (JOB_COMPLETE.equals(state)) {
+            throw new IllegalStateException("Job:" + id + " is already complete");
+        }
+        state = ABORTED;
+    }
+
+    /**
+     * @return the job info as returned by Salesforce, a closed job moves to InProgress and
+     * JobComplete with the time, its processed records growing meanwhile
+     */
+    synchronized Map<String, Object> info() {
+        if (UPLOAD_COMPLETE.equals(state) || IN_PROGRESS.equals(state)) {
+            state = System.nanoTime() - closedNanos >= processingNanos ? JOB_COMPLETE : IN_PROGRESS;
+        }
+        return snapshot();
+    }
+
+    /**
+     * @return the job info in its current state, as returned when the job is created or closed
+     */
+    synchronized Map<String, Object> snapshot() {
+        long processed = 0;
+        if (IN_PROGRESS.equals(state)) {
+            processed = records * (System.nanoTime() - closedNanos) / processingNanos;
+        } else if (JOB_COMPLETE.equals(state)) {
+            processed = records;
+        }
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("id", id);
+        info.put("operation", request.get("operation"));
+        info.put("object", request.get("object"));
+        info.put("createdById", "005000000000001");
+        info.put("createdDate", createdDate);
+        info.put("systemModstamp", createdDate);
+        info.put("state", state);
+        info.put("externalIdFieldName", request.get("externalIdFieldName"));
+        info.put("concurrencyMode", "Parallel");
+        info.put("contentType", "CSV");
+        info.put("apiVersion", request.get("apiVersion"));
+        info.put("jobType", "V2Ingest");
+        info.put("contentUrl", "services/data/v" + request.get("apiVersion") + "/jobs/ingest/" + id + "/batches");
+        info.put("lineEnding", lineEnding());
+        info.put("columnDelimiter", columnDelimiter());
+        info.put("numberRecordsProcessed", processed);
+        info.put("numberRecordsFailed", JOB_COMPLETE.equals(state) ? failed.cardinality() : 0);
+        info.put("retries", 0);
+        info.put("totalProcessingTime", JOB_COMPLETE.equals(state) ? TimeUnit.NANOSECONDS.toMillis(processingNanos) : 0);
+        info.put("apiActiveProcessingTime", 0);
+        info.put("apexProcessingTime", 0);
+        return info;
+    }
+
+    /**
+     * @return the records with their sf__Id and sf__Created columns
+     */
+    synchronized String successfulResults() {
+        return results(JOB_COMPLETE.equals(state), false, "sf__Id", "sf__Created");
+    }
+
+    /**
+     * @return the failed records with their sf__Id and sf__Error columns
+     */
+    synchronized String failedResults() {
+        return results(JOB_COMPLETE.equals(state), true, "sf__Id", "sf__Error");
+    }
+
+    /**
+     * @return the records of an aborted job, as uploaded
+     */
+    synchronized String unprocessedRecords() {
+        return results(ABORTED.equals(state), null);
+    }
+
+    /**
+     * @param include true to write the records, false for the header only
+     * @param failures true for the failed records, false for the others, null for all without result columns
+     */
+    private String results(boolean include, Boolean failures, String... resultColumns) {
+        char delimiter = delimiter(columnDelimiter());
+        StringWriter out = new StringWriter();
+        CSVWriter writer = new CSVWriter(out, delimiter, CSVWriter.DEFAULT_QUOTE_CHARACTER, CSVWriter.DEFAULT_ESCAPE_CHARACTER,
+                "CRLF".equals(lineEnding()) ? "\r\n" : "\n");
+        int index = 0;
+        boolean headerWritten = false;
+        try {
+            for (byte[] upload : uploads) {
+                CSVReader reader = new CSVReader(new InputStreamReader(new ByteArrayInputStream(upload), StandardCharsets.UTF_8),
+                        delimiter, CSVParser.DEFAULT_QUOTE_CHARACTER, CSVParser.NULL_CHARACTER);
+                String[] header = reader.readNext();
+                if (header == null) {
+                    continue;
+                }
+                int idColumn = Arrays.asList(header).indexOf("Id");
+                if (!headerWritten) {
+                    writer.writeNext(concat(resultColumns, header), false);
+                    headerWritten = true;
+                }
+                String[] row;
+                while (include && (row = reader.readNext()) != null) {
+                    boolean rowFailed = failed.get(index);
+                    String recordId = idColumn >= 0 && idColumn < row.length ? row[idColumn] : String.format("001%05d%07d", number % 100_000, index);
+                    index++;
+                    if (failures == null) {
+                        writer.writeNext(row, false);
+                    } else if (failures && rowFailed) {
+                        writer.writeNext(concat(new String[]{idColumn >= 0 ? recordId : "", LOCK_ROW_ERROR}, row), false);
+                    } else if (!failures && !rowFailed) {
+                        writer.writeNext(concat(new String[]{recordId, Boolean.toString(idColumn < 0)}, row), false);
+                    }
+                }
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    private static String[] concat(String[] first, String[] second) {
+        String[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    private String lineEnding() {
+        Object lineEnding = request.get("lineEnding");
+        return lineEnding == null ? "LF" : lineEnding.toString();
+    }
+
+    private String columnDelimiter() {
+        Object columnDelimiter = request.get("columnDelimiter");
+        return columnDelimiter == null ? "COMMA" : columnDelimiter.toString();
+    }
+
+    static char delimiter(String columnDelimiter) {
+        switch (columnDelimiter) {
+            case "BACKQUOTE":
+                return '`';
+            case "CARET":
+                return '^';
+            case "PIPE":
+                return '|';
+            case "SEMICOLON":
+                return ';';
+            case "TAB":
+                return '\t';
+            default:
+                return ',';
+        }
+    }
+
+    /**
+     * Counts the CSV rows, line breaks inside quoted values do not end a row.
+     */
+    static long countRows(byte[] csv) {
+        long rows = 0;
+        boolean quoted = false;
+        for (byte b : csv) {
+            if (b == '"') {
+                quoted = !quoted;
+            } else if (b == '\n' && !quoted) {
+                rows++;
+            }
+        }
+        if (csv.length > 0 && csv[csv.length - 1] != '\n') {
+            rows++;
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.mockserver;
+
+/**
+ * Errors the {@link MockSalesforceServer} can inject, as Salesforce reports them.
+ * <p>
+ * INVALID_SESSION_ID and SERVER_UNAVAILABLE fail a whole request, UNABLE_TO_LOCK_ROW fails single
+ * records: bulk records end up in the failed results, composite records come back with
+ * <code>success:false</code>.
+ */
+public enum MockError {
+
+    INVALID_SESSION_ID(401, "Session expired or invalid"),
+
+    UNABLE_TO_LOCK_ROW(200, "unable to obtain exclusive access to this record"),
+
+    SERVER_UNAVAILABLE(503, "Server temporarily unavailable, retry later");
+
+    private final int status;
+
+    private final String message;
+
+    MockError(int status, String message) {
+        this.status = status;
+        this.message = message;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * @return true when the error fails single records instead of the request
+     */
+    public boolean isRecordError() {
+        return this == UNABLE_TO_LOCK_ROW;
+    }
+}
@@ -0,0 +1,726 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.mockserver;
+
+import com.americanexpress.jacos.mockserver.MockServerStats.Endpoint;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import okio.ByteString;
+import okio.GzipSource;
+import okio.Okio;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * Embedded stand-in for the Salesforce endpoints used by the bulk and part clients, so both can be
+ * run and benchmarked end to end without a network or an org:
+ * </p>
+ * <ul>
+ * <li>/services/oauth2/token issues a new access token for any grant</li>
+ * <li>/services/data/vXX.X/jobs/ingest creates (with or without multipart data), uploads, closes,
+ * aborts, reads and deletes bulk jobs and returns their successful, failed and unprocessed records</li>
+ * <li>/services/data/vXX.X/composite/sobjects and /services/data/vXX.X/sobjects create, update and
+ * delete records</li>
+ * <li>/services/data/vXX.X/composite runs sobjects subrequests in order, resolving their
+ * <code>@{referenceId.field}</code> references to earlier results</li>
+ * </ul>
+ * <p>
+ * Every response can be delayed by a fixed latency plus a random jitter. Errors are injected either
+ * for the next requests or records ({@link #failNext(MockError, int)}) or at random with a rate
+ * ({@link #injectError(MockError, double)}), and requests carrying a token the server did not issue
+ * are rejected with INVALID_SESSION_ID. The traffic is counted in {@link #getStats()}.
+ * </p>
+ * <p>
+ * Closed jobs stay in progress for the configured processing time, numberRecordsProcessed growing
+ * meanwhile, then complete. Nothing is persisted: the uploaded data is held in memory until the job
+ * is deleted.
+ * </p>
+ */
+public class MockSalesforceServer implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(MockSalesforceServer.class);
+
+    static final String TOKEN_PATH = "/services/oauth2/token";
+
+    private static final Pattern API_PATH = Pattern.compile("/services/data/v([0-9.]+)/(.+?)/?");
+
+    private static final Pattern BOUNDARY = Pattern.compile("boundary=\"?([^\";]+)\"?");
+
+    private static final Pattern PART_NAME = Pattern.compile("name=\"([^\"]*)\"");
+
+    private static final String BEARER = "Bearer ";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final Pattern REFERENCE = Pattern.compile("@\\{([A-Za-z][A-Za-z0-9_]*)\\.([A-Za-z0-9_]+)}");
+
+    private static final int MAX_SUBREQUESTS = 25;
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<Map<String, Object>>() {
+    };
+
+    private final MockWebServer server = new MockWebServer();
+
+    private final MockServerStats stats = new MockServerStats();
+
+    private final Map<String, IngestJob> jobs = new ConcurrentHashMap<>();
+
+    private final Set<String> validTokens = ConcurrentHashMap.newKeySet();
+
+    private final Map<MockError, Double> errorRates = Collections.synchronizedMap(new EnumMap<>(MockError.class));
+
+    private final Map<MockError, AtomicInteger> pendingErrors = new EnumMap<>(MockError.class);
+
+    private final AtomicLong jobNumbers = new AtomicLong();
+
+    private final AtomicLong recordNumbers = new AtomicLong();
+
+    private final Random random;
+
+    private volatile long latencyMillis;
+
+    private volatile long latencyJitterMillis;
+
+    private volatile long jobProcessingMillis;
+
+    public MockSalesforceServer() {
+        this(new Random().nextLong());
+    }
+
+    /**
+     * @param seed seed of the random errors and latency jitter
+     */
+    public MockSalesforceServer(long seed) {
+        this.random = new Random(seed);
+        for (MockError error : MockError.values()) {
+            pendingErrors.put(error, new AtomicInteger());
+        }
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return MockSalesforceServer.this.dispatch(request);
+            }
+        });
+    }
+
+    /**
+     * Starts the server on a free port.
+     */
+    public MockSalesforceServer start() throws IOException {
+        return start(0);
+    }
+
+    public MockSalesforceServer start(int port) throws IOException {
+        // MockWebServer logs every request at INFO, which would be measured with the clients
+        java.util.logging.Logger.getLogger(MockWebServer.class.getName()).setLevel(Level.WARNING);
+        server.start(port);
+        stats.reset();
+        log.info("Mock Salesforce server listening on {}", getInstanceUrl());
+        return this;
+    }
+
+    /**
+     * @return the instance url to build the clients with, without trailing slash
+     */
+    public String getInstanceUrl() {
+        String url = server.url("/").toString();
+        return url.substring(0, url.length() - 1);
+    }
+
+    public String getTokenUrl() {
+        return server.url(TOKEN_PATH).toString();
+    }
+
+    public int getPort() {
+        return server.getPort();
+    }
+
+    /**
+     * @return a new access token accepted by the server until {@link #expireTokens()}
+     */
+    public String issueToken() {
+        String token = "00DMOCK!" + Long.toHexString(random.nextLong());
+        validTokens.add(token);
+        return token;
+    }
+
+    /**
+     * Invalidates all the tokens issued so far, the next requests are rejected with
+     * INVALID_SESSION_ID until the clients fetch a new token.
+     */
+    public void expireTokens() {
+        validTokens.clear();
+    }
+
+    /**
+     * Delays every response by <code>latencyMillis</code> plus a random part of <code>jitterMillis</code>.
+     */
+    public MockSalesforceServer useLatency(long latencyMillis, long jitterMillis) {
+        this.latencyMillis = latencyMillis;
+        this.latencyJitterMillis = jitterMillis;
+        return this;
+    }
+
+    /**
+     * Time a closed job stays in progress before it completes, 0 by default.
+     */
+    public MockSalesforceServer useJobProcessingTime(long processingMillis) {
+        this.jobProcessingMillis = processingMillis;
+        return this;
+    }
+
+    /**
+     * Fails requests (or records for {@link MockError#isRecordError()}) at random with the given rate.
+     *
+     * @param rate between 0, never, and 1, always
+     */
+    public MockSalesforceServer injectError(MockError error, double rate) {
+        if (rate < 0 || rate > 1) {
+            throw new IllegalArgumentException("Error rate should be between 0 and 1:" + rate);
+        }
+        errorRates.put(error, rate);
+        return this;
+    }
+
+    /**
+     * Fails the next <code>count</code> requests (or records for {@link MockError#isRecordError()}),
+     * ahead of the random errors.
+     */
+    public MockSalesforceServer failNext(MockError error, int count) {
+        pendingErrors.get(error).addAndGet(count);
+        return this;
+    }
+
+    public MockServerStats getStats() {
+        return stats;
+    }
+
+    /**
+     * @return number of jobs held by the server, deleted ones excluded
+     */
+    public int getJobCount() {
+        return jobs.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.shutdown();
+    }
+
+    private boolean takeError(MockError error) {
+        if (pendingErrors.get(error).getAndUpdate(pending -> pending > 0 ? pending - 1 : 0) > 0) {
+            return true;
+        }
+        Double rate = errorRates.get(error);
+        return rate != null && rate > 0 && random.nextDouble() < rate;
+    }
+
+    private MockResponse dispatch(RecordedRequest request) {
+        MockResponse response;
+        try {
+            response = route(request);
+        } catch (IllegalStateException e) {
+            response = error(400, "INVALIDJOBSTATE", e.getMessage());
+        } catch (IllegalArgumentException | IOException e) {
+            response = error(400, "JSON_PARSER_ERROR", e.getMessage());
+        }
+        long delay = latencyMillis + (latencyJitterMillis > 0 ? (long) (random.nextDouble() * latencyJitterMillis) : 0);
+        if (delay > 0) {
+            response.setHeadersDelay(delay, TimeUnit.MILLISECONDS);
+        }
+        Buffer body = response.getBody();
+        stats.sent(body == null ? 0 : body.size());
+        return response;
+    }
+
+    private MockResponse route(RecordedRequest request) throws IOException {
+        HttpUrl url = request.getRequestUrl();
+        String path = url.encodedPath().replaceAll("/+", "/");
+        String method = request.getMethod();
+
+        if (TOKEN_PATH.equals(path) && "POST".equals(method)) {
+            stats.request(Endpoint.TOKEN, request.getBodySize());
+            return token();
+        }
+        Matcher matcher = API_PATH.matcher(path);
+        String apiVersion = matcher.matches() ? matcher.group(1) : null;
+        String[] resource = matcher.matches() ? matcher.group(2).split("/") : new String[0];
+        Endpoint endpoint = endpoint(method, resource);
+        stats.request(endpoint, request.getBodySize());
+        if (endpoint == Endpoint.UNKNOWN) {
+            return error(404, "NOT_FOUND", "The requested resource does not exist");
+        }
+
+        String authorization = request.getHeader("Authorization");
+        String token = authorization != null && authorization.startsWith(BEARER) ? authorization.substring(BEARER.length()) : null;
+        if (!validTokens.contains(token) || takeError(MockError.INVALID_SESSION_ID)) {
+            return error(MockError.INVALID_SESSION_ID);
+        }
+        if (takeError(MockError.SERVER_UNAVAILABLE)) {
+            return error(MockError.SERVER_UNAVAILABLE);
+        }
+
+        switch (endpoint) {
+            case CREATE_JOB:
+                return createJob(request, apiVersion);
+            case GET_ALL_JOBS:
+                return getAllJobs();
+            case COMPOSITE_SOBJECTS:
+                return compositeSobjects(request, url);
+            case COMPOSITE:
+                return composite(request);
+            case SOBJECTS:
+                return sobjects(request, resource);
+            default:
+                break;
+        }
+        IngestJob job = jobs.get(resource[2]);
+        if (job == null) {
+            return error(404, "NOT_FOUND", "The requested resource does not exist");
+        }
+        switch (endpoint) {
+            case UPLOAD_JOB_DATA:
+                stats.received(job.upload(body(request)));
+                return new MockResponse().setResponseCode(201);
+            case CLOSE_JOB:
+                return closeJob(job, request);
+            case GET_JOB_INFO:
+                return json(200, job.info());
+            case GET_JOB_RESULTS:
+                return csv("successfulResults".equals(resource[3]) ? job.successfulResults()
+                        : "failedResults".equals(resource[3]) ? job.failedResults()
+                        : job.unprocessedRecords());
+            case DELETE_JOB:
+                jobs.remove(job.getId());
+                return new MockResponse().setResponseCode(204);
+            default:
+                return error(404, "NOT_FOUND", "The requested resource does not exist");
+        }
+    }
+
+    private static Endpoint endpoint(String method, String[] resource) {
+        if (resource.length >= 2 && "jobs".equals(resource[0]) && "ingest".equals(resource[1])) {
+            if (resource.length == 2) {
+                return "POST".equals(method) ? Endpoint.CREATE_JOB : "GET".equals(method) ? Endpoint.GET_ALL_JOBS : Endpoint.UNKNOWN;
+            }
+            if (resource.length == 3) {
+                return "GET".equals(method) ? Endpoint.GET_JOB_INFO : "PATCH".equals(method) ? Endpoint.CLOSE_JOB
+                        : "DELETE".equals(method) ? Endpoint.DELETE_JOB : Endpoint.UNKNOWN;
+            }
+            if (resource.length == 4 && "batches".equals(resource[3])) {
+                return "PUT".equals(method) ? Endpoint.UPLOAD_JOB_DATA : Endpoint.UNKNOWN;
+            }
+            if (resource.length == 4 && "GET".equals(method)
+                    && Arrays.asList("successfulResults", "failedResults", "unprocessedrecords").contains(resource[3])) {
+                return Endpoint.GET_JOB_RESULTS;
+            }
+            return Endpoint.UNKNOWN;
+        }
+        if (resource.length == 1 && "composite".equals(resource[0])) {
+            return "POST".equals(method) ? Endpoint.COMPOSITE : Endpoint.UNKNOWN;
+        }
+        if (resource.length == 2 && "composite".equals(resource[0]) && "sobjects".equals(resource[1])) {
+            return Arrays.asList("POST", "PATCH", "DELETE").contains(method) ? Endpoint.COMPOSITE_SOBJECTS : Endpoint.UNKNOWN;
+        }
+        if ((resource.length == 2 && "POST".equals(method)) || (resource.length == 3 && ("PATCH".equals(method) || "DELETE".equals(method)))) {
+            return "sobjects".equals(resource[0]) ? Endpoint.SOBJECTS : Endpoint.UNKNOWN;
+        }
+        return Endpoint.UNKNOWN;
+    }
+
+    private MockResponse token() {
+        Map<String, Object> token = new LinkedHashMap<>();
+        token.put("access_token", issueToken());
+        token.put("instance_url", getInstanceUrl());
+        token.put("id", getInstanceUrl() + "/id/00D000000000001/005000000000001");
+        token.put("token_type", "Bearer");
+        token.put("issued_at", Long.toString(System.currentTimeMillis()));
+        token.put("signature", "mock");
+        return json(200, token);
+    }
+
+    private MockResponse createJob(RecordedRequest request, String apiVersion) throws IOException {
+        String contentType = request.getHeader("Content-Type");
+        byte[] body = body(request);
+        byte[] jobJson = body;
+        byte[] content = null;
+        if (contentType != null && contentType.startsWith("multipart/form-data")) {
+            Matcher boundary = BOUNDARY.matcher(contentType);
+            if (!boundary.find()) {
+                throw new IllegalArgumentException("Missing multipart boundary");
+            }
+            Map<String, byte[]> parts = parseMultipart(body, boundary.group(1));
+            jobJson = parts.get("job");
+            content = parts.get("content");
+            if (jobJson == null || content == null) {
+                throw new IllegalArgumentException("Multipart request without job or content part");
+            }
+        }
+        Map<String, Object> jobRequest = MAPPER.readValue(jobJson, MAP_TYPE);
+        if (jobRequest.get("object") == null || jobRequest.get("operation") == null) {
+            return error(400, "INVALIDJOB", "object and operation are required");
+        }
+        jobRequest.put("apiVersion", apiVersion);
+        IngestJob job = new IngestJob(jobNumbers.incrementAndGet(), jobRequest, Instant.now().toString());
+        jobs.put(job.getId(), job);
+        if (content != null) {
+            stats.received(job.upload(content));
+            close(job);
+        }
+        return json(200, job.snapshot());
+    }
+
+    private MockResponse getAllJobs() {
+        List<Map<String, Object>> records = new ArrayList<>();
+        jobs.values().forEach(job -> records.add(job.info()));
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("done", true);
+        response.put("records", records);
+        response.put("nextRecordsUrl", null);
+        return json(200, response);
+    }
+
+    private MockResponse closeJob(IngestJob job, RecordedRequest request) throws IOException {
+        Map<String, Object> body = MAPPER.readValue(body(request), MAP_TYPE);
+        Object state = body.get("state");
+        if (IngestJob.UPLOAD_COMPLETE.equals(state)) {
+            close(job);
+        } else if (IngestJob.ABORTED.equals(state)) {
+            job.abort();
+        } else {
+            return error(400, "INVALIDJOBSTATE", "Unsupported state:" + state);
+        }
+        return json(200, job.snapshot());
+    }
+
+    private void close(IngestJob job) {
+        long failed = job.close(jobProcessingMillis, () -> takeError(MockError.UNABLE_TO_LOCK_ROW));
+        stats.processed(job.getRecords(), failed);
+        for (long i = 0; i < failed; i++) {
+            stats.error(MockError.UNABLE_TO_LOCK_ROW);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private MockResponse compositeSobjects(RecordedRequest request, HttpUrl url) throws IOException {
+        List<Map<String, Object>> records;
+        boolean allOrNone;
+        if ("DELETE".equals(request.getMethod())) {
+            String ids = url.queryParameter("ids");
+            records = new ArrayList<>();
+            for (String id : ids == null ? new String[0] : ids.split(",")) {
+                records.add(Collections.singletonMap("id", id));
+            }
+            allOrNone = Boolean.parseBoolean(url.queryParameter("allOrNone"));
+        } else {
+            Map<String, Object> body = MAPPER.readValue(body(request), MAP_TYPE);
+            records = (List<Map<String, Object>>) body.getOrDefault("records", Collections.emptyList());
+            allOrNone = Boolean.TRUE.equals(body.get("allOrNone"));
+        }
+        stats.received(records.size());
+
+        boolean[] failed = new boolean[records.size()];
+        boolean anyFailed = false;
+        for (int i = 0; i < failed.length; i++) {
+            failed[i] = takeError(MockError.UNABLE_TO_LOCK_ROW);
+            anyFailed |= failed[i];
+        }
+        List<Map<String, Object>> results = new ArrayList<>();
+        long failedCount = 0;
+        for (int i = 0; i < failed.length; i++) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            if (failed[i] || (allOrNone && anyFailed)) {
+                failedCount++;
+                result.put("id", null);
+                result.put("success", false);
+                result.put("errors", Collections.singletonList(failed[i] ? recordError(MockError.UNABLE_TO_LOCK_ROW.name(), MockError.UNABLE_TO_LOCK_ROW.getMessage())
+                        : recordError("ALL_OR_NONE_OPERATION_ROLLED_BACK", "Record rolled back because not all records were valid and the request was using AllOrNone header")));
+            } else {
+                result.put("id", recordId(records.get(i)));
+                result.put("success", true);
+                result.put("errors", Collections.emptyList());
+            }
+            results.add(result);
+        }
+        stats.processed(records.size(), failedCount);
+        for (boolean recordFailed : failed) {
+            if (recordFailed) {
+                stats.error(MockError.UNABLE_TO_LOCK_ROW);
+            }
+        }
+        return json(200, results);
+    }
+
+    @SuppressWarnings("unchecked")
+    private MockResponse composite(RecordedRequest request) throws IOException {
+        Map<String, Object> body = MAPPER.readValue(body(request), MAP_TYPE);
+        List<Map<String, Object>> subrequests = (List<Map<String, Object>>) body.getOrDefault("compositeRequest", Collections.emptyList());
+        if (subrequests.isEmpty() || subrequests.size() > MAX_SUBREQUESTS) {
+            return error(400, "INVALID_API_INPUT", "A composite request needs 1 to " + MAX_SUBREQUESTS + " subrequests");
+        }
+        boolean allOrNone = Boolean.TRUE.equals(body.get("allOrNone"));
+        stats.received(subrequests.size());
+
+        Map<String, Map<String, Object>> results = new LinkedHashMap<>();
+        List<Map<String, Object>> responses = new ArrayList<>();
+        boolean anyFailed = false;
+        for (Map<String, Object> subrequest : subrequests) {
+            Map<String, Object> response = anyFailed && allOrNone ? rolledBack() : subrequest(subrequest, results);
+            int status = (Integer) response.get("httpStatusCode");
+            anyFailed |= status >= 300;
+            response.put("referenceId", subrequest.get("referenceId"));
+            if (status < 300 && subrequest.get("referenceId") != null) {
+                results.put(subrequest.get("referenceId").toString(),
+                        response.get("body") instanceof Map ? (Map<String, Object>) response.get("body") : Collections.emptyMap());
+            }
+            responses.add(response);
+        }
+        if (anyFailed && allOrNone) {
+            for (int i = 0; i < responses.size(); i++) {
+                if ((Integer) responses.get(i).get("httpStatusCode") < 300) {
+                    Map<String, Object> response = rolledBack();
+                    response.put("referenceId", responses.get(i).get("referenceId"));
+                    responses.set(i, response);
+                }
+            }
+        }
+        long failedCount = responses.stream().filter(response -> (Integer) response.get("httpStatusCode") >= 300).count();
+        stats.processed(responses.size(), failedCount);
+        return json(200, Collections.singletonMap("compositeResponse", responses));
+    }
+
+    private Map<String, Object> subrequest(Map<String, Object> subrequest, Map<String, Map<String, Object>> results) throws IOException {
+        String method = String.valueOf(subrequest.get("method"));
+        String url;
+        try {
+            url = resolve(String.valueOf(subrequest.get("url")), results);
+            if (subrequest.get("body") != null) {
+                resolve(MAPPER.writeValueAsString(subrequest.get("body")), results);
+            }
+        } catch (IllegalArgumentException e) {
+            return subresponse(400, Collections.singletonList(recordError("PROCESSING_HALTED", e.getMessage())));
+        }
+        Matcher matcher = API_PATH.matcher(url.replaceAll("/+", "/"));
+        String[] resource = matcher.matches() ? matcher.group(2).split("/") : new String[0];
+        boolean known = resource.length > 1 && "sobjects".equals(resource[0])
+                && ((resource.length == 2 && "POST".equals(method))
+                || (resource.length == 3 && Arrays.asList("GET", "PATCH", "DELETE").contains(method)));
+        if (!known) {
+            return subresponse(404, Collections.singletonList(recordError("NOT_FOUND", "The requested resource does not exist")));
+        }
+        if (takeError(MockError.UNABLE_TO_LOCK_ROW)) {
+            stats.error(MockError.UNABLE_TO_LOCK_ROW);
+            return subresponse(400, Collections.singletonList(recordError(MockError.UNABLE_TO_LOCK_ROW.name(), MockError.UNABLE_TO_LOCK_ROW.getMessage())));
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        switch (method) {
+            case "POST":
+                result.put("id", recordId(Collections.<String, Object>emptyMap()));
+                result.put("success", true);
+                result.put("errors", Collections.emptyList());
+                return subresponse(201, result);
+            case "GET":
+                result.put("attributes", Collections.singletonMap("type", resource[1]));
+                result.put("Id", resource[2]);
+                return subresponse(200, result);
+            default:
+                return subresponse(204, null);
+        }
+    }
+
+    /**
+     * Replaces the <code>@{referenceId.field}</code> references with the fields of earlier results.
+     *
+     * @throws IllegalArgumentException if a reference has no value
+     */
+    private static String resolve(String text, Map<String, Map<String, Object>> results) {
+        Matcher matcher = REFERENCE.matcher(text);
+        StringBuffer resolved = new StringBuffer();
+        while (matcher.find()) {
+            Map<String, Object> result = results.get(matcher.group(1));
+            Object value = result == null ? null : result.get(matcher.group(2));
+            if (value == null && result != null && "id".equalsIgnoreCase(matcher.group(2))) {
+                value = result.containsKey("id") ? result.get("id") : result.get("Id");
+            }
+            if (value == null) {
+                throw new IllegalArgumentException("Invalid reference specified. No value for " + matcher.group(1) + "." + matcher.group(2) + " found");
+            }
+            matcher.appendReplacement(resolved, Matcher.quoteReplacement(value.toString()));
+        }
+        matcher.appendTail(resolved);
+        return resolved.toString();
+    }
+
+    private static Map<String, Object> rolledBack() {
+        return subresponse(400, Collections.singletonList(recordError("PROCESSING_HALTED",
+                "The transaction was rolled back since another operation in the same transaction failed.")));
+    }
+
+    private static Map<String, Object> subresponse(int status, Object body) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("body", body);
+        response.put("httpHeaders", Collections.emptyMap());
+        response.put("httpStatusCode", status);
+        return response;
+    }
+
+    private MockResponse sobjects(RecordedRequest request, String[] resource) throws IOException {
+        stats.received(1);
+        if (takeError(MockError.UNABLE_TO_LOCK_ROW)) {
+            stats.processed(1, 1);
+            stats.error(MockError.UNABLE_TO_LOCK_ROW);
+            return json(400, Collections.singletonList(recordError(MockError.UNABLE_TO_LOCK_ROW.name(), MockError.UNABLE_TO_LOCK_ROW.getMessage())));
+        }
+        stats.processed(1, 0);
+        if (!"POST".equals(request.getMethod())) {
+            return new MockResponse().setResponseCode(204);
+        }
+        MAPPER.readValue(body(request), MAP_TYPE);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("id", recordId(Collections.<String, Object>emptyMap()));
+        result.put("success", true);
+        result.put("errors", Collections.emptyList());
+        return json(201, result);
+    }
+
+    private String recordId(Map<String, Object> record) {
+        Object id = record.containsKey("id") ? record.get("id") : record.get("Id");
+        return id != null ? id.toString() : String.format("001%012d", recordNumbers.incrementAndGet());
+    }
+
+    private static Map<String, Object> recordError(String statusCode, String message) {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("statusCode", statusCode);
+        error.put("message", message);
+        error.put("fields", Collections.emptyList());
+        return error;
+    }
+
+    private MockResponse error(MockError error) {
+        stats.error(error);
+        MockResponse response = error(error.getStatus(), error.name(), error.getMessage());
+        return error == MockError.INVALID_SESSION_ID ? response.setHeader("WWW-Authenticate", "Token") : response;
+    }
+
+    private static MockResponse error(int status, String errorCode, String message) {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("message", message);
+        error.put("errorCode", errorCode);
+        return json(status, Collections.singletonList(error));
+    }
+
+    private static MockResponse json(int status, Object body) {
+        try {
+            return new MockResponse().setResponseCode(status)
+                    .setHeader("Content-Type", "application/json;charset=UTF-8")
+                    .setBody(MAPPER.writeValueAsString(body));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode the response", e);
+        }
+    }
+
+    private static MockResponse csv(String body) {
+        return new MockResponse().setResponseCode(200)
+                .setHeader("Content-Type", "text/csv")
+                .setBody(body);
+    }
+
+    /**
+     * @return the request body, gunzipped when the client compressed it
+     */
+    private static byte[] body(RecordedRequest request) throws IOException {
+        Buffer body = request.getBody();
+        if ("gzip".equalsIgnoreCase(request.getHeader("Content-Encoding"))) {
+            return Okio.buffer(new GzipSource(body)).readByteArray();
+        }
+        return body.readByteArray();
+    }
+
+    /**
+     * Splits a multipart/form-data body in its parts, by name.
+     */
+    static Map<String, byte[]> parseMultipart(byte[] body, String boundary) {
+        ByteString delimiter = ByteString.encodeUtf8("--" + boundary);
+        ByteString partEnd = ByteString.encodeUtf8("\r\n--" + boundary);
+        ByteString headersEnd = ByteString.encodeUtf8("\r\n\r\n");
+        Buffer buffer = new Buffer().write(body);
+        Map<String, byte[]> parts = new LinkedHashMap<>();
+        try {
+            long start = buffer.indexOf(delimiter);
+            while (start >= 0) {
+                buffer.skip(start + delimiter.size());
+                long headersSize = buffer.indexOf(headersEnd);
+                long end = buffer.indexOf(partEnd);
+                if (buffer.rangeEquals(0, ByteString.encodeUtf8("--")) || headersSize < 0 || end < headersSize) {
+                    break;
+                }
+                String headers = buffer.readUtf8(headersSize);
+                buffer.skip(headersEnd.size());
+                byte[] content = buffer.readByteArray(end - headersSize - headersEnd.size());
+                buffer.skip(2);
+                Matcher name = PART_NAME.matcher(headers);
+                if (name.find()) {
+                    parts.put(name.group(1), content);
+                }
+                start = 0;
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Truncated multipart body", e);
+        }
+        return parts;
+    }
+
+    /**
+     * Runs the server until the process is stopped, printing its urls and a sample token.
+     *
+     * @param args optional port, a free one by default
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        MockSalesforceServer server = new MockSalesforceServer().start(args.length > 0 ? Integer.parseInt(args[0]) : 0);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.println(server.getStats())));
+        System.out.println("instance_url: " + server.getInstanceUrl());
+        System.out.println("token_url:    " + server.getTokenUrl());
+        System.out.println("access_token: " + server.issueToken());
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.mockserver;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput accounting of a {@link MockSalesforceServer}: requests per endpoint, bytes and records
+ * received and processed, injected errors. Counters are updated by the server threads while they
+ * are read, {@link #reset()} starts a new measurement.
+ */
+public class MockServerStats {
+
+    /**
+     * Endpoints the server tells apart
+     */
+    public enum Endpoint {
+        TOKEN, CREATE_JOB, UPLOAD_JOB_DATA, CLOSE_JOB, GET_JOB_INFO, GET_ALL_JOBS, GET_JOB_RESULTS, DELETE_JOB,
+        COMPOSITE_SOBJECTS, COMPOSITE, SOBJECTS, UNKNOWN
+    }
+
+    private final Map<Endpoint, LongAdder> requests = new EnumMap<>(Endpoint.class);
+
+    private final Map<MockError, LongAdder> errors = new EnumMap<>(MockError.class);
+
+    private final LongAdder bytesReceived = new LongAdder();
+
+    private final LongAdder bytesSent = new LongAdder();
+
+    private final LongAdder recordsReceived = new LongAdder();
+
+    private final LongAdder recordsProcessed = new LongAdder();
+
+    private final LongAdder recordsFailed = new LongAdder();
+
+    private volatile long startNanos = System.nanoTime();
+
+    MockServerStats() {
+        for (Endpoint endpoint : Endpoint.values()) {
+            requests.put(endpoint, new LongAdder());
+        }
+        for (MockError error : MockError.values()) {
+            errors.put(error, new LongAdder());
+        }
+    }
+
+    void request(Endpoint endpoint, long bodySize) {
+        requests.get(endpoint).increment();
+        bytesReceived.add(Math.max(0, bodySize));
+    }
+
+    void sent(long bodySize) {
+        bytesSent.add(bodySize);
+    }
+
+    void error(MockError error) {
+        errors.get(error).increment();
+    }
+
+    void received(long records) {
+        recordsReceived.add(records);
+    }
+
+    void processed(long records, long failed) {
+        recordsProcessed.add(records);
+        recordsFailed.add(failed);
+    }
+
+    /**
+     * Zeroes the counters and restarts the clock of {@link #getRecordsPerSecond()}.
+     */
+    public void reset() {
+        requests.values().forEach(LongAdder::reset);
+        errors.values().forEach(LongAdder::reset);
+        bytesReceived.reset();
+        bytesSent.reset();
+        recordsReceived.reset();
+        recordsProcessed.reset();
+        recordsFailed.reset();
+        startNanos = System.nanoTime();
+    }
+
+    public long getRequests() {
+        return requests.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    public long getRequests(Endpoint endpoint) {
+        return requests.get(endpoint).sum();
+    }
+
+    /**
+     * @return errors injected, including the requests rejected for an expired token
+     */
+    public long getErrors(MockError error) {
+        return errors.get(error).sum();
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    public long getBytesSent() {
+        return bytesSent.sum();
+    }
+
+    /**
+     * @return records uploaded to bulk jobs or sent to the composite and sobjects endpoints
+     */
+    public long getRecordsReceived() {
+        return recordsReceived.sum();
+    }
+
+    /**
+     * @return records of completed bulk jobs and of composite and sobjects requests, failed ones included
+     */
+    public long getRecordsProcessed() {
+        return recordsProcessed.sum();
+    }
+
+    public long getRecordsFailed() {
+        return recordsFailed.sum();
+    }
+
+    public double getElapsedSeconds() {
+        return (System.nanoTime() - startNanos) / 1e9;
+    }
+
+    /**
+     * @return processed records per second since the server started or the stats were reset
+     */
+    public double getRecordsPerSecond() {
+        double elapsed = getElapsedSeconds();
+        return elapsed > 0 ? getRecordsProcessed() / elapsed : 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("MockServerStats{requests=").append(getRequests());
+        requests.forEach((endpoint, count) -> {
+            if (count.sum() > 0) {
+                builder.append(", ").append(endpoint).append('=').append(count.sum());
+            }
+        });
+        errors.forEach((error, count) -> {
+            if (count.sum() > 0) {
+                builder.append(", ").append(error).append('=').append(count.sum());
+            }
+        });
+        return builder.append(", bytesReceived=").append(getBytesReceived())
+                .append(", bytesSent=").append(getBytesSent())
+                .append(", recordsReceived=").append(getRecordsReceived())
+                .append(", recordsProcessed=").append(getRecordsProcessed())
+                .append(", recordsFailed=").append(getRecordsFailed())
+                .append(", recordsPerSecond=").append(String.format("%.1f", getRecordsPerSecond()))
+                .append('}').toString();
+    }
+}
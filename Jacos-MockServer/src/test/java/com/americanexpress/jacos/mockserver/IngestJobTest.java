@@ -0,0 +1,58 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.mockserver;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class IngestJobTest {
+
+    private static byte[] bytes(String csv) {
+        return csv.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void countsRowsOutsideQuotes() {
+        Assert.assertEquals(0, IngestJob.countRows(bytes("")));
+        Assert.assertEquals(1, IngestJob.countRows(bytes("Id")));
+        Assert.assertEquals(3, IngestJob.countRows(bytes("Id,Name\n1,\"a\nb\"\n2,\"c\"\"\n\"\n")));
+        Assert.assertEquals(2, IngestJob.countRows(bytes("Id\r\n1")));
+    }
+
+    @Test
+    public void completesAfterProcessingTime() throws InterruptedException {
+        Map<String, Object> request = new HashMap<>();
+        request.put("object", "Account");
+        request.put("operation", "delete");
+        IngestJob job = new IngestJob(1, request, "2020-01-01T00:00:00Z");
+
+        Assert.assertEquals(2, job.upload(bytes("Id\n001A\n001B\n")));
+        AtomicInteger records = new AtomicInteger();
+        Assert.assertEquals(1, job.close(20, () -> records.getAndIncrement() == 0));
+        Assert.assertNotEquals(IngestJob.JOB_COMPLETE, job.info().get("state"));
+        Thread.sleep(30);
+
+        Assert.assertEquals(IngestJob.JOB_COMPLETE, job.info().get("state"));
+        Assert.assertEquals("sf__Id,sf__Error,Id\n001A," + IngestJob.LOCK_ROW_ERROR + ",001A\n", job.failedResults());
+        Assert.assertEquals("sf__Id,sf__Created,Id\n001B,false,001B\n", job.successfulResults());
+        Assert.assertEquals("Id\n", job.unprocessedRecords());
+    }
+}
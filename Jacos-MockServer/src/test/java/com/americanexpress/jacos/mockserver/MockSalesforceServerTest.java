@@ -0,0 +1,302 @@
+/*
+ * Copyright 2020 American Express Travel Related Services Company, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package com.americanexpress.jacos.mockserver;
+
+import com.americanexpress.jacos.bulkv2.Bulk2ClientBuilderJacos;
+import com.americanexpress.jacos.bulkv2.Bulk2ClientJacos;
+import com.americanexpress.jacos.bulkv2.response.JobResultReader;
+import com.americanexpress.jacos.bulkv2.response.JobResultRecord;
+import com.americanexpress.jacos.bulkv2.type.OperationEnumJacos;
+import com.americanexpress.jacos.commons.AccessTokenProvider;
+import com.americanexpress.jacos.commons.ConnectionPoolPolicy;
+import com.americanexpress.jacos.commons.WireLogPolicy;
+import com.americanexpress.jacos.model.CompositeRequest;
+import com.americanexpress.jacos.model.CompositeResponse;
+import com.americanexpress.jacos.mockserver.MockServerStats.Endpoint;
+import com.americanexpress.jacos.part.PartClient;
+import com.americanexpress.jacos.part.PartClientBuilder;
+import com.americanexpress.jacos.utils.RestUtils;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import endolabs.salesforce.bulkv2.BulkRequestException;
+import endolabs.salesforce.bulkv2.response.CreateJobResponse;
+import endolabs.salesforce.bulkv2.response.GetJobInfoResponse;
+import endolabs.salesforce.bulkv2.type.JobStateEnum;
+import org.apache.http.pool.PoolStats;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+public class MockSalesforceServerTest {
+
+    private static final String CSV = "Name,Description\nAcme,\"two\nlines\"\nGlobex,\nInitech,\n";
+
+    private MockSalesforceServer server;
+
+    private Bulk2ClientJacos<?> bulk2Client;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockSalesforceServer(42).start();
+        RestTemplate restTemplate = new RestTemplate();
+        RestUtils.ConfigBean configBean = new RestUtils.ConfigBean("refresh_token", "refresh", "id", "secret",
+                "application/x-www-form-urlencoded", server.getTokenUrl());
+        AccessTokenProvider tokenProvider = new AccessTokenProvider(server.issueToken(),
+                () -> RestUtils.getFreshAccessToken(restTemplate, configBean));
+        bulk2Client = new Bulk2ClientBuilderJacos()
+                .withAccessTokenProvider(tokenProvider, server.getInstanceUrl())
+                .useAPIVersion("v47.0")
+                .useGzipCompression()
+                .useWireLogPolicy(new WireLogPolicy(WireLogPolicy.Level.NONE))
+                .build();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Test
+    public void runsHardDeleteJob() {
+        CreateJobResponse job = bulk2Client.createJob("Account", OperationEnumJacos.HARDDELETE, null);
+        Assert.assertNull(job.getOperation());
+        bulk2Client.uploadJobData(job.getId(), "Id\n001A\n001B\n");
+        bulk2Client.closeJob(job.getId());
+
+        GetJobInfoResponse info = awaitCompletion(job.getId());
+        Assert.assertEquals(JobStateEnum.JOB_COMPLETE, info.getState());
+        Assert.assertEquals(2, info.getNumberRecordsProcessed().intValue());
+    }
+
+    @Test
+    public void runsBulkJobWithFailedRecords() throws IOException {
+        server.useJobProcessingTime(50).failNext(MockError.UNABLE_TO_LOCK_ROW, 1);
+
+        CreateJobResponse job = bulk2Client.createJob("Account", OperationEnumJacos.INSERT, null);
+        bulk2Client.uploadJobData(job.getId(), CSV);
+        Assert.assertEquals(JobStateEnum.UPLOAD_COMPLETE, bulk2Client.closeJob(job.getId()).getState());
+
+        GetJobInfoResponse info = awaitCompletion(job.getId());
+        Assert.assertEquals(JobStateEnum.JOB_COMPLETE, info.getState());
+        Assert.assertEquals(3, info.getNumberRecordsProcessed().intValue());
+        Assert.assertEquals(1, info.getNumberRecordsFailed().intValue());
+
+        try (JobResultReader failed = bulk2Client.readJobFailedRecords(job.getId())) {
+            List<JobResultRecord> records = failed.stream().collect(Collectors.toList());
+            Assert.assertEquals(1, records.size());
+            Assert.assertEquals("UNABLE_TO_LOCK_ROW", records.get(0).getErrorCode());
+            Assert.assertEquals("two\nlines", records.get(0).get("Description"));
+        }
+        try (JobResultReader successful = bulk2Client.readJobSuccessfulRecords(job.getId())) {
+            List<JobResultRecord> records = successful.stream().collect(Collectors.toList());
+            Assert.assertEquals(2, records.size());
+            Assert.assertTrue(records.get(0).isCreated());
+            Assert.assertEquals("Globex", records.get(0).get("Name"));
+        }
+        bulk2Client.deleteJob(job.getId());
+        Assert.assertEquals(0, server.getJobCount());
+
+        MockServerStats stats = server.getStats();
+        Assert.assertEquals(3, stats.getRecordsReceived());
+        Assert.assertEquals(3, stats.getRecordsProcessed());
+        Assert.assertEquals(1, stats.getRecordsFailed());
+        Assert.assertEquals(1, stats.getErrors(MockError.UNABLE_TO_LOCK_ROW));
+        Assert.assertEquals(1, stats.getRequests(Endpoint.UPLOAD_JOB_DATA));
+        Assert.assertTrue(stats.getRequests(Endpoint.GET_JOB_INFO) >= 1);
+    }
+
+    @Test
+    public void createsJobWithMultipartData() {
+        CreateJobResponse job = bulk2Client.createJob("Account", OperationEnumJacos.INSERT, null,
+                request -> request.withContent(CSV.getBytes(StandardCharsets.UTF_8)));
+
+        Assert.assertEquals(JobStateEnum.UPLOAD_COMPLETE, job.getState());
+        Assert.assertEquals(3, bulk2Client.getJobInfo(job.getId()).getNumberRecordsProcessed().intValue());
+        Assert.assertEquals(0, server.getStats().getRequests(Endpoint.UPLOAD_JOB_DATA));
+    }
+
+    @Test
+    public void refreshesExpiredToken() {
+        CreateJobResponse job = bulk2Client.createJob("Account", OperationEnumJacos.INSERT, null);
+        server.expireTokens();
+
+        Assert.assertEquals(JobStateEnum.OPEN, bulk2Client.getJobInfo(job.getId()).getState());
+        Assert.assertEquals(1, server.getStats().getRequests(Endpoint.TOKEN));
+        Assert.assertEquals(1, server.getStats().getErrors(MockError.INVALID_SESSION_ID));
+    }
+
+    @Test
+    public void reportsUnavailableServer() {
+        server.failNext(MockError.SERVER_UNAVAILABLE, 1);
+        try {
+            bulk2Client.createJob("Account", OperationEnumJacos.INSERT, null);
+            Assert.fail("Error not reported");
+        } catch (BulkRequestException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("SERVER_UNAVAILABLE"));
+        }
+        Assert.assertEquals(0, server.getJobCount());
+        Assert.assertNotNull(bulk2Client.createJob("Account", OperationEnumJacos.INSERT, null).getId());
+    }
+
+    @Test
+    public void insertsCompositeRecordsWithPartClient() throws Exception {
+        PartClient partClient = new PartClientBuilder<>()
+                .withSessionId(server.issueToken(), server.getInstanceUrl())
+                .useAPIVersion("v47.0")
+                .build();
+        server.failNext(MockError.UNABLE_TO_LOCK_ROW, 1);
+
+        String response = partClient.modifyObject("Account", OperationEnumJacos.MULTIINSERT,
+                "{\"allOrNone\":false,\"records\":[{\"attributes\":{\"type\":\"Account\"},\"Name\":\"Acme\"},"
+                        + "{\"attributes\":{\"type\":\"Account\"},\"Name\":\"Globex\"}]}");
+
+        List<Map<String, Object>> results = new ObjectMapper().readValue(response, new TypeReference<List<Map<String, Object>>>() {
+        });
+        Assert.assertEquals(2, results.size());
+        Assert.assertEquals(Boolean.FALSE, results.get(0).get("success"));
+        Assert.assertEquals(Boolean.TRUE, results.get(1).get("success"));
+        Assert.assertEquals(1, server.getStats().getRequests(Endpoint.COMPOSITE_SOBJECTS));
+        Assert.assertEquals(2, server.getStats().getRecordsProcessed());
+        Assert.assertEquals(1, server.getStats().getRecordsFailed());
+    }
+
+    @Test
+    public void runsDependentSubrequestsInOneCall() throws Exception {
+        PartClient<?> partClient = new PartClientBuilder<>()
+                .withSessionId(server.issueToken(), server.getInstanceUrl())
+                .useAPIVersion("v47.0")
+                .build();
+        Map<String, Object> contact = new LinkedHashMap<>();
+        contact.put("LastName", "Smith");
+        contact.put("AccountId", CompositeRequest.reference("newAccount", "id"));
+        CompositeRequest request = new CompositeRequest()
+                .addSubrequest("POST", CompositeRequest.sobjectUrl("Account"), "newAccount", Collections.singletonMap("Name", "Acme"))
+                .addSubrequest("POST", CompositeRequest.sobjectUrl("Contact"), "newContact", contact)
+                .addSubrequest("PATCH", CompositeRequest.sobjectUrl("Account", CompositeRequest.reference("newAccount", "id")), "renameAccount",
+                        Collections.singletonMap("Name", "Acme Corp"));
+
+        CompositeResponse response = partClient.executeComposite(request);
+        Assert.assertTrue(response.toString(), response.isSuccess());
+        Assert.assertNotNull(response.get("newContact").getId());
+        Assert.assertEquals(204, response.get("renameAccount").getHttpStatusCode());
+
+        server.failNext(MockError.UNABLE_TO_LOCK_ROW, 1);
+        request.setAllOrNone(true);
+        response = partClient.executeComposite(request);
+        Assert.assertFalse(response.isSuccess());
+        Assert.assertEquals("UNABLE_TO_LOCK_ROW", response.get("newAccount").getBody().get(0).get("statusCode").asText());
+        Assert.assertEquals("PROCESSING_HALTED", response.get("renameAccount").getBody().get(0).get("statusCode").asText());
+
+        Assert.assertEquals(2, server.getStats().getRequests(Endpoint.COMPOSITE));
+        Assert.assertEquals(6, server.getStats().getRecordsProcessed());
+        Assert.assertEquals(3, server.getStats().getRecordsFailed());
+    }
+
+    @Test
+    public void sharesPartClientBetweenThreadsAcrossTokenExpiry() throws Exception {
+        RestTemplate restTemplate = new RestTemplate();
+        RestUtils.ConfigBean configBean = new RestUtils.ConfigBean("refresh_token", "refresh", "id", "secret",
+                "application/x-www-form-urlencoded", server.getTokenUrl());
+        PartClient<RestUtils.ConfigBean> partClient = new PartClientBuilder<RestUtils.ConfigBean>()
+                .withSessionId(server.issueToken(), server.getInstanceUrl())
+                .setCallbackConfigBean(configBean)
+                .setRefreshTokenCallback((template, bean) -> RestUtils.getFreshAccessToken(restTemplate, bean))
+                .useAPIVersion("v47.0")
+                .build();
+        server.expireTokens();
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<String>> responses = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                String payload = "{\"Name\":\"Acme " + i + "\"}";
+                responses.add(executor.submit(() -> partClient.modifyObject("Account", OperationEnumJacos.INSERT, payload)));
+            }
+            for (Future<String> response : responses) {
+                Assert.assertEquals("201", response.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(1, server.getStats().getRequests(Endpoint.TOKEN));
+        Assert.assertEquals(64, server.getStats().getRecordsProcessed());
+        Assert.assertEquals(1, partClient.getRestHeaders().get("Authorization").size());
+    }
+
+    @Test
+    public void reusesPooledConnections() throws Exception {
+        ConnectionPoolPolicy connectionPool = new ConnectionPoolPolicy();
+        connectionPool.setMaxPerRoute(4);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try (PartClient<?> partClient = new PartClientBuilder<>()
+                .withSessionId(server.issueToken(), server.getInstanceUrl())
+                .useAPIVersion("v47.0")
+                .useConnectionPool(connectionPool)
+                .build()) {
+            List<Future<String>> responses = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                String payload = "{\"Name\":\"Acme " + i + "\"}";
+                responses.add(executor.submit(() -> partClient.modifyObject("Account", OperationEnumJacos.INSERT, payload)));
+            }
+            for (Future<String> response : responses) {
+                Assert.assertEquals("201", response.get(10, TimeUnit.SECONDS));
+            }
+
+            PoolStats stats = partClient.getConnectionPoolStats();
+            Assert.assertEquals(0, stats.getLeased());
+            Assert.assertEquals(0, stats.getPending());
+            Assert.assertTrue(stats.toString(), stats.getAvailable() >= 1 && stats.getAvailable() <= 4);
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(64, server.getStats().getRecordsProcessed());
+    }
+
+    @Test
+    public void splitsMultipartBody() {
+        String body = "--b1\r\nContent-Disposition: form-data; name=\"job\"\r\n\r\n{}\r\n"
+                + "--b1\r\nContent-Disposition: form-data; name=\"content\"; filename=\"content\"\r\nContent-Type: text/csv\r\n\r\nId\r\n1\r\n--b1--\r\n";
+
+        Map<String, byte[]> parts = MockSalesforceServer.parseMultipart(body.getBytes(StandardCharsets.UTF_8), "b1");
+
+        Assert.assertEquals("{}", new String(parts.get("job"), StandardCharsets.UTF_8));
+        Assert.assertEquals("Id\r\n1", new String(parts.get("content"), StandardCharsets.UTF_8));
+    }
+
+    private GetJobInfoResponse awaitCompletion(String jobId) {
+        long deadline = System.currentTimeMillis() + 5000;
+        GetJobInfoResponse info = bulk2Client.getJobInfo(jobId);
+        while (!info.getState().isFinished() && System.currentTimeMillis() < deadline) {
+            info = bulk2Client.getJobInfo(jobId);
+        }
+        return info;
+    }
+}